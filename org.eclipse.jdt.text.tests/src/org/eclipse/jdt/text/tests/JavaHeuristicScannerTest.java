@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,8 +17,10 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.rules.FastPartitioner;
 
 import org.eclipse.jdt.core.JavaCore;
@@ -1104,4 +1106,55 @@ public class JavaHeuristicScannerTest extends TestCase {
 		indent= fScanner.computeIndentation(offset).toString();
 		Assert.assertEquals("\t\t\t", indent);
 	}
+
+	public void testIndentationWithScopeCache() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("class A {\n");
+		buf.append("void foo() {\n");
+		buf.append("int[] values= new int[] {\n");
+		for (int i= 0; i < 200; i++)
+			buf.append(i).append(",\n");
+		buf.append("};\n");
+		for (int i= 0; i < 50; i++) {
+			buf.append("if (values[").append(i).append("] > 0) {\n");
+			buf.append("values[").append(i).append("]--;\n");
+			buf.append("} else {\n");
+			buf.append("foo(new int[] { 1,\n");
+			buf.append("2 });\n");
+			buf.append("}\n");
+		}
+		buf.append("}\n");
+		buf.append("}\n");
+		String source= buf.toString();
+
+		fDocument.set(source);
+		indentLines(new JavaIndenter(fDocument, fHeuristicScanner), false);
+		String expected= fDocument.get();
+
+		fDocument.set(source);
+		indentLines(new JavaIndenter(fDocument, fHeuristicScanner), true);
+		Assert.assertEquals(expected, fDocument.get());
+	}
+
+	/*
+	 * Indents all lines in top-down order, the way the indent action does.
+	 */
+	private void indentLines(JavaIndenter indenter, boolean useScopeCache) throws BadLocationException {
+		if (useScopeCache)
+			indenter.installScopeCache();
+		try {
+			for (int line= 0; line < fDocument.getNumberOfLines(); line++) {
+				IRegion region= fDocument.getLineInformation(line);
+				int offset= region.getOffset();
+				int end= offset;
+				while (end < offset + region.getLength() && Character.isWhitespace(fDocument.getChar(end)))
+					end++;
+				StringBuffer indent= indenter.computeIndentation(offset);
+				if (indent != null)
+					fDocument.replace(offset, end - offset, indent.toString());
+			}
+		} finally {
+			indenter.uninstallScopeCache();
+		}
+	}
 }
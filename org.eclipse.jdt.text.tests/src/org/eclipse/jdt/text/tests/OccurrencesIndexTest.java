@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
+import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesIndex;
+
+/**
+ * Tests that {@link OccurrencesIndex} answers the same occurrences as {@link OccurrencesFinder}
+ * for every name in a compilation unit.
+ *
+ * @since 3.9
+ */
+public class OccurrencesIndexTest extends TestCase {
+
+	private static final Class THIS= OccurrencesIndexTest.class;
+
+	public static Test suite() {
+		return new JUnitProjectTestSetup(new TestSuite(THIS));
+	}
+
+	private ASTParser fParser;
+
+	protected void setUp() throws Exception {
+		fParser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+	}
+
+	public void testJUnitSources() throws Exception {
+		IJavaProject project= JUnitProjectTestSetup.getProject();
+		IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+		int count= 0;
+		for (int i= 0; i < roots.length; i++) {
+			if (roots[i].getKind() != IPackageFragmentRoot.K_SOURCE)
+				continue;
+			IJavaElement[] children= roots[i].getChildren();
+			for (int j= 0; j < children.length; j++) {
+				ICompilationUnit[] units= ((IPackageFragment) children[j]).getCompilationUnits();
+				for (int k= 0; k < units.length; k++) {
+					count+= assertSameOccurrences(units[k]);
+				}
+			}
+		}
+		assertTrue(count > 0);
+	}
+
+	public void testWritesAndStaticImports() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(JUnitProjectTestSetup.getProject(), "occurrences");
+		try {
+			IPackageFragment pack= sourceFolder.createPackageFragment("test1", false, null);
+			StringBuffer buf= new StringBuffer();
+			buf.append("package test1;\n");
+			buf.append("import static java.lang.Math.max;\n");
+			buf.append("import static java.lang.Math.*;\n");
+			buf.append("public class E {\n");
+			buf.append("    int fField;\n");
+			buf.append("    static int fgCount= 1;\n");
+			buf.append("    E fOther;\n");
+			buf.append("    void foo(int param) {\n");
+			buf.append("        int local= param;\n");
+			buf.append("        local++;\n");
+			buf.append("        --fField;\n");
+			buf.append("        fOther.fField= max(local, abs(param));\n");
+			buf.append("        this.fField+= E.fgCount;\n");
+			buf.append("        test1.E.fgCount= max(1L, 2L) > 0 ? 1 : 0;\n");
+			buf.append("        new E().foo(fOther.fOther.fField);\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			ICompilationUnit cu= pack.createCompilationUnit("E.java", buf.toString(), false, null);
+
+			assertTrue(assertSameOccurrences(cu) > 0);
+		} finally {
+			JavaProjectHelper.removeSourceContainer(JUnitProjectTestSetup.getProject(), "occurrences");
+		}
+	}
+
+	/*
+	 * Returns the number of compared names.
+	 */
+	private int assertSameOccurrences(ICompilationUnit cu) {
+		fParser.setSource(cu);
+		fParser.setResolveBindings(true);
+		CompilationUnit root= (CompilationUnit) fParser.createAST(null);
+
+		final List<Name> names= new ArrayList<Name>();
+		root.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(SimpleName node) {
+				names.add(node);
+				return true;
+			}
+			@Override
+			public boolean visit(QualifiedName node) {
+				names.add(node);
+				return true;
+			}
+		});
+
+		OccurrencesIndex index= OccurrencesIndex.create(root);
+		int count= 0;
+		for (int i= 0; i < names.size(); i++) {
+			Name name= names.get(i);
+			if (name.resolveBinding() == null || !index.canAnswer(name))
+				continue;
+			OccurrencesFinder finder= new OccurrencesFinder();
+			if (finder.initialize(root, name) != null)
+				continue;
+
+			String message= cu.getElementName() + ": " + name + " at " + name.getStartPosition();
+			assertSameLocations(message, finder.getOccurrences(), index.getOccurrences(name));
+			count++;
+		}
+		return count;
+	}
+
+	private static void assertSameLocations(String message, OccurrenceLocation[] expected, OccurrenceLocation[] actual) {
+		if (expected == null || expected.length == 0) {
+			assertTrue(message, actual == null || actual.length == 0);
+			return;
+		}
+		assertNotNull(message, actual);
+		assertEquals(message, expected.length, actual.length);
+		sortByOffset(expected);
+		sortByOffset(actual);
+		for (int i= 0; i < expected.length; i++) {
+			assertEquals(message, expected[i].getOffset(), actual[i].getOffset());
+			assertEquals(message, expected[i].getLength(), actual[i].getLength());
+			assertEquals(message, expected[i].getFlags(), actual[i].getFlags());
+			assertEquals(message, expected[i].getDescription(), actual[i].getDescription());
+		}
+	}
+
+	private static void sortByOffset(OccurrenceLocation[] locations) {
+		Arrays.sort(locations, new Comparator<OccurrenceLocation>() {
+			public int compare(OccurrenceLocation location0, OccurrenceLocation location1) {
+				return location0.getOffset() - location1.getOffset();
+			}
+		});
+	}
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.text.tests.contentassist;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
@@ -21,6 +22,9 @@ import org.eclipse.jdt.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.testplugin.TestOptions;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jface.preference.IPreferenceStore;
 
@@ -38,6 +42,7 @@ import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.PlatformUI;
 
 import org.eclipse.jdt.core.CompletionProposal;
+import org.eclipse.jdt.core.CompletionRequestor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -61,7 +66,10 @@ import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.text.java.AbstractJavaCompletionProposal;
+import org.eclipse.jdt.internal.ui.text.java.CompletionPrefetcher;
 import org.eclipse.jdt.internal.ui.text.java.FillArgumentNamesCompletionProposalCollector;
+import org.eclipse.jdt.internal.ui.text.java.JavaAllCompletionProposalComputer;
 import org.eclipse.jdt.internal.ui.text.java.JavaCompletionProposalComputer;
 import org.eclipse.jdt.internal.ui.text.java.JavaNoTypeCompletionProposalComputer;
 
@@ -123,6 +131,7 @@ public class CodeCompletionTest extends AbstractCompletionTest {
 		store.setToDefault(PreferenceConstants.CODEGEN_ADD_COMMENTS);
 		store.setToDefault(PreferenceConstants.CODEASSIST_GUESS_METHOD_ARGUMENTS);
 		store.setToDefault(PreferenceConstants.CODEASSIST_SHOW_VISIBLE_PROPOSALS);
+		store.setToDefault(PreferenceConstants.CODEASSIST_PREFETCH);
 		closeAllEditors();
 		JavaProjectHelper.delete(fJProject1);
 	}
@@ -737,6 +746,45 @@ public class CodeCompletionTest extends AbstractCompletionTest {
 		return new JavaContentAssistInvocationContext(viewer, offset, editor);
 	}
 
+	public void testProposalLimit() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class A {\n");
+		buf.append("    int fooField;\n");
+		buf.append("    public void fooMethod() {\n");
+		buf.append("    }\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        int fooLocal= 0;\n");
+		buf.append("        foo\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String contents= buf.toString();
+
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", contents, false, null);
+
+		String str= "        foo";
+		int offset= contents.indexOf(str) + str.length();
+
+		CompletionProposalCollector collector= createCollector(cu, offset);
+		codeComplete(cu, offset, collector);
+		IJavaCompletionProposal[] all= collector.getJavaCompletionProposals();
+		assertNumberOf("proposals", all.length, 3);
+		int maxRelevance= Integer.MIN_VALUE;
+		for (int i= 0; i < all.length; i++)
+			maxRelevance= Math.max(maxRelevance, all[i].getRelevance());
+
+		collector= createCollector(cu, offset);
+		collector.setProposalLimit(1);
+		codeComplete(cu, offset, collector);
+		IJavaCompletionProposal[] limited= collector.getJavaCompletionProposals();
+		assertNumberOf("proposals", limited.length, 1);
+		assertEquals(2, collector.getDroppedProposalCount());
+		assertEquals(maxRelevance, limited[0].getRelevance());
+	}
+
 	public void testGetterCompletion1() throws Exception {
 		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
 
@@ -1824,6 +1872,374 @@ public class CodeCompletionTest extends AbstractCompletionTest {
 		}
 	}
 
+	public void testNarrowedPrefix() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("public class A {\n");
+		buf.append("    public void foo1() {\n");
+		buf.append("    }\n");
+		buf.append("    public void foo2() {\n");
+		buf.append("    }\n");
+		buf.append("    public void fox() {\n");
+		buf.append("    }\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        fo//here\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String contents= buf.toString();
+
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", contents, false, null);
+
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= contents.indexOf("//here");
+
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+			JavaCompletionProposalComputer computer= new JavaNoTypeCompletionProposalComputer();
+
+			List proposals= computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+			assertNotNull("no proposal for fox()", findProposal(proposals, "fox"));
+			assertEquals(0, computer.getResultCache().getHits());
+			assertEquals(1, computer.getResultCache().getMisses());
+
+			// the narrowed prefix is answered from the previous result
+			doc.replace(offset, 0, "o");
+			offset++;
+			proposals= computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+			assertEquals(1, computer.getResultCache().getHits());
+			assertEquals(1, computer.getResultCache().getMisses());
+			assertNull("unexpected proposal for fox()", findProposal(proposals, "fox"));
+			assertNotNull("no proposal for foo1()", findProposal(proposals, "foo1"));
+			ICompletionProposal proposal= findProposal(proposals, "foo2");
+			assertNotNull("no proposal for foo2()", proposal);
+
+			proposal.apply(doc);
+			assertEquals(contents.replaceFirst("fo//here", "foo2();//here"), doc.get());
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testNarrowedEmptyPrefix() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		pack1.createCompilationUnit("StringHolder.java", "package test1;\npublic class StringHolder {\n}\n", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("public class A {\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        //here\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String contents= buf.toString();
+
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", contents, false, null);
+
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= contents.indexOf("//here");
+
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+			JavaCompletionProposalComputer computer= new JavaAllCompletionProposalComputer();
+
+			computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+
+			// core does not propose all types for an empty prefix, so it is not narrowed
+			doc.replace(offset, 0, "StringH");
+			offset+= 7;
+			List proposals= computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+			assertEquals(0, computer.getResultCache().getHits());
+			assertEquals(2, computer.getResultCache().getMisses());
+			assertNotNull("no proposal for StringHolder", findProposal(proposals, "StringHolder"));
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testNarrowedPrefixRelevance() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("public class A {\n");
+		buf.append("    public void fooBar() {\n");
+		buf.append("    }\n");
+		buf.append("    public void foo() {\n");
+		buf.append("    }\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        f//here\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String contents= buf.toString();
+
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", contents, false, null);
+
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= contents.indexOf("//here");
+
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+			JavaCompletionProposalComputer computer= new JavaNoTypeCompletionProposalComputer();
+
+			computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+
+			doc.replace(offset, 0, "oo");
+			offset+= 2;
+			JavaContentAssistInvocationContext context= new JavaContentAssistInvocationContext(viewer, offset, part);
+			List replayed= computer.computeCompletionProposals(context, null);
+			assertEquals(1, computer.getResultCache().getHits());
+
+			// the replayed proposals are ranked like those of a new completion for the prefix
+			List computed= new JavaNoTypeCompletionProposalComputer().computeCompletionProposals(context, null);
+			IJavaCompletionProposal foo= (IJavaCompletionProposal) findProposal(replayed, "foo()");
+			IJavaCompletionProposal fooBar= (IJavaCompletionProposal) findProposal(replayed, "fooBar()");
+			assertEquals(((IJavaCompletionProposal) findProposal(computed, "foo()")).getRelevance(), foo.getRelevance());
+			assertEquals(((IJavaCompletionProposal) findProposal(computed, "fooBar()")).getRelevance(), fooBar.getRelevance());
+			assertTrue(foo.getRelevance() > fooBar.getRelevance());
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testNarrowedPrefixKeepsPreviousProposals() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("public class A {\n");
+		buf.append("    public void foo1() {\n");
+		buf.append("    }\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        fo//here\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String contents= buf.toString();
+
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", contents, false, null);
+
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= contents.indexOf("//here");
+
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+			JavaCompletionProposalComputer computer= new JavaNoTypeCompletionProposalComputer();
+
+			JavaContentAssistInvocationContext context= new JavaContentAssistInvocationContext(viewer, offset, part);
+			List proposals= computer.computeCompletionProposals(context, null);
+			IJavaCompletionProposal previous= (IJavaCompletionProposal) findProposal(proposals, "foo1");
+			assertNotNull("no proposal for foo1()", previous);
+			int previousOffset= context.getCoreContext().getOffset();
+
+			doc.replace(offset, 0, "o");
+			offset++;
+			context= new JavaContentAssistInvocationContext(viewer, offset, part);
+			proposals= computer.computeCompletionProposals(context, null);
+			assertNotNull("no proposal for foo1()", findProposal(proposals, "foo1"));
+
+			// the replayed core context describes the new token
+			assertEquals("foo", String.valueOf(context.getCoreContext().getToken()));
+			assertEquals(previousOffset + 1, context.getCoreContext().getOffset());
+
+			// the proposals of the previous result still replace the old prefix
+			assertEquals(2, ((AbstractJavaCompletionProposal) previous).getReplacementLength());
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testNarrowedPackagePrefix() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		IPackageFragment pack2= sourceFolder.createPackageFragment("tex", false, null);
+		pack2.createCompilationUnit("B.java", "package tex;\npublic class B {\n}\n", false, null);
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("import te;\n");
+		buf.append("\n");
+		buf.append("public class A {\n");
+		buf.append("}\n");
+		String contents= buf.toString();
+
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", contents, false, null);
+
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= contents.indexOf("te;") + 2;
+
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+			JavaCompletionProposalComputer computer= new JavaNoTypeCompletionProposalComputer();
+
+			List proposals= computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+			assertNotNull("no proposal for tex", findProposal(proposals, "tex"));
+
+			// package proposals are not narrowed from the previous result
+			doc.replace(offset, 0, "s");
+			offset++;
+			proposals= computer.computeCompletionProposals(new JavaContentAssistInvocationContext(viewer, offset, part), null);
+			assertNotNull("no proposal for test1", findProposal(proposals, "test1"));
+			assertNull("unexpected proposal for tex", findProposal(proposals, "tex"));
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	private static final class NameRequestor extends CompletionRequestor {
+		final List<String> fNames= new ArrayList<String>();
+
+		@Override
+		public void accept(CompletionProposal proposal) {
+			fNames.add(String.valueOf(proposal.getName()));
+		}
+	}
+
+	private ICompilationUnit createPrefetchUnit() throws Exception {
+		PreferenceConstants.getPreferenceStore().setValue(PreferenceConstants.CODEASSIST_PREFETCH, true);
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("public class A {\n");
+		buf.append("    public void foo(String s) {\n");
+		buf.append("        s;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack1.createCompilationUnit("A.java", buf.toString(), false, null);
+	}
+
+	public void testPrefetch() throws Exception {
+		ICompilationUnit cu= createPrefetchUnit();
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= cu.getSource().indexOf("s;") + 1;
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+
+			doc.replace(offset, 0, ".");
+			offset++;
+			Job.getJobManager().join(CompletionPrefetcher.FAMILY, null);
+
+			// another offset is not answered
+			NameRequestor requestor= new NameRequestor();
+			assertFalse(CompletionPrefetcher.replay(new JavaContentAssistInvocationContext(viewer, offset - 1, part), requestor, null));
+			assertTrue(requestor.fNames.isEmpty());
+
+			requestor= new NameRequestor();
+			assertTrue(CompletionPrefetcher.replay(new JavaContentAssistInvocationContext(viewer, offset, part), requestor, null));
+			assertTrue(requestor.fNames.contains("length"));
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testPrefetchInvalidatedByEdit() throws Exception {
+		ICompilationUnit cu= createPrefetchUnit();
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= cu.getSource().indexOf("s;") + 1;
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+
+			doc.replace(offset, 0, ".");
+			offset++;
+			Job.getJobManager().join(CompletionPrefetcher.FAMILY, null);
+
+			// same text and offset, but the document has been modified in between
+			doc.replace(offset, 0, "x");
+			doc.replace(offset, 1, "");
+			NameRequestor requestor= new NameRequestor();
+			assertFalse(CompletionPrefetcher.replay(new JavaContentAssistInvocationContext(viewer, offset, part), requestor, null));
+			assertTrue(requestor.fNames.isEmpty());
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testPrefetchCanceled() throws Exception {
+		ICompilationUnit cu= createPrefetchUnit();
+		IEditorPart part= JavaUI.openInEditor(cu);
+		IJobManager jobManager= Job.getJobManager();
+		jobManager.suspend();
+		try {
+			int offset= cu.getSource().indexOf("s;") + 1;
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+
+			// a further edit cancels the prefetch
+			doc.replace(offset, 0, ".");
+			assertEquals(1, jobManager.find(CompletionPrefetcher.FAMILY).length);
+			doc.replace(offset + 1, 0, "x");
+			assertEquals(0, jobManager.find(CompletionPrefetcher.FAMILY).length);
+
+			// a canceled invocation stops waiting, but keeps the prefetch
+			doc.replace(offset, 2, "");
+			doc.replace(offset, 0, ".");
+			offset++;
+			assertEquals(1, jobManager.find(CompletionPrefetcher.FAMILY).length);
+			NameRequestor requestor= new NameRequestor();
+			NullProgressMonitor monitor= new NullProgressMonitor();
+			monitor.setCanceled(true);
+			try {
+				CompletionPrefetcher.replay(new JavaContentAssistInvocationContext(viewer, offset, part), requestor, monitor);
+				fail("replay not canceled");
+			} catch (OperationCanceledException e) {
+				// expected
+			}
+			assertTrue(requestor.fNames.isEmpty());
+			assertEquals(1, jobManager.find(CompletionPrefetcher.FAMILY).length);
+		} finally {
+			jobManager.resume();
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	public void testPrefetchJoined() throws Exception {
+		ICompilationUnit cu= createPrefetchUnit();
+		IEditorPart part= JavaUI.openInEditor(cu);
+		try {
+			int offset= cu.getSource().indexOf("s;") + 1;
+			ISourceViewer viewer= ((JavaEditor) part).getViewer();
+			IDocument doc= JavaUI.getDocumentProvider().getDocument(part.getEditorInput());
+
+			// an invocation before the prefetch has finished waits for its result
+			doc.replace(offset, 0, ".");
+			offset++;
+			NameRequestor requestor= new NameRequestor();
+			assertTrue(CompletionPrefetcher.replay(new JavaContentAssistInvocationContext(viewer, offset, part), requestor, null));
+			assertTrue(requestor.fNames.contains("length"));
+		} finally {
+			part.getSite().getPage().closeAllEditors(false);
+		}
+	}
+
+	private static ICompletionProposal findProposal(List proposals, String displayStringPrefix) {
+		for (int i= 0; i < proposals.size(); i++) {
+			ICompletionProposal curr= (ICompletionProposal) proposals.get(i);
+			if (curr.getDisplayString().startsWith(displayStringPrefix))
+				return curr;
+		}
+		return null;
+	}
+
 	public void testStaticImports1() throws Exception {
 		IPreferenceStore store= PreferenceConstants.getPreferenceStore();
 		store.setValue(PreferenceConstants.CODEASSIST_FAVORITE_STATIC_MEMBERS, "test1.A.foo");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.text.tests.contentassist;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -239,6 +240,27 @@ public class ContentAssistHistoryTest extends TestCase {
 		assertEqualMap(map(LIST, list(ARRAY_LIST), COLLECTION, list(ARRAY_LIST), ITERABLE, list(ARRAY_LIST), CHAR_SEQUENCE, list(STRING)), loaded.getEntireHistory());
 	}
 
+	public void testSaveLoadFile() throws Exception {
+		File file= File.createTempFile("history", ".dat");
+		try {
+			ContentAssistHistory history= new ContentAssistHistory();
+			history.remember(fgListT, fgArrayListT);
+			history.remember(fgCharSequenceT, fgStringT);
+			history.remember(fgListT, fgLinkedListT);
+
+			history.setFile(file);
+			history.save();
+			ContentAssistHistory loaded= ContentAssistHistory.load(file);
+
+			assertEqualMap(map(LIST, list(ARRAY_LIST, LINKED_LIST), COLLECTION, list(ARRAY_LIST, LINKED_LIST), ITERABLE, list(ARRAY_LIST, LINKED_LIST), CHAR_SEQUENCE, list(STRING)), loaded.getEntireHistory());
+			assertEquals(1.0F, loaded.getHistory(LIST).getRank(LINKED_LIST), 0.0F);
+			assertEquals(0.5F, loaded.getHistory(LIST).getRank(ARRAY_LIST), 0.0F);
+			assertEquals(0.0F, loaded.getHistory(LIST).getRank(STRING), 0.0F);
+		} finally {
+			file.delete();
+		}
+	}
+
 	private static void assertEqualMap(Map expected, Map actual) {
 		assertEqualMap("", expected, actual);
 	}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistStatistics;
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistStatistics.Histogram;
+import org.eclipse.jdt.internal.ui.text.java.IContentAssistStatisticsListener;
+
+/**
+ * Tests the measurements reported by {@link ContentAssistStatistics}.
+ *
+ * @since 3.9
+ */
+public class ContentAssistStatisticsTest extends AbstractCompletionTest {
+	private static final Class THIS= ContentAssistStatisticsTest.class;
+
+	public static Test setUpTest(Test test) {
+		return new CompletionTestSetup(test);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS, suiteName(THIS)));
+	}
+
+	private static final class RecordingListener implements IContentAssistStatisticsListener {
+		final Map<String, Long> fComputers= new HashMap<String, Long>();
+		final Map<String, Long> fCategories= new HashMap<String, Long>();
+		final Map<String, Long> fPhases= new HashMap<String, Long>();
+
+		public synchronized void computerFinished(String computerId, long duration, int proposals) {
+			add(fComputers, computerId, duration);
+		}
+
+		public synchronized void categoryFinished(String categoryId, long duration, int proposals) {
+			add(fCategories, categoryId, duration);
+		}
+
+		public synchronized void phaseFinished(String phase, long duration, int proposals) {
+			add(fPhases, phase, duration);
+		}
+
+		private static void add(Map<String, Long> durations, String key, long duration) {
+			Long previous= durations.get(key);
+			durations.put(key, new Long(previous == null ? duration : Math.max(previous.longValue(), duration)));
+		}
+	}
+
+	private RecordingListener fListener;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ContentAssistStatistics.getDefault().reset();
+		fListener= new RecordingListener();
+		ContentAssistStatistics.getDefault().addListener(fListener);
+	}
+
+	protected void tearDown() throws Exception {
+		ContentAssistStatistics.getDefault().removeListener(fListener);
+		ContentAssistStatistics.getDefault().reset();
+		super.tearDown();
+	}
+
+	public void testListenerAndHistograms() throws Exception {
+		assertTrue(ContentAssistStatistics.getDefault().isEnabled());
+		assertMethodBodyProposal("h", "hashCode(", "hashCode()");
+
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		assertFalse(fListener.fComputers.isEmpty());
+		assertFalse(fListener.fCategories.isEmpty());
+		assertEquals(fListener.fComputers.keySet(), statistics.getComputerHistograms().keySet());
+		assertEquals(fListener.fCategories.keySet(), statistics.getCategoryHistograms().keySet());
+
+		assertTrue(fListener.fPhases.containsKey(ContentAssistStatistics.COMPUTING));
+		assertTrue(fListener.fPhases.containsKey(ContentAssistStatistics.APPLYING));
+		Histogram computing= statistics.getPhaseHistograms().get(ContentAssistStatistics.COMPUTING);
+		assertEquals(1, computing.getCount());
+		assertTrue(computing.getProposals() > 0);
+	}
+
+	public void testComputingIsElapsedTime() throws Exception {
+		assertMethodBodyProposal("h", "hashCode(", "hashCode()");
+
+		// all categories are computed within the computing phase
+		long computing= fListener.fPhases.get(ContentAssistStatistics.COMPUTING).longValue();
+		for (Iterator<Long> iter= fListener.fCategories.values().iterator(); iter.hasNext();)
+			assertTrue(iter.next().longValue() <= computing);
+	}
+
+	public void testWrite() throws Exception {
+		assertMethodBodyProposal("h", "hashCode(", "hashCode()");
+
+		StringWriter writer= new StringWriter();
+		ContentAssistStatistics.getDefault().write(writer);
+		String contents= writer.toString();
+		assertTrue(contents.startsWith("# subject"));
+		assertTrue(contents.indexOf("\nphase " + ContentAssistStatistics.COMPUTING + "\t1\t") != -1);
+		for (Iterator<String> iter= fListener.fComputers.keySet().iterator(); iter.hasNext();)
+			assertTrue(contents.indexOf("\ncomputer " + iter.next() + "\t") != -1);
+
+		ContentAssistStatistics.getDefault().reset();
+		writer= new StringWriter();
+		ContentAssistStatistics.getDefault().write(writer);
+		assertEquals(-1, writer.toString().indexOf("\nphase "));
+	}
+
+	public void testRecording() throws Exception {
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		statistics.removeListener(fListener);
+		try {
+			statistics.setRecording(true);
+			assertTrue(statistics.isEnabled());
+			assertMethodBodyProposal("h", "hashCode(", "hashCode()");
+			assertEquals(1, statistics.getPhaseHistograms().get(ContentAssistStatistics.COMPUTING).getCount());
+			assertTrue(fListener.fPhases.isEmpty());
+		} finally {
+			statistics.setRecording(false);
+		}
+	}
+}
@@ -27,6 +27,7 @@ public class ContentAssistTestSuite {
 		suite.addTest(CamelCaseCompletionTest.suite());
 		suite.addTest(JavadocCompletionTest.suite());
 		suite.addTest(ContentAssistHistoryTest.suite());
+		suite.addTest(ContentAssistStatisticsTest.suite());
 		suite.addTest(MethodInsertCompletionTest.suite());
 		suite.addTest(MethodInsertionFormattedCompletionTest.suite());
 		suite.addTest(MethodOverwriteCompletionTest.suite());
@@ -36,6 +37,7 @@ public class ContentAssistTestSuite {
 		suite.addTest(TypeCompletionTest17.suite());
 		suite.addTest(SpecialMethodsCompletionTest.suite());
 		suite.addTest(CodeCompletionTest.suite());
+		suite.addTest(HippieProposalComputerTest.suite());
 		//$JUnit-END$
 
 		return suite;
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
+
+import org.eclipse.jdt.internal.ui.text.java.HippieProposalComputer;
+
+/**
+ * @since 3.9
+ */
+public class HippieProposalComputerTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(HippieProposalComputerTest.class);
+	}
+
+	private HippieProposalComputer fComputer;
+
+	protected void setUp() throws Exception {
+		fComputer= new HippieProposalComputer();
+	}
+
+	private String[] computeWords(IDocument document, int offset) {
+		List<ICompletionProposal> proposals= fComputer.computeCompletionProposals(new ContentAssistInvocationContext(document, offset), null);
+		String[] words= new String[proposals.size()];
+		for (int i= 0; i < words.length; i++)
+			words[i]= proposals.get(i).getDisplayString();
+		return words;
+	}
+
+	private void assertWords(String[] expected, String[] actual) {
+		assertEquals(toString(expected), toString(actual));
+	}
+
+	private static String toString(String[] words) {
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < words.length; i++)
+			buf.append(words[i]).append('\n');
+		return buf.toString();
+	}
+
+	public void testPrefix() throws Exception {
+		IDocument document= new Document("foobar foo.baz\nfooqux fo bar");
+		assertWords(new String[] { "foo", "foobar", "fooqux" }, computeWords(document, 24));
+		assertWords(new String[] { "bar" }, computeWords(document, 12));
+		assertWords(new String[0], computeWords(document, 25));
+	}
+
+	public void testCurrentWord() throws Exception {
+		IDocument document= new Document("foobar fooqux");
+		// the word at the caret is not proposed unless it occurs elsewhere
+		assertWords(new String[] { "foobar" }, computeWords(document, 9));
+		document.replace(0, 0, "fooqux ");
+		assertWords(new String[] { "foobar", "fooqux" }, computeWords(document, 16));
+	}
+
+	public void testDocumentChanges() throws Exception {
+		IDocument document= new Document("foobar\nfoobaz\nfo");
+		assertWords(new String[] { "foobar", "foobaz" }, computeWords(document, document.getLength()));
+
+		document.replace(7, 6, "fooqux");
+		assertWords(new String[] { "foobar", "fooqux" }, computeWords(document, document.getLength()));
+
+		document.replace(3, 0, "\nfoo");
+		assertWords(new String[] { "foo", "foobar", "fooqux" }, computeWords(document, document.getLength()));
+
+		document.replace(0, 11, "");
+		assertWords(new String[] { "fooqux" }, computeWords(document, document.getLength()));
+
+		document.set("fo fooled");
+		assertWords(new String[] { "fooled" }, computeWords(document, 2));
+	}
+
+	public void testManyWords() throws Exception {
+		// more distinct words than are indexed per document
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i <= 30000; i++)
+			buf.append('w').append(i).append(' ');
+		buf.append("\nw2999");
+		IDocument document= new Document(buf.toString());
+
+		String[] expected= new String[10];
+		for (int i= 0; i < expected.length; i++)
+			expected[i]= "w2999" + i;
+		assertWords(expected, computeWords(document, document.getLength()));
+
+		document.replace(0, 0, "w2999a ");
+		String[] changed= new String[11];
+		System.arraycopy(expected, 0, changed, 0, expected.length);
+		changed[10]= "w2999a";
+		assertWords(changed, computeWords(document, document.getLength()));
+	}
+}
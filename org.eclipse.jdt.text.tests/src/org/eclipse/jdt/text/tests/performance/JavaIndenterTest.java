@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.jface.action.IAction;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 
 import org.eclipse.ui.texteditor.ITextEditor;
@@ -38,6 +39,9 @@ public class JavaIndenterTest extends TextPerformanceTestCase {
 
 	private static final int[] CTRL_END= new int[] { SWT.CTRL, SWT.END };
 
+	/** Number of elements of the array initializer indented by {@link #testIndentAction()}. */
+	private static final int INDENTED_ELEMENTS= 5000;
+
 	private ITextEditor fEditor;
 
 	public static Test suite() {
@@ -71,6 +75,56 @@ public class JavaIndenterTest extends TextPerformanceTestCase {
 		assertAllPerformance();
 	}
 
+	/**
+	 * Measures the indent action on a method with a large array initializer followed by nested
+	 * blocks, where the indentation of every line after the initializer requires matching its
+	 * braces.
+	 *
+	 * @throws BadLocationException if the document could not be prepared
+	 */
+	public void testIndentAction() throws BadLocationException {
+		IDocument document= EditorTestHelper.getDocument(fEditor);
+		int offset= document.getLength();
+		String text= getUnindentedText();
+		document.replace(offset, 0, text);
+		fEditor.selectAndReveal(offset, text.length());
+		measureIndentAction(getNullPerformanceMeter(), getWarmUpRuns());
+		measureIndentAction(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private static String getUnindentedText() {
+		StringBuffer buffer= new StringBuffer();
+		buffer.append("\nvoid foo() {\n");
+		buffer.append("int[] values= new int[] {\n");
+		for (int i= 0; i < INDENTED_ELEMENTS; i++)
+			buffer.append(i).append(",\n");
+		buffer.append("};\n");
+		for (int i= 0; i < INDENTED_ELEMENTS / 10; i++) {
+			buffer.append("if (values[").append(i).append("] > 0) {\n");
+			buffer.append("values[").append(i).append("]--;\n");
+			buffer.append("}\n");
+		}
+		buffer.append("}\n");
+		return buffer.toString();
+	}
+
+	private void measureIndentAction(PerformanceMeter performanceMeter, int runs) {
+		IDocument document= EditorTestHelper.getDocument(fEditor);
+		IAction indent= fEditor.getAction("Indent");
+		IAction undo= fEditor.getAction(ITextEditorActionConstants.UNDO);
+		String original= document.get();
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			runAction(indent);
+			performanceMeter.stop();
+			assertFalse(original.equals(document.get()));
+			runAction(undo);
+			assertEquals(original, document.get());
+		}
+	}
+
 	private void measureJavaIndenter(PerformanceMeter performanceMeter, int runs) {
 		final IDocument document= EditorTestHelper.getDocument(fEditor);
 		Display display= EditorTestHelper.getActiveDisplay();
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.util.MethodOverrideTester;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
+
+/**
+ * Measures the time to find the declaring methods of all methods in a compilation unit that is
+ * being edited, the way the override indicators do after each reconcile. The super type
+ * hierarchies of the unit's types extend into the JRE.
+ * <p>
+ * The cold runs start with testers whose results have been discarded. The edit runs follow a
+ * reconcile of a change in a method body, which must keep the memoized results. Both have to find
+ * the same methods as testers that have not memoized anything.
+ * </p>
+ *
+ * @since 3.9
+ */
+public class MethodOverrideTesterPerformanceTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= MethodOverrideTesterPerformanceTest.class;
+
+	private static final String FILE= "/" + PerformanceTestSetup.PROJECT + "/Eclipse SWT Custom Widgets/common/org/eclipse/swt/custom/StyledText.java";
+
+	private static final int WARM_UP_RUNS= 2;
+
+	private static final int MEASURED_RUNS= 5;
+
+	private ICompilationUnit fUnit;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+		fUnit= JavaCore.createCompilationUnitFrom(ResourceTestHelper.findFile(FILE));
+		fUnit.becomeWorkingCopy(null);
+		EditorTestHelper.joinBackgroundActivities();
+	}
+
+	protected void tearDown() throws Exception {
+		fUnit.discardWorkingCopy();
+		super.tearDown();
+	}
+
+	public void testFindDeclaringMethods() throws Exception {
+		IType[] types= fUnit.getAllTypes();
+		IMethod edited= getMethodWithBody(types);
+		List<IMethod> expected= findDeclaringMethodsWithoutMemo(types);
+
+		measure(getNullPerformanceMeter(), getNullPerformanceMeter(), types, edited, expected, getWarmUpRuns());
+		measure(createPerformanceMeter("-cold"), createPerformanceMeter("-edit"), types, edited, expected, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(PerformanceMeter coldMeter, PerformanceMeter editMeter, IType[] types, IMethod edited, List<IMethod> expected, int runs) throws JavaModelException {
+		for (int i= 0; i < runs; i++) {
+			for (int j= 0; j < types.length; j++) {
+				SuperTypeHierarchyCache.getMethodOverrideTester(types[j]).clearCachedResults();
+			}
+			assertEquals(expected, findDeclaringMethods(coldMeter, types));
+			editBody(edited);
+			assertEquals(expected, findDeclaringMethods(editMeter, types));
+		}
+	}
+
+	private static List<IMethod> findDeclaringMethods(PerformanceMeter performanceMeter, IType[] types) throws JavaModelException {
+		List<IMethod> result= new ArrayList<IMethod>();
+		performanceMeter.start();
+		for (int i= 0; i < types.length; i++) {
+			MethodOverrideTester tester= SuperTypeHierarchyCache.getMethodOverrideTester(types[i]);
+			IMethod[] methods= types[i].getMethods();
+			for (int j= 0; j < methods.length; j++) {
+				result.add(tester.findDeclaringMethod(methods[j], true));
+			}
+		}
+		performanceMeter.stop();
+		return result;
+	}
+
+	private static List<IMethod> findDeclaringMethodsWithoutMemo(IType[] types) throws JavaModelException {
+		List<IMethod> result= new ArrayList<IMethod>();
+		for (int i= 0; i < types.length; i++) {
+			IMethod[] methods= types[i].getMethods();
+			for (int j= 0; j < methods.length; j++) {
+				// a new tester for each method, so that no result is memoized
+				MethodOverrideTester tester= new MethodOverrideTester(types[i], SuperTypeHierarchyCache.getTypeHierarchy(types[i]));
+				result.add(tester.findDeclaringMethod(methods[j], true));
+			}
+		}
+		return result;
+	}
+
+	private static IMethod getMethodWithBody(IType[] types) throws JavaModelException {
+		for (int i= 0; i < types.length; i++) {
+			IMethod[] methods= types[i].getMethods();
+			for (int j= 0; j < methods.length; j++) {
+				if (methods[j].getSource().endsWith("}"))
+					return methods[j];
+			}
+		}
+		fail("no method with a body");
+		return null;
+	}
+
+	/**
+	 * Inserts a line at the end of the body of the given method and reconciles the working copy,
+	 * like typing in an editor.
+	 *
+	 * @param method the method
+	 * @throws JavaModelException if the working copy cannot be changed
+	 */
+	private void editBody(IMethod method) throws JavaModelException {
+		int offset= method.getSourceRange().getOffset() + method.getSource().lastIndexOf('}');
+		fUnit.getBuffer().replace(offset, 0, "\n");
+		fUnit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+	}
+}
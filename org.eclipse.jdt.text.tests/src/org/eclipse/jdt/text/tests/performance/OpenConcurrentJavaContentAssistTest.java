@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.TextUtilities;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistProcessor;
+
+/**
+ * Measures the time until the first proposals are shown when the completion proposal
+ * computers are run concurrently. Content assist is invoked in a string literal, where the word
+ * completions and the Java proposals are computed in background threads.
+ *
+ * @since 3.9
+ */
+public class OpenConcurrentJavaContentAssistTest extends OpenQuickControlTest {
+
+	private static final Class THIS= OpenConcurrentJavaContentAssistTest.class;
+
+	private static final int LINE= 3897;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		store.setValue(ContentAssistProcessor.PREF_CONCURRENT_COMPUTERS, true);
+	}
+
+	protected void tearDown() throws Exception {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		store.setToDefault(ContentAssistProcessor.PREF_CONCURRENT_COMPUTERS);
+		super.tearDown();
+	}
+
+	protected IAction setUpMeasurement(AbstractTextEditor editor) throws Exception {
+		editor.selectAndReveal(getStringOffset(EditorTestHelper.getDocument(editor)), 0);
+		EditorTestHelper.runEventQueue(100);
+		return editor.getAction("ContentAssistProposal");
+	}
+
+	/*
+	 * Returns the offset after the first character of the first string literal after LINE.
+	 */
+	private static int getStringOffset(IDocument document) throws BadLocationException {
+		for (int offset= document.getLineOffset(LINE), length= document.getLength(); offset < length; offset++) {
+			if (Character.isJavaIdentifierStart(document.getChar(offset))
+					&& document.getChar(offset - 1) == '"'
+					&& IJavaPartitions.JAVA_STRING.equals(TextUtilities.getContentType(document, IJavaPartitions.JAVA_PARTITIONING, offset, false)))
+				return offset + 1;
+		}
+		fail("no string literal after line " + LINE);
+		return -1;
+	}
+
+	protected void tearDownMeasurement(AbstractTextEditor editor) throws Exception {
+		EditorTestHelper.closeAllPopUps(EditorTestHelper.getSourceViewer(editor));
+	}
+
+	public void testTimeToFirstProposal() throws Exception {
+		PerformanceMeter coldMeter= createPerformanceMeter("-cold");
+		PerformanceMeter warmMeter= createPerformanceMeter("-warm");
+		measureOpenQuickControl(coldMeter, warmMeter);
+	}
+}
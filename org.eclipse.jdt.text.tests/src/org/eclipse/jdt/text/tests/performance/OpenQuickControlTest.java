@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,7 @@ public abstract class OpenQuickControlTest extends TextPerformanceTestCase {
 		TestSuite suite= new TestSuite(THIS.getName());
 		suite.addTest(OpenQuickOutlineTest.suite());
 		suite.addTest(OpenJavaContentAssistTest.suite());
+		suite.addTest(OpenConcurrentJavaContentAssistTest.suite());
 		return suite;
 	}
 
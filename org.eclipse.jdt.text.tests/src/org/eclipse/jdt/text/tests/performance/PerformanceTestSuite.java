@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,6 +32,7 @@ public class PerformanceTestSuite extends TestSuite {
 		addTest(UndoJavaEditorTest.suite());
 		addTest(OpenQuickOutlineTest.suite());
 		addTest(OpenJavaContentAssistTest.suite());
+		addTest(OpenConcurrentJavaContentAssistTest.suite());
 
 		// This test is currently disabled because the results vary too much.
 //		addTest(JavaSmartPasteTest.suite());
@@ -45,6 +46,7 @@ public class PerformanceTestSuite extends TestSuite {
 		addTest(JavaFormatterProjectTest.suite());
 		addTest(ContentTypeTest.suite());
 		addTest(CodeCompletionPerformanceTest.suite());
+		addTest(MethodOverrideTesterPerformanceTest.suite());
 		addTest(DocumentLineDifferInitializationTest.suite());
 		addTest(SynchronizedLineDifferInitializationTest.suite());
 		addTest(DocumentLineDifferModificationTest.suite());
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchPattern;
+
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringSearchEngine2;
+import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
+
+/**
+ * Tests that searching the projects of a scope in parallel finds the same results in the same
+ * order as searching the scope sequentially.
+ */
+public class RefactoringSearchEngine2Tests extends TestCase {
+
+	private static final Class clazz= RefactoringSearchEngine2Tests.class;
+
+	private IJavaProject fProject1;
+	private IJavaProject fProject2;
+	private IJavaProject fProject3;
+	private IType fType;
+
+	public RefactoringSearchEngine2Tests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(clazz);
+	}
+
+	protected void setUp() throws Exception {
+		fProject1= createProject("P1");
+		fProject2= createProject("P2");
+		fProject3= createProject("P3");
+		JavaProjectHelper.addRequiredProject(fProject2, fProject1);
+		JavaProjectHelper.addRequiredProject(fProject3, fProject1);
+
+		IPackageFragment pack= createPackage(fProject1, "src", "p");
+		fType= pack.createCompilationUnit("A.java", "package p;\npublic class A {\n public A next;\n}\n", true, null).getType("A");
+		pack.createCompilationUnit("Z.java", "package p;\npublic class Z extends A {\n A a;\n}\n", true, null);
+
+		pack= createPackage(fProject2, "src", "q");
+		pack.createCompilationUnit("B.java", "package q;\nimport p.A;\npublic class B {\n A a;\n A get() { return new A(); }\n}\n", true, null);
+		pack.createCompilationUnit("C.java", "package q;\npublic class C {\n p.A a;\n}\n", true, null);
+
+		pack= createPackage(fProject3, "src", "r");
+		pack.createCompilationUnit("D.java", "package r;\nimport p.A;\npublic class D extends A {\n}\n", true, null);
+		pack= createPackage(fProject3, "src2", "a");
+		pack.createCompilationUnit("E.java", "package a;\npublic class E {\n p.A a, b;\n}\n", true, null);
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fProject3);
+		JavaProjectHelper.delete(fProject2);
+		JavaProjectHelper.delete(fProject1);
+	}
+
+	public void testUngroupedMatches() throws Exception {
+		List<String> sequential= getMatches(search(false, false).getResults());
+		assertEquals(11, sequential.size());
+		assertEquals(sequential, getMatches(search(true, false).getResults()));
+	}
+
+	public void testGroupedMatches() throws Exception {
+		RefactoringSearchEngine2 sequential= search(false, true);
+		RefactoringSearchEngine2 parallel= search(true, true);
+		Object[] sequentialGroups= sequential.getResults();
+		Object[] parallelGroups= parallel.getResults();
+		assertEquals(6, sequentialGroups.length);
+		assertEquals(sequentialGroups.length, parallelGroups.length);
+		for (int i= 0; i < sequentialGroups.length; i++) {
+			SearchResultGroup sequentialGroup= (SearchResultGroup) sequentialGroups[i];
+			SearchResultGroup parallelGroup= (SearchResultGroup) parallelGroups[i];
+			assertEquals(sequentialGroup.getResource(), parallelGroup.getResource());
+			assertEquals(getMatches(sequentialGroup.getSearchResults()), getMatches(parallelGroup.getSearchResults()));
+		}
+		assertEquals(sequential.getStatus().getSeverity(), parallel.getStatus().getSeverity());
+		assertEquals(sequential.getAffectedProjects().keySet(), parallel.getAffectedProjects().keySet());
+	}
+
+	private RefactoringSearchEngine2 search(boolean parallel, boolean grouping) throws Exception {
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { fProject1, fProject2, fProject3 });
+		RefactoringSearchEngine2 engine= new RefactoringSearchEngine2(SearchPattern.createPattern(fType, IJavaSearchConstants.REFERENCES));
+		engine.setScope(scope);
+		engine.setGrouping(grouping);
+		engine.setParallel(parallel);
+		engine.searchPattern(new NullProgressMonitor());
+		return engine;
+	}
+
+	private static List<String> getMatches(Object[] matches) {
+		List<String> result= new ArrayList<String>(matches.length);
+		for (int i= 0; i < matches.length; i++) {
+			SearchMatch match= (SearchMatch) matches[i];
+			result.add(match.getResource().getFullPath() + "@" + match.getOffset() + ":" + match.getLength());
+		}
+		return result;
+	}
+
+	private static IJavaProject createProject(String name) throws Exception {
+		IJavaProject project= JavaProjectHelper.createJavaProject(name, "bin");
+		JavaProjectHelper.addRTJar(project);
+		return project;
+	}
+
+	private static IPackageFragment createPackage(IJavaProject project, String folder, String name) throws Exception {
+		IPackageFragmentRoot root= project.findPackageFragmentRoot(project.getPath().append(folder));
+		if (root == null)
+			root= JavaProjectHelper.addSourceContainer(project, folder);
+		return root.createPackageFragment(name, true, null);
+	}
+}
@@ -21,7 +21,9 @@ import org.eclipse.jdt.ui.tests.browsing.PackagesViewContentProviderTests;
 import org.eclipse.jdt.ui.tests.browsing.PackagesViewContentProviderTests2;
 import org.eclipse.jdt.ui.tests.browsing.PackagesViewDeltaTests;
 import org.eclipse.jdt.ui.tests.buildpath.BuildpathModifierActionTest;
+import org.eclipse.jdt.ui.tests.callhierarchy.BreadthFirstCallerSearchTest;
 import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyContentProviderTest;
+import org.eclipse.jdt.ui.tests.callhierarchy.CallerCacheTest;
 import org.eclipse.jdt.ui.tests.core.CoreTests;
 import org.eclipse.jdt.ui.tests.jarexport.JarExportTests;
 import org.eclipse.jdt.ui.tests.model.ContentProviderTests;
@@ -66,6 +68,8 @@ public class AutomatedSuite extends TestSuite {
 		addTest(ContentProviderTests.suite());
 
 		addTest(CallHierarchyContentProviderTest.suite());
+		addTest(BreadthFirstCallerSearchTest.suite());
+		addTest(CallerCacheTest.suite());
 
 		addTest(SearchTest.suite());
 		addTest(JUnitJUnitTests.suite());
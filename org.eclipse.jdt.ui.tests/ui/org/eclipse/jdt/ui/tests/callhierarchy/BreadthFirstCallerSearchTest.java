@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.callhierarchy;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.BreadthFirstCallerSearch;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerCache;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+public class BreadthFirstCallerSearchTest extends TestCase {
+
+    private static final Class THIS= BreadthFirstCallerSearchTest.class;
+
+    private CallHierarchyTestHelper helper;
+
+    public BreadthFirstCallerSearchTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(THIS);
+    }
+
+    protected void setUp() throws Exception {
+        helper= new CallHierarchyTestHelper();
+        helper.setUp();
+        helper.createPackages();
+        CallerCache.clear();
+    }
+
+    protected void tearDown() throws Exception {
+        CallerCache.clear();
+        helper.tearDown();
+        helper= null;
+    }
+
+    /**
+     * Tests that the callers found by one search for several methods are assigned to the methods
+     * they call.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBatchAttributesCallers() throws Exception {
+        IType a= createType("A",
+                "public class A {\n" +
+                "    public void foo() { }\n" +
+                "    public void bar() { }\n" +
+                "    public void baz() { }\n" +
+                "    public void callsFoo() { foo(); }\n" +
+                "    public void callsBar() { this.bar(); }\n" +
+                "    public void callsFooAndBar(A a) { a.foo(); a.bar(); }\n" +
+                "}\n");
+        IMethod foo= a.getMethod("foo", new String[0]);
+        IMethod bar= a.getMethod("bar", new String[0]);
+        IMethod baz= a.getMethod("baz", new String[0]);
+        IMethod callsFooAndBar= a.getMethod("callsFooAndBar", new String[] { "QA;" });
+
+        MethodWrapper[] roots= searchCallers(new IMember[] { foo, bar, baz });
+        assertCallers(roots[0], new IMember[] { a.getMethod("callsFoo", new String[0]), callsFooAndBar });
+        assertCallers(roots[1], new IMember[] { a.getMethod("callsBar", new String[0]), callsFooAndBar });
+        assertCallers(roots[2], new IMember[0]);
+    }
+
+    /**
+     * Tests that the callers are searched one by one if a match of the search for several methods
+     * cannot be assigned to a method.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFallbackAttributesCallers() throws Exception {
+        // the unicode escape hides the method name in the source of the match
+        IType a= createType("A",
+                "public class A {\n" +
+                "    public void foo() { }\n" +
+                "    public void bar() { }\n" +
+                "    public void callsFoo() { f\\u006fo(); }\n" +
+                "    public void callsBar() { bar(); }\n" +
+                "}\n");
+        IMethod foo= a.getMethod("foo", new String[0]);
+        IMethod bar= a.getMethod("bar", new String[0]);
+
+        MethodWrapper[] roots= searchCallers(new IMember[] { foo, bar });
+        assertCallers(roots[0], new IMember[] { a.getMethod("callsFoo", new String[0]) });
+        assertCallers(roots[1], new IMember[] { a.getMethod("callsBar", new String[0]) });
+    }
+
+    /**
+     * Tests that the callers of methods which are not searched together are found as well.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSameNameAndConstructor() throws Exception {
+        IType a= createType("A",
+                "public class A {\n" +
+                "    public A() { }\n" +
+                "    public void foo() { }\n" +
+                "    public void foo(int i) { }\n" +
+                "    public void callsFoo() { foo(); }\n" +
+                "    public void callsFooInt() { foo(1); }\n" +
+                "    public void callsConstructor() { new A(); }\n" +
+                "}\n");
+        IMethod constructor= a.getMethod("A", new String[0]);
+        IMethod foo= a.getMethod("foo", new String[0]);
+        IMethod fooInt= a.getMethod("foo", new String[] { "I" });
+
+        MethodWrapper[] roots= searchCallers(new IMember[] { constructor, foo, fooInt });
+        assertCallers(roots[0], new IMember[] { a.getMethod("callsConstructor", new String[0]) });
+        assertCallers(roots[1], new IMember[] { a.getMethod("callsFoo", new String[0]) });
+        assertCallers(roots[2], new IMember[] { a.getMethod("callsFooInt", new String[0]) });
+    }
+
+    private IType createType(String name, String source) throws Exception {
+        ICompilationUnit cu= helper.getPackage1().createCompilationUnit(name + ".java", "package pack1;\n" + source, true, null);
+        return cu.getType(name);
+    }
+
+    private static MethodWrapper[] searchCallers(IMember[] members) {
+        MethodWrapper[] roots= CallHierarchy.getDefault().getCallerRoots(members);
+        assertEquals(members.length, roots.length);
+        BreadthFirstCallerSearch.search(roots, 1, new NullProgressMonitor());
+        for (int i= 0; i < members.length; i++)
+            assertTrue("callers not cached", CallerCache.contains(members[i], IJavaSearchConstants.REFERENCES));
+        return roots;
+    }
+
+    private void assertCallers(MethodWrapper root, IMember[] expected) {
+        helper.assertCalls(expected, root.getCalls(new NullProgressMonitor()));
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.callhierarchy;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerCache;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+public class CallerCacheTest extends TestCase {
+
+    private static final Class THIS= CallerCacheTest.class;
+
+    private CallHierarchyTestHelper helper;
+
+    private ICompilationUnit fWorkingCopy;
+
+    public CallerCacheTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(THIS);
+    }
+
+    protected void setUp() throws Exception {
+        helper= new CallHierarchyTestHelper();
+        helper.setUp();
+        helper.createPackages();
+        CallerCache.clear();
+    }
+
+    protected void tearDown() throws Exception {
+        if (fWorkingCopy != null) {
+            fWorkingCopy.discardWorkingCopy();
+            fWorkingCopy= null;
+        }
+        CallerCache.clear();
+        helper.tearDown();
+        helper= null;
+    }
+
+    /**
+     * Tests that editing a caller discards the cached callers, but keeps the callers of members
+     * that are not affected.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testEditCaller() throws Exception {
+        IType a= createType("A", "public class A {\n public void foo() { }\n public void bar() { }\n}\n");
+        IType b= createType("B", "public class B {\n public void callsFoo(A a) { a.foo(); }\n}\n");
+        IType c= createType("C", "public class C {\n public void callsBar(A a) { a.bar(); }\n}\n");
+        IMethod foo= a.getMethod("foo", new String[0]);
+        IMethod bar= a.getMethod("bar", new String[0]);
+
+        assertCallers(foo, new IMember[] { b.getMethod("callsFoo", new String[] { "QA;" }) });
+        assertCallers(bar, new IMember[] { c.getMethod("callsBar", new String[] { "QA;" }) });
+        assertTrue(CallerCache.contains(foo, IJavaSearchConstants.REFERENCES));
+
+        edit(b.getCompilationUnit(), "package pack1;\npublic class B {\n public void callsFoo(A a) { a.foo(); }\n public void callsFooAgain(A a) { a.foo(); }\n}\n");
+        assertTrue(CallerCache.contains(bar, IJavaSearchConstants.REFERENCES));
+        assertCallers(foo, new IMember[] { b.getMethod("callsFoo", new String[] { "QA;" }), b.getMethod("callsFooAgain", new String[] { "QA;" }) });
+    }
+
+    /**
+     * Tests that editing a callee so that the calls bind to another method discards the cached
+     * callers.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testEditCallee() throws Exception {
+        IType a= createType("A", "public class A {\n public void foo(Object o) { }\n}\n");
+        IType b= createType("B", "public class B {\n public void callsFoo(A a) { a.foo(\"x\"); }\n}\n");
+        IMethod fooObject= a.getMethod("foo", new String[] { "QObject;" });
+
+        assertCallers(fooObject, new IMember[] { b.getMethod("callsFoo", new String[] { "QA;" }) });
+
+        // the call binds to the new overload
+        edit(a.getCompilationUnit(), "package pack1;\npublic class A {\n public void foo(Object o) { }\n public void foo(String s) { }\n}\n");
+        assertCallers(fooObject, new IMember[0]);
+        assertCallers(a.getMethod("foo", new String[] { "QString;" }), new IMember[] { b.getMethod("callsFoo", new String[] { "QA;" }) });
+    }
+
+    /**
+     * Tests that changing the return type of a method discards the cached callers of the members
+     * called on its result in other units, although the changed source does not contain their
+     * names.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testEditReturnType() throws Exception {
+        IType x= createType("X", "public class X {\n public void foo() { }\n}\n");
+        IType y= createType("Y", "public class Y {\n public void foo() { }\n}\n");
+        IType a= createType("A", "public class A {\n public X getX() { return null; }\n}\n");
+        IType b= createType("B", "public class B {\n public void callsFoo(A a) { a.getX().foo(); }\n}\n");
+        IMethod xFoo= x.getMethod("foo", new String[0]);
+        IMethod yFoo= y.getMethod("foo", new String[0]);
+        IMember callsFoo= b.getMethod("callsFoo", new String[] { "QA;" });
+
+        assertCallers(xFoo, new IMember[] { callsFoo });
+        assertCallers(yFoo, new IMember[0]);
+
+        // the call in B binds to Y.foo()
+        edit(a.getCompilationUnit(), "package pack1;\npublic class A {\n public Y getX() { return null; }\n}\n");
+        assertFalse(CallerCache.contains(xFoo, IJavaSearchConstants.REFERENCES));
+        assertFalse(CallerCache.contains(yFoo, IJavaSearchConstants.REFERENCES));
+        assertCallers(xFoo, new IMember[0]);
+        assertCallers(yFoo, new IMember[] { callsFoo });
+    }
+
+    /**
+     * Tests that the saved callers are loaded in the background and that the cache is empty until
+     * then.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLoadSavedCallers() throws Exception {
+        IType a= createType("A", "public class A {\n public void foo() { }\n}\n");
+        IType b= createType("B", "public class B {\n public void callsFoo(A a) { a.foo(); }\n}\n");
+        IMethod foo= a.getMethod("foo", new String[0]);
+        assertCallers(foo, new IMember[] { b.getMethod("callsFoo", new String[] { "QA;" }) });
+
+        Thread.sleep(10); // the saved time stamp must be later than the files
+        CallerCache.shutdown();
+        Job.getJobManager().suspend();
+        try {
+            assertFalse(CallerCache.contains(foo, IJavaSearchConstants.REFERENCES));
+        } finally {
+            Job.getJobManager().resume();
+        }
+        Job.getJobManager().join(CallerCache.FAMILY, null);
+        assertTrue(CallerCache.contains(foo, IJavaSearchConstants.REFERENCES));
+        assertCallers(foo, new IMember[] { b.getMethod("callsFoo", new String[] { "QA;" }) });
+    }
+
+    private IType createType(String name, String source) throws Exception {
+        ICompilationUnit cu= helper.getPackage1().createCompilationUnit(name + ".java", "package pack1;\n" + source, true, null);
+        return cu.getType(name);
+    }
+
+    /**
+     * Changes the source of the given unit in a working copy, like an editor.
+     *
+     * @param cu the compilation unit
+     * @param source the new source
+     * @throws Exception if the unit cannot be changed
+     */
+    private void edit(ICompilationUnit cu, String source) throws Exception {
+        cu.becomeWorkingCopy(null);
+        fWorkingCopy= cu;
+        cu.getBuffer().setContents(source);
+        cu.reconcile(ICompilationUnit.NO_AST, true, null, null);
+    }
+
+    private void assertCallers(IMember member, IMember[] expected) {
+        MethodWrapper[] roots= CallHierarchy.getDefault().getCallerRoots(new IMember[] { member });
+        helper.assertCalls(expected, roots[0].getCalls(new NullProgressMonitor()));
+    }
+}
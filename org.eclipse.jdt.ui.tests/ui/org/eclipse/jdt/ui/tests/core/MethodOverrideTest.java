@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,6 +47,7 @@ import org.eclipse.jdt.internal.corext.dom.ASTFlattener;
 import org.eclipse.jdt.internal.corext.dom.Bindings;
 import org.eclipse.jdt.internal.corext.util.CodeFormatterUtil;
 import org.eclipse.jdt.internal.corext.util.MethodOverrideTester;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
 
@@ -283,6 +284,99 @@ public class MethodOverrideTest extends CoreTests {
 		doOverrideTests(cu, 1, 1, 0); // B and A
 	}
 
+	public void testMemoizedResultsAfterReconcile() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cuA= pack1.createCompilationUnit("A.java", "package test1;\npublic class A {\n    public void foo(Object o) {}\n}\n", false, null);
+		ICompilationUnit cuB= pack1.createCompilationUnit("B.java", "package test1;\npublic class B extends A {\n    public void foo(String s) {}\n}\n", false, null);
+		IType typeA= cuA.getType("A");
+		IMethod overriding= cuB.getType("B").getMethod("foo", new String[] { "QString;" });
+
+		MethodOverrideTester tester= SuperTypeHierarchyCache.getMethodOverrideTester(cuB.getType("B"));
+		assertNull(tester.findOverriddenMethod(overriding, false));
+		assertNull(tester.findOverriddenMethodInType(typeA, overriding));
+
+		cuA.becomeWorkingCopy(null);
+		try {
+			// the signature changes, the hierarchy stays the same
+			cuA.getBuffer().setContents("package test1;\npublic class A {\n    public void foo(String o) {}\n}\n");
+			cuA.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			IMethod overridden= typeA.getMethod("foo", new String[] { "QString;" });
+			assertEquals(overridden, tester.findOverriddenMethod(overriding, false));
+			assertEquals(overridden, tester.findOverriddenMethodInType(typeA, overriding));
+
+			// the modifiers change
+			cuA.getBuffer().setContents("package test1;\npublic class A {\n    public static void foo(String o) {}\n}\n");
+			cuA.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			assertNull(tester.findOverriddenMethod(overriding, false));
+			assertNull(tester.findOverriddenMethodInType(typeA, overriding));
+		} finally {
+			cuA.discardWorkingCopy();
+		}
+	}
+
+	public void testSubsignatureParameterKinds() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class A<T> {\n");
+		buf.append("    public void foo(T t) {}\n");
+		buf.append("    public void foo(int i) {}\n");
+		buf.append("    public void foo(long l) {}\n");
+		buf.append("    public void foo(T... t) {}\n");
+		buf.append("    public void bar(T[] t) {}\n");
+		buf.append("    public void baz(T... t) {}\n");
+		buf.append("}\n");
+		buf.append("class B extends A<Integer> {\n");
+		buf.append("    public void foo(Integer t) {}\n");
+		buf.append("    public void foo(int i) {}\n");
+		buf.append("    public void foo(Integer... t) {}\n");
+		buf.append("    public void bar(Integer... t) {}\n");
+		buf.append("    public void baz(int... t) {}\n");
+		buf.append("}\n");
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", buf.toString(), false, null);
+		IType typeA= cu.getType("A");
+		IType typeB= cu.getType("B");
+
+		IMethod fooT= typeA.getMethod("foo", new String[] { "QT;" });
+		IMethod fooInt= typeA.getMethod("foo", new String[] { "I" });
+		IMethod fooLong= typeA.getMethod("foo", new String[] { "J" });
+		IMethod fooTVarargs= typeA.getMethod("foo", new String[] { "[QT;" });
+		IMethod barTArray= typeA.getMethod("bar", new String[] { "[QT;" });
+		IMethod bazTVarargs= typeA.getMethod("baz", new String[] { "[QT;" });
+		IMethod fooInteger= typeB.getMethod("foo", new String[] { "QInteger;" });
+		IMethod fooIntB= typeB.getMethod("foo", new String[] { "I" });
+		IMethod fooIntegerVarargs= typeB.getMethod("foo", new String[] { "[QInteger;" });
+		IMethod barIntegerVarargs= typeB.getMethod("bar", new String[] { "[QInteger;" });
+		IMethod bazIntVarargs= typeB.getMethod("baz", new String[] { "[I" });
+
+		MethodOverrideTester tester= new MethodOverrideTester(typeB, typeB.newSupertypeHierarchy(null));
+
+		// a type variable is never substituted by a primitive type
+		assertTrue(tester.isSubsignature(fooInteger, fooT));
+		assertFalse(tester.isSubsignature(fooIntB, fooT));
+		assertFalse(tester.isSubsignature(fooInteger, fooInt));
+		assertTrue(tester.isSubsignature(fooIntB, fooInt));
+		assertFalse(tester.isSubsignature(fooIntB, fooLong));
+
+		// varargs are arrays
+		assertTrue(tester.isSubsignature(fooIntegerVarargs, fooTVarargs));
+		assertFalse(tester.isSubsignature(fooIntegerVarargs, fooT));
+		assertFalse(tester.isSubsignature(fooInteger, fooTVarargs));
+		assertTrue(tester.isSubsignature(barIntegerVarargs, barTArray));
+		assertFalse(tester.isSubsignature(bazIntVarargs, bazTVarargs));
+
+		assertEquals(fooT, tester.findOverriddenMethodInType(typeA, fooInteger));
+		assertEquals(fooInt, tester.findOverriddenMethodInType(typeA, fooIntB));
+		assertEquals(fooTVarargs, tester.findOverriddenMethodInType(typeA, fooIntegerVarargs));
+		assertNull(tester.findOverriddenMethodInType(typeA, bazIntVarargs));
+		assertEquals(fooIntB, tester.findOverridingMethodInType(typeB, fooInt));
+		assertEquals(fooIntegerVarargs, tester.findOverridingMethodInType(typeB, fooTVarargs));
+	}
+
 
 	private void doOverrideTests(ICompilationUnit cu, int focusIndex, int overridingIndex, int overriddenIndex) throws JavaModelException {
 		CompilationUnit root= assertNoCompilationError(cu);
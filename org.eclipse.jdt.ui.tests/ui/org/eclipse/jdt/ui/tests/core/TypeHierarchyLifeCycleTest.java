@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.typehierarchy.ITypeHierarchyLifeCycleListener;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyLifeCycle;
+import org.eclipse.jdt.internal.ui.util.BusyIndicatorRunnableContext;
+
+public class TypeHierarchyLifeCycleTest extends TestCase {
+
+	private static final Class THIS= TypeHierarchyLifeCycleTest.class;
+
+	private IJavaProject fJavaProject;
+	private IPackageFragmentRoot fSourceFolder;
+	private TypeHierarchyLifeCycle fLifeCycle;
+	private List<ICompilationUnit> fWorkingCopies;
+
+	private int fRefreshCount;
+	private List<IType> fChangedTypes;
+
+	public TypeHierarchyLifeCycleTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJavaProject= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJavaProject, "src");
+		fWorkingCopies= new ArrayList<ICompilationUnit>();
+		fChangedTypes= new ArrayList<IType>();
+		fRefreshCount= 0;
+		fLifeCycle= new TypeHierarchyLifeCycle(false);
+		fLifeCycle.addChangedListener(new ITypeHierarchyLifeCycleListener() {
+			public void typeHierarchyChanged(TypeHierarchyLifeCycle typeHierarchyProvider, IType[] changedTypes) {
+				synchronized (TypeHierarchyLifeCycleTest.this) {
+					if (changedTypes == null) {
+						fRefreshCount++;
+					} else {
+						for (int i= 0; i < changedTypes.length; i++)
+							fChangedTypes.add(changedTypes[i]);
+					}
+				}
+			}
+		});
+	}
+
+	protected void tearDown() throws Exception {
+		fLifeCycle.freeHierarchy();
+		for (int i= 0; i < fWorkingCopies.size(); i++)
+			fWorkingCopies.get(i).discardWorkingCopy();
+		JavaProjectHelper.clear(fJavaProject, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	/**
+	 * Tests that editing a class outside the hierarchy, and editing the body of a class in the
+	 * hierarchy, does not require a refresh.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testUnrelatedEdit() throws Exception {
+		IPackageFragment pack= fSourceFolder.createPackageFragment("p", true, null);
+		IType base= pack.createCompilationUnit("Base.java", "package p;\npublic class Base {\n}\n", true, null).getType("Base");
+		ICompilationUnit sub= pack.createCompilationUnit("Sub.java", "package p;\npublic class Sub extends Base {\n}\n", true, null);
+		ICompilationUnit other= pack.createCompilationUnit("Other.java", "package p;\npublic class Other {\n}\n", true, null);
+		fLifeCycle.ensureRefreshedTypeHierarchy(base, new BusyIndicatorRunnableContext());
+
+		edit(other, "package p;\npublic class Other {\n void foo() { }\n}\n");
+		edit(sub, "package p;\npublic class Sub extends Base {\n void foo() { }\n}\n");
+
+		Job.getJobManager().join(TypeHierarchyLifeCycle.FAMILY, null);
+		synchronized (this) {
+			assertEquals(0, fRefreshCount);
+			assertTrue(fChangedTypes.contains(sub.getType("Sub")));
+		}
+	}
+
+	/**
+	 * Tests that a changed import that binds a super type to another type requires a refresh,
+	 * although the super type is declared with the same name.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testRebindingImport() throws Exception {
+		IPackageFragment packA= fSourceFolder.createPackageFragment("a", true, null);
+		IType base= packA.createCompilationUnit("Base.java", "package a;\npublic class Base {\n}\n", true, null).getType("Base");
+		IPackageFragment packB= fSourceFolder.createPackageFragment("b", true, null);
+		packB.createCompilationUnit("Base.java", "package b;\npublic class Base {\n}\n", true, null);
+		IPackageFragment packC= fSourceFolder.createPackageFragment("c", true, null);
+		ICompilationUnit sub= packC.createCompilationUnit("Sub.java", "package c;\nimport a.Base;\npublic class Sub extends Base {\n}\n", true, null);
+		fLifeCycle.ensureRefreshedTypeHierarchy(base, new BusyIndicatorRunnableContext());
+		assertTrue(fLifeCycle.getHierarchy().contains(sub.getType("Sub")));
+
+		edit(sub, "package c;\nimport b.Base;\npublic class Sub extends Base {\n}\n");
+
+		Job.getJobManager().join(TypeHierarchyLifeCycle.FAMILY, null);
+		synchronized (this) {
+			assertEquals(1, fRefreshCount);
+		}
+	}
+
+	/**
+	 * Changes the source of the given unit in a working copy, like an editor.
+	 *
+	 * @param cu the compilation unit
+	 * @param source the new source
+	 * @throws Exception if the unit cannot be changed
+	 */
+	private void edit(ICompilationUnit cu, String source) throws Exception {
+		if (!cu.isWorkingCopy()) {
+			cu.becomeWorkingCopy(null);
+			fWorkingCopies.add(cu);
+		}
+		cu.getBuffer().setContents(source);
+		cu.reconcile(ICompilationUnit.NO_AST, true, null, null);
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.StructuredSelection;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.typehierarchy.SubTypeHierarchyViewer;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyContentProvider;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyLifeCycle;
+import org.eclipse.jdt.internal.ui.util.BusyIndicatorRunnableContext;
+
+/**
+ * Tests the type hierarchy viewers with a type that has so many subtypes that its children are
+ * computed in the background.
+ */
+public class TypeHierarchyViewerTest extends TestCase {
+
+	private static final Class THIS= TypeHierarchyViewerTest.class;
+
+	private static final int SUBTYPES= 250;
+
+	private static final long TIMEOUT= 10000;
+
+	private IJavaProject fJavaProject;
+	private IPackageFragmentRoot fSourceFolder;
+	private TypeHierarchyLifeCycle fLifeCycle;
+	private Shell fShell;
+	private SubTypeHierarchyViewer fViewer;
+
+	private IType fBase;
+	private ICompilationUnit fSubtypes;
+
+	public TypeHierarchyViewerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJavaProject= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJavaProject, "src");
+		IPackageFragment pack= fSourceFolder.createPackageFragment("p", true, null);
+		fBase= pack.createCompilationUnit("Base.java", "package p;\npublic class Base {\n public void foo() { }\n}\n", true, null).getType("Base");
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		for (int i= 0; i < SUBTYPES; i++) {
+			buf.append("class Sub" + i + " extends Base {\n}\n");
+		}
+		buf.append("class SubSub extends Sub0 {\n}\n");
+		fSubtypes= pack.createCompilationUnit("Subtypes.java", buf.toString(), true, null);
+		pack.createCompilationUnit("Other.java", "package p;\npublic class Other {\n public void bar() { }\n}\n", true, null);
+
+		fLifeCycle= new TypeHierarchyLifeCycle(false);
+		fLifeCycle.ensureRefreshedTypeHierarchy(fBase, new BusyIndicatorRunnableContext());
+		fShell= new Shell(Display.getCurrent());
+		fViewer= new SubTypeHierarchyViewer(fShell, fLifeCycle);
+		fViewer.setInput(fViewer);
+	}
+
+	protected void tearDown() throws Exception {
+		fShell.dispose();
+		fLifeCycle.freeHierarchy();
+		JavaProjectHelper.clear(fJavaProject, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	/**
+	 * Tests that the expansion and the selection that were requested while the children were
+	 * computed are applied once they have been added.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testPendingExpansionAndSelection() throws Exception {
+		final IType sub0= fSubtypes.getType("Sub0");
+		final IType sub100= fSubtypes.getType("Sub100");
+		final IType subSub= fSubtypes.getType("SubSub");
+
+		fViewer.updateContent(false);
+		fViewer.expandToLevel(fBase, 2);
+		fViewer.setSelection(new StructuredSelection(sub100), true);
+		assertNull(fViewer.testFindItem(sub100));
+		assertTrue(fViewer.isElementShown(sub100));
+
+		waitForChildren();
+		assertTrue(new DisplayHelper() {
+			protected boolean condition() {
+				return fViewer.testFindItem(subSub) != null && !fViewer.getSelection().isEmpty();
+			}
+		}.waitForCondition(Display.getCurrent(), TIMEOUT));
+		assertTrue(fViewer.getExpandedState(sub0));
+		assertEquals(sub100, ((IStructuredSelection) fViewer.getSelection()).getFirstElement());
+	}
+
+	/**
+	 * Tests that a refresh keeps the children that have been computed in the background, and with
+	 * them the expansion and the selection.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testRefresh() throws Exception {
+		IType sub0= fSubtypes.getType("Sub0");
+		IType sub100= fSubtypes.getType("Sub100");
+
+		fViewer.updateContent(true);
+		waitForChildren();
+		fViewer.expandToLevel(sub0, 1);
+		fViewer.setSelection(new StructuredSelection(sub100), true);
+
+		fViewer.refresh();
+		assertNotNull(fViewer.testFindItem(sub100));
+		assertNotNull(fViewer.testFindItem(fSubtypes.getType("SubSub")));
+		assertTrue(fViewer.getExpandedState(sub0));
+		assertEquals(sub100, ((IStructuredSelection) fViewer.getSelection()).getFirstElement());
+	}
+
+	/**
+	 * Tests that a type with many subtypes has no children if the member filter leaves none.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testHasChildrenWithMemberFilter() throws Exception {
+		TypeHierarchyContentProvider contentProvider= (TypeHierarchyContentProvider) fViewer.getContentProvider();
+		assertTrue(contentProvider.hasChildren(fBase));
+
+		contentProvider.setMemberFilter(new IMember[] { fBase.getMethod("foo", new String[0]) });
+		assertTrue(contentProvider.hasChildren(fBase));
+
+		IType other= fBase.getPackageFragment().getCompilationUnit("Other.java").getType("Other");
+		contentProvider.setMemberFilter(new IMember[] { other.getMethod("bar", new String[0]) });
+		assertFalse(contentProvider.hasChildren(fBase));
+	}
+
+	private void waitForChildren() {
+		final IType last= fSubtypes.getType("Sub" + (SUBTYPES - 1));
+		assertTrue(new DisplayHelper() {
+			protected boolean condition() {
+				return fViewer.testFindItem(last) != null;
+			}
+		}.waitForCondition(Display.getCurrent(), TIMEOUT));
+	}
+}
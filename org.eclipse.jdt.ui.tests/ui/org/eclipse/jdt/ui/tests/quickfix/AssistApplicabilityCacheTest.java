@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.text.correction.AssistApplicabilityCache;
+import org.eclipse.jdt.internal.ui.text.correction.AssistContext;
+import org.eclipse.jdt.internal.ui.text.correction.ContributedProcessorDescriptor;
+import org.eclipse.jdt.internal.ui.text.correction.JavaCorrectionProcessor;
+
+public class AssistApplicabilityCacheTest extends QuickFixTest {
+
+	private static final Class THIS= AssistApplicabilityCacheTest.class;
+
+	private static final String EXAMPLE_PROCESSOR_ID= "org.eclipse.jdt.ui.examples.MyQuickAssistProcessor";
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+
+	public AssistApplicabilityCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	public void testSelectionChange() throws Exception {
+		String str= getSource("\"hello\"");
+		ICompilationUnit cu= createCompilationUnit(str);
+		CompilationUnit astRoot= getASTRoot(cu);
+		ContributedProcessorDescriptor processor= getExampleProcessor();
+
+		int offset= str.indexOf("foo");
+		AssistContext context= createContext(cu, astRoot, offset, 3);
+		AssistApplicabilityCache cache= new AssistApplicabilityCache();
+		assertNull(cache.isApplicable(context, processor));
+		cache.setApplicable(context, processor, false);
+		assertEquals(Boolean.FALSE, cache.isApplicable(context, processor));
+		assertEquals(Boolean.FALSE, cache.isApplicable(createContext(cu, astRoot, offset, 3), processor));
+
+		assertNull(cache.isApplicable(createContext(cu, astRoot, offset, 2), processor));
+		assertNull(cache.isApplicable(createContext(cu, astRoot, offset + 1, 3), processor));
+
+		AssistContext literalContext= createContext(cu, astRoot, str.indexOf("hello"), 0);
+		assertNull(cache.isApplicable(literalContext, processor));
+		cache.setApplicable(literalContext, processor, true);
+		assertEquals(Boolean.TRUE, cache.isApplicable(literalContext, processor));
+		assertEquals(Boolean.FALSE, cache.isApplicable(context, processor));
+	}
+
+	public void testASTChange() throws Exception {
+		String str= getSource("1234567");
+		ICompilationUnit cu= createCompilationUnit(str);
+		ContributedProcessorDescriptor processor= getExampleProcessor();
+
+		int offset= str.indexOf("1234567");
+		AssistContext context1= createContext(cu, getASTRoot(cu), offset, 7);
+		AssistApplicabilityCache cache= new AssistApplicabilityCache();
+		cache.setApplicable(context1, processor, false);
+		assertEquals(Boolean.FALSE, cache.isApplicable(context1, processor));
+
+		// same range, now covering a string literal
+		String str2= getSource("\"hello\"");
+		assertEquals(offset, str2.indexOf("\"hello\""));
+		cu= createCompilationUnit(str2);
+		AssistContext context2= createContext(cu, getASTRoot(cu), offset, 7);
+		assertNull(cache.isApplicable(context2, processor));
+
+		cache.setApplicable(context2, processor, true);
+		assertEquals(Boolean.TRUE, cache.isApplicable(context2, processor));
+		assertNull(cache.isApplicable(context1, processor));
+	}
+
+	public void testQuickAssistAfterSelectionChange() throws Exception {
+		String str= getSource("\"hello\"");
+		ICompilationUnit cu= createCompilationUnit(str);
+		CompilationUnit astRoot= getASTRoot(cu);
+
+		AssistContext context= createContext(cu, astRoot, str.indexOf("foo"), 0);
+		JavaCorrectionProcessor.hasAssists(context);
+		assertFalse(hasUppercaseProposal(collectAssists(context, false)));
+
+		context= createContext(cu, astRoot, str.indexOf("hello"), 0);
+		assertTrue(JavaCorrectionProcessor.hasAssists(context));
+		assertTrue(hasUppercaseProposal(collectAssists(context, false)));
+	}
+
+	public void testQuickAssistAfterASTChange() throws Exception {
+		String str= getSource("1234567");
+		ICompilationUnit cu= createCompilationUnit(str);
+
+		int offset= str.indexOf("1234567");
+		AssistContext context= createContext(cu, getASTRoot(cu), offset, 7);
+		JavaCorrectionProcessor.hasAssists(context);
+		assertFalse(hasUppercaseProposal(collectAssists(context, false)));
+
+		cu= createCompilationUnit(getSource("\"hello\""));
+		context= createContext(cu, getASTRoot(cu), offset, 7);
+		assertTrue(hasUppercaseProposal(collectAssists(context, false)));
+	}
+
+	private static String getSource(String returnValue) {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class A {\n");
+		buf.append("    public Object foo() {\n");
+		buf.append("        return " + returnValue + ";\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	private ICompilationUnit createCompilationUnit(String content) throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		return pack1.createCompilationUnit("A.java", content, true, null);
+	}
+
+	private static AssistContext createContext(ICompilationUnit cu, CompilationUnit astRoot, int offset, int length) {
+		AssistContext context= getCorrectionContext(cu, offset, length);
+		context.setASTRoot(astRoot);
+		return context;
+	}
+
+	private static ContributedProcessorDescriptor getExampleProcessor() {
+		IConfigurationElement[] elements= Platform.getExtensionRegistry().getConfigurationElementsFor(JavaUI.ID_PLUGIN, "quickAssistProcessors");
+		for (int i= 0; i < elements.length; i++) {
+			if (EXAMPLE_PROCESSOR_ID.equals(elements[i].getAttribute("id")))
+				return new ContributedProcessorDescriptor(elements[i], false);
+		}
+		fail("example quick assist processor not found");
+		return null;
+	}
+
+	private static boolean hasUppercaseProposal(List proposals) {
+		for (int i= 0; i < proposals.size(); i++) {
+			if ("To uppercase".equals(((ICompletionProposal) proposals.get(i)).getDisplayString()))
+				return true;
+		}
+		return false;
+	}
+}
@@ -95,6 +95,7 @@ public class QuickFixTest extends TestCase {
 		suite.addTest(AdvancedQuickAssistTest17.suite());
 		suite.addTest(CleanUpTestCase.suite());
 		suite.addTest(QuickFixEnablementTest.suite());
+		suite.addTest(AssistApplicabilityCacheTest.suite());
 		suite.addTest(SurroundWithTemplateTest.suite());
 		suite.addTest(TypeParameterMismatchTest.suite());
 		suite.addTest(PropertiesFileQuickAssistTest.suite());
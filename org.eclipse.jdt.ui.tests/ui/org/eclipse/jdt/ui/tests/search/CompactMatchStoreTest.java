@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchPattern;
+
+import org.eclipse.jdt.internal.ui.search.CompactMatchStore;
+import org.eclipse.jdt.internal.ui.search.JavaElementMatch;
+
+public class CompactMatchStoreTest extends TestCase {
+
+	private static final Class THIS= CompactMatchStoreTest.class;
+
+	private static final String A= "A";
+	private static final String B= "B";
+	private static final String C= "C";
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	public CompactMatchStoreTest(String name) {
+		super(name);
+	}
+
+	public void testRows() throws Exception {
+		CompactMatchStore store= new CompactMatchStore();
+		assertTrue(store.add(A, SearchPattern.R_EXACT_MATCH, 10, 3, SearchMatch.A_ACCURATE, true, false, false, false));
+		assertTrue(store.add(B, SearchPattern.R_ERASURE_MATCH, 20, 4, SearchMatch.A_INACCURATE, false, true, false, false));
+		assertTrue(store.add(A, SearchPattern.R_EQUIVALENT_MATCH, 30, 5, SearchMatch.A_INACCURATE, false, false, true, true));
+
+		assertEquals(3, store.getRowCount());
+		assertEquals(3, store.getMatchCount());
+		assertEquals(2, store.getMatchCount(A));
+		assertEquals(1, store.getMatchCount(B));
+		assertEquals(0, store.getMatchCount(C));
+		assertEquals(1, store.getPotentialMatchCount(A));
+		assertEquals(1, store.getPotentialMatchCount(B));
+		assertEquals(new HashSet<Object>(Arrays.asList(new Object[] { A, B })), new HashSet<Object>(Arrays.asList(store.getElements())));
+		assertEquals(2, store.takeChangedElements().length);
+		assertEquals(0, store.takeChangedElements().length);
+
+		JavaElementMatch[] matches= store.remove(A);
+		assertEquals(2, matches.length);
+		assertMatch(matches[0], A, SearchPattern.R_EXACT_MATCH, 10, 3, SearchMatch.A_ACCURATE, true, false, false, false);
+		assertMatch(matches[1], A, SearchPattern.R_EQUIVALENT_MATCH, 30, 5, SearchMatch.A_INACCURATE, false, false, true, true);
+		assertNull(store.remove(A));
+		assertEquals(1, store.getMatchCount());
+		assertEquals(0, store.getPotentialMatchCount(A));
+		assertEquals(Arrays.asList(new Object[] { B }), Arrays.asList(store.getElements()));
+		assertEquals(Arrays.asList(new Object[] { A }), Arrays.asList(store.takeChangedElements()));
+
+		matches= store.remove(B);
+		assertEquals(1, matches.length);
+		assertMatch(matches[0], B, SearchPattern.R_ERASURE_MATCH, 20, 4, SearchMatch.A_INACCURATE, false, true, false, false);
+		assertEquals(0, store.getMatchCount());
+	}
+
+	public void testUnstorableMatch() throws Exception {
+		CompactMatchStore store= new CompactMatchStore();
+		assertFalse(store.add(A, 0x10000, 10, 3, SearchMatch.A_ACCURATE, false, false, false, false));
+		assertFalse(store.add(A, SearchPattern.R_EXACT_MATCH, 10, 3, 4, false, false, false, false));
+		assertEquals(0, store.getRowCount());
+		assertNull(store.remove(A));
+	}
+
+	public void testGrow() throws Exception {
+		CompactMatchStore store= new CompactMatchStore();
+		int count= 5000;
+		for (int i= 0; i < count; i++) {
+			assertTrue(store.add(String.valueOf(i % 3000), SearchPattern.R_EXACT_MATCH, i, 1, SearchMatch.A_ACCURATE, false, false, false, false));
+		}
+		assertEquals(count, store.getMatchCount());
+		assertEquals(3000, store.getElements().length);
+		JavaElementMatch[] matches= store.remove("7");
+		assertEquals(2, matches.length);
+		assertEquals(7, matches[0].getOffset());
+		assertEquals(3007, matches[1].getOffset());
+	}
+
+	public void testCompact() throws Exception {
+		CompactMatchStore store= new CompactMatchStore();
+		// interleave the rows of the elements
+		for (int i= 0; i < 6; i++) {
+			store.add(A, SearchPattern.R_EXACT_MATCH, i, 1, SearchMatch.A_ACCURATE, false, false, false, false);
+			if (i % 2 == 0) {
+				store.add(B, SearchPattern.R_EXACT_MATCH, 100 + i, 2, SearchMatch.A_INACCURATE, true, false, false, false);
+				store.add(C, SearchPattern.R_EXACT_MATCH, 200 + i, 3, SearchMatch.A_ACCURATE, false, true, false, false);
+			}
+		}
+		assertEquals(12, store.getRowCount());
+
+		// half of the rows are garbage, which is not reclaimed yet
+		assertEquals(6, store.remove(A).length);
+		assertEquals(12, store.getRowCount());
+
+		store.add(B, SearchPattern.R_EXACT_MATCH, 106, 2, SearchMatch.A_INACCURATE, true, false, false, false);
+		assertEquals(13, store.getRowCount());
+
+		// now more than half of the rows are garbage
+		assertEquals(3, store.remove(C).length);
+		assertEquals(4, store.getRowCount());
+		assertEquals(4, store.getMatchCount());
+		assertEquals(4, store.getPotentialMatchCount(B));
+
+		// the matches added after the compaction are linked to the compacted rows
+		store.add(B, SearchPattern.R_EXACT_MATCH, 108, 2, SearchMatch.A_ACCURATE, false, false, false, true);
+		store.add(A, SearchPattern.R_EXACT_MATCH, 50, 1, SearchMatch.A_ACCURATE, false, false, false, false);
+		assertEquals(6, store.getRowCount());
+
+		JavaElementMatch[] matches= store.remove(B);
+		assertEquals(5, matches.length);
+		for (int i= 0; i < 4; i++) {
+			assertMatch(matches[i], B, SearchPattern.R_EXACT_MATCH, 100 + 2 * i, 2, SearchMatch.A_INACCURATE, true, false, false, false);
+		}
+		assertMatch(matches[4], B, SearchPattern.R_EXACT_MATCH, 108, 2, SearchMatch.A_ACCURATE, false, false, false, true);
+
+		matches= store.remove(A);
+		assertEquals(1, matches.length);
+		assertEquals(50, matches[0].getOffset());
+		assertEquals(0, store.getMatchCount());
+	}
+
+	public void testClear() throws Exception {
+		CompactMatchStore store= new CompactMatchStore();
+		store.add(A, SearchPattern.R_EXACT_MATCH, 10, 3, SearchMatch.A_ACCURATE, false, false, false, false);
+		store.clear();
+		assertEquals(0, store.getRowCount());
+		assertEquals(0, store.getMatchCount());
+		assertEquals(0, store.getElements().length);
+		assertEquals(0, store.takeChangedElements().length);
+		assertNull(store.remove(A));
+	}
+
+	private static void assertMatch(JavaElementMatch match, Object element, int matchRule, int offset, int length, int accuracy, boolean isReadAccess, boolean isWriteAccess, boolean isJavadoc, boolean isSuperInvocation) {
+		assertEquals(element, match.getElement());
+		assertEquals(matchRule, match.getMatchRule());
+		assertEquals(offset, match.getOffset());
+		assertEquals(length, match.getLength());
+		assertEquals(accuracy, match.getAccuracy());
+		assertEquals(isReadAccess, match.isReadAccess());
+		assertEquals(isWriteAccess, match.isWriteAccess());
+		assertEquals(isJavadoc, match.isJavadoc());
+		assertEquals(isSuperInvocation, match.isSuperInvocation());
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.IStatus;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+import org.eclipse.jdt.internal.ui.search.JavaElementLine;
+import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesSearchQuery;
+import org.eclipse.jdt.internal.ui.search.OccurrencesSearchResult;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+public class OccurrencesSearchQueryTest extends TestCase {
+
+	private static final Class THIS= OccurrencesSearchQueryTest.class;
+
+	private IJavaProject fJavaProject;
+	private IPackageFragmentRoot fSourceFolder;
+
+	public OccurrencesSearchQueryTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new ProjectTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		fJavaProject= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJavaProject, "src");
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJavaProject, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	/**
+	 * Tests that searching the occurrences of a method in the package of its declaration finds the
+	 * occurrences in each file, but not those of another method with the same name.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testPackageQuery() throws Exception {
+		IPackageFragment pack= fSourceFolder.createPackageFragment("p", true, null);
+		String source= "package p;\npublic class A {\n public void foo() { }\n void m() {\n  foo();\n  foo();\n }\n}\n";
+		ICompilationUnit a= pack.createCompilationUnit("A.java", source, true, null);
+		ICompilationUnit b= pack.createCompilationUnit("B.java", "package p;\nclass B {\n void m(A a) {\n  a.foo();\n }\n}\n", true, null);
+		ICompilationUnit c= pack.createCompilationUnit("C.java", "package p;\nclass C {\n void foo() { }\n void m() {\n  foo();\n }\n}\n", true, null);
+		ICompilationUnit d= pack.createCompilationUnit("D.java", "package p;\nclass D {\n}\n", true, null);
+
+		OccurrencesFinder finder= new OccurrencesFinder();
+		assertNull(finder.initialize(createAST(a), source.indexOf("foo"), 3));
+		OccurrencesSearchQuery query= new OccurrencesSearchQuery(finder, a);
+		assertTrue(query.canSearchInOtherFiles());
+
+		OccurrencesSearchQuery packageQuery= query.createPackageQuery();
+		assertTrue(packageQuery.isMultiFileQuery());
+		assertEquals(IStatus.OK, packageQuery.run(null).getSeverity());
+
+		Map<ITypeRoot, Integer> matches= getMatchCounts((OccurrencesSearchResult) packageQuery.getSearchResult());
+		assertEquals(new Integer(3), matches.get(a));
+		assertEquals(new Integer(1), matches.get(b));
+		assertNull(matches.get(c));
+		assertNull(matches.get(d));
+		assertEquals(2, matches.size());
+	}
+
+	private static CompilationUnit createAST(ICompilationUnit cu) {
+		ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+		parser.setSource(cu);
+		parser.setResolveBindings(true);
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	private static Map<ITypeRoot, Integer> getMatchCounts(OccurrencesSearchResult result) {
+		Map<ITypeRoot, Integer> counts= new HashMap<ITypeRoot, Integer>();
+		Object[] elements= result.getElements();
+		for (int i= 0; i < elements.length; i++) {
+			ITypeRoot element= ((JavaElementLine) elements[i]).getJavaElement();
+			Integer count= counts.get(element);
+			int matchCount= result.getMatchCount(elements[i]);
+			counts.put(element, new Integer(count == null ? matchCount : count.intValue() + matchCount));
+		}
+		return counts;
+	}
+}
@@ -22,7 +22,9 @@ public class SearchTest {
 		suite.addTest(TreeContentProviderTestWrapper.suite());
 		suite.addTest(ParticipantTest.suite());
 		suite.addTest(FileAdapterTest.suite());
+		suite.addTest(CompactMatchStoreTest.suite());
 		suite.addTest(NLSSearchTest.suite());
+		suite.addTest(OccurrencesSearchQueryTest.suite());
 		return suite;
 	}
 }
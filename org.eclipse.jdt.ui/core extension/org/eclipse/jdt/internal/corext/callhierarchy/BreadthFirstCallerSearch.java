@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringSearchEngine;
+import org.eclipse.jdt.internal.corext.util.JdtFlags;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Searches the callers of a caller hierarchy several levels deep, level by level, and stores
+ * them in the {@link CallerCache}, from where the {@link CallerMethodWrapper}s of the hierarchy
+ * take them.
+ * <p>
+ * The callers of the methods at one level are searched with few searches for an OR pattern
+ * instead of one search per method. The methods of such a search have distinct names, so that
+ * a match is attributed to the method whose name is the first identifier of the match. If a match
+ * cannot be attributed, the methods are searched one by one. Constructors, private methods,
+ * fields, types and initializers are always searched one by one. The searches of a level run
+ * concurrently.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class BreadthFirstCallerSearch {
+
+	/** The maximum number of concurrent searches. */
+	private static final int MAX_THREADS= 4;
+
+	/** The maximum number of methods in one OR pattern. */
+	private static final int MAX_BATCH_SIZE= 64;
+
+	/** The interval in milliseconds in which cancellation is checked while waiting for searches. */
+	private static final long CANCEL_POLL_INTERVAL= 100;
+
+	/**
+	 * Collects the matches of a search like {@link MethodReferencesSearchRequestor}.
+	 */
+	private static final class MatchCollector extends SearchRequestor {
+		final List<SearchMatch> fMatches= new ArrayList<SearchMatch>();
+
+		/*
+		 * @see org.eclipse.jdt.core.search.SearchRequestor#acceptSearchMatch(org.eclipse.jdt.core.search.SearchMatch)
+		 */
+		@Override
+		public void acceptSearchMatch(SearchMatch match) {
+			if (match.getAccuracy() != SearchMatch.A_ACCURATE || match.isInsideDocComment())
+				return;
+			if (match.getElement() instanceof IMember) {
+				switch (((IMember) match.getElement()).getElementType()) {
+					case IJavaElement.METHOD:
+					case IJavaElement.TYPE:
+					case IJavaElement.FIELD:
+					case IJavaElement.INITIALIZER:
+						fMatches.add(match);
+						break;
+				}
+			}
+		}
+	}
+
+	private final IJavaSearchScope fScope;
+	private final ExecutorService fExecutor;
+	private final IProgressMonitor fMonitor;
+
+	/**
+	 * Tells the progress monitors of the searches that the search has been canceled, since the
+	 * progress monitor of the search is not to be used outside of its thread.
+	 */
+	private volatile boolean fCanceled;
+
+	private BreadthFirstCallerSearch(IProgressMonitor monitor, int threads) {
+		fScope= CallHierarchy.getDefault().getSearchScope();
+		fMonitor= monitor;
+		fExecutor= Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int fCount;
+
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread= new Thread(runnable, "Call Hierarchy Search #" + ++fCount); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Searches the callers of the given caller hierarchy nodes the given number of levels deep.
+	 * Nodes that are not {@link CallerMethodWrapper}s, cannot have children or are recursive are
+	 * not searched.
+	 *
+	 * @param roots the nodes to start from
+	 * @param levels the number of levels to search, <code>1</code> searches the callers of the
+	 *            roots
+	 * @param monitor the progress monitor
+	 * @throws OperationCanceledException if the search has been canceled
+	 */
+	public static void search(MethodWrapper[] roots, int levels, IProgressMonitor monitor) {
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+		int threads= Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+		BreadthFirstCallerSearch search= new BreadthFirstCallerSearch(monitor, threads);
+		try {
+			search.run(roots, levels, threads);
+		} finally {
+			search.fCanceled= true;
+			search.fExecutor.shutdownNow();
+		}
+	}
+
+	private void run(MethodWrapper[] roots, int levels, int threads) {
+		List<CallerMethodWrapper> frontier= new ArrayList<CallerMethodWrapper>();
+		for (int i= 0; i < roots.length; i++)
+			addToFrontier(roots[i], frontier);
+
+		fMonitor.beginTask(CallHierarchyMessages.CallerMethodWrapper_taskname, levels * 2);
+		try {
+			for (int level= 0; level < levels && !frontier.isEmpty(); level++) {
+				searchLevel(frontier, threads, new SubProgressMonitor(fMonitor, 1));
+
+				// the callers are cached now, unless a change has cleared the cache
+				IProgressMonitor callsMonitor= new SubProgressMonitor(fMonitor, 1);
+				callsMonitor.beginTask("", frontier.size()); //$NON-NLS-1$
+				List<CallerMethodWrapper> next= new ArrayList<CallerMethodWrapper>();
+				for (Iterator<CallerMethodWrapper> iter= frontier.iterator(); iter.hasNext();) {
+					MethodWrapper[] calls= iter.next().getCalls(new SubProgressMonitor(callsMonitor, 1));
+					for (int i= 0; i < calls.length; i++)
+						addToFrontier(calls[i], next);
+				}
+				callsMonitor.done();
+				frontier= next;
+			}
+		} finally {
+			fMonitor.done();
+		}
+	}
+
+	private static void addToFrontier(MethodWrapper wrapper, List<CallerMethodWrapper> frontier) {
+		if (wrapper instanceof CallerMethodWrapper && wrapper.canHaveChildren() && !wrapper.isRecursive())
+			frontier.add((CallerMethodWrapper) wrapper);
+	}
+
+	private void searchLevel(List<CallerMethodWrapper> frontier, int threads, IProgressMonitor monitor) {
+		// the members whose callers are not cached yet, by cache key
+		Map<String, CallerMethodWrapper> pending= new LinkedHashMap<String, CallerMethodWrapper>();
+		for (Iterator<CallerMethodWrapper> iter= frontier.iterator(); iter.hasNext();) {
+			CallerMethodWrapper wrapper= iter.next();
+			IMember member= wrapper.getMember();
+			int fieldSearchMode= wrapper.getFieldSearchMode();
+			if (!CallerCache.contains(member, fieldSearchMode))
+				pending.put(CallerCache.getKey(member, fieldSearchMode), wrapper);
+		}
+
+		List<IMethod> batchable= new ArrayList<IMethod>();
+		List<Runnable> tasks= new ArrayList<Runnable>();
+		for (Iterator<CallerMethodWrapper> iter= pending.values().iterator(); iter.hasNext();) {
+			CallerMethodWrapper wrapper= iter.next();
+			IMember member= wrapper.getMember();
+			if (isBatchable(member))
+				batchable.add((IMethod) member);
+			else
+				tasks.add(createIndividualSearch(member, wrapper.getFieldSearchMode()));
+		}
+		int batchSize= Math.min(MAX_BATCH_SIZE, Math.max(1, (batchable.size() + threads - 1) / threads));
+		List<IMethod[]> batches= createBatches(batchable, batchSize);
+		for (Iterator<IMethod[]> iter= batches.iterator(); iter.hasNext();)
+			tasks.add(createBatchSearch(iter.next()));
+
+		monitor.beginTask("", tasks.size()); //$NON-NLS-1$
+		try {
+			List<Future<?>> futures= new ArrayList<Future<?>>(tasks.size());
+			for (Iterator<Runnable> iter= tasks.iterator(); iter.hasNext();)
+				futures.add(fExecutor.submit(iter.next()));
+			for (Iterator<Future<?>> iter= futures.iterator(); iter.hasNext();) {
+				await(iter.next());
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private void await(Future<?> future) {
+		while (true) {
+			if (fMonitor.isCanceled()) {
+				fCanceled= true;
+				throw new OperationCanceledException();
+			}
+			try {
+				future.get(CANCEL_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				return;
+			} catch (TimeoutException e) {
+				// check for cancellation
+			} catch (InterruptedException e) {
+				fCanceled= true;
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	/**
+	 * Tells whether the callers of the given member can be searched with an OR pattern. Private
+	 * members are searched in a narrower scope, constructors are referenced without their name.
+	 *
+	 * @param member the member
+	 * @return <code>true</code> if the member is a non-private method
+	 */
+	private static boolean isBatchable(IMember member) {
+		if (!(member instanceof IMethod))
+			return false;
+		try {
+			return !((IMethod) member).isConstructor() && !JdtFlags.isPrivate(member);
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Partitions the given methods into batches of methods with distinct names.
+	 *
+	 * @param methods the methods
+	 * @param batchSize the maximum size of a batch
+	 * @return the batches
+	 */
+	private static List<IMethod[]> createBatches(List<IMethod> methods, int batchSize) {
+		List<List<IMethod>> batches= new ArrayList<List<IMethod>>();
+		List<Set<String>> names= new ArrayList<Set<String>>();
+		for (Iterator<IMethod> iter= methods.iterator(); iter.hasNext();) {
+			IMethod method= iter.next();
+			String name= method.getElementName();
+			int i= 0;
+			while (i < batches.size() && (batches.get(i).size() >= batchSize || names.get(i).contains(name)))
+				i++;
+			if (i == batches.size()) {
+				batches.add(new ArrayList<IMethod>());
+				names.add(new HashSet<String>());
+			}
+			batches.get(i).add(method);
+			names.get(i).add(name);
+		}
+
+		List<IMethod[]> result= new ArrayList<IMethod[]>(batches.size());
+		for (Iterator<List<IMethod>> iter= batches.iterator(); iter.hasNext();) {
+			List<IMethod> batch= iter.next();
+			result.add(batch.toArray(new IMethod[batch.size()]));
+		}
+		return result;
+	}
+
+	private Runnable createIndividualSearch(final IMember member, final int fieldSearchMode) {
+		return new Runnable() {
+			public void run() {
+				searchIndividually(member, fieldSearchMode);
+			}
+		};
+	}
+
+	private Runnable createBatchSearch(final IMethod[] methods) {
+		return new Runnable() {
+			public void run() {
+				if (methods.length == 1 || !searchBatch(methods)) {
+					for (int i= 0; i < methods.length; i++)
+						searchIndividually(methods[i], IJavaSearchConstants.REFERENCES);
+				}
+			}
+		};
+	}
+
+	private void searchIndividually(IMember member, int fieldSearchMode) {
+		int generation= CallerCache.getGeneration();
+		try {
+			Map<String, MethodCall> callers= CallerMethodWrapper.searchCallers(member, fieldSearchMode, fScope, createSearchMonitor());
+			CallerCache.put(member, fieldSearchMode, callers, generation);
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+		}
+	}
+
+	/**
+	 * Searches the callers of the given methods with one search.
+	 *
+	 * @param methods the methods, with distinct names
+	 * @return <code>true</code> if the callers have been found, <code>false</code> if a match
+	 *         could not be attributed to a method
+	 */
+	private boolean searchBatch(IMethod[] methods) {
+		int generation= CallerCache.getGeneration();
+		MatchCollector collector= new MatchCollector();
+		try {
+			SearchPattern pattern= RefactoringSearchEngine.createOrPattern(methods, IJavaSearchConstants.REFERENCES);
+			new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, fScope, collector, createSearchMonitor());
+		} catch (IllegalArgumentException e) {
+			return false;
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			return false;
+		}
+
+		Map<String, CallSearchResultCollector> results= new HashMap<String, CallSearchResultCollector>();
+		for (int i= 0; i < methods.length; i++)
+			results.put(methods[i].getElementName(), new CallSearchResultCollector());
+		for (Iterator<SearchMatch> iter= collector.fMatches.iterator(); iter.hasNext();) {
+			SearchMatch match= iter.next();
+			IMember caller= (IMember) match.getElement();
+			String name= getFirstIdentifier(caller, match.getOffset(), match.getLength());
+			CallSearchResultCollector result= name == null ? null : results.get(name);
+			if (result == null)
+				return false;
+			result.addMember(caller, caller, match.getOffset(), match.getOffset() + match.getLength());
+		}
+		for (int i= 0; i < methods.length; i++) {
+			Map<String, MethodCall> callers= results.get(methods[i].getElementName()).getCallers();
+			CallerCache.put(methods[i], IJavaSearchConstants.REFERENCES, callers, generation);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the first identifier in the source of the given range, which is the name of the
+	 * method for a method reference.
+	 *
+	 * @param member the member containing the range
+	 * @param offset the offset of the range
+	 * @param length the length of the range
+	 * @return the identifier, or <code>null</code> if the source is not available
+	 */
+	private static String getFirstIdentifier(IMember member, int offset, int length) {
+		try {
+			IBuffer buffer= member.getOpenable().getBuffer();
+			if (buffer == null || offset < 0 || offset + length > buffer.getLength())
+				return null;
+			int end= offset + length;
+			int start= offset;
+			while (start < end && !Character.isJavaIdentifierStart(buffer.getChar(start)))
+				start++;
+			int stop= start;
+			while (stop < end && Character.isJavaIdentifierPart(buffer.getChar(stop)))
+				stop++;
+			return start < stop ? buffer.getText(start, stop - start) : null;
+		} catch (JavaModelException e) {
+			return null;
+		}
+	}
+
+	private IProgressMonitor createSearchMonitor() {
+		return new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return fCanceled;
+			}
+		};
+	}
+}
@@ -0,0 +1,754 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.LRUMap;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Caches the callers of members found by {@link CallerMethodWrapper} and
+ * {@link BreadthFirstCallerSearch}, shared by all caller hierarchies and kept across sessions.
+ * <p>
+ * The callers of a member depend on the whole workspace, the search scope and the call hierarchy
+ * filters. The cache is cleared when the search scope or the filters of the {@link CallHierarchy}
+ * change, and by changes to the class path, to archives, to packages, to types and to the
+ * signatures, types, modifiers and super types of members. Any other change of a compilation unit
+ * only discards the callers with a call in that unit and the callers of the members whose names
+ * occur in the changed source. Unsaved changes in editors are taken into account as they are
+ * reconciled. The discarded callers are searched again in the background, so that the next query
+ * finds them.
+ * </p>
+ * <p>
+ * When the search scope is the workspace, the callers are saved to the plug-in state location on
+ * shutdown and loaded in the background on first use. Until they have been loaded, the cache is
+ * empty. The saved callers are discarded if the projects or the filters differ, if a Java file, a
+ * class path file or an archive has been modified after they were saved, or if callers have been
+ * discarded while they were loaded.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class CallerCache {
+
+	/**
+	 * The callers of a member.
+	 */
+	private static final class Entry {
+		final IMember fMember;
+		final int fFieldSearchMode;
+		/** The name by which the member is referenced. */
+		final String fName;
+		/** The handle identifiers of the compilation units that contain calls. */
+		final Set<String> fUnits;
+		/** A map from handle identifier to {@link MethodCall}. */
+		final Map<String, MethodCall> fCallers;
+
+		Entry(IMember member, int fieldSearchMode, Map<String, MethodCall> callers) {
+			fMember= member;
+			fFieldSearchMode= fieldSearchMode;
+			fName= member.getElementType() == IJavaElement.INITIALIZER ? member.getDeclaringType().getElementName() : member.getElementName();
+			fCallers= callers;
+			fUnits= new HashSet<String>();
+			for (Iterator<MethodCall> iter= callers.values().iterator(); iter.hasNext();) {
+				Collection<CallLocation> locations= iter.next().getCallLocations();
+				if (locations == null)
+					continue;
+				for (Iterator<CallLocation> locationIter= locations.iterator(); locationIter.hasNext();) {
+					ICompilationUnit unit= locationIter.next().getMember().getCompilationUnit();
+					if (unit != null)
+						fUnits.add(unit.getHandleIdentifier());
+				}
+			}
+		}
+	}
+
+	/**
+	 * The changes reported by a Java element delta.
+	 */
+	private static final class Changes {
+		/** Whether the change may affect any callers. */
+		boolean fAll;
+		/** The handle identifiers of the changed compilation units. */
+		final Set<String> fUnits= new HashSet<String>();
+		/** The identifiers in the changed source. */
+		final Set<String> fIdentifiers= new HashSet<String>();
+	}
+
+	private static final class ChangeListener implements IElementChangedListener {
+		/*
+		 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+		 */
+		public void elementChanged(ElementChangedEvent event) {
+			Changes changes= new Changes();
+			try {
+				processDelta(event.getDelta(), changes);
+			} catch (JavaModelException e) {
+				changes.fAll= true;
+			}
+			if (changes.fAll)
+				clear();
+			else if (!changes.fUnits.isEmpty())
+				discard(changes);
+		}
+
+		private void processDelta(IJavaElementDelta delta, Changes changes) throws JavaModelException {
+			IJavaElement element= delta.getElement();
+			int kind= delta.getKind();
+			int flags= delta.getFlags();
+			switch (element.getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					processChildrenDelta(delta, changes);
+					break;
+				case IJavaElement.JAVA_PROJECT:
+					if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+							| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0)
+						changes.fAll= true;
+					else
+						processChildrenDelta(delta, changes);
+					break;
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+							| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_REORDER)) != 0)
+						changes.fAll= true;
+					else
+						processChildrenDelta(delta, changes);
+					break;
+				case IJavaElement.PACKAGE_FRAGMENT:
+					if (kind != IJavaElementDelta.CHANGED)
+						changes.fAll= true;
+					else
+						processChildrenDelta(delta, changes);
+					break;
+				case IJavaElement.CLASS_FILE:
+					changes.fAll= true;
+					break;
+				case IJavaElement.COMPILATION_UNIT:
+					processUnitDelta(delta, changes);
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void processChildrenDelta(IJavaElementDelta delta, Changes changes) throws JavaModelException {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length && !changes.fAll; i++)
+				processDelta(children[i], changes);
+		}
+
+		private void processUnitDelta(IJavaElementDelta delta, Changes changes) throws JavaModelException {
+			ICompilationUnit unit= (ICompilationUnit) delta.getElement();
+			if (!JavaModelUtil.isPrimary(unit))
+				return;
+			int kind= delta.getKind();
+			int flags= delta.getFlags();
+			if (kind == IJavaElementDelta.CHANGED && (flags & IJavaElementDelta.F_CONTENT) == 0)
+				return;
+
+			// the offsets of all calls in the unit may have changed
+			changes.fUnits.add(unit.getHandleIdentifier());
+			if (kind == IJavaElementDelta.REMOVED)
+				return;
+			if (kind == IJavaElementDelta.CHANGED && (flags & IJavaElementDelta.F_FINE_GRAINED) != 0) {
+				processMemberDeltas(delta, changes);
+				if (changes.fAll)
+					return;
+				// changed method bodies are not reported as member deltas
+				collectIdentifiers(unit.getSource(), changes.fIdentifiers);
+			} else if (kind == IJavaElementDelta.ADDED || unit.isWorkingCopy()) {
+				// changes to the super types of a working copy are reported when it is reconciled
+				collectIdentifiers(unit.getSource(), changes.fIdentifiers);
+			} else {
+				changes.fAll= true;
+			}
+		}
+
+		/*
+		 * A changed signature, type, modifier or super type of a member can rebind calls in other
+		 * compilation units, e.g. a call 'u.getX().foo()' after the return type of 'getX()' has
+		 * changed. Such calls do not contain the name of the changed member, so all callers are
+		 * discarded. Added and removed methods and fields only rebind calls by their name.
+		 */
+		private void processMemberDeltas(IJavaElementDelta delta, Changes changes) throws JavaModelException {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				IJavaElementDelta child= children[i];
+				IJavaElement element= child.getElement();
+				switch (child.getKind()) {
+					case IJavaElementDelta.ADDED:
+					case IJavaElementDelta.REMOVED:
+						if (element.getElementType() == IJavaElement.TYPE) {
+							// a type may hide another type of the same name
+							changes.fAll= true;
+							return;
+						}
+						changes.fIdentifiers.add(element.getElementName());
+						break;
+					case IJavaElementDelta.CHANGED:
+						if ((child.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_MODIFIERS | IJavaElementDelta.F_SUPER_TYPES)) != 0) {
+							changes.fAll= true;
+							return;
+						}
+						processMemberDeltas(child, changes);
+						if (changes.fAll)
+							return;
+						break;
+					default:
+						break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches discarded callers again.
+	 */
+	private static final class UpdateJob extends Job {
+
+		UpdateJob() {
+			super(CallHierarchyMessages.CallerCache_update_job);
+			setSystem(true);
+			setPriority(DECORATE);
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			while (true) {
+				Entry stale;
+				int generation;
+				synchronized (fgEntries) {
+					Iterator<Entry> iter= fgStale.values().iterator();
+					if (!iter.hasNext())
+						return Status.OK_STATUS;
+					stale= iter.next();
+					iter.remove();
+					generation= fgGeneration;
+				}
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				if (!stale.fMember.exists())
+					continue;
+				try {
+					IJavaSearchScope scope= CallHierarchy.getDefault().getSearchScope();
+					Map<String, MethodCall> callers= CallerMethodWrapper.searchCallers(stale.fMember, stale.fFieldSearchMode, scope, monitor);
+					put(stale.fMember, stale.fFieldSearchMode, callers, generation);
+				} catch (CoreException e) {
+					JavaPlugin.log(e);
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the saved callers.
+	 */
+	private static final class LoadJob extends Job {
+		private final File fFile;
+		/** The generation of the cache when the job was scheduled. */
+		private final int fGeneration;
+
+		LoadJob(File file, int generation) {
+			super(CallHierarchyMessages.CallerCache_load_job);
+			fFile= file;
+			fGeneration= generation;
+			setSystem(true);
+			setPriority(SHORT);
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			List<Entry> loaded= null;
+			try {
+				loaded= load(fFile, monitor);
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+			} catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			}
+			synchronized (fgEntries) {
+				if (fgLoadJob != this)
+					return Status.CANCEL_STATUS; // shut down
+				fgLoadJob= null;
+				if (loaded != null && fGeneration == fgGeneration) {
+					for (Iterator<Entry> iter= loaded.iterator(); iter.hasNext();) {
+						Entry entry= iter.next();
+						String key= getKey(entry.fMember, entry.fFieldSearchMode);
+						if (!fgEntries.containsKey(key))
+							fgEntries.put(key, entry);
+					}
+				}
+				fFile.delete(); // rewritten on shutdown
+			}
+			return Status.OK_STATUS;
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+		 */
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == FAMILY;
+		}
+	}
+
+	/**
+	 * The family of the job that loads the saved callers.
+	 *
+	 * @see Job#belongsTo(Object)
+	 */
+	public static final Object FAMILY= new Object();
+
+	private static final String FILENAME= "CallHierarchyCallers.dat"; //$NON-NLS-1$
+	private static final int FORMAT_VERSION= 1;
+
+	private static final int MAX_ENTRIES= 5000;
+	/** The maximum number of discarded callers that are searched again. */
+	private static final int MAX_STALE= 50;
+	/** The delay in milliseconds before discarded callers are searched again. */
+	private static final long UPDATE_DELAY= 2000;
+
+	/** The callers by {@link #getKey(IMember, int) key}. */
+	private static final Map<String, Entry> fgEntries= new LRUMap<String, Entry>(MAX_ENTRIES);
+
+	/** The discarded callers to search again, by key. */
+	private static final Map<String, Entry> fgStale= new LinkedHashMap<String, Entry>();
+
+	/** Incremented whenever callers are discarded. */
+	private static int fgGeneration;
+
+	private static boolean fgInitialized;
+
+	private static IElementChangedListener fgListener;
+
+	private static UpdateJob fgUpdateJob;
+
+	/** The job loading the saved callers, or <code>null</code> if they are not being loaded. */
+	private static LoadJob fgLoadJob;
+
+	private CallerCache() {
+	}
+
+	/**
+	 * Returns the cached callers of the given member.
+	 *
+	 * @param member the called member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @return a new map from handle identifier to {@link MethodCall}, or <code>null</code> if the
+	 *         callers are not cached
+	 */
+	public static Map<String, MethodCall> get(IMember member, int fieldSearchMode) {
+		synchronized (fgEntries) {
+			initialize();
+			Entry entry= fgEntries.get(getKey(member, fieldSearchMode));
+			return entry == null ? null : new HashMap<String, MethodCall>(entry.fCallers);
+		}
+	}
+
+	/**
+	 * Tells whether the callers of the given member are cached.
+	 *
+	 * @param member the called member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @return <code>true</code> if the callers are cached
+	 */
+	public static boolean contains(IMember member, int fieldSearchMode) {
+		synchronized (fgEntries) {
+			initialize();
+			return fgEntries.containsKey(getKey(member, fieldSearchMode));
+		}
+	}
+
+	/**
+	 * Returns the generation of the cache, to be passed to {@link #put(IMember, int, Map, int)}
+	 * after the callers have been searched.
+	 *
+	 * @return the current generation
+	 */
+	public static int getGeneration() {
+		synchronized (fgEntries) {
+			return fgGeneration;
+		}
+	}
+
+	/**
+	 * Stores the callers of the given member, unless callers have been discarded since the search
+	 * was started.
+	 *
+	 * @param member the called member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @param callers the map from handle identifier to {@link MethodCall}, is copied
+	 * @param generation the generation of the cache before the search was started
+	 */
+	public static void put(IMember member, int fieldSearchMode, Map<String, MethodCall> callers, int generation) {
+		synchronized (fgEntries) {
+			initialize();
+			if (generation != fgGeneration)
+				return;
+			String key= getKey(member, fieldSearchMode);
+			fgEntries.put(key, new Entry(member, fieldSearchMode, new HashMap<String, MethodCall>(callers)));
+			fgStale.remove(key);
+		}
+	}
+
+	/**
+	 * Discards the cached callers of the given member.
+	 *
+	 * @param member the called member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 */
+	public static void remove(IMember member, int fieldSearchMode) {
+		synchronized (fgEntries) {
+			fgEntries.remove(getKey(member, fieldSearchMode));
+		}
+	}
+
+	/**
+	 * Discards all cached callers.
+	 */
+	public static void clear() {
+		synchronized (fgEntries) {
+			fgEntries.clear();
+			fgStale.clear();
+			fgGeneration++;
+		}
+	}
+
+	/**
+	 * Saves the cached callers if the search scope is the workspace and stops listening to
+	 * changes. Called when the plug-in is stopped.
+	 */
+	public static void shutdown() {
+		synchronized (fgEntries) {
+			if (fgListener != null) {
+				JavaCore.removeElementChangedListener(fgListener);
+				fgListener= null;
+			}
+			if (fgUpdateJob != null) {
+				fgUpdateJob.cancel();
+				fgUpdateJob= null;
+			}
+			if (!fgInitialized)
+				return; // the saved callers have not been used
+			fgInitialized= false;
+			if (fgLoadJob != null) {
+				fgLoadJob.cancel();
+				fgLoadJob= null;
+				if (fgEntries.isEmpty())
+					return; // keep the saved callers, they have not been loaded
+			}
+
+			File file= getFile();
+			if (fgEntries.isEmpty() || !isWorkspaceScope()) {
+				file.delete();
+				return;
+			}
+			try {
+				save(file);
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the key of the callers of the given member.
+	 *
+	 * @param member the called member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @return the key
+	 */
+	static String getKey(IMember member, int fieldSearchMode) {
+		String key= member.getHandleIdentifier();
+		if (member.getElementType() == IJavaElement.FIELD)
+			key= key + '#' + fieldSearchMode;
+		return key;
+	}
+
+	private static void discard(Changes changes) {
+		synchronized (fgEntries) {
+			fgGeneration++;
+			for (Iterator<Map.Entry<String, Entry>> iter= fgEntries.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, Entry> mapEntry= iter.next();
+				Entry entry= mapEntry.getValue();
+				if (changes.fIdentifiers.contains(entry.fName) || intersects(entry.fUnits, changes.fUnits)) {
+					iter.remove();
+					fgStale.remove(mapEntry.getKey());
+					fgStale.put(mapEntry.getKey(), entry);
+				}
+			}
+			for (Iterator<Entry> iter= fgStale.values().iterator(); fgStale.size() > MAX_STALE;) {
+				iter.next();
+				iter.remove();
+			}
+			if (!fgStale.isEmpty() && fgListener != null) {
+				if (fgUpdateJob == null)
+					fgUpdateJob= new UpdateJob();
+				fgUpdateJob.schedule(UPDATE_DELAY);
+			}
+		}
+	}
+
+	private static boolean intersects(Set<String> set1, Set<String> set2) {
+		for (Iterator<String> iter= set1.iterator(); iter.hasNext();) {
+			if (set2.contains(iter.next()))
+				return true;
+		}
+		return false;
+	}
+
+	private static void collectIdentifiers(String source, Set<String> identifiers) {
+		if (source == null)
+			return;
+		int length= source.length();
+		int i= 0;
+		while (i < length) {
+			if (Character.isJavaIdentifierStart(source.charAt(i))) {
+				int start= i++;
+				while (i < length && Character.isJavaIdentifierPart(source.charAt(i)))
+					i++;
+				identifiers.add(source.substring(start, i));
+			} else {
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Starts listening to changes and schedules the loading of the saved callers on first use.
+	 * Must be called while holding the lock on {@link #fgEntries}.
+	 */
+	private static void initialize() {
+		if (fgInitialized)
+			return;
+		fgInitialized= true;
+		fgListener= new ChangeListener();
+		JavaCore.addElementChangedListener(fgListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+
+		File file= getFile();
+		if (!file.isFile() || !isWorkspaceScope())
+			return;
+		fgLoadJob= new LoadJob(file, fgGeneration);
+		fgLoadJob.schedule();
+	}
+
+	private static File getFile() {
+		return JavaPlugin.getDefault().getStateLocation().append(FILENAME).toFile();
+	}
+
+	private static boolean isWorkspaceScope() {
+		return SearchEngine.createWorkspaceScope().equals(CallHierarchy.getDefault().getSearchScope());
+	}
+
+	private static String[] getJavaProjectNames() throws JavaModelException {
+		IJavaProject[] projects= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+		String[] names= new String[projects.length];
+		for (int i= 0; i < projects.length; i++)
+			names[i]= projects[i].getElementName();
+		Arrays.sort(names);
+		return names;
+	}
+
+	private static void save(File file) throws IOException {
+		String[] projects;
+		try {
+			projects= getJavaProjectNames();
+		} catch (JavaModelException e) {
+			throw new IOException(e.getMessage());
+		}
+
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(System.currentTimeMillis());
+			out.writeUTF(CallHierarchy.getDefault().getFilters());
+			out.writeBoolean(CallHierarchy.getDefault().isFilterEnabled());
+			out.writeInt(projects.length);
+			for (int i= 0; i < projects.length; i++)
+				out.writeUTF(projects[i]);
+
+			out.writeInt(fgEntries.size());
+			for (Iterator<Entry> iter= fgEntries.values().iterator(); iter.hasNext();) {
+				Entry entry= iter.next();
+				out.writeUTF(entry.fMember.getHandleIdentifier());
+				out.writeInt(entry.fFieldSearchMode);
+				out.writeInt(entry.fCallers.size());
+				for (Iterator<MethodCall> callIter= entry.fCallers.values().iterator(); callIter.hasNext();) {
+					MethodCall call= callIter.next();
+					Collection<CallLocation> locations= call.getCallLocations();
+					out.writeUTF(call.getMember().getHandleIdentifier());
+					out.writeInt(locations == null ? 0 : locations.size());
+					if (locations == null)
+						continue;
+					for (Iterator<CallLocation> locationIter= locations.iterator(); locationIter.hasNext();) {
+						CallLocation location= locationIter.next();
+						out.writeUTF(location.getMember().getHandleIdentifier());
+						out.writeInt(location.getStart());
+						out.writeInt(location.getEnd());
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the saved callers. Does not access the cache.
+	 *
+	 * @param file the file to read
+	 * @param monitor the progress monitor
+	 * @return the saved callers, or <code>null</code> if they are outdated
+	 * @throws IOException if the file cannot be read
+	 * @throws CoreException if the workspace cannot be visited
+	 * @throws OperationCanceledException if the loading has been canceled
+	 */
+	private static List<Entry> load(File file, IProgressMonitor monitor) throws IOException, CoreException {
+		DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != FORMAT_VERSION)
+				return null;
+			long timeStamp= in.readLong();
+			if (!in.readUTF().equals(CallHierarchy.getDefault().getFilters()) || in.readBoolean() != CallHierarchy.getDefault().isFilterEnabled())
+				return null;
+			String[] projects= new String[in.readInt()];
+			for (int i= 0; i < projects.length; i++)
+				projects[i]= in.readUTF();
+			if (!Arrays.equals(projects, getJavaProjectNames()) || isModifiedSince(timeStamp))
+				return null;
+
+			int entries= in.readInt();
+			List<Entry> loaded= new ArrayList<Entry>(entries);
+			for (int i= 0; i < entries; i++) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				IJavaElement member= JavaCore.create(in.readUTF());
+				int fieldSearchMode= in.readInt();
+				boolean isValid= member instanceof IMember;
+				CallSearchResultCollector collector= new CallSearchResultCollector();
+				int calls= in.readInt();
+				for (int j= 0; j < calls; j++) {
+					IJavaElement calledMember= JavaCore.create(in.readUTF());
+					isValid&= calledMember instanceof IMember;
+					int locations= in.readInt();
+					for (int k= 0; k < locations; k++) {
+						IJavaElement caller= JavaCore.create(in.readUTF());
+						int start= in.readInt();
+						int end= in.readInt();
+						isValid&= caller instanceof IMember;
+						if (isValid)
+							collector.addMember((IMember) caller, (IMember) calledMember, start, end);
+					}
+				}
+				if (isValid)
+					loaded.add(new Entry((IMember) member, fieldSearchMode, collector.getCallers()));
+			}
+			return loaded;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Tells whether a Java file, class path file or archive has been modified after the given
+	 * time.
+	 *
+	 * @param timeStamp the time in milliseconds
+	 * @return <code>true</code> if a file has been modified
+	 * @throws CoreException if the workspace cannot be visited
+	 */
+	private static boolean isModifiedSince(final long timeStamp) throws CoreException {
+		final boolean[] modified= new boolean[1];
+		ResourcesPlugin.getWorkspace().getRoot().accept(new IResourceProxyVisitor() {
+			public boolean visit(IResourceProxy proxy) {
+				if (modified[0])
+					return false;
+				if (proxy.getType() != IResource.FILE)
+					return true;
+				String name= proxy.getName();
+				if (JavaCore.isJavaLikeFileName(name) || name.endsWith(".jar") || name.equals(".classpath")) //$NON-NLS-1$ //$NON-NLS-2$
+					modified[0]= proxy.requestResource().getLocalTimeStamp() > timeStamp;
+				return false;
+			}
+		}, IResource.NONE);
+		if (modified[0])
+			return true;
+
+		IJavaProject[] projects= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+		for (int i= 0; i < projects.length; i++) {
+			IPackageFragmentRoot[] roots= projects[i].getPackageFragmentRoots();
+			for (int j= 0; j < roots.length; j++) {
+				if (roots[j].isArchive() && roots[j].isExternal() && roots[j].getPath().toFile().lastModified() > timeStamp)
+					return true;
+			}
+		}
+		return false;
+	}
+}
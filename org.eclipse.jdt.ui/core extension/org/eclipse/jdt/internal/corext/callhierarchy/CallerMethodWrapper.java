@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -98,71 +98,108 @@ public class CallerMethodWrapper extends MethodWrapper {
 	 */
 	@Override
 	protected Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor) {
-		try {
+		checkCanceled(progressMonitor);
 
-			IProgressMonitor monitor= new SubProgressMonitor(progressMonitor, 95, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL);
+		IMember member= getMember();
+		int fieldSearchMode= getFieldSearchMode();
+		Map<String, MethodCall> callers= CallerCache.get(member, fieldSearchMode);
+		if (callers != null)
+			return callers;
 
-			checkCanceled(progressMonitor);
+		int generation= CallerCache.getGeneration();
+		IProgressMonitor monitor= new SubProgressMonitor(progressMonitor, 95, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL);
+		try {
+			callers= searchCallers(member, fieldSearchMode, getSearchScope(), monitor);
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			return new HashMap<String, MethodCall>(0);
+		}
+		checkCanceled(progressMonitor);
+		CallerCache.put(member, fieldSearchMode, callers, generation);
+		return callers;
+	}
 
-			IMember member= getMember();
-			SearchPattern pattern= null;
-			IType type= null;
-			if (member instanceof IType) {
-				type= (IType) member;
-			} else if (member instanceof IInitializer && ! Flags.isStatic(member.getFlags())) {
-				type= (IType) member.getParent();
-			}
-			if (type != null) {
-				if (type.isAnonymous()) {
-					// search engine does not find reference to anonymous, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=207774
-					CallSearchResultCollector resultCollector= new CallSearchResultCollector();
-					IJavaElement parent= type.getParent();
-					if (parent instanceof IMember) {
-						IMember parentMember= (IMember) parent;
-						ISourceRange nameRange= type.getNameRange();
-						int start= nameRange != null ? nameRange.getOffset() : -1;
-						int len= nameRange != null ? nameRange.getLength() : 0;
-						resultCollector.addMember(type, parentMember, start, start + len);
-						return resultCollector.getCallers();
-					}
-				} else if (type.getParent() instanceof IMethod) {
-					// good enough for local types (does not find super(..) references in subtype constructors):
-					pattern= SearchPattern.createPattern(type,
-							IJavaSearchConstants.CLASS_INSTANCE_CREATION_TYPE_REFERENCE,
-							SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-				} else {
-					pattern= SearchPattern.createPattern(type.getFullyQualifiedName('.'),
-							IJavaSearchConstants.CONSTRUCTOR,
-							IJavaSearchConstants.REFERENCES,
-							SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+	/**
+	 * Searches the callers of the given member.
+	 *
+	 * @param member the called member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @param defaultSearchScope the search scope
+	 * @param monitor the progress monitor
+	 * @return a map from handle identifier ({@link String}) to {@link MethodCall}
+	 * @throws CoreException if the search fails
+	 * @since 3.9
+	 */
+	static Map<String, MethodCall> searchCallers(IMember member, int fieldSearchMode, IJavaSearchScope defaultSearchScope, IProgressMonitor monitor) throws CoreException {
+		SearchPattern pattern= null;
+		IType type= null;
+		if (member instanceof IType) {
+			type= (IType) member;
+		} else if (member instanceof IInitializer && ! Flags.isStatic(member.getFlags())) {
+			type= (IType) member.getParent();
+		}
+		if (type != null) {
+			if (type.isAnonymous()) {
+				// search engine does not find reference to anonymous, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=207774
+				CallSearchResultCollector resultCollector= new CallSearchResultCollector();
+				IJavaElement parent= type.getParent();
+				if (parent instanceof IMember) {
+					IMember parentMember= (IMember) parent;
+					ISourceRange nameRange= type.getNameRange();
+					int start= nameRange != null ? nameRange.getOffset() : -1;
+					int len= nameRange != null ? nameRange.getLength() : 0;
+					resultCollector.addMember(type, parentMember, start, start + len);
+					return resultCollector.getCallers();
 				}
+			} else if (type.getParent() instanceof IMethod) {
+				// good enough for local types (does not find super(..) references in subtype constructors):
+				pattern= SearchPattern.createPattern(type,
+						IJavaSearchConstants.CLASS_INSTANCE_CREATION_TYPE_REFERENCE,
+						SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			} else {
+				pattern= SearchPattern.createPattern(type.getFullyQualifiedName('.'),
+						IJavaSearchConstants.CONSTRUCTOR,
+						IJavaSearchConstants.REFERENCES,
+						SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
 			}
-			if (pattern == null) {
-				int limitTo= IJavaSearchConstants.REFERENCES;
-				if (member.getElementType() == IJavaElement.FIELD)
-					limitTo= getFieldSearchMode();
-				pattern= SearchPattern.createPattern(member, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-			}
-			if (pattern == null) { // e.g. for initializers
-				return new HashMap<String, MethodCall>(0);
-			}
-
-			SearchEngine searchEngine= new SearchEngine();
-			MethodReferencesSearchRequestor searchRequestor= new MethodReferencesSearchRequestor();
-			IJavaSearchScope defaultSearchScope= getSearchScope();
-			boolean isWorkspaceScope= SearchEngine.createWorkspaceScope().equals(defaultSearchScope);
-			IJavaSearchScope searchScope= isWorkspaceScope ? getAccurateSearchScope(defaultSearchScope, member) : defaultSearchScope;
-			searchEngine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, searchScope, searchRequestor,
-					monitor);
-			return searchRequestor.getCallers();
-
-		} catch (CoreException e) {
-			JavaPlugin.log(e);
+		}
+		if (pattern == null) {
+			int limitTo= IJavaSearchConstants.REFERENCES;
+			if (member.getElementType() == IJavaElement.FIELD)
+				limitTo= fieldSearchMode;
+			pattern= SearchPattern.createPattern(member, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+		}
+		if (pattern == null) { // e.g. for initializers
 			return new HashMap<String, MethodCall>(0);
 		}
+
+		SearchEngine searchEngine= new SearchEngine();
+		MethodReferencesSearchRequestor searchRequestor= new MethodReferencesSearchRequestor();
+		boolean isWorkspaceScope= SearchEngine.createWorkspaceScope().equals(defaultSearchScope);
+		IJavaSearchScope searchScope= isWorkspaceScope ? getAccurateSearchScope(defaultSearchScope, member) : defaultSearchScope;
+		searchEngine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, searchScope, searchRequestor,
+				monitor);
+		return searchRequestor.getCallers();
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper#areCallsKnown()
+	 */
+	@Override
+	public boolean areCallsKnown() {
+		return super.areCallsKnown() || CallerCache.contains(getMember(), getFieldSearchMode());
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper#removeFromCache()
+	 */
+	@Override
+	public void removeFromCache() {
+		super.removeFromCache();
+		CallerCache.remove(getMember(), getFieldSearchMode());
 	}
 
-	private IJavaSearchScope getAccurateSearchScope(IJavaSearchScope defaultSearchScope, IMember member) throws JavaModelException {
+	private static IJavaSearchScope getAccurateSearchScope(IJavaSearchScope defaultSearchScope, IMember member) throws JavaModelException {
 		if (! JdtFlags.isPrivate(member))
 			return defaultSearchScope;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -95,6 +95,20 @@ public abstract class MethodWrapper extends PlatformObject {
         return result;
     }
 
+    /**
+     * Tells whether the calls of this member are known, so that {@link #getCalls(IProgressMonitor)}
+     * returns them without searching.
+     *
+     * @return <code>true</code> if the calls are known
+     * @since 3.9
+     */
+    public boolean areCallsKnown() {
+        if (fElements != null)
+            return true;
+        Map<String, MethodCall> existingResults = lookupMethod(getMethodCall());
+        return existingResults != null && !existingResults.isEmpty();
+    }
+
     public int getLevel() {
         return fLevel;
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -64,6 +64,17 @@ public class ASTBatchParser {
 		}
 	}
 
+	/**
+	 * Returns the maximum number of compilation units that are parsed at once. Depends on the
+	 * maximum heap size.
+	 *
+	 * @return the maximum number of compilation units parsed at once
+	 * @since 3.9
+	 */
+	public static int getMaxAtOnce() {
+		return MAX_AT_ONCE;
+	}
+
 	/**
 	 * Creates ASTs for each compilation unit in <code>units</code>.
 	 * <p>
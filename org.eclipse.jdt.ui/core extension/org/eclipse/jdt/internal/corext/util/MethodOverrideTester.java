@@ -12,11 +12,14 @@
 package org.eclipse.jdt.internal.corext.util;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
@@ -28,6 +31,14 @@ import org.eclipse.jdt.core.Signature;
 
 /**
  * Finds overriding and overridden methods based on the Java model.
+ * <p>
+ * The results of {@link #findOverriddenMethod(IMethod, boolean)},
+ * {@link #findOverriddenMethodInType(IType, IMethod)} and
+ * {@link #findOverridingMethodInType(IType, IMethod)} are memoized for the lifetime of the tester,
+ * which is bound to a type hierarchy. Testers for a type should therefore be obtained from
+ * {@link SuperTypeHierarchyCache#getMethodOverrideTester(IType)}, which discards them when the
+ * hierarchy changes and clears their results when the members of a type they depend on change.
+ * </p>
  * 
  * @see JDTUIHelperClasses
  */
@@ -73,12 +84,43 @@ public class MethodOverrideTester {
 		}
 	}
 
+	/**
+	 * Marks memoized <code>null</code> results.
+	 */
+	private static final Object NO_METHOD= new Object();
+
+	/**
+	 * The number of bits used per parameter in a signature fingerprint.
+	 */
+	private static final int PARAMETER_BITS= 4;
+
+	/**
+	 * The maximum number of parameters encoded in a signature fingerprint.
+	 */
+	private static final int MAX_FINGERPRINT_PARAMETERS= 6;
+
 	private final IType fFocusType;
 	private final ITypeHierarchy fHierarchy;
 
 	private Map <IMethod, Substitutions> fMethodSubstitutions;
 	private Map<IType, Substitutions> fTypeVariableSubstitutions;
 
+	/**
+	 * Guards the memoized results and {@link #fGeneration}.
+	 */
+	private final Object fMemoLock= new Object();
+
+	/**
+	 * Incremented whenever the memoized results are discarded. A result computed while they were
+	 * discarded may be based on the old members and is not memoized.
+	 */
+	private int fGeneration;
+
+	private final Map<IMethod, Object> fOverriddenMethods;
+	private final Map<IMethod, Object> fVisibleOverriddenMethods;
+	private final Map<IType, Map<IMethod, Object>> fOverriddenMethodsInType;
+	private final Map<IType, Map<IMethod, Object>> fOverridingMethodsInType;
+
 	public MethodOverrideTester(IType focusType, ITypeHierarchy hierarchy) {
 		if (focusType == null || hierarchy == null) {
 			throw new IllegalArgumentException();
@@ -87,6 +129,11 @@ public class MethodOverrideTester {
 		fHierarchy= hierarchy;
 		fTypeVariableSubstitutions= null;
 		fMethodSubstitutions= null;
+		fGeneration= 0;
+		fOverriddenMethods= new HashMap<IMethod, Object>();
+		fVisibleOverriddenMethods= new HashMap<IMethod, Object>();
+		fOverriddenMethodsInType= new HashMap<IType, Map<IMethod, Object>>();
+		fOverridingMethodsInType= new HashMap<IType, Map<IMethod, Object>>();
 	}
 
 	public IType getFocusType() {
@@ -97,6 +144,72 @@ public class MethodOverrideTester {
 		return fHierarchy;
 	}
 
+	/**
+	 * Discards the memoized results. Needs to be called when members of the types in the
+	 * hierarchy change while the hierarchy itself is still valid, e.g. when a working copy is
+	 * reconciled.
+	 * 
+	 * @since 3.9
+	 */
+	public void clearCachedResults() {
+		synchronized (fMemoLock) {
+			fGeneration++;
+			fOverriddenMethods.clear();
+			fVisibleOverriddenMethods.clear();
+			fOverriddenMethodsInType.clear();
+			fOverridingMethodsInType.clear();
+		}
+	}
+
+	/**
+	 * Discards the memoized results if they may depend on the members of the given compilation
+	 * units, i.e. if a type of the hierarchy or a method or type passed to this tester is declared
+	 * in one of them.
+	 * 
+	 * @param units the compilation units whose members have changed
+	 * @since 3.9
+	 */
+	public void clearCachedResults(Set<ICompilationUnit> units) {
+		synchronized (fMemoLock) {
+			if (fOverriddenMethods.isEmpty() && fVisibleOverriddenMethods.isEmpty() && fOverriddenMethodsInType.isEmpty() && fOverridingMethodsInType.isEmpty())
+				return;
+			if (dependsOn(units))
+				clearCachedResults();
+		}
+	}
+
+	private boolean dependsOn(Set<ICompilationUnit> units) {
+		IType[] types= fHierarchy.getAllTypes();
+		for (int i= 0; i < types.length; i++) {
+			if (isDeclaredIn(types[i], units))
+				return true;
+		}
+		return isAnyDeclaredIn(fOverriddenMethods.keySet(), units) || isAnyDeclaredIn(fVisibleOverriddenMethods.keySet(), units)
+				|| isAnyDeclaredIn(fOverriddenMethodsInType, units) || isAnyDeclaredIn(fOverridingMethodsInType, units);
+	}
+
+	private static boolean isAnyDeclaredIn(Map<IType, Map<IMethod, Object>> memos, Set<ICompilationUnit> units) {
+		for (Iterator<Map.Entry<IType, Map<IMethod, Object>>> iter= memos.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IType, Map<IMethod, Object>> entry= iter.next();
+			if (isDeclaredIn(entry.getKey(), units) || isAnyDeclaredIn(entry.getValue().keySet(), units))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isAnyDeclaredIn(Set<IMethod> methods, Set<ICompilationUnit> units) {
+		for (Iterator<IMethod> iter= methods.iterator(); iter.hasNext();) {
+			if (isDeclaredIn(iter.next(), units))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isDeclaredIn(IMember member, Set<ICompilationUnit> units) {
+		ICompilationUnit cu= member.getCompilationUnit();
+		return cu != null && units.contains(cu);
+	}
+
 	/**
 	 * Finds the method that declares the given method. A declaring method is the 'original' method declaration that does
 	 * not override nor implement a method. <code>null</code> is returned it the given method does not override
@@ -125,6 +238,23 @@ public class MethodOverrideTester {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public IMethod findOverriddenMethod(IMethod overriding, boolean testVisibility) throws JavaModelException {
+		Map<IMethod, Object> memo= testVisibility ? fVisibleOverriddenMethods : fOverriddenMethods;
+		int generation;
+		synchronized (fMemoLock) {
+			Object result= memo.get(overriding);
+			if (result != null)
+				return toMethod(result);
+			generation= fGeneration;
+		}
+		IMethod method= internalFindOverriddenMethod(overriding, testVisibility);
+		synchronized (fMemoLock) {
+			if (generation == fGeneration)
+				memo.put(overriding, toResult(method));
+		}
+		return method;
+	}
+
+	private IMethod internalFindOverriddenMethod(IMethod overriding, boolean testVisibility) throws JavaModelException {
 		int flags= overriding.getFlags();
 		if (Flags.isPrivate(flags) || Flags.isStatic(flags) || overriding.isConstructor()) {
 			return null;
@@ -189,16 +319,35 @@ public class MethodOverrideTester {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public IMethod findOverriddenMethodInType(IType overriddenType, IMethod overriding) throws JavaModelException {
+		int generation;
+		synchronized (fMemoLock) {
+			Object result= getMemo(fOverriddenMethodsInType, overriddenType).get(overriding);
+			if (result != null)
+				return toMethod(result);
+			generation= fGeneration;
+		}
+		IMethod method= internalFindOverriddenMethodInType(overriddenType, overriding);
+		synchronized (fMemoLock) {
+			if (generation == fGeneration)
+				getMemo(fOverriddenMethodsInType, overriddenType).put(overriding, toResult(method));
+		}
+		return method;
+	}
+
+	private IMethod internalFindOverriddenMethodInType(IType overriddenType, IMethod overriding) throws JavaModelException {
 		int flags= overriding.getFlags();
 		if (Flags.isPrivate(flags) || Flags.isStatic(flags) || overriding.isConstructor())
 			return null;
+		long fingerprint= getSignatureFingerprint(overriding);
 		IMethod[] overriddenMethods= overriddenType.getMethods();
 		for (int i= 0; i < overriddenMethods.length; i++) {
 			IMethod overridden= overriddenMethods[i];
+			if (getSignatureFingerprint(overridden) != fingerprint)
+				continue;
 			flags= overridden.getFlags();
 			if (Flags.isPrivate(flags) || Flags.isStatic(flags) || overridden.isConstructor())
 				continue;
-			if (isSubsignature(overriding, overridden)) {
+			if (internalIsSubsignature(overriding, overridden)) {
 				return overridden;
 			}
 		}
@@ -213,22 +362,109 @@ public class MethodOverrideTester {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public IMethod findOverridingMethodInType(IType overridingType, IMethod overridden) throws JavaModelException {
+		int generation;
+		synchronized (fMemoLock) {
+			Object result= getMemo(fOverridingMethodsInType, overridingType).get(overridden);
+			if (result != null)
+				return toMethod(result);
+			generation= fGeneration;
+		}
+		IMethod method= internalFindOverridingMethodInType(overridingType, overridden);
+		synchronized (fMemoLock) {
+			if (generation == fGeneration)
+				getMemo(fOverridingMethodsInType, overridingType).put(overridden, toResult(method));
+		}
+		return method;
+	}
+
+	private IMethod internalFindOverridingMethodInType(IType overridingType, IMethod overridden) throws JavaModelException {
 		int flags= overridden.getFlags();
 		if (Flags.isPrivate(flags) || Flags.isStatic(flags) || overridden.isConstructor())
 			return null;
+		long fingerprint= getSignatureFingerprint(overridden);
 		IMethod[] overridingMethods= overridingType.getMethods();
 		for (int i= 0; i < overridingMethods.length; i++) {
 			IMethod overriding= overridingMethods[i];
+			if (getSignatureFingerprint(overriding) != fingerprint)
+				continue;
 			flags= overriding.getFlags();
 			if (Flags.isPrivate(flags) || Flags.isStatic(flags) || overriding.isConstructor())
 				continue;
-			if (isSubsignature(overriding, overridden)) {
+			if (internalIsSubsignature(overriding, overridden)) {
 				return overriding;
 			}
 		}
 		return null;
 	}
 
+	private static Map<IMethod, Object> getMemo(Map<IType, Map<IMethod, Object>> memos, IType type) {
+		Map<IMethod, Object> memo= memos.get(type);
+		if (memo == null) {
+			memo= new HashMap<IMethod, Object>();
+			memos.put(type, memo);
+		}
+		return memo;
+	}
+
+	private static Object toResult(IMethod method) {
+		return method != null ? method : NO_METHOD;
+	}
+
+	private static IMethod toMethod(Object result) {
+		return result != NO_METHOD ? (IMethod) result : null;
+	}
+
+	/**
+	 * Computes a fingerprint of the parts of a method signature that are not affected by type
+	 * variable substitutions: the name, the number of parameters and the primitive types of the
+	 * first parameters. If the fingerprints of two methods differ, neither method is a
+	 * subsignature of the other. The fingerprint is computed from the method handle and does not
+	 * require the element info to be opened.
+	 * 
+	 * @param method the method
+	 * @return the fingerprint
+	 */
+	private static long getSignatureFingerprint(IMethod method) {
+		String[] parameterTypes= method.getParameterTypes();
+		int nParameters= parameterTypes.length;
+		long parameterBits= nParameters;
+		for (int i= 0; i < nParameters && i < MAX_FINGERPRINT_PARAMETERS; i++) {
+			parameterBits= parameterBits << PARAMETER_BITS | getPrimitiveTypeCode(parameterTypes[i]);
+		}
+		return (long) method.getElementName().hashCode() << 32 ^ parameterBits;
+	}
+
+	/*
+	 * Returns a code for a parameter of a primitive type, or 0 for all other parameter types.
+	 * A type variable can only be substituted by a reference type, so parameters of primitive
+	 * types only match parameters of the same type.
+	 */
+	private static int getPrimitiveTypeCode(String typeSig) {
+		if (typeSig.length() != 1) {
+			return 0;
+		}
+		switch (typeSig.charAt(0)) {
+			case Signature.C_BOOLEAN:
+				return 1;
+			case Signature.C_BYTE:
+				return 2;
+			case Signature.C_CHAR:
+				return 3;
+			case Signature.C_DOUBLE:
+				return 4;
+			case Signature.C_FLOAT:
+				return 5;
+			case Signature.C_INT:
+				return 6;
+			case Signature.C_LONG:
+				return 7;
+			case Signature.C_SHORT:
+				return 8;
+			default:
+				return 0;
+		}
+	}
+
 	/**
 	 * Tests if a method is a subsignature of another method.
 	 * @param overriding overriding method (m1)
@@ -240,6 +476,13 @@ public class MethodOverrideTester {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public boolean isSubsignature(IMethod overriding, IMethod overridden) throws JavaModelException {
+		if (getSignatureFingerprint(overriding) != getSignatureFingerprint(overridden)) {
+			return false;
+		}
+		return internalIsSubsignature(overriding, overridden);
+	}
+
+	private boolean internalIsSubsignature(IMethod overriding, IMethod overridden) throws JavaModelException {
 		if (!overridden.getElementName().equals(overriding.getElementName())) {
 			return false;
 		}
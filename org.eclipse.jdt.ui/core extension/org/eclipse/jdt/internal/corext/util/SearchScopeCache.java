@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+
+/**
+ * Caches search scopes whose computation walks many projects or package fragment roots, such as
+ * the scopes of large working sets or the scopes of all projects referencing a project.
+ * <p>
+ * A scope is cached under a key built by {@link #createKey(Object[])} from everything that was
+ * used to compute it. All scopes are discarded when projects or package fragment roots are added
+ * or removed, opened or closed, or when a class path changes.
+ * </p>
+ * <p>
+ * The hits and misses are traced with the debug option
+ * <code>org.eclipse.jdt.ui/debug/SearchScopeCache</code>. This class is thread-safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class SearchScopeCache {
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/SearchScopeCache"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	private static final String DEBUG_PREFIX= "SearchScopeCache > "; //$NON-NLS-1$
+
+	private static final int MAX_SCOPES= 50;
+
+	private static final class ChangeListener implements IElementChangedListener {
+		/*
+		 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+		 */
+		public void elementChanged(ElementChangedEvent event) {
+			if (affectsScopes(event.getDelta()))
+				clear();
+		}
+
+		private boolean affectsScopes(IJavaElementDelta delta) {
+			int flags= delta.getFlags();
+			switch (delta.getElement().getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					return affectsChildren(delta);
+				case IJavaElement.JAVA_PROJECT:
+					if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+							| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0)
+						return true;
+					return affectsChildren(delta);
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					return delta.getKind() != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+							| IJavaElementDelta.F_REORDER)) != 0;
+				default:
+					return false;
+			}
+		}
+
+		private boolean affectsChildren(IJavaElementDelta delta) {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				if (affectsScopes(children[i]))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private static final Map<List<Object>, IJavaSearchScope> fgScopes= new LRUMap<List<Object>, IJavaSearchScope>(MAX_SCOPES);
+
+	private static IElementChangedListener fgListener;
+
+	private static int fgHits;
+
+	private static int fgMisses;
+
+	private SearchScopeCache() {
+	}
+
+	/**
+	 * Creates the key of a scope.
+	 *
+	 * @param parts everything the scope is computed from, each part must implement
+	 *            {@link Object#equals(Object)} and {@link Object#hashCode()}; use sets for elements
+	 *            whose order does not matter
+	 * @return the key
+	 */
+	public static List<Object> createKey(Object... parts) {
+		return Arrays.asList(parts);
+	}
+
+	/**
+	 * Returns the cached scope for the given key.
+	 *
+	 * @param key the key created by {@link #createKey(Object[])}
+	 * @return the scope or <code>null</code> if no scope is cached for the key
+	 */
+	public static IJavaSearchScope get(List<Object> key) {
+		synchronized (fgScopes) {
+			IJavaSearchScope scope= fgScopes.get(key);
+			if (scope != null)
+				fgHits++;
+			else
+				fgMisses++;
+			if (DEBUG)
+				System.out.println(DEBUG_PREFIX + (scope != null ? "hit" : "miss") + ", hits: " + fgHits + ", misses: " + fgMisses + ", size: " + fgScopes.size()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			return scope;
+		}
+	}
+
+	/**
+	 * Caches a scope. The scope must not be modified afterwards.
+	 *
+	 * @param key the key created by {@link #createKey(Object[])}
+	 * @param scope the scope
+	 */
+	public static void put(List<Object> key, IJavaSearchScope scope) {
+		synchronized (fgScopes) {
+			if (fgListener == null) {
+				fgListener= new ChangeListener();
+				JavaCore.addElementChangedListener(fgListener, ElementChangedEvent.POST_CHANGE);
+			}
+			fgScopes.put(key, scope);
+		}
+	}
+
+	/**
+	 * Discards all cached scopes.
+	 */
+	public static void clear() {
+		synchronized (fgScopes) {
+			if (DEBUG && !fgScopes.isEmpty())
+				System.out.println(DEBUG_PREFIX + "discarded " + fgScopes.size() + " scopes"); //$NON-NLS-1$ //$NON-NLS-2$
+			fgScopes.clear();
+		}
+	}
+
+	/**
+	 * Discards all cached scopes and stops listening to changes. Called when the plug-in is
+	 * stopped.
+	 */
+	public static void shutdown() {
+		synchronized (fgScopes) {
+			if (fgListener != null) {
+				JavaCore.removeElementChangedListener(fgListener);
+				fgListener= null;
+			}
+			fgScopes.clear();
+		}
+	}
+}
@@ -11,18 +11,40 @@
 package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * The cache is bounded by the total number of types in the cached hierarchies, see
+ * {@link #getMaxCacheSize()}. The bound can be configured with the system property
+ * <code>org.eclipse.jdt.ui.superTypeHierarchyCacheSize</code> and defaults to a value that grows
+ * with the maximum heap size. The least recently accessed hierarchies are evicted first. A
+ * hierarchy that contains the focus type of a cached hierarchy replaces it, since it contains all
+ * of its types.
+ * </p>
+ * <p>
+ * The {@link MethodOverrideTester}s returned by {@link #getMethodOverrideTester(IType)} memoize
+ * their results. The results of a tester are discarded when the members of a type it depends on
+ * change.
+ * </p>
  * 
  * @see JDTUIHelperClasses
  */
@@ -31,10 +53,12 @@ public class SuperTypeHierarchyCache {
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
 		private ITypeHierarchy fTypeHierarchy;
+		private final IType[] fTypes;
 		private long fLastAccess;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
+			fTypes= hierarchy.getAllTypes();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
@@ -47,6 +71,15 @@ public class SuperTypeHierarchyCache {
 			return fTypeHierarchy;
 		}
 
+		/**
+		 * Returns all types of the hierarchy.
+		 * 
+		 * @return the types, the number of types is the estimated size of the hierarchy
+		 */
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
 		public void markAsAccessed() {
 			fLastAccess= System.currentTimeMillis();
 		}
@@ -73,13 +106,33 @@ public class SuperTypeHierarchyCache {
 	}
 
 
-	private static final int CACHE_SIZE= 8;
+	/**
+	 * The number of cached types per megabyte of maximum heap size if the cache size is not
+	 * configured.
+	 */
+	private static final int TYPES_PER_MEGABYTE= 8;
+
+	private static final int MIN_DEFAULT_CACHE_SIZE= 1000;
+	private static final int MAX_DEFAULT_CACHE_SIZE= 20000;
+
+	private static final int METHOD_OVERRIDE_TESTER_CACHE_SIZE= 50;
+
+	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<HierarchyCacheEntry>();
+	private static Map<IType, HierarchyCacheEntry> fgTypeIndex= new HashMap<IType, HierarchyCacheEntry>();
+	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<IType, MethodOverrideTester>(METHOD_OVERRIDE_TESTER_CACHE_SIZE);
+	private static IElementChangedListener fgReconcileListener;
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<IType, MethodOverrideTester>(CACHE_SIZE);
+	private static int fgMaxCacheSize= Integer.getInteger("org.eclipse.jdt.ui.superTypeHierarchyCacheSize", getDefaultMaxCacheSize()).intValue(); //$NON-NLS-1$
+	private static int fgCacheSize= 0;
 
 	private static int fgCacheHits= 0;
 	private static int fgCacheMisses= 0;
+	private static int fgCacheEvictions= 0;
+
+	private static int getDefaultMaxCacheSize() {
+		long maxMegabytes= Runtime.getRuntime().maxMemory() >> 20;
+		return (int) Math.max(MIN_DEFAULT_CACHE_SIZE, Math.min(MAX_DEFAULT_CACHE_SIZE, maxMegabytes * TYPES_PER_MEGABYTE));
+	}
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -106,6 +159,17 @@ public class SuperTypeHierarchyCache {
 			synchronized (fgMethodOverrideTesterCache) {
 				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
 				if (test == null) {
+					if (fgReconcileListener == null) {
+						fgReconcileListener= new IElementChangedListener() {
+							public void elementChanged(ElementChangedEvent event) {
+								Set<ICompilationUnit> units= new HashSet<ICompilationUnit>();
+								collectChangedUnits(event.getDelta(), units);
+								if (!units.isEmpty())
+									clearMethodOverrideTesterResults(units);
+							}
+						};
+						JavaCore.addElementChangedListener(fgReconcileListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+					}
 					test= new MethodOverrideTester(type, hierarchy);
 					fgMethodOverrideTesterCache.put(type, test);
 				}
@@ -114,6 +178,34 @@ public class SuperTypeHierarchyCache {
 		return test;
 	}
 
+	/*
+	 * Collects the compilation units whose members may have changed. A reconcile delta without
+	 * affected children only reports changes inside method bodies and initializers.
+	 */
+	private static void collectChangedUnits(IJavaElementDelta delta, Set<ICompilationUnit> units) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		if (delta.getElement().getElementType() == IJavaElement.COMPILATION_UNIT) {
+			if ((delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) == 0 || children.length > 0)
+				units.add((ICompilationUnit) delta.getElement());
+			return;
+		}
+		for (int i= 0; i < children.length; i++) {
+			collectChangedUnits(children[i], units);
+		}
+	}
+
+	/*
+	 * The hierarchies are only updated when working copies are saved, but the members of the
+	 * types change while typing.
+	 */
+	private static void clearMethodOverrideTesterResults(Set<ICompilationUnit> units) {
+		synchronized (fgMethodOverrideTesterCache) {
+			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
+				iter.next().clearCachedResults(units);
+			}
+		}
+	}
+
 	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
 		synchronized (fgMethodOverrideTesterCache) {
 			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
@@ -140,43 +232,58 @@ public class SuperTypeHierarchyCache {
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
 		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
 		if (hierarchy == null) {
-			fgCacheMisses++;
+			synchronized (fgHierarchyCache) {
+				fgCacheMisses++;
+			}
 			hierarchy= type.newSupertypeHierarchy(progressMonitor);
 			addTypeHierarchyToCache(hierarchy);
 		} else {
-			fgCacheHits++;
+			synchronized (fgHierarchyCache) {
+				fgCacheHits++;
+			}
 		}
 		return hierarchy;
 	}
 
 	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
 		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-				for (int i= 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry= fgHierarchyCache.get(i);
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i= 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
-					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
+			// hierarchies of types contained in the new hierarchy are subsumed by it
+			for (int i= fgHierarchyCache.size() - 1; i >= 0; i--) {
+				HierarchyCacheEntry entry= fgHierarchyCache.get(i);
+				ITypeHierarchy curr= entry.getTypeHierarchy();
+				if (!curr.exists() || hierarchy.contains(curr.getType())) {
+					removeHierarchyEntryFromCache(entry);
 				}
 			}
 			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
+			evict(fgMaxCacheSize - newEntry.getTypes().length);
+
 			fgHierarchyCache.add(newEntry);
+			fgCacheSize+= newEntry.getTypes().length;
+			IType[] types= newEntry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.put(types[i], newEntry);
+			}
+		}
+	}
+
+	/**
+	 * Removes the least recently accessed hierarchies until the cache size does not exceed the
+	 * given size.
+	 * 
+	 * @param size the size to reach
+	 */
+	private static void evict(int size) {
+		while (fgCacheSize > size && !fgHierarchyCache.isEmpty()) {
+			HierarchyCacheEntry oldest= null;
+			for (int i= 0; i < fgHierarchyCache.size(); i++) {
+				HierarchyCacheEntry entry= fgHierarchyCache.get(i);
+				if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
+					oldest= entry;
+				}
+			}
+			removeHierarchyEntryFromCache(oldest);
+			fgCacheEvictions++;
 		}
 	}
 
@@ -193,17 +300,14 @@ public class SuperTypeHierarchyCache {
 
 	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
 		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
+			HierarchyCacheEntry curr;
+			while ((curr= fgTypeIndex.get(type)) != null) {
 				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
+				if (hierarchy.exists()) {
+					curr.markAsAccessed();
+					return hierarchy;
 				}
+				removeHierarchyEntryFromCache(curr);
 			}
 		}
 		return null;
@@ -211,9 +315,25 @@ public class SuperTypeHierarchyCache {
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
 		synchronized (fgHierarchyCache) {
+			if (!fgHierarchyCache.remove(entry))
+				return; // already removed
 			removeMethodOverrideTester(entry.getTypeHierarchy());
+			fgCacheSize-= entry.getTypes().length;
+			IType[] types= entry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				if (fgTypeIndex.get(types[i]) == entry) {
+					fgTypeIndex.remove(types[i]);
+					// the type may also be contained in another cached hierarchy
+					for (int k= fgHierarchyCache.size() - 1; k >= 0; k--) {
+						HierarchyCacheEntry other= fgHierarchyCache.get(k);
+						if (other.getTypeHierarchy().contains(types[i])) {
+							fgTypeIndex.put(types[i], other);
+							break;
+						}
+					}
+				}
+			}
 			entry.dispose();
-			fgHierarchyCache.remove(entry);
 		}
 	}
 
@@ -223,7 +343,9 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		synchronized (fgHierarchyCache) {
+			return fgCacheHits;
+		}
 	}
 
 	/**
@@ -231,6 +353,111 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		synchronized (fgHierarchyCache) {
+			return fgCacheMisses;
+		}
+	}
+
+	/**
+	 * Gets the number of hierarchies that were removed to keep the cache size below the maximum.
+	 * 
+	 * @return the number of evicted hierarchies
+	 * @since 3.9
+	 */
+	public static int getCacheEvictions() {
+		synchronized (fgHierarchyCache) {
+			return fgCacheEvictions;
+		}
+	}
+
+	/**
+	 * Gets the ratio of the requests that could be answered from the cache.
+	 * 
+	 * @return the hit rate between 0 and 1, or 0 if no hierarchy has been requested
+	 * @since 3.9
+	 */
+	public static double getCacheHitRate() {
+		synchronized (fgHierarchyCache) {
+			int requests= fgCacheHits + fgCacheMisses;
+			return requests == 0 ? 0 : (double) fgCacheHits / requests;
+		}
+	}
+
+	/**
+	 * Resets the hits, misses and evictions to 0.
+	 * 
+	 * @since 3.9
+	 */
+	public static void resetStatistics() {
+		synchronized (fgHierarchyCache) {
+			fgCacheHits= 0;
+			fgCacheMisses= 0;
+			fgCacheEvictions= 0;
+		}
+	}
+
+	/**
+	 * Gets the number of cached hierarchies.
+	 * 
+	 * @return the number of hierarchies
+	 * @since 3.9
+	 */
+	public static int getCachedHierarchyCount() {
+		synchronized (fgHierarchyCache) {
+			return fgHierarchyCache.size();
+		}
+	}
+
+	/**
+	 * Gets the estimated size of the cached hierarchies, which is their total number of types.
+	 * 
+	 * @return the size of the cache
+	 * @since 3.9
+	 */
+	public static int getCacheSize() {
+		synchronized (fgHierarchyCache) {
+			return fgCacheSize;
+		}
+	}
+
+	/**
+	 * Gets the maximum size of the cache. A single hierarchy that is larger than the maximum size
+	 * is still cached.
+	 * 
+	 * @return the maximum total number of types in the cached hierarchies
+	 * @since 3.9
+	 */
+	public static int getMaxCacheSize() {
+		synchronized (fgHierarchyCache) {
+			return fgMaxCacheSize;
+		}
+	}
+
+	/**
+	 * Sets the maximum size of the cache and evicts hierarchies if the cache is larger.
+	 * 
+	 * @param maxSize the maximum total number of types in the cached hierarchies
+	 * @since 3.9
+	 */
+	public static void setMaxCacheSize(int maxSize) {
+		synchronized (fgHierarchyCache) {
+			fgMaxCacheSize= maxSize;
+			evict(maxSize);
+		}
+	}
+
+	/**
+	 * Stops listening to reconciled working copies. Called when the plug-in is stopped.
+	 * 
+	 * @since 3.9
+	 */
+	public static void shutdown() {
+		synchronized (fgMethodOverrideTesterCache) {
+			if (fgReconcileListener != null) {
+				JavaCore.removeElementChangedListener(fgReconcileListener);
+				fgReconcileListener= null;
+			}
+			fgMethodOverrideTesterCache.clear();
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,6 +34,7 @@ import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
 
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
+import org.eclipse.jdt.internal.corext.util.SearchScopeCache;
 
 public class RefactoringScopeFactory {
 
@@ -140,7 +141,13 @@ public class RefactoringScopeFactory {
 
 
 		IJavaProject javaProject= javaElement.getJavaProject();
-		return SearchEngine.createJavaSearchScope(getAllScopeElements(javaProject, sourceReferencesOnly), false);
+		List<Object> key= SearchScopeCache.createKey("referencing", javaProject, Boolean.valueOf(sourceReferencesOnly)); //$NON-NLS-1$
+		IJavaSearchScope scope= SearchScopeCache.get(key);
+		if (scope == null) {
+			scope= SearchEngine.createJavaSearchScope(getAllScopeElements(javaProject, sourceReferencesOnly), false);
+			SearchScopeCache.put(key, scope);
+		}
+		return scope;
 	}
 
 	/**
@@ -218,8 +225,14 @@ public class RefactoringScopeFactory {
 	 * @throws CoreException if a referenced project could not be determined
 	 */
 	public static IJavaSearchScope createRelatedProjectsScope(IJavaProject project, int includeMask) throws CoreException {
-		IJavaProject[] projects= getRelatedProjects(project);
-		return SearchEngine.createJavaSearchScope(projects, includeMask);
+		List<Object> key= SearchScopeCache.createKey("related", project, new Integer(includeMask)); //$NON-NLS-1$
+		IJavaSearchScope scope= SearchScopeCache.get(key);
+		if (scope == null) {
+			IJavaProject[] projects= getRelatedProjects(project);
+			scope= SearchEngine.createJavaSearchScope(projects, includeMask);
+			SearchScopeCache.put(key, scope);
+		}
+		return scope;
 	}
 
 	/*
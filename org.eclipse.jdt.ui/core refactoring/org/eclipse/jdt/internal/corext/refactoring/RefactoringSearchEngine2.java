@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,15 +20,29 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
@@ -36,12 +50,14 @@ import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
 import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
@@ -63,6 +79,15 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
  */
 public final class RefactoringSearchEngine2 {
 
+	/** The maximum number of concurrent searches in parallel mode */
+	private static final int MAX_THREADS= 4;
+
+	/** The interval in milliseconds in which cancellation is checked while waiting for searches */
+	private static final long CANCEL_POLL_INTERVAL= 100;
+
+	/** The executor shared by the parallel searches, or <code>null</code> */
+	private static ExecutorService fgExecutor= null;
+
 	/** Default implementation of a search requestor */
 	private static class DefaultSearchRequestor implements IRefactoringSearchRequestor {
 
@@ -120,6 +145,62 @@ public final class RefactoringSearchEngine2 {
 		}
 	}
 
+	/** Search requestor which records the matches of one partition of the scope, confined to the thread searching it */
+	private static class PartitionCollector extends SearchRequestor {
+
+		/** The search participants of the partition */
+		private final SearchParticipant[] fParticipants;
+
+		/** The matches by index of their search participant */
+		private final List<List<SearchMatch>> fMatches;
+
+		/** The matches of the current search participant */
+		private List<SearchMatch> fCurrentMatches= null;
+
+		public PartitionCollector(final SearchParticipant[] participants) {
+			fParticipants= participants;
+			fMatches= new ArrayList<List<SearchMatch>>(participants.length);
+			for (int index= 0; index < participants.length; index++)
+				fMatches.add(new ArrayList<SearchMatch>());
+		}
+
+		@Override
+		public final void acceptSearchMatch(final SearchMatch match) {
+			fCurrentMatches.add(match);
+		}
+
+		@Override
+		public final void enterParticipant(final SearchParticipant participant) {
+			for (int index= 0; index < fParticipants.length; index++) {
+				if (fParticipants[index] == participant)
+					fCurrentMatches= fMatches.get(index);
+			}
+		}
+
+		public final List<SearchMatch> getMatches(final int participant) {
+			return fMatches.get(participant);
+		}
+	}
+
+	/** Search match of a partition, ordered by the path of its document */
+	private static class ReplayedMatch implements Comparable<ReplayedMatch> {
+
+		/** The search match */
+		private final SearchMatch fMatch;
+
+		/** The path of the document of the search match */
+		private final String fPath;
+
+		public ReplayedMatch(final SearchMatch match) {
+			fMatch= match;
+			fPath= getDocumentPath(match);
+		}
+
+		public final int compareTo(final ReplayedMatch other) {
+			return fPath.compareTo(other.fPath);
+		}
+	}
+
 	private abstract class RefactoringSearchCollector extends SearchRequestor {
 
 		protected IResource fLastResource= null;
@@ -221,6 +302,9 @@ public final class RefactoringSearchEngine2 {
 	/** The working copy owner, or <code>null</code> */
 	private WorkingCopyOwner fOwner= null;
 
+	/** Should the scope be searched in parallel? */
+	private boolean fParallel= false;
+
 	/** The search pattern, or <code>null</code> */
 	private SearchPattern fPattern= null;
 
@@ -490,12 +574,11 @@ public final class RefactoringSearchEngine2 {
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.setTaskName(RefactoringCoreMessages.RefactoringSearchEngine_searching_occurrences);
 			try {
-				SearchEngine engine= null;
-				if (fOwner != null)
-					engine= new SearchEngine(fOwner);
+				final IJavaSearchScope[] partitions= fParallel ? getPartitions() : null;
+				if (partitions != null)
+					searchPartitions(partitions, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 				else
-					engine= new SearchEngine(fWorkingCopies);
-				engine.search(fPattern, SearchUtils.getDefaultSearchParticipants(), fScope, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+					createSearchEngine().search(fPattern, SearchUtils.getDefaultSearchParticipants(), fScope, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 			} catch (CoreException exception) {
 				throw new JavaModelException(exception);
 			}
@@ -504,6 +587,217 @@ public final class RefactoringSearchEngine2 {
 		}
 	}
 
+	/**
+	 * Returns a new search engine using the working copy owner or the working copies.
+	 *
+	 * @return the search engine
+	 */
+	private SearchEngine createSearchEngine() {
+		if (fOwner != null)
+			return new SearchEngine(fOwner);
+		return new SearchEngine(fWorkingCopies);
+	}
+
+	/**
+	 * Partitions the search scope by project. Each package fragment root of the scope belongs to
+	 * the partition of the first project containing it.
+	 *
+	 * @return the partitions, or <code>null</code> if the scope cannot be partitioned or consists
+	 *         of a single partition
+	 * @throws JavaModelException if the package fragment roots of a project cannot be determined
+	 */
+	private IJavaSearchScope[] getPartitions() throws JavaModelException {
+		final IWorkspaceRoot workspaceRoot= ResourcesPlugin.getWorkspace().getRoot();
+		final IPath[] paths= fScope.enclosingProjectsAndJars();
+		final Set<IPath> covered= new HashSet<IPath>();
+		final List<IJavaSearchScope> partitions= new ArrayList<IJavaSearchScope>();
+		for (int index= 0; index < paths.length; index++) {
+			final IResource resource= workspaceRoot.findMember(paths[index]);
+			if (resource == null || resource.getType() != IResource.PROJECT)
+				continue;
+			final IJavaProject project= JavaCore.create((IProject) resource);
+			if (!project.exists())
+				return null;
+			final IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+			final List<IPackageFragmentRoot> enclosed= new ArrayList<IPackageFragmentRoot>(roots.length);
+			boolean encloses= false;
+			for (int offset= 0; offset < roots.length; offset++) {
+				if (fScope.encloses(roots[offset])) {
+					encloses= true;
+					if (covered.add(roots[offset].getPath()))
+						enclosed.add(roots[offset]);
+				}
+			}
+			if (!encloses)
+				return null; // the scope only contains parts of package fragment roots
+			if (!enclosed.isEmpty())
+				partitions.add(SearchEngine.createJavaSearchScope(enclosed.toArray(new IJavaElement[enclosed.size()]), false));
+		}
+		for (int index= 0; index < paths.length; index++) {
+			final IResource resource= workspaceRoot.findMember(paths[index]);
+			if ((resource == null || resource.getType() != IResource.PROJECT) && !covered.contains(paths[index]))
+				return null;
+		}
+		if (partitions.size() < 2)
+			return null;
+		return partitions.toArray(new IJavaSearchScope[partitions.size()]);
+	}
+
+	/**
+	 * Searches the partitions of the search scope concurrently, with at most {@link #MAX_THREADS}
+	 * threads of the shared executor. The matches of each partition are recorded by a
+	 * thread-confined requestor. Once all partitions have been searched, the matches are passed to
+	 * the refactoring search collector on the calling thread, ordered by document path like the
+	 * matches of a sequential search.
+	 *
+	 * @param partitions the partitions of the search scope
+	 * @param monitor the progress monitor
+	 * @throws CoreException if an error occurs during search
+	 */
+	private void searchPartitions(final IJavaSearchScope[] partitions, final IProgressMonitor monitor) throws CoreException {
+		final AtomicBoolean canceled= new AtomicBoolean();
+		final AtomicInteger next= new AtomicInteger();
+		final PartitionCollector[] collectors= new PartitionCollector[partitions.length];
+		final int threads= Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), partitions.length);
+		final List<Future<?>> futures= new ArrayList<Future<?>>(threads);
+		try {
+			monitor.beginTask("", threads); //$NON-NLS-1$
+			final ExecutorService executor= getExecutor();
+			for (int index= 0; index < threads; index++) {
+				futures.add(executor.submit(new Callable<Object>() {
+
+					public final Object call() throws CoreException {
+						for (int partition= next.getAndIncrement(); partition < partitions.length && !canceled.get(); partition= next.getAndIncrement()) {
+							final SearchParticipant[] participants= SearchUtils.getDefaultSearchParticipants();
+							final PartitionCollector collector= new PartitionCollector(participants);
+							createSearchEngine().search(fPattern, participants, partitions[partition], collector, new NullProgressMonitor() {
+
+								@Override
+								public final boolean isCanceled() {
+									return canceled.get();
+								}
+							});
+							collectors[partition]= collector;
+						}
+						return null;
+					}
+				}));
+			}
+			for (final Iterator<Future<?>> iterator= futures.iterator(); iterator.hasNext();) {
+				await(iterator.next(), canceled, monitor);
+				monitor.worked(1);
+			}
+		} finally {
+			canceled.set(true);
+			for (final Iterator<Future<?>> iterator= futures.iterator(); iterator.hasNext();)
+				iterator.next().cancel(true);
+			monitor.done();
+		}
+
+		final SearchParticipant[] participants= SearchUtils.getDefaultSearchParticipants();
+		final RefactoringSearchCollector collector= getCollector();
+		collector.beginReporting();
+		for (int index= 0; index < participants.length; index++) {
+			final List<ReplayedMatch> matches= new ArrayList<ReplayedMatch>();
+			for (int offset= 0; offset < collectors.length; offset++) {
+				for (final Iterator<SearchMatch> iterator= collectors[offset].getMatches(index).iterator(); iterator.hasNext();)
+					matches.add(new ReplayedMatch(iterator.next()));
+			}
+			Collections.sort(matches);
+			collector.enterParticipant(participants[index]);
+			for (final Iterator<ReplayedMatch> iterator= matches.iterator(); iterator.hasNext();)
+				collector.acceptSearchMatch(iterator.next().fMatch);
+			collector.exitParticipant(participants[index]);
+		}
+		collector.endReporting();
+	}
+
+	/**
+	 * Returns the executor shared by all parallel searches. Its threads terminate when they have
+	 * been idle for a while.
+	 *
+	 * @return the executor
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (fgExecutor == null) {
+			fgExecutor= Executors.newCachedThreadPool(new ThreadFactory() {
+
+				private int fCount= 0;
+
+				public final synchronized Thread newThread(final Runnable runnable) {
+					final Thread thread= new Thread(runnable, "Refactoring Search #" + ++fCount); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return fgExecutor;
+	}
+
+	/**
+	 * Returns the path of the document containing the search match. The search engine reports the
+	 * matches of a search participant ordered by this path.
+	 *
+	 * @param match the search match
+	 * @return the document path
+	 */
+	private static String getDocumentPath(final SearchMatch match) {
+		final Object element= match.getElement();
+		if (element instanceof IJavaElement) {
+			final IJavaElement file= ((IJavaElement) element).getAncestor(IJavaElement.CLASS_FILE);
+			if (file != null) {
+				final IPackageFragmentRoot root= (IPackageFragmentRoot) file.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+				if (root != null && root.isArchive()) {
+					final String name= file.getParent().getElementName();
+					final StringBuffer buffer= new StringBuffer(root.getPath().toString());
+					buffer.append(IJavaSearchScope.JAR_FILE_ENTRY_SEPARATOR);
+					if (name.length() > 0)
+						buffer.append(name.replace('.', '/')).append('/');
+					buffer.append(file.getElementName());
+					return buffer.toString();
+				}
+			}
+		}
+		final IResource resource= match.getResource();
+		return resource != null ? resource.getFullPath().toString() : ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * Waits for the search of a partition, checking the progress monitor for cancellation.
+	 *
+	 * @param future the search of the partition
+	 * @param canceled the cancellation flag of the searches
+	 * @param monitor the progress monitor
+	 * @throws CoreException if an error occurs during search
+	 */
+	private static void await(final Future<?> future, final AtomicBoolean canceled, final IProgressMonitor monitor) throws CoreException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				canceled.set(true);
+				throw new OperationCanceledException();
+			}
+			try {
+				future.get(CANCEL_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				return;
+			} catch (TimeoutException exception) {
+				// check for cancellation
+			} catch (InterruptedException exception) {
+				canceled.set(true);
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException exception) {
+				final Throwable cause= exception.getCause();
+				if (cause instanceof CoreException)
+					throw (CoreException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
 	/**
 	 * Performs the search of referenced fields.
 	 *
@@ -640,6 +934,25 @@ public final class RefactoringSearchEngine2 {
 		fGrouping= grouping;
 	}
 
+	/**
+	 * Determines whether the search scope is searched in parallel by {@link #searchPattern(IProgressMonitor)}.
+	 * <p>
+	 * In parallel mode, the scope is partitioned by project and the partitions are searched
+	 * concurrently. The results are the same as in sequential mode, provided that the scope does
+	 * not contain parts of a package fragment root besides whole roots of the same project, like the
+	 * scopes created by {@link RefactoringScopeFactory}. The scope is searched sequentially if it
+	 * does not span several projects, or if it contains none of the package fragment roots of one
+	 * of its projects.
+	 * <p>
+	 * This method must be called before start searching. The default is to search sequentially.
+	 *
+	 * @param parallel <code>true</code> to search in parallel, <code>false</code> otherwise
+	 * @since 3.9
+	 */
+	public final void setParallel(final boolean parallel) {
+		fParallel= parallel;
+	}
+
 	/**
 	 * Sets the disjunction of search patterns to be used during search.
 	 * <p>
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -904,6 +904,7 @@ public class InlineConstantRefactoring extends Refactoring {
 		final RefactoringSearchEngine2 engine= new RefactoringSearchEngine2(SearchPattern.createPattern(fField, IJavaSearchConstants.REFERENCES));
 		engine.setFiltering(true, true);
 		engine.setScope(RefactoringScopeFactory.create(fField));
+		engine.setParallel(true);
 		engine.setStatus(status);
 		engine.setRequestor(new IRefactoringSearchRequestor() {
 			public SearchMatch acceptSearchMatch(SearchMatch match) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -505,6 +505,7 @@ public class IntroduceFactoryRefactoring extends Refactoring {
 
 		engine.setFiltering(true, true);
 		engine.setScope(RefactoringScopeFactory.create(fCtorBinding.getJavaElement().getJavaProject()));
+		engine.setParallel(true);
 		engine.setStatus(status);
 		engine.searchPattern(new SubProgressMonitor(pm, 1));
 
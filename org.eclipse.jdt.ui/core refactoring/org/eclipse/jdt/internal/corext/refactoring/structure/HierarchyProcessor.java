@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 IBM Corporation and others.
+ * Copyright (c) 2006, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -673,6 +673,7 @@ public abstract class HierarchyProcessor extends SuperTypeRefactoringProcessor {
 			engine.setStatus(status);
 			engine.setOwner(fOwner);
 			engine.setScope(RefactoringScopeFactory.create(member));
+			engine.setParallel(true);
 			engine.searchPattern(new SubProgressMonitor(monitor, 1));
 			fCachedMembersReferences.put(member, engine.getResults());
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -553,6 +553,7 @@ public final class MemberVisibilityAdjustor {
 		engine.setOwner(fOwner);
 		engine.setFiltering(true, true);
 		engine.setScope(RefactoringScopeFactory.create(member));
+		engine.setParallel(true);
 		engine.searchPattern(new SubProgressMonitor(monitor, 1));
 		return (SearchResultGroup[]) engine.getResults();
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -74,6 +75,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerCache;
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
 import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
@@ -82,6 +84,8 @@ import org.eclipse.jdt.internal.corext.template.java.JavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.SWTContextType;
 import org.eclipse.jdt.internal.corext.util.OpenTypeHistory;
 import org.eclipse.jdt.internal.corext.util.QualifiedTypeNameHistory;
+import org.eclipse.jdt.internal.corext.util.SearchScopeCache;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
 import org.eclipse.jdt.internal.corext.util.TypeFilter;
 
 import org.eclipse.jdt.ui.IContextMenuConstants;
@@ -102,8 +106,11 @@ import org.eclipse.jdt.internal.ui.propertiesfileeditor.PropertiesFileDocumentPr
 import org.eclipse.jdt.internal.ui.text.PreferencesAdapter;
 import org.eclipse.jdt.internal.ui.text.folding.JavaFoldingStructureProviderRegistry;
 import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistStatistics;
+import org.eclipse.jdt.internal.ui.text.java.ExpectedTypeCache;
 import org.eclipse.jdt.internal.ui.text.java.hover.JavaEditorTextHoverDescriptor;
 import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
+import org.eclipse.jdt.internal.ui.text.template.contentassist.TemplateIndex;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImagesOnFileSystemRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
@@ -144,6 +151,11 @@ public class JavaPlugin extends AbstractUIPlugin {
 	 * @since 3.0
 	 */
 	private static final String CODE_TEMPLATES_MIGRATION_KEY= "org.eclipse.jdt.ui.text.code_templates_migrated"; //$NON-NLS-1$
+	/**
+	 * The name of the file in the state location that stores the content assist history.
+	 * @since 3.9
+	 */
+	private static final String CONTENT_ASSIST_HISTORY_FILE= "content_assist_history.dat"; //$NON-NLS-1$
 
 	private static JavaPlugin fgJavaPlugin;
 
@@ -171,6 +183,12 @@ public class JavaPlugin extends AbstractUIPlugin {
 	 * @since 3.0
 	 */
 	private TemplateStore fTemplateStore;
+
+	/**
+	 * The template index of the template store.
+	 * @since 3.9
+	 */
+	private TemplateIndex fTemplateIndex;
 	/**
 	 * The coded template store for the java editor.
 	 * @since 3.0
@@ -393,6 +411,8 @@ public class JavaPlugin extends AbstractUIPlugin {
 
 	/* package */ static void initializeAfterLoad(IProgressMonitor monitor) {
 		OpenTypeHistory.getInstance().checkConsistency(monitor);
+		// load the content assist history before the first code completion needs it
+		getDefault().getContentAssistHistory();
 	}
 
 	/**
@@ -571,13 +591,26 @@ public class JavaPlugin extends AbstractUIPlugin {
 				fTypeFilter= null;
 			}
 
-			if (fContentAssistHistory != null) {
-				ContentAssistHistory.store(fContentAssistHistory, getPluginPreferences(), PreferenceConstants.CODEASSIST_LRU_HISTORY);
-				fContentAssistHistory= null;
+			synchronized (this) {
+				if (fContentAssistHistory != null) {
+					fContentAssistHistory.save();
+					fContentAssistHistory= null;
+				}
+			}
+
+			try {
+				ContentAssistStatistics.getDefault().writeStatisticsFile();
+			} catch (IOException e) {
+				log(e);
 			}
 
 			uninstallPreferenceStoreBackwardsCompatibility();
 
+			if (fTemplateIndex != null) {
+				fTemplateIndex.dispose();
+				fTemplateIndex= null;
+			}
+
 			if (fTemplateStore != null) {
 				fTemplateStore.stopListeningForPreferenceChanges();
 				fTemplateStore= null;
@@ -620,6 +653,10 @@ public class JavaPlugin extends AbstractUIPlugin {
 			// must add here to guarantee that it is the first in the listener list
 
 			OpenTypeHistory.shutdown();
+			CallerCache.shutdown();
+			SearchScopeCache.shutdown();
+			SuperTypeHierarchyCache.shutdown();
+			ExpectedTypeCache.shutdown();
 		} finally {
 			super.stop(context);
 		}
@@ -877,6 +914,18 @@ public class JavaPlugin extends AbstractUIPlugin {
 		return fTemplateStore;
 	}
 
+	/**
+	 * Returns the prefix index of the {@link #getTemplateStore() template store}.
+	 *
+	 * @return the template index
+	 * @since 3.9
+	 */
+	public synchronized TemplateIndex getTemplateIndex() {
+		if (fTemplateIndex == null)
+			fTemplateIndex= new TemplateIndex(getTemplateStore(), getPreferenceStore(), TEMPLATES_KEY);
+		return fTemplateIndex;
+	}
+
 	/**
 	 * Private deprecated method to avoid deprecation warnings
 	 * 
@@ -1021,20 +1070,51 @@ public class JavaPlugin extends AbstractUIPlugin {
 	 * @return the Java content assist history
 	 * @since 3.2
 	 */
-	public ContentAssistHistory getContentAssistHistory() {
+	public synchronized ContentAssistHistory getContentAssistHistory() {
 		if (fContentAssistHistory == null) {
+			File file= getStateLocation().append(CONTENT_ASSIST_HISTORY_FILE).toFile();
 			try {
-				fContentAssistHistory= ContentAssistHistory.load(getPluginPreferences(), PreferenceConstants.CODEASSIST_LRU_HISTORY);
+				fContentAssistHistory= ContentAssistHistory.load(file);
 			} catch (CoreException x) {
 				log(x);
 			}
-			if (fContentAssistHistory == null)
-				fContentAssistHistory= new ContentAssistHistory();
+			if (fContentAssistHistory == null) {
+				fContentAssistHistory= migrateContentAssistHistory(file);
+				if (fContentAssistHistory == null)
+					fContentAssistHistory= new ContentAssistHistory();
+				fContentAssistHistory.setFile(file);
+			}
 		}
 
 		return fContentAssistHistory;
 	}
 
+	/**
+	 * Moves the content assist history that older versions stored in the preferences to the
+	 * given file.
+	 *
+	 * @param file the file to store the history in
+	 * @return the migrated history, or <code>null</code> if none was stored in the preferences
+	 * @since 3.9
+	 */
+	private ContentAssistHistory migrateContentAssistHistory(File file) {
+		if (getPluginPreferences().isDefault(PreferenceConstants.CODEASSIST_LRU_HISTORY))
+			return null;
+
+		try {
+			ContentAssistHistory history= ContentAssistHistory.load(getPluginPreferences(), PreferenceConstants.CODEASSIST_LRU_HISTORY);
+			if (history != null) {
+				history.setFile(file);
+				history.save();
+			}
+			getPluginPreferences().setToDefault(PreferenceConstants.CODEASSIST_LRU_HISTORY);
+			return history;
+		} catch (CoreException x) {
+			log(x);
+			return null;
+		}
+	}
+
 	/**
 	 * Returns a section in the Java plugin's dialog settings. If the section doesn't exist yet, it is created.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -164,9 +164,11 @@ public class IndentAction extends TextEditorAction {
 					if (target != null)
 						target.beginCompoundChange();
 
+					JavaIndenter indenter= null;
 					try {
 						JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
-						JavaIndenter indenter= new JavaIndenter(document, scanner, getJavaProject());
+						indenter= new JavaIndenter(document, scanner, getJavaProject());
+						indenter.installScopeCache();
 						final boolean multiLine= nLines > 1;
 						boolean hasChanged= false;
 						for (int i= 0; i < nLines; i++) {
@@ -195,6 +197,8 @@ public class IndentAction extends TextEditorAction {
 						JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, "ConcurrentModification in IndentAction", e)); //$NON-NLS-1$
 
 					} finally {
+						if (indenter != null)
+							indenter.uninstallScopeCache();
 						if (target != null)
 							target.endCompoundChange();
 					}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import java.lang.reflect.InvocationTargetException;
 import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 
 import org.eclipse.jface.operation.IRunnableContext;
 import org.eclipse.jface.operation.IRunnableWithProgress;
@@ -99,6 +100,8 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
 		} else if (parentElement instanceof RealCallers) {
 			MethodWrapper parentWrapper= ((RealCallers)parentElement).getParent();
 			RealCallers element= ((RealCallers)parentElement);
+			if (parentWrapper.areCallsKnown())
+				return parentWrapper.getCalls(new NullProgressMonitor());
 			if (fManager != null) {
 				Object[] children= fManager.getChildren(new DeferredMethodWrapper(this, element));
 				if (children != null)
@@ -144,6 +147,8 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
 
 					}
 				}
+				if (methodWrapper.areCallsKnown())
+					return methodWrapper.getCalls(new NullProgressMonitor());
 				if (fManager != null) {
 					Object[] children= fManager.getChildren(new DeferredMethodWrapper(this, methodWrapper));
 					if (children != null)
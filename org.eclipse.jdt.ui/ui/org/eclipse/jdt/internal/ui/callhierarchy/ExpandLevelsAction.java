@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.callhierarchy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.BreadthFirstCallerSearch;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerMethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.RealCallers;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.util.ExceptionHandler;
+
+/**
+ * The action to expand the selected members of the caller hierarchy several levels deep. The
+ * callers of all levels are searched before the tree is expanded, see
+ * {@link BreadthFirstCallerSearch}.
+ *
+ * @since 3.9
+ */
+class ExpandLevelsAction extends Action {
+
+	/**
+	 * The number of levels to expand.
+	 */
+	private static final int LEVELS= 5;
+
+	/**
+	 * The call hierarchy view part.
+	 */
+	private CallHierarchyViewPart fPart;
+
+	/**
+	 * The call hierarchy viewer.
+	 */
+	private CallHierarchyViewer fCallHierarchyViewer;
+
+	/**
+	 * Creates the action for expanding the caller hierarchy several levels deep.
+	 *
+	 * @param callHierarchyViewPart the call hierarchy view part
+	 * @param callHierarchyViewer the call hierarchy viewer
+	 */
+	public ExpandLevelsAction(CallHierarchyViewPart callHierarchyViewPart, CallHierarchyViewer callHierarchyViewer) {
+		super(CallHierarchyMessages.ExpandLevelsAction_text);
+		fPart= callHierarchyViewPart;
+		fCallHierarchyViewer= callHierarchyViewer;
+		setDescription(CallHierarchyMessages.ExpandLevelsAction_description);
+		setToolTipText(CallHierarchyMessages.ExpandLevelsAction_tooltip);
+	}
+
+	/*
+	 * @see Action#run
+	 */
+	@Override
+	public void run() {
+		IStructuredSelection selection= (IStructuredSelection)getSelection();
+		final MethodWrapper[] roots= new MethodWrapper[selection.size()];
+		int minLevel= Integer.MAX_VALUE;
+		int i= 0;
+		for (Iterator<?> iter= selection.iterator(); iter.hasNext(); i++) {
+			roots[i]= (MethodWrapper)iter.next();
+			minLevel= Math.min(minLevel, roots[i].getLevel());
+		}
+		// the children of members beyond the maximum call depth are not shown
+		final int levels= Math.max(1, Math.min(LEVELS, CallHierarchyUI.getDefault().getMaxCallDepth() - minLevel + 1));
+
+		fCallHierarchyViewer.cancelJobs();
+		try {
+			JavaPlugin.getActiveWorkbenchWindow().run(true, true, new IRunnableWithProgress() {
+				public void run(IProgressMonitor monitor) {
+					BreadthFirstCallerSearch.search(roots, levels, monitor);
+				}
+			});
+		} catch (InvocationTargetException e) {
+			ExceptionHandler.handle(e, CallHierarchyMessages.CallHierarchyContentProvider_searchError_title, CallHierarchyMessages.CallHierarchyContentProvider_searchError_message);
+			return;
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		for (i= 0; i < roots.length; i++) {
+			fCallHierarchyViewer.expandToLevel(roots[i], levels);
+		}
+	}
+
+	/**
+	 * Gets the selection from the call hierarchy view part.
+	 *
+	 * @return the current selection
+	 */
+	private ISelection getSelection() {
+		return fPart.getSelection();
+	}
+
+	/**
+	 * Checks whether this action can be added for the selected element in the call hierarchy.
+	 *
+	 * @return <code> true</code> if the action can be added, <code>false</code> otherwise
+	 */
+	public boolean canActionBeAdded() {
+		if (fPart.getCallMode() == CallHierarchyViewPart.CALL_MODE_CALLEES)
+			return false;
+		ISelection selection= getSelection();
+		if (selection.isEmpty())
+			return false;
+
+		IStructuredSelection structuredSelection= (IStructuredSelection)selection;
+		for (Iterator<?> iter= structuredSelection.iterator(); iter.hasNext();) {
+			Object element= iter.next();
+			if (!(element instanceof CallerMethodWrapper) || element instanceof RealCallers)
+				return false;
+			if (!((CallerMethodWrapper)element).canHaveChildren())
+				return false;
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 IBM Corporation and others.
+ * Copyright (c) 2009, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.ui.IWorkbenchCommandConstants;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerCache;
 import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 
 import org.eclipse.jdt.internal.ui.IJavaHelpContextIds;
@@ -61,6 +62,8 @@ public class RefreshElementAction extends Action {
 			fViewer.getPart().refresh();
 			return;
 		}
+		// the callers of the elements below the selection are cached as well
+		CallerCache.clear();
 		List<MethodWrapper> toExpand= new ArrayList<MethodWrapper>();
 		for (Iterator<?> iter= selection.iterator(); iter.hasNext();) {
 			MethodWrapper element= (MethodWrapper)iter.next();
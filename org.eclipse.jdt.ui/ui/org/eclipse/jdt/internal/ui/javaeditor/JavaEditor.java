@@ -221,6 +221,7 @@ import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
 import org.eclipse.jdt.internal.ui.search.ImplementOccurrencesFinder;
 import org.eclipse.jdt.internal.ui.search.MethodExitsFinder;
 import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
+import org.eclipse.jdt.internal.ui.search.OccurrencesIndex;
 import org.eclipse.jdt.internal.ui.text.DocumentCharacterIterator;
 import org.eclipse.jdt.internal.ui.text.JavaChangeHover;
 import org.eclipse.jdt.internal.ui.text.JavaPairMatcher;
@@ -1708,6 +1709,11 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 	private OccurrencesFinderJob fOccurrencesFinderJob;
 	/** The occurrences finder job canceler */
 	private OccurrencesFinderJobCanceler fOccurrencesFinderJobCanceler;
+	/**
+	 * The occurrences index of the last AST, or <code>null</code> if none.
+	 * @since 3.9
+	 */
+	private volatile OccurrencesIndex fOccurrencesIndex;
 	/**
 	 * This editor's projection support
 	 * @since 3.0
@@ -3350,9 +3356,14 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		if (locations == null && selectedNode instanceof Name) {
 			IBinding binding= ((Name)selectedNode).resolveBinding();
 			if (binding != null && markOccurrencesOfType(binding)) {
-				OccurrencesFinder finder= new OccurrencesFinder();
-				if (finder.initialize(astRoot, selectedNode) == null) {
-					locations= finder.getOccurrences();
+				OccurrencesIndex index= getOccurrencesIndex(astRoot);
+				if (index.canAnswer((Name)selectedNode)) {
+					locations= index.getOccurrences((Name)selectedNode);
+				} else {
+					OccurrencesFinder finder= new OccurrencesFinder();
+					if (finder.initialize(astRoot, selectedNode) == null) {
+						locations= finder.getOccurrences();
+					}
 				}
 			}
 		}
@@ -3372,6 +3383,24 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 		fOccurrencesFinderJob.run(new NullProgressMonitor());
 	}
 
+	/**
+	 * Returns the occurrences index for the given AST, building it if the cached index
+	 * belongs to a different AST. The index is built on the first occurrences lookup after a
+	 * reconcile, so that the reconcile listeners are not delayed.
+	 *
+	 * @param astRoot the compilation unit AST
+	 * @return the occurrences index of the AST
+	 * @since 3.9
+	 */
+	protected final OccurrencesIndex getOccurrencesIndex(CompilationUnit astRoot) {
+		OccurrencesIndex index= fOccurrencesIndex;
+		if (index == null || index.getASTRoot() != astRoot) {
+			index= OccurrencesIndex.create(astRoot);
+			fOccurrencesIndex= index;
+		}
+		return index;
+	}
+
 	protected void installOccurrencesFinder(boolean forceUpdate) {
 		fMarkOccurrenceAnnotations= true;
 
@@ -3412,6 +3441,7 @@ public abstract class JavaEditor extends AbstractDecoratedTextEditor implements
 			fPostSelectionListenerWithAST= null;
 		}
 
+		fOccurrencesIndex= null;
 		removeOccurrenceAnnotations();
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,15 +11,20 @@
 
 package org.eclipse.jdt.internal.ui.javaeditor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Platform;
 
 import org.eclipse.jface.dialogs.MessageDialog;
 
@@ -29,8 +34,13 @@ import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.IAnnotationModelExtension;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -123,12 +133,66 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		}
 	}
 
+	/**
+	 * Cached result of looking up the method overridden by a method declaration.
+	 *
+	 * @since 3.9
+	 */
+	private static final class OverrideInfo {
+
+		/** The stamp of the declaring type's hierarchy at the time of the lookup. */
+		final long fHierarchyStamp;
+		/** The modifiers of the method at the time of the lookup. */
+		final int fModifiers;
+		/** The annotation text or <code>null</code> if the method does not override a method. */
+		final String fText;
+		final boolean fIsImplements;
+
+		OverrideInfo(long hierarchyStamp, int modifiers, String text, boolean isImplements) {
+			fHierarchyStamp= hierarchyStamp;
+			fModifiers= modifiers;
+			fText= text;
+			fIsImplements= isImplements;
+		}
+
+		boolean isValid(long hierarchyStamp, int modifiers) {
+			return fHierarchyStamp == hierarchyStamp && fModifiers == modifiers;
+		}
+	}
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/OverrideIndicators"));  //$NON-NLS-1$//$NON-NLS-2$
+
 	static final String ANNOTATION_TYPE= "org.eclipse.jdt.ui.overrideIndicator"; //$NON-NLS-1$
 
+	private static final long FNV_OFFSET_BASIS= 0xcbf29ce484222325L;
+	private static final long FNV_PRIME= 0x100000001b3L;
+
 	private IAnnotationModel fAnnotationModel;
 	private Object fAnnotationModelLockObject;
 	private Annotation[] fOverrideAnnotations;
 	private ITypeRoot fJavaElement;
+	/**
+	 * The overridden method lookups of the last update, keyed by method binding key.
+	 * @since 3.9
+	 */
+	private Map<String, OverrideInfo> fOverrideInfos= new HashMap<String, OverrideInfo>();
+	/**
+	 * The stamps of super types declared outside of this manager's Java element, keyed by type
+	 * binding key. Replaced by an empty map when another Java element changes.
+	 * @since 3.9
+	 */
+	private volatile Map<String, Long> fForeignTypeStamps= new HashMap<String, Long>();
+	/**
+	 * Discards the foreign type stamps when a Java element other than this manager's Java element
+	 * changes.
+	 * @since 3.9
+	 */
+	private final IElementChangedListener fElementChangedListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			if (affectsOtherElements(event.getDelta()))
+				fForeignTypeStamps= new HashMap<String, Long>();
+		}
+	};
 
 
 	public OverrideIndicatorManager(IAnnotationModel annotationModel, ITypeRoot javaElement, CompilationUnit ast) {
@@ -138,6 +202,7 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		fJavaElement= javaElement;
 		fAnnotationModel=annotationModel;
 		fAnnotationModelLockObject= getLockObject(fAnnotationModel);
+		JavaCore.addElementChangedListener(fElementChangedListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
 
 		updateAnnotations(ast, new NullProgressMonitor());
 	}
@@ -161,6 +226,11 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	/**
 	 * Updates the override and implements annotations based
 	 * on the given AST.
+	 * <p>
+	 * The overridden method is only looked up for method declarations whose
+	 * binding key, modifiers or declaring type hierarchy changed since the last update.
+	 * Annotations that are still valid are left in the annotation model.
+	 * </p>
 	 *
 	 * @param ast the compilation unit AST
 	 * @param progressMonitor the progress monitor
@@ -171,7 +241,13 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		if (ast == null || progressMonitor.isCanceled())
 			return;
 
-		final Map<Annotation, Position> annotationMap= new HashMap<Annotation, Position>(50);
+		long start= DEBUG ? System.currentTimeMillis() : 0;
+
+		final Map<String, OverrideInfo> oldInfos= fOverrideInfos;
+		final Map<String, OverrideInfo> newInfos= new HashMap<String, OverrideInfo>(oldInfos.size() + 16);
+		final TypeStamps typeStamps= new TypeStamps(fForeignTypeStamps);
+		final Map<Position, OverrideIndicator> indicators= new HashMap<Position, OverrideIndicator>(50);
+		final int[] lookups= new int[2]; // performed, saved
 
 		ast.accept(new ASTVisitor(false) {
 			/*
@@ -181,26 +257,24 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 			public boolean visit(MethodDeclaration node) {
 				IMethodBinding binding= node.resolveBinding();
 				if (binding != null) {
-					IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
-					if (definingMethod != null) {
-
-						ITypeBinding definingType= definingMethod.getDeclaringClass();
-						String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
-
-						boolean isImplements= JdtFlags.isAbstract(definingMethod);
-						String text;
-						if (isImplements)
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-						else
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+					String key= binding.getKey();
+					int modifiers= binding.getModifiers();
+					long stamp= typeStamps.getHierarchyStamp(binding.getDeclaringClass());
+					OverrideInfo info= newInfos.get(key);
+					if (info == null || !info.isValid(stamp, modifiers))
+						info= oldInfos.get(key);
+					if (info == null || !info.isValid(stamp, modifiers)) {
+						info= computeOverrideInfo(binding, stamp);
+						lookups[0]++;
+					} else {
+						lookups[1]++;
+					}
+					newInfos.put(key, info);
 
+					if (info.fText != null) {
 						SimpleName name= node.getName();
 						Position position= new Position(name.getStartPosition(), name.getLength());
-
-						annotationMap.put(
-								new OverrideIndicator(isImplements, text, binding.getKey()),
-								position);
-
+						indicators.put(position, new OverrideIndicator(info.fIsImplements, info.fText, key));
 					}
 				}
 				return true;
@@ -210,25 +284,249 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		if (progressMonitor.isCanceled())
 			return;
 
+		fOverrideInfos= newInfos;
+
+		int added, removed;
 		synchronized (fAnnotationModelLockObject) {
+			List<Annotation> kept= new ArrayList<Annotation>(indicators.size());
+			List<Annotation> obsolete= new ArrayList<Annotation>();
+			if (fOverrideAnnotations != null) {
+				for (int i= 0; i < fOverrideAnnotations.length; i++) {
+					OverrideIndicator annotation= (OverrideIndicator)fOverrideAnnotations[i];
+					Position position= fAnnotationModel.getPosition(annotation);
+					OverrideIndicator indicator= position != null ? indicators.get(position) : null;
+					if (indicator != null && isSameIndicator(annotation, indicator)) {
+						indicators.remove(position);
+						kept.add(annotation);
+					} else {
+						obsolete.add(annotation);
+					}
+				}
+			}
+
+			Map<Annotation, Position> annotationMap= new HashMap<Annotation, Position>(indicators.size());
+			for (Iterator<Entry<Position, OverrideIndicator>> iter= indicators.entrySet().iterator(); iter.hasNext();) {
+				Entry<Position, OverrideIndicator> entry= iter.next();
+				annotationMap.put(entry.getValue(), entry.getKey());
+			}
+
 			if (fAnnotationModel instanceof IAnnotationModelExtension) {
-				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, annotationMap);
+				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(obsolete.toArray(new Annotation[obsolete.size()]), annotationMap);
 			} else {
-				removeAnnotations();
+				for (Iterator<Annotation> iter= obsolete.iterator(); iter.hasNext();)
+					fAnnotationModel.removeAnnotation(iter.next());
 				Iterator<Entry<Annotation, Position>> iter= annotationMap.entrySet().iterator();
 				while (iter.hasNext()) {
 					Entry<Annotation, Position> mapEntry= iter.next();
 					fAnnotationModel.addAnnotation(mapEntry.getKey(), mapEntry.getValue());
 				}
 			}
-			fOverrideAnnotations= annotationMap.keySet().toArray(new Annotation[annotationMap.keySet().size()]);
+			kept.addAll(annotationMap.keySet());
+			fOverrideAnnotations= kept.toArray(new Annotation[kept.size()]);
+			added= annotationMap.size();
+			removed= obsolete.size();
+		}
+
+		if (DEBUG) {
+			System.out.println("OverrideIndicatorManager: " + (lookups[0] + lookups[1]) + " methods, " + lookups[0] + " lookups, " + lookups[1] + " saved, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					+ added + " added, " + removed + " removed, " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * Looks up the method overridden by the given method.
+	 *
+	 * @param binding the method binding
+	 * @param hierarchyStamp the stamp of the declaring type's hierarchy
+	 * @return the override info
+	 * @since 3.9
+	 */
+	private static OverrideInfo computeOverrideInfo(IMethodBinding binding, long hierarchyStamp) {
+		int modifiers= binding.getModifiers();
+		IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
+		if (definingMethod == null)
+			return new OverrideInfo(hierarchyStamp, modifiers, null, false);
+
+		ITypeBinding definingType= definingMethod.getDeclaringClass();
+		String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
+
+		boolean isImplements= JdtFlags.isAbstract(definingMethod);
+		String text;
+		if (isImplements)
+			text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+		else
+			text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+		return new OverrideInfo(hierarchyStamp, modifiers, text, isImplements);
+	}
+
+	/**
+	 * Computes the stamps of super type hierarchies for the types of one AST. The stamp of a type
+	 * covers its key, the keys and modifiers of its declared methods and the stamps of its super
+	 * types, which is everything {@link Bindings#findOverriddenMethod(IMethodBinding, boolean)}
+	 * depends on besides the overriding method itself.
+	 * <p>
+	 * Stamps of types whose whole hierarchy is declared outside of the manager's Java element
+	 * are kept across updates, so that a reconcile only hashes the types of the edited unit.
+	 * </p>
+	 *
+	 * @since 3.9
+	 */
+	private final class TypeStamps {
+
+		private final Map<String, Long> fForeignStamps;
+		private final Map<String, Long> fTypeStamps= new HashMap<String, Long>();
+		private final Map<String, Long> fHierarchyStamps= new HashMap<String, Long>();
+		/**
+		 * Keys of the types whose stamp must not be kept: types of the manager's Java element,
+		 * types with such a super type, and types in a cyclic hierarchy.
+		 */
+		private final Set<String> fLocalKeys= new HashSet<String>();
+		private final Set<String> fKeysInProgress= new HashSet<String>();
+
+		TypeStamps(Map<String, Long> foreignStamps) {
+			fForeignStamps= foreignStamps;
+		}
+
+		/**
+		 * Returns the stamp of the super type hierarchy of the given type. The declared methods
+		 * of the type itself are not part of the stamp.
+		 *
+		 * @param type the declaring type of a method, can be <code>null</code>
+		 * @return the hierarchy stamp
+		 */
+		long getHierarchyStamp(ITypeBinding type) {
+			if (type == null)
+				return 0;
+			String key= type.getKey();
+			Long stamp= fHierarchyStamps.get(key);
+			if (stamp == null) {
+				stamp= new Long(hashSuperTypes(type, hash(FNV_OFFSET_BASIS, key)));
+				fHierarchyStamps.put(key, stamp);
+			}
+			return stamp.longValue();
+		}
+
+		private long hashSuperTypes(ITypeBinding type, long hash) {
+			ITypeBinding superclass= type.getSuperclass();
+			if (superclass != null)
+				hash= (hash ^ getTypeStamp(superclass)) * FNV_PRIME;
+			ITypeBinding[] interfaces= type.getInterfaces();
+			for (int i= 0; i < interfaces.length; i++)
+				hash= (hash ^ getTypeStamp(interfaces[i])) * FNV_PRIME;
+			return hash;
+		}
+
+		private long getTypeStamp(ITypeBinding type) {
+			String key= type.getKey();
+			Long stamp= fTypeStamps.get(key);
+			if (stamp != null)
+				return stamp.longValue();
+			if (!fKeysInProgress.add(key)) {
+				fLocalKeys.add(key);
+				return 0;
+			}
+
+			boolean isForeign= isForeign(type);
+			if (isForeign) {
+				synchronized (fForeignStamps) {
+					stamp= fForeignStamps.get(key);
+				}
+			} else {
+				fLocalKeys.add(key);
+			}
+
+			if (stamp == null) {
+				long hash= hash(FNV_OFFSET_BASIS, key);
+				IMethodBinding[] methods= type.getDeclaredMethods();
+				for (int i= 0; i < methods.length; i++) {
+					hash= hash(hash, methods[i].getKey());
+					hash= (hash ^ methods[i].getModifiers()) * FNV_PRIME;
+				}
+				stamp= new Long(hashSuperTypes(type, hash));
+
+				if (hasLocalSuperType(type))
+					fLocalKeys.add(key);
+				if (isForeign && !fLocalKeys.contains(key)) {
+					synchronized (fForeignStamps) {
+						fForeignStamps.put(key, stamp);
+					}
+				}
+			}
+			fKeysInProgress.remove(key);
+			fTypeStamps.put(key, stamp);
+			return stamp.longValue();
+		}
+
+		private boolean hasLocalSuperType(ITypeBinding type) {
+			ITypeBinding superclass= type.getSuperclass();
+			if (superclass != null && fLocalKeys.contains(superclass.getKey()))
+				return true;
+			ITypeBinding[] interfaces= type.getInterfaces();
+			for (int i= 0; i < interfaces.length; i++) {
+				if (fLocalKeys.contains(interfaces[i].getKey()))
+					return true;
+			}
+			return false;
+		}
+
+		private boolean isForeign(ITypeBinding type) {
+			IJavaElement element= type.getTypeDeclaration().getJavaElement();
+			if (!(element instanceof IType))
+				return false;
+			return !fJavaElement.equals(((IType) element).getTypeRoot());
+		}
+	}
+
+	/**
+	 * Tells whether the given delta describes a change of a Java element other than this
+	 * manager's Java element.
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if other Java elements are affected
+	 * @since 3.9
+	 */
+	private boolean affectsOtherElements(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		if (fJavaElement.equals(element))
+			return false;
+		if (element.getElementType() >= IJavaElement.COMPILATION_UNIT)
+			return true;
+		if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ~IJavaElementDelta.F_CHILDREN) != 0)
+			return true;
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (affectsOtherElements(children[i]))
+				return true;
 		}
+		return false;
+	}
+
+	private static long hash(long hash, String string) {
+		for (int i= 0, length= string.length(); i < length; i++)
+			hash= (hash ^ string.charAt(i)) * FNV_PRIME;
+		return (hash ^ 0xFFFF) * FNV_PRIME; // separator
+	}
+
+	/**
+	 * Tells whether the given annotation shows the same information as the given indicator.
+	 *
+	 * @param annotation the annotation in the annotation model
+	 * @param indicator the newly computed indicator
+	 * @return <code>true</code> if the annotation can be kept
+	 * @since 3.9
+	 */
+	private static boolean isSameIndicator(OverrideIndicator annotation, OverrideIndicator indicator) {
+		return !annotation.isMarkedDeleted()
+				&& annotation.isOverwriteIndicator() == indicator.isOverwriteIndicator()
+				&& annotation.fAstNodeKey.equals(indicator.fAstNodeKey)
+				&& annotation.getText().equals(indicator.getText());
 	}
 
 	/**
 	 * Removes all override indicators from this manager's annotation model.
 	 */
 	void removeAnnotations() {
+		JavaCore.removeElementChangedListener(fElementChangedListener);
 		if (fOverrideAnnotations == null)
 			return;
 
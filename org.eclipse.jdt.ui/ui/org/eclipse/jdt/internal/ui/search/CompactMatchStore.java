@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.search.ui.text.MatchFilter;
+
+import org.eclipse.jdt.core.search.SearchMatch;
+
+/**
+ * Stores search matches without creating a {@link JavaElementMatch} per match. The matches are
+ * kept in columns of <code>int</code>s, the matches of an element are linked in the order they
+ * were added. Each element is stored once, equal elements share the same id.
+ * <p>
+ * The matches of an element are turned into {@link JavaElementMatch}es when they are removed
+ * with {@link #remove(Object)}. The rows of removed matches are reclaimed once they make up more
+ * than half of the rows. The store is thread safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class CompactMatchStore {
+
+	private static final int INITIAL_CAPACITY= 1024;
+
+	private static final int RULE_MASK= 0xFFFF;
+	private static final int ACCURACY_SHIFT= 16;
+	private static final int ACCURACY_MASK= 0x3;
+	private static final int READ_ACCESS= 1 << 18;
+	private static final int WRITE_ACCESS= 1 << 19;
+	private static final int JAVADOC= 1 << 20;
+	private static final int SUPER_INVOCATION= 1 << 21;
+
+	/* columns per element */
+	private final List<Object> fElements= new ArrayList<Object>();
+	private final Map<Object, Integer> fElementIds= new HashMap<Object, Integer>();
+	private int[] fFirst= new int[INITIAL_CAPACITY];
+	private int[] fLast= new int[INITIAL_CAPACITY];
+	private int[] fCounts= new int[INITIAL_CAPACITY];
+	private int[] fPotentialCounts= new int[INITIAL_CAPACITY];
+	private final BitSet fChanged= new BitSet();
+
+	/* columns per match */
+	private int[] fOffsets= new int[INITIAL_CAPACITY];
+	private int[] fLengths= new int[INITIAL_CAPACITY];
+	private int[] fFlags= new int[INITIAL_CAPACITY];
+	private int[] fNext= new int[INITIAL_CAPACITY];
+	private int fSize;
+
+	/** The number of rows of removed matches, reclaimed by {@link #compact()}. */
+	private int fGarbage;
+	private int fMatchCount;
+
+	/**
+	 * Adds a match.
+	 *
+	 * @param element the element containing the match
+	 * @param matchRule the match rule
+	 * @param offset the offset of the match
+	 * @param length the length of the match
+	 * @param accuracy the accuracy of the match
+	 * @param isReadAccess whether the match is a read access
+	 * @param isWriteAccess whether the match is a write access
+	 * @param isJavadoc whether the match is inside a Javadoc comment
+	 * @param isSuperInvocation whether the match is a super invocation
+	 * @return <code>true</code> if the match was added, <code>false</code> if the match rule or
+	 *         accuracy cannot be stored
+	 */
+	public synchronized boolean add(Object element, int matchRule, int offset, int length, int accuracy, boolean isReadAccess, boolean isWriteAccess, boolean isJavadoc, boolean isSuperInvocation) {
+		if ((matchRule & ~RULE_MASK) != 0 || (accuracy & ~ACCURACY_MASK) != 0)
+			return false;
+
+		int flags= matchRule | accuracy << ACCURACY_SHIFT;
+		if (isReadAccess)
+			flags|= READ_ACCESS;
+		if (isWriteAccess)
+			flags|= WRITE_ACCESS;
+		if (isJavadoc)
+			flags|= JAVADOC;
+		if (isSuperInvocation)
+			flags|= SUPER_INVOCATION;
+
+		if (fSize == fOffsets.length) {
+			fOffsets= grow(fOffsets);
+			fLengths= grow(fLengths);
+			fFlags= grow(fFlags);
+			fNext= grow(fNext);
+		}
+		int row= fSize++;
+		fOffsets[row]= offset;
+		fLengths[row]= length;
+		fFlags[row]= flags;
+		fNext[row]= -1;
+
+		int id= getId(element);
+		if (fCounts[id] == 0)
+			fFirst[id]= row;
+		else
+			fNext[fLast[id]]= row;
+		fLast[id]= row;
+		fCounts[id]++;
+		if (accuracy == SearchMatch.A_INACCURATE)
+			fPotentialCounts[id]++;
+		fChanged.set(id);
+		fMatchCount++;
+		return true;
+	}
+
+	private int getId(Object element) {
+		Integer id= fElementIds.get(element);
+		if (id != null)
+			return id.intValue();
+
+		int newId= fElements.size();
+		fElements.add(element);
+		fElementIds.put(element, new Integer(newId));
+		if (newId == fFirst.length) {
+			fFirst= grow(fFirst);
+			fLast= grow(fLast);
+			fCounts= grow(fCounts);
+			fPotentialCounts= grow(fPotentialCounts);
+		}
+		return newId;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] newArray= new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	/**
+	 * Returns the elements whose matches have been added or removed since the last call.
+	 *
+	 * @return the changed elements
+	 */
+	public synchronized Object[] takeChangedElements() {
+		Object[] changed= new Object[fChanged.cardinality()];
+		int i= 0;
+		for (int id= fChanged.nextSetBit(0); id >= 0; id= fChanged.nextSetBit(id + 1)) {
+			changed[i++]= fElements.get(id);
+		}
+		fChanged.clear();
+		return changed;
+	}
+
+	/**
+	 * Returns the elements that have matches in this store.
+	 *
+	 * @return the elements with matches
+	 */
+	public synchronized Object[] getElements() {
+		List<Object> elements= new ArrayList<Object>();
+		for (int id= 0; id < fElements.size(); id++) {
+			if (fCounts[id] > 0)
+				elements.add(fElements.get(id));
+		}
+		return elements.toArray();
+	}
+
+	/**
+	 * Returns the number of rows in use, including the rows of removed matches that have not been
+	 * reclaimed yet.
+	 *
+	 * @return the number of rows
+	 */
+	public synchronized int getRowCount() {
+		return fSize;
+	}
+
+	public synchronized int getMatchCount() {
+		return fMatchCount;
+	}
+
+	public synchronized int getMatchCount(Object element) {
+		Integer id= fElementIds.get(element);
+		return id != null ? fCounts[id.intValue()] : 0;
+	}
+
+	public synchronized int getPotentialMatchCount(Object element) {
+		Integer id= fElementIds.get(element);
+		return id != null ? fPotentialCounts[id.intValue()] : 0;
+	}
+
+	/**
+	 * Returns the number of matches of the given element that are not filtered by any of the given
+	 * filters.
+	 *
+	 * @param element the element
+	 * @param filters the filters to apply
+	 * @return the number of matches that are not filtered
+	 */
+	public synchronized int getMatchCount(Object element, MatchFilter[] filters) {
+		Integer id= fElementIds.get(element);
+		if (id == null)
+			return 0;
+		int count= 0;
+		for (int row= fFirst[id.intValue()], i= fCounts[id.intValue()]; i > 0; row= fNext[row], i--) {
+			// the match is only used for filtering and is not referenced afterwards
+			JavaElementMatch match= createMatch(element, row);
+			boolean filtered= false;
+			for (int j= 0; j < filters.length && !filtered; j++) {
+				filtered= filters[j].filters(match);
+			}
+			if (!filtered)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Removes the matches of the given element from this store.
+	 *
+	 * @param element the element
+	 * @return the removed matches or <code>null</code> if the element has no matches in this store
+	 */
+	public synchronized JavaElementMatch[] remove(Object element) {
+		Integer id= fElementIds.get(element);
+		if (id == null || fCounts[id.intValue()] == 0)
+			return null;
+
+		int elementId= id.intValue();
+		element= fElements.get(elementId);
+		JavaElementMatch[] matches= new JavaElementMatch[fCounts[elementId]];
+		for (int row= fFirst[elementId], i= 0; i < matches.length; row= fNext[row], i++) {
+			matches[i]= createMatch(element, row);
+		}
+		fMatchCount-= matches.length;
+		fGarbage+= matches.length;
+		fCounts[elementId]= 0;
+		fPotentialCounts[elementId]= 0;
+		fChanged.set(elementId);
+		if (fGarbage > fSize / 2)
+			compact();
+		return matches;
+	}
+
+	private JavaElementMatch createMatch(Object element, int row) {
+		int flags= fFlags[row];
+		return new JavaElementMatch(element, flags & RULE_MASK, fOffsets[row], fLengths[row], (flags >> ACCURACY_SHIFT) & ACCURACY_MASK,
+				(flags & READ_ACCESS) != 0, (flags & WRITE_ACCESS) != 0, (flags & JAVADOC) != 0, (flags & SUPER_INVOCATION) != 0);
+	}
+
+	/**
+	 * Copies the rows of the stored matches into new columns, dropping the rows of removed matches.
+	 */
+	private void compact() {
+		int capacity= Math.max(INITIAL_CAPACITY, (fSize - fGarbage) * 2);
+		int[] offsets= new int[capacity];
+		int[] lengths= new int[capacity];
+		int[] flags= new int[capacity];
+		int[] next= new int[capacity];
+		int size= 0;
+		for (int id= 0; id < fElements.size(); id++) {
+			int count= fCounts[id];
+			if (count == 0)
+				continue;
+			int row= fFirst[id];
+			fFirst[id]= size;
+			for (int i= 0; i < count; i++, row= fNext[row]) {
+				offsets[size]= fOffsets[row];
+				lengths[size]= fLengths[row];
+				flags[size]= fFlags[row];
+				next[size]= size + 1;
+				size++;
+			}
+			next[size - 1]= -1;
+			fLast[id]= size - 1;
+		}
+		fOffsets= offsets;
+		fLengths= lengths;
+		fFlags= flags;
+		fNext= next;
+		fSize= size;
+		fGarbage= 0;
+	}
+
+	/**
+	 * Removes all matches and elements from this store.
+	 */
+	public synchronized void clear() {
+		fElements.clear();
+		fElementIds.clear();
+		fChanged.clear();
+		fFirst= new int[INITIAL_CAPACITY];
+		fLast= new int[INITIAL_CAPACITY];
+		fCounts= new int[INITIAL_CAPACITY];
+		fPotentialCounts= new int[INITIAL_CAPACITY];
+		fOffsets= new int[INITIAL_CAPACITY];
+		fLengths= new int[INITIAL_CAPACITY];
+		fFlags= new int[INITIAL_CAPACITY];
+		fNext= new int[INITIAL_CAPACITY];
+		fSize= 0;
+		fGarbage= 0;
+		fMatchCount= 0;
+	}
+}
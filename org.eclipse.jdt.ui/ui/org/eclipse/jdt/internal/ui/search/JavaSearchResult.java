@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,9 @@
 package org.eclipse.jdt.internal.ui.search;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -19,21 +21,58 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.resource.ImageDescriptor;
 
 import org.eclipse.search.ui.ISearchQuery;
+import org.eclipse.search.ui.ISearchResult;
+import org.eclipse.search.ui.SearchResultEvent;
 import org.eclipse.search.ui.text.Match;
+import org.eclipse.search.ui.text.MatchEvent;
 import org.eclipse.search.ui.text.MatchFilter;
 
+import org.eclipse.jdt.core.search.SearchMatch;
+
 import org.eclipse.jdt.ui.search.IMatchPresentation;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 public class JavaSearchResult extends AbstractJavaSearchResult {
 
+	/**
+	 * Notifies listeners that the streamed matches of elements have been added or that their
+	 * filter state may have changed. The matches are not created, see
+	 * {@link JavaSearchResult#createStreamedMatches(Object)}.
+	 */
+	static final class StreamedMatchesEvent extends SearchResultEvent {
+
+		private static final long serialVersionUID= 1L;
+
+		private final Object[] fElements;
+
+		StreamedMatchesEvent(ISearchResult searchResult, Object[] elements) {
+			super(searchResult);
+			fElements= elements;
+		}
+
+		/**
+		 * Returns the elements whose streamed matches have changed.
+		 *
+		 * @return the elements
+		 */
+		Object[] getElements() {
+			return fElements;
+		}
+	}
+
 	private final JavaSearchQuery fQuery;
 	private final Map<Object, IMatchPresentation> fElementsToParticipants;
+	/**
+	 * The matches reported without creating a {@link Match} object, see
+	 * {@link #addStreamedMatch(Object, int, int, int, int, boolean, boolean, boolean, boolean)}.
+	 */
+	private final CompactMatchStore fStreamedMatches;
 
 	public JavaSearchResult(JavaSearchQuery query) {
 		fQuery= query;
 		fElementsToParticipants= new HashMap<Object, IMatchPresentation>();
+		fStreamedMatches= new CompactMatchStore();
 		setActiveMatchFilters(JavaMatchFilter.getLastUsedFilters());
 	}
 
@@ -65,6 +104,9 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 	public void setActiveMatchFilters(MatchFilter[] filters) {
 		super.setActiveMatchFilters(filters);
 		JavaMatchFilter.setLastUsedFilters(filters);
+		Object[] elements= fStreamedMatches.getElements();
+		if (elements.length > 0)
+			fireChange(new StreamedMatchesEvent(this, elements));
 	}
 
 	/* (non-Javadoc)
@@ -98,11 +140,129 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 		return true;
 	}
 
+	/**
+	 * Adds a match that is only turned into a {@link JavaElementMatch} when
+	 * {@link #createStreamedMatches(Object)} is called for its element. Listeners are not notified
+	 * until {@link #flushStreamedMatches()} is called.
+	 *
+	 * @param element the element containing the match
+	 * @param matchRule the match rule
+	 * @param offset the offset of the match
+	 * @param length the length of the match
+	 * @param accuracy the accuracy of the match
+	 * @param isReadAccess whether the match is a read access
+	 * @param isWriteAccess whether the match is a write access
+	 * @param isJavadoc whether the match is inside a Javadoc comment
+	 * @param isSuperInvocation whether the match is a super invocation
+	 */
+	void addStreamedMatch(Object element, int matchRule, int offset, int length, int accuracy, boolean isReadAccess, boolean isWriteAccess, boolean isJavadoc, boolean isSuperInvocation) {
+		if (!fStreamedMatches.add(element, matchRule, offset, length, accuracy, isReadAccess, isWriteAccess, isJavadoc, isSuperInvocation))
+			addMatch(new JavaElementMatch(element, matchRule, offset, length, accuracy, isReadAccess, isWriteAccess, isJavadoc, isSuperInvocation));
+	}
+
+	/**
+	 * Notifies the listeners about the elements whose streamed matches have changed.
+	 */
+	void flushStreamedMatches() {
+		Object[] elements= fStreamedMatches.takeChangedElements();
+		if (elements.length > 0)
+			fireChange(new StreamedMatchesEvent(this, elements));
+	}
+
+	/**
+	 * Creates the {@link JavaElementMatch}es of the streamed matches of the given element and adds
+	 * them to this result. Listeners are notified with a {@link MatchEvent#ADDED} event, so that
+	 * the matches are shown in editors as well. Afterwards, {@link #getMatches(Object)} returns
+	 * all matches of the element.
+	 *
+	 * @param element the element
+	 */
+	public void createStreamedMatches(Object element) {
+		JavaElementMatch[] streamed= fStreamedMatches.remove(element);
+		if (streamed != null)
+			addMatches(streamed);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchResult#getMatchCount()
+	 */
+	@Override
+	public int getMatchCount() {
+		return super.getMatchCount() + fStreamedMatches.getMatchCount();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchResult#getMatchCount(java.lang.Object)
+	 */
+	@Override
+	public int getMatchCount(Object element) {
+		return super.getMatchCount(element) + fStreamedMatches.getMatchCount(element);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchResult#getElements()
+	 */
+	@Override
+	public Object[] getElements() {
+		Object[] streamed= fStreamedMatches.getElements();
+		if (streamed.length == 0)
+			return super.getElements();
+
+		Set<Object> elements= new LinkedHashSet<Object>();
+		Object[] added= super.getElements();
+		for (int i= 0; i < added.length; i++) {
+			elements.add(added[i]);
+		}
+		for (int i= 0; i < streamed.length; i++) {
+			elements.add(streamed[i]);
+		}
+		return elements.toArray();
+	}
+
+	/**
+	 * Returns the number of matches of the given element that are not filtered by the active
+	 * match filters, without creating the streamed matches of the element.
+	 *
+	 * @param element the element
+	 * @return the number of matches that are not filtered
+	 */
+	int getDisplayedMatchCount(Object element) {
+		MatchFilter[] filters= getActiveMatchFilters();
+		if (filters == null || filters.length == 0)
+			return getMatchCount(element);
+
+		int count= fStreamedMatches.getMatchCount(element, filters);
+		Match[] matches= super.getMatches(element);
+		for (int i= 0; i < matches.length; i++) {
+			if (!matches[i].isFiltered())
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of potential matches of the given element, without creating the streamed
+	 * matches of the element.
+	 *
+	 * @param element the element
+	 * @return the number of potential matches
+	 */
+	int getPotentialMatchCount(Object element) {
+		int count= fStreamedMatches.getPotentialMatchCount(element);
+		Match[] matches= super.getMatches(element);
+		for (int i= 0; i < matches.length; i++) {
+			if (matches[i] instanceof JavaElementMatch && ((JavaElementMatch) matches[i]).getAccuracy() == SearchMatch.A_INACCURATE)
+				count++;
+		}
+		return count;
+	}
+
 	@Override
 	public void removeAll() {
 		synchronized(this) {
 			fElementsToParticipants.clear();
 		}
+		fStreamedMatches.clear();
 		super.removeAll();
 	}
 
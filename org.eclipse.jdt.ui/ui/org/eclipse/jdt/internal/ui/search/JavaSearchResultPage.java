@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.Transfer;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Item;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.Tree;
@@ -57,8 +58,11 @@ import org.eclipse.ui.views.navigator.LocalSelectionTransfer;
 import org.eclipse.ui.texteditor.ITextEditor;
 
 import org.eclipse.search.ui.IContextMenuConstants;
+import org.eclipse.search.ui.ISearchResult;
+import org.eclipse.search.ui.ISearchResultListener;
 import org.eclipse.search.ui.ISearchResultViewPart;
 import org.eclipse.search.ui.NewSearchUI;
+import org.eclipse.search.ui.SearchResultEvent;
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
 import org.eclipse.search.ui.text.AbstractTextSearchViewPage;
 import org.eclipse.search.ui.text.Match;
@@ -162,6 +166,30 @@ public class JavaSearchResultPage extends AbstractTextSearchViewPage implements
 
 	private JavaSearchEditorOpener fEditorOpener= new JavaSearchEditorOpener();
 
+	/**
+	 * Updates the elements whose streamed matches have changed, which are not reported by match
+	 * events.
+	 */
+	private final ISearchResultListener fStreamedMatchesListener= new ISearchResultListener() {
+		public void searchResultChanged(final SearchResultEvent e) {
+			if (!(e instanceof JavaSearchResult.StreamedMatchesEvent))
+				return;
+			final Object[] elements= ((JavaSearchResult.StreamedMatchesEvent) e).getElements();
+			Control control= getControl();
+			if (control == null || control.isDisposed())
+				return;
+			control.getDisplay().asyncExec(new Runnable() {
+				public void run() {
+					Control current= getControl();
+					if (current == null || current.isDisposed() || getInput() != e.getSearchResult())
+						return;
+					elementsChanged(elements);
+					getViewPart().updateLabel();
+				}
+			});
+		}
+	};
+
 	public JavaSearchResultPage() {
 		fCopyQualifiedNameAction= null;
 
@@ -298,10 +326,26 @@ public class JavaSearchResultPage extends AbstractTextSearchViewPage implements
 
 	@Override
 	public void dispose() {
+		AbstractTextSearchResult input= getInput();
+		if (input != null)
+			input.removeListener(fStreamedMatchesListener);
 		fActionGroup.dispose();
 		super.dispose();
 	}
 
+	/*
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchViewPage#setInput(org.eclipse.search.ui.ISearchResult, java.lang.Object)
+	 */
+	@Override
+	public void setInput(ISearchResult newSearch, Object viewState) {
+		AbstractTextSearchResult oldSearch= getInput();
+		if (oldSearch != null)
+			oldSearch.removeListener(fStreamedMatchesListener);
+		super.setInput(newSearch, viewState);
+		if (newSearch != null)
+			newSearch.addListener(fStreamedMatchesListener);
+	}
+
 	@Override
 	protected void elementsChanged(Object[] objects) {
 		if (fContentProvider != null)
@@ -559,6 +603,28 @@ public class JavaSearchResultPage extends AbstractTextSearchViewPage implements
 		return null;
 	}
 
+	/*
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchViewPage#getDisplayedMatchCount(java.lang.Object)
+	 */
+	@Override
+	public int getDisplayedMatchCount(Object element) {
+		AbstractTextSearchResult input= getInput();
+		if (input instanceof JavaSearchResult)
+			return ((JavaSearchResult) input).getDisplayedMatchCount(element);
+		return super.getDisplayedMatchCount(element);
+	}
+
+	/*
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchViewPage#getDisplayedMatches(java.lang.Object)
+	 */
+	@Override
+	public Match[] getDisplayedMatches(Object element) {
+		AbstractTextSearchResult input= getInput();
+		if (input instanceof JavaSearchResult)
+			((JavaSearchResult) input).createStreamedMatches(element);
+		return super.getDisplayedMatches(element);
+	}
+
 	@Override
 	protected void handleOpen(OpenEvent event) {
 		Object firstElement= ((IStructuredSelection)event.getSelection()).getFirstElement();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.swt.widgets.Shell;
@@ -50,6 +51,7 @@ import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
 
 import org.eclipse.jdt.internal.corext.util.Messages;
+import org.eclipse.jdt.internal.corext.util.SearchScopeCache;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
 import org.eclipse.jdt.ui.JavaUI;
@@ -171,7 +173,7 @@ public class JavaSearchScopeFactory {
 	}
 
 	public IJavaSearchScope createJavaProjectSearchScope(IJavaProject project, int includeMask) {
-		return SearchEngine.createJavaSearchScope(new IJavaElement[] { project }, getSearchFlags(includeMask));
+		return createCachedJavaSearchScope(new IJavaElement[] { project }, includeMask);
 	}
 
 	public IJavaSearchScope createJavaProjectSearchScope(IEditorInput editorInput, boolean includeJRE) {
@@ -335,14 +337,28 @@ public class JavaSearchScopeFactory {
 	public IJavaSearchScope createJavaSearchScope(IJavaElement[] javaElements, int includeMask) {
 		if (javaElements.length == 0)
 			return EMPTY_SCOPE;
-		return SearchEngine.createJavaSearchScope(javaElements, getSearchFlags(includeMask));
+		return createCachedJavaSearchScope(javaElements, includeMask);
 	}
 
 	private IJavaSearchScope createJavaSearchScope(Collection<IJavaElement> javaElements, int includeMask) {
 		if (javaElements.isEmpty())
 			return EMPTY_SCOPE;
 		IJavaElement[] elementArray= javaElements.toArray(new IJavaElement[javaElements.size()]);
-		return SearchEngine.createJavaSearchScope(elementArray, getSearchFlags(includeMask));
+		return createCachedJavaSearchScope(elementArray, includeMask);
+	}
+
+	/*
+	 * Creating the scope resolves the class paths of all projects in it, the scopes are
+	 * therefore shared by queries with the same elements and include mask.
+	 */
+	private IJavaSearchScope createCachedJavaSearchScope(IJavaElement[] javaElements, int includeMask) {
+		List<Object> key= SearchScopeCache.createKey(new HashSet<IJavaElement>(Arrays.asList(javaElements)), new Integer(includeMask));
+		IJavaSearchScope scope= SearchScopeCache.get(key);
+		if (scope == null) {
+			scope= SearchEngine.createJavaSearchScope(javaElements, getSearchFlags(includeMask));
+			SearchScopeCache.put(key, scope);
+		}
+		return scope;
 	}
 
 	private static int getSearchFlags(int includeMask) {
@@ -420,7 +436,7 @@ public class JavaSearchScopeFactory {
 		if ((includeMask & NO_PROJ) != NO_PROJ) {
 			try {
 				IJavaProject[] projects= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
-				return SearchEngine.createJavaSearchScope(projects, getSearchFlags(includeMask));
+				return createCachedJavaSearchScope(projects, includeMask);
 			} catch (JavaModelException e) {
 				// ignore, use workspace scope instead
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,8 +25,23 @@ import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
 public class NewSearchResultCollector extends SearchRequestor {
+
+	/**
+	 * The number of matches after which the matches reported to a {@link JavaSearchResult} are
+	 * streamed, see {@link JavaSearchResult#addStreamedMatch(Object, int, int, int, int, boolean, boolean, boolean, boolean)}.
+	 * A negative value disables streaming.
+	 */
+	private static final int STREAMING_THRESHOLD= Integer.getInteger("org.eclipse.jdt.ui.search.streamingThreshold", 5000).intValue(); //$NON-NLS-1$
+
+	/**
+	 * The number of streamed matches after which the listeners of the search result are notified.
+	 */
+	private static final int FLUSH_INTERVAL= 1000;
+
 	private AbstractTextSearchResult fSearch;
 	private boolean fIgnorePotentials;
+	private int fMatchCount;
+	private int fUnflushedCount;
 
 	public NewSearchResultCollector(AbstractTextSearchResult search, boolean ignorePotentials) {
 		super();
@@ -60,7 +75,17 @@ public class NewSearchResultCollector extends SearchRequestor {
 				MethodReferenceMatch methodRef= (MethodReferenceMatch) match;
 				isSuperInvocation= methodRef.isSuperInvocation();
 			}
-			fSearch.addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			if (STREAMING_THRESHOLD >= 0 && fMatchCount >= STREAMING_THRESHOLD && fSearch instanceof JavaSearchResult) {
+				JavaSearchResult result= (JavaSearchResult) fSearch;
+				result.addStreamedMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation);
+				if (++fUnflushedCount == FLUSH_INTERVAL) {
+					fUnflushedCount= 0;
+					result.flushStreamedMatches();
+				}
+			} else {
+				fSearch.addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			}
+			fMatchCount++;
 		}
 	}
 
@@ -70,6 +95,10 @@ public class NewSearchResultCollector extends SearchRequestor {
 
 	@Override
 	public void endReporting() {
+		if (fUnflushedCount > 0) {
+			fUnflushedCount= 0;
+			((JavaSearchResult) fSearch).flushStreamedMatches();
+		}
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -111,6 +111,16 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		return fRoot;
 	}
 
+	/**
+	 * Returns the declaration of the binding whose occurrences are found.
+	 *
+	 * @return the binding or <code>null</code> if the finder has not been initialized
+	 * @since 3.9
+	 */
+	public IBinding getTarget() {
+		return fTarget;
+	}
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.search.IOccurrencesFinder#getJobLabel()
 	 */
@@ -149,7 +159,7 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		return !addUsage(node, binding);
 	}
 
-	private static boolean isStaticImport(ASTNode node) {
+	static boolean isStaticImport(ASTNode node) {
 		if (!(node instanceof QualifiedName))
 			return false;
 
@@ -285,7 +295,7 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		return null;
 	}
 
-	private IBinding getBindingDeclaration(IBinding binding) {
+	static IBinding getBindingDeclaration(IBinding binding) {
 		switch (binding.getKind()) {
 			case IBinding.TYPE :
 				return ((ITypeBinding)binding).getTypeDeclaration();
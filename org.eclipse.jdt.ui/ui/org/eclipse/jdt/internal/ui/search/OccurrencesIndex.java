@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
+import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
+
+/**
+ * Index from binding keys to the names referring to them in a compilation unit AST.
+ * <p>
+ * The index is built with a single pass over the AST and answers the same occurrences as
+ * {@link OccurrencesFinder} for any selected name, so that mark occurrences does not need
+ * to visit the whole AST again on every caret move.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class OccurrencesIndex {
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/MarkOccurrences"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	private static final String DEBUG_PREFIX= "OccurrencesIndex > "; //$NON-NLS-1$
+
+	/**
+	 * Prefix of the keys under which the method names of static imports are stored.
+	 * {@link OccurrencesFinder} matches these by declaring type and name only.
+	 */
+	private static final String STATIC_IMPORT_PREFIX= "#import#"; //$NON-NLS-1$
+
+	private final CompilationUnit fRoot;
+	private final Map<String, List<Name>> fOccurrences;
+	private final Set<Name> fWriteOccurrences;
+
+	private OccurrencesIndex(CompilationUnit root) {
+		fRoot= root;
+		fOccurrences= new HashMap<String, List<Name>>();
+		fWriteOccurrences= new HashSet<Name>();
+	}
+
+	/**
+	 * Builds the occurrences index for the given AST.
+	 *
+	 * @param root the compilation unit AST, must have bindings resolved
+	 * @return the occurrences index
+	 */
+	public static OccurrencesIndex create(CompilationUnit root) {
+		long start= DEBUG ? System.nanoTime() : 0;
+
+		OccurrencesIndex index= new OccurrencesIndex(root);
+		root.accept(index.new Builder());
+
+		if (DEBUG)
+			System.out.println(DEBUG_PREFIX + "built index with " + index.fOccurrences.size() + " bindings in " + (System.nanoTime() - start) / 1000 + " us"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		return index;
+	}
+
+	/**
+	 * Returns the AST this index was built for.
+	 *
+	 * @return the compilation unit AST
+	 */
+	public CompilationUnit getASTRoot() {
+		return fRoot;
+	}
+
+	/**
+	 * Tells whether occurrences of the given name can be answered by this index.
+	 * Method names in static import declarations also match all invocations of overloaded
+	 * methods and must be searched with {@link OccurrencesFinder}.
+	 *
+	 * @param selectedNode the selected name
+	 * @return <code>true</code> if {@link #getOccurrences(Name)} can be used for the name
+	 */
+	public boolean canAnswer(Name selectedNode) {
+		return selectedNode.getRoot() == fRoot && !OccurrencesFinder.isStaticImport(selectedNode.getParent());
+	}
+
+	/**
+	 * Returns the occurrences of the binding of the given name.
+	 *
+	 * @param selectedNode the selected name, {@link #canAnswer(Name)} must be <code>true</code>
+	 * @return the occurrences or <code>null</code> if there are none
+	 */
+	public OccurrenceLocation[] getOccurrences(Name selectedNode) {
+		long start= DEBUG ? System.nanoTime() : 0;
+
+		IBinding target= selectedNode.resolveBinding();
+		if (target == null)
+			return null;
+		target= OccurrencesFinder.getBindingDeclaration(target);
+		String key= target.getKey();
+		if (key == null)
+			return null;
+
+		List<Name> names= fOccurrences.get(key);
+		List<Name> importNames= null;
+		if (target instanceof IMethodBinding && Modifier.isStatic(target.getModifiers()))
+			importNames= fOccurrences.get(getStaticImportKey((IMethodBinding) target));
+
+		int count= (names != null ? names.size() : 0) + (importNames != null ? importNames.size() : 0);
+		if (count == 0)
+			return null;
+
+		String name= BasicElementLabels.getJavaElementName(target.getName());
+		String readDescription= Messages.format(SearchMessages.OccurrencesFinder_occurrence_description, name);
+		String writeDescription= Messages.format(SearchMessages.OccurrencesFinder_occurrence_write_description, name);
+		boolean isVariable= target instanceof IVariableBinding;
+
+		OccurrenceLocation[] result= new OccurrenceLocation[count];
+		int i= 0;
+		if (importNames != null) {
+			for (int j= 0; j < importNames.size(); j++) {
+				Name node= importNames.get(j);
+				result[i++]= new OccurrenceLocation(node.getStartPosition(), node.getLength(), 0, readDescription);
+			}
+		}
+		if (names != null) {
+			for (int j= 0; j < names.size(); j++) {
+				Name node= names.get(j);
+				int flag= 0;
+				String description= readDescription;
+				if (isVariable) {
+					boolean isWrite= fWriteOccurrences.contains(node);
+					flag= isWrite ? IOccurrencesFinder.F_WRITE_OCCURRENCE : IOccurrencesFinder.F_READ_OCCURRENCE;
+					if (isWrite)
+						description= writeDescription;
+				}
+				result[i++]= new OccurrenceLocation(node.getStartPosition(), node.getLength(), flag, description);
+			}
+		}
+
+		if (DEBUG)
+			System.out.println(DEBUG_PREFIX + "found " + count + " occurrences of '" + target.getName() + "' in " + (System.nanoTime() - start) / 1000 + " us"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+		return result;
+	}
+
+	private static String getStaticImportKey(IMethodBinding binding) {
+		return STATIC_IMPORT_PREFIX + binding.getDeclaringClass().getTypeDeclaration().getKey() + '#' + binding.getName();
+	}
+
+	/**
+	 * Visitor collecting the occurrences of all bindings. Mirrors the visitor methods of
+	 * {@link OccurrencesFinder}: where the finder skips the children of a matched node, the
+	 * builder continues with the children but does not record further occurrences of the
+	 * matched binding inside it.
+	 */
+	private class Builder extends ASTVisitor {
+
+		private final Set<Name> fWriteUsages= new HashSet<Name>();
+		private final List<String> fSuppressedKeys= new ArrayList<String>();
+		private final List<ASTNode> fSuppressingNodes= new ArrayList<ASTNode>();
+
+		public Builder() {
+			super(true);
+		}
+
+		@Override
+		public boolean visit(QualifiedName node) {
+			final IBinding binding= node.resolveBinding();
+			if (binding instanceof IVariableBinding && ((IVariableBinding)binding).isField()) {
+				SimpleName name= node.getName();
+				suppress(node, addUsage(name, name.resolveBinding()));
+				return true;
+			}
+			if (binding instanceof IMethodBinding) {
+				if (OccurrencesFinder.isStaticImport(node)) {
+					SimpleName name= node.getName();
+					suppress(node, addStaticImport(name, (IMethodBinding) binding));
+					return true;
+				}
+			}
+			suppress(node, addUsage(node, binding));
+			return true;
+		}
+
+		@Override
+		public void endVisit(QualifiedName node) {
+			int last= fSuppressingNodes.size() - 1;
+			if (last >= 0 && fSuppressingNodes.get(last) == node) {
+				fSuppressingNodes.remove(last);
+				fSuppressedKeys.remove(last);
+			}
+		}
+
+		@Override
+		public boolean visit(SimpleName node) {
+			addUsage(node, node.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(ClassInstanceCreation node) {
+			Type type= node.getType();
+			if (type instanceof ParameterizedType) {
+				type= ((ParameterizedType) type).getType();
+			}
+			if (type instanceof SimpleType) {
+				Name name= ((SimpleType) type).getName();
+				if (name instanceof QualifiedName)
+					name= ((QualifiedName)name).getName();
+				addUsage(name, node.resolveConstructorBinding());
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(Assignment node) {
+			SimpleName name= getSimpleName(node.getLeftHandSide());
+			if (name != null)
+				addWrite(name, name.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(SingleVariableDeclaration node) {
+			addWrite(node.getName(), node.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(VariableDeclarationFragment node) {
+			if (node.getParent() instanceof FieldDeclaration || node.getInitializer() != null)
+				addWrite(node.getName(), node.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(PrefixExpression node) {
+			PrefixExpression.Operator operator= node.getOperator();
+			if (operator == PrefixExpression.Operator.INCREMENT || operator == PrefixExpression.Operator.DECREMENT) {
+				SimpleName name= getSimpleName(node.getOperand());
+				if (name != null)
+					addWrite(name, name.resolveBinding());
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(PostfixExpression node) {
+			SimpleName name= getSimpleName(node.getOperand());
+			if (name != null)
+				addWrite(name, name.resolveBinding());
+			return true;
+		}
+
+		private void suppress(ASTNode node, String key) {
+			if (key != null) {
+				fSuppressingNodes.add(node);
+				fSuppressedKeys.add(key);
+			}
+		}
+
+		private void addWrite(Name node, IBinding binding) {
+			if (binding != null)
+				fWriteUsages.add(node);
+		}
+
+		private String addUsage(Name node, IBinding binding) {
+			if (binding == null)
+				return null;
+			String key= OccurrencesFinder.getBindingDeclaration(binding).getKey();
+			if (!record(key, node))
+				return null;
+			if (fWriteUsages.remove(node))
+				fWriteOccurrences.add(node);
+			return key;
+		}
+
+		private String addStaticImport(Name node, IMethodBinding binding) {
+			if (!Modifier.isStatic(binding.getModifiers()))
+				return null;
+			// the finder does not record the import name itself when the method is not matched
+			if (!record(getStaticImportKey(binding), node))
+				return null;
+			return OccurrencesFinder.getBindingDeclaration(binding).getKey();
+		}
+
+		private boolean record(String key, Name node) {
+			if (key == null || fSuppressedKeys.contains(key))
+				return false;
+			List<Name> names= fOccurrences.get(key);
+			if (names == null) {
+				names= new ArrayList<Name>(2);
+				fOccurrences.put(key, names);
+			}
+			names.add(node);
+			return true;
+		}
+
+		private SimpleName getSimpleName(Expression expression) {
+			if (expression instanceof SimpleName)
+				return ((SimpleName)expression);
+			else if (expression instanceof QualifiedName)
+				return (((QualifiedName) expression).getName());
+			else if (expression instanceof FieldAccess)
+				return ((FieldAccess)expression).getName();
+			return null;
+		}
+	}
+}
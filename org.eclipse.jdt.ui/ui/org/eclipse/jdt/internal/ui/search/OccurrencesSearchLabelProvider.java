@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,12 +17,16 @@ import org.eclipse.jface.viewers.StyledString;
 import org.eclipse.jface.viewers.DelegatingStyledCellLabelProvider.IStyledLabelProvider;
 import org.eclipse.jface.viewers.StyledString.Styler;
 
+import org.eclipse.search.ui.text.AbstractTextSearchResult;
 import org.eclipse.search.ui.text.AbstractTextSearchViewPage;
 import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.internal.corext.util.Messages;
 
+import org.eclipse.jdt.ui.JavaElementLabels;
+
 import org.eclipse.jdt.internal.ui.JavaPluginImages;
+import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 import org.eclipse.jdt.internal.ui.viewsupport.ColoringLabelProvider;
 
 class OccurrencesSearchLabelProvider extends TextSearchLabelProvider implements IStyledLabelProvider {
@@ -45,7 +49,19 @@ class OccurrencesSearchLabelProvider extends TextSearchLabelProvider implements
 
 	private String internalGetText(Object element) {
 		JavaElementLine jel= (JavaElementLine) element;
-		return getLineNumberLabel(jel) + jel.getLineContents();
+		String text= getLineNumberLabel(jel) + jel.getLineContents();
+		if (isMultiFileQuery())
+			text+= getFileNameLabel(jel);
+		return text;
+	}
+
+	private boolean isMultiFileQuery() {
+		AbstractTextSearchResult input= getPage().getInput();
+		return input != null && ((OccurrencesSearchQuery) input.getQuery()).isMultiFileQuery();
+	}
+
+	private String getFileNameLabel(JavaElementLine element) {
+		return JavaElementLabels.CONCAT_STRING + BasicElementLabels.getFileName(element.getJavaElement());
 	}
 
 	private StyledString internalGetRichText(Object element) {
@@ -72,6 +88,8 @@ class OccurrencesSearchLabelProvider extends TextSearchLabelProvider implements
 				}
 			}
 		}
+		if (isMultiFileQuery())
+			res.append(getFileNameLabel(jel), StyledString.QUALIFIER_STYLER);
 		return res;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,23 +12,50 @@
 package org.eclipse.jdt.internal.ui.search;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.text.Match;
 
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
 
+import org.eclipse.jdt.internal.corext.dom.ASTBatchParser;
 import org.eclipse.jdt.internal.corext.util.Messages;
 
+import org.eclipse.jdt.ui.JavaElementLabels;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.dialogs.StatusInfo;
 import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
@@ -36,6 +63,20 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 
 public class OccurrencesSearchQuery implements ISearchQuery {
 
+	/**
+	 * The maximum number of threads used to search several files.
+	 *
+	 * @since 3.9
+	 */
+	private static final int MAX_THREADS= 4;
+
+	/**
+	 * The interval in milliseconds in which the progress monitor is checked for cancellation.
+	 *
+	 * @since 3.9
+	 */
+	private static final long CANCEL_POLL_INTERVAL= 100;
+
 	private final OccurrencesSearchResult fResult;
 	private IOccurrencesFinder fFinder;
 	private final ITypeRoot fElement;
@@ -45,6 +86,36 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 	private final String fName;
 	private final String fFinderId;
 
+	/**
+	 * The key of the binding whose occurrences are found, or <code>null</code> if the occurrences
+	 * cannot be searched in other files.
+	 *
+	 * @since 3.9
+	 */
+	private final String fTargetKey;
+
+	/**
+	 * The identifier of the binding whose occurrences are found, or <code>null</code>.
+	 *
+	 * @since 3.9
+	 */
+	private final String fTargetIdentifier;
+
+	/**
+	 * The compilation units to search, or <code>null</code> if the occurrences are searched in
+	 * {@link #fElement} only.
+	 *
+	 * @since 3.9
+	 */
+	private final ICompilationUnit[] fCompilationUnits;
+
+	/**
+	 * The label of the searched files.
+	 *
+	 * @since 3.9
+	 */
+	private final String fScopeLabel;
+
 	public OccurrencesSearchQuery(IOccurrencesFinder finder, ITypeRoot element) {
 		fFinder= finder;
 		fElement= element;
@@ -54,50 +125,298 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 		fPluralLabel= fFinder.getUnformattedPluralLabel();
 		fName= fFinder.getElementName();
 		fFinderId= fFinder.getID();
+		fCompilationUnits= null;
+		fScopeLabel= BasicElementLabels.getFileName(fElement);
+
+		IBinding target= finder instanceof OccurrencesFinder ? ((OccurrencesFinder) finder).getTarget() : null;
+		if (target != null && isVisibleInOtherFiles(target)) {
+			fTargetKey= target.getKey();
+			fTargetIdentifier= target.getName();
+		} else {
+			fTargetKey= null;
+			fTargetIdentifier= null;
+		}
+	}
+
+	/**
+	 * Creates a query that searches the occurrences found by the given query in several
+	 * compilation units.
+	 *
+	 * @param query the query whose occurrences are searched, must be able to search in other files
+	 * @param compilationUnits the compilation units to search
+	 * @param scopeLabel the label of the compilation units
+	 * @since 3.9
+	 */
+	public OccurrencesSearchQuery(OccurrencesSearchQuery query, ICompilationUnit[] compilationUnits, String scopeLabel) {
+		if (!query.canSearchInOtherFiles())
+			throw new IllegalArgumentException();
+		fFinder= null;
+		fElement= query.fElement;
+		fJobLabel= SearchMessages.OccurrencesSearchQuery_searchInFiles;
+		fResult= new OccurrencesSearchResult(this);
+		fSingularLabel= query.fSingularLabel;
+		fPluralLabel= query.fPluralLabel;
+		fName= query.fName;
+		fFinderId= query.fFinderId;
+		fTargetKey= query.fTargetKey;
+		fTargetIdentifier= query.fTargetIdentifier;
+		fCompilationUnits= compilationUnits;
+		fScopeLabel= scopeLabel;
+	}
+
+	private static boolean isVisibleInOtherFiles(IBinding binding) {
+		switch (binding.getKind()) {
+			case IBinding.TYPE:
+				ITypeBinding type= (ITypeBinding) binding;
+				return !type.isLocal() && !type.isAnonymous() && !type.isTypeVariable() && !type.isPrimitive();
+			case IBinding.VARIABLE:
+				return ((IVariableBinding) binding).isField();
+			case IBinding.METHOD:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Returns whether the occurrences found by this query can also be searched in other files.
+	 *
+	 * @return <code>true</code> if the occurrences can be searched in other files
+	 * @since 3.9
+	 */
+	public boolean canSearchInOtherFiles() {
+		return fTargetKey != null;
+	}
+
+	/**
+	 * Creates a query that searches the occurrences found by this query in all compilation units
+	 * of the package of the searched file.
+	 *
+	 * @return the query or <code>null</code> if the occurrences cannot be searched in the package
+	 * @throws JavaModelException if the compilation units of the package cannot be accessed
+	 * @since 3.9
+	 */
+	public OccurrencesSearchQuery createPackageQuery() throws JavaModelException {
+		if (!canSearchInOtherFiles() || !(fElement instanceof ICompilationUnit))
+			return null;
+		IJavaElement parent= fElement.getParent();
+		if (!(parent instanceof IPackageFragment))
+			return null;
+		IPackageFragment pack= (IPackageFragment) parent;
+		return new OccurrencesSearchQuery(this, pack.getCompilationUnits(), JavaElementLabels.getElementLabel(pack, JavaElementLabels.ALL_DEFAULT));
+	}
+
+	/**
+	 * Returns whether this query searches several files.
+	 *
+	 * @return <code>true</code> if several files are searched
+	 * @since 3.9
+	 */
+	public boolean isMultiFileQuery() {
+		return fCompilationUnits != null;
 	}
 
 	/*
 	 * @see org.eclipse.search.ui.ISearchQuery#run(org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	public IStatus run(IProgressMonitor monitor) {
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+
+		if (fCompilationUnits != null) {
+			return runOnCompilationUnits(monitor);
+		}
+
 		if (fFinder == null) {
 			return new StatusInfo(IStatus.ERROR, "Query has already been running"); //$NON-NLS-1$
 		}
-		if (monitor == null)
-			monitor= new NullProgressMonitor();
 
 		try {
-			OccurrenceLocation[] occurrences= fFinder.getOccurrences();
-			if (occurrences != null) {
-				HashMap<Integer, JavaElementLine> lineMap= new HashMap<Integer, JavaElementLine>();
-				CompilationUnit astRoot= fFinder.getASTRoot();
-				ArrayList<OccurrenceMatch> resultingMatches= new ArrayList<OccurrenceMatch>();
+			addMatches(fFinder.getASTRoot(), fFinder.getOccurrences());
+		} finally {
+			//Don't leak AST:
+			fFinder= null;
+			monitor.done();
+		}
+		return Status.OK_STATUS;
+	}
 
-				for (int i= 0; i < occurrences.length; i++) {
-					OccurrenceLocation loc= occurrences[i];
+	private void addMatches(CompilationUnit astRoot, OccurrenceLocation[] occurrences) {
+		if (occurrences != null) {
+			HashMap<Integer, JavaElementLine> lineMap= new HashMap<Integer, JavaElementLine>();
+			ArrayList<OccurrenceMatch> resultingMatches= new ArrayList<OccurrenceMatch>();
 
-					JavaElementLine lineKey= getLineElement(astRoot, loc, lineMap);
-					if (lineKey != null) {
-						OccurrenceMatch match= new OccurrenceMatch(lineKey, loc.getOffset(), loc.getLength(), loc.getFlags());
-						resultingMatches.add(match);
+			for (int i= 0; i < occurrences.length; i++) {
+				OccurrenceLocation loc= occurrences[i];
 
-						lineKey.setFlags(lineKey.getFlags() | loc.getFlags());
-					}
-				}
+				JavaElementLine lineKey= getLineElement(astRoot, loc, lineMap);
+				if (lineKey != null) {
+					OccurrenceMatch match= new OccurrenceMatch(lineKey, loc.getOffset(), loc.getLength(), loc.getFlags());
+					resultingMatches.add(match);
 
-				if (!resultingMatches.isEmpty()) {
-					fResult.addMatches(resultingMatches.toArray(new Match[resultingMatches.size()]));
+					lineKey.setFlags(lineKey.getFlags() | loc.getFlags());
 				}
 			}
 
+			if (!resultingMatches.isEmpty()) {
+				fResult.addMatches(resultingMatches.toArray(new Match[resultingMatches.size()]));
+			}
+		}
+	}
+
+	/**
+	 * Searches the compilation units in batches that are parsed and searched concurrently. The
+	 * batches are small enough that the ASTs of all concurrent batches together do not take more
+	 * memory than a single batch of the {@link ASTBatchParser}. The matches of each compilation
+	 * unit are added to the search result as soon as they are found.
+	 *
+	 * @param monitor the progress monitor
+	 * @return the status of the search
+	 * @since 3.9
+	 */
+	private IStatus runOnCompilationUnits(IProgressMonitor monitor) {
+		fResult.removeAll();
+		ICompilationUnit[] units= getCandidates(fCompilationUnits);
+		if (units.length == 0) {
+			monitor.done();
+			return Status.OK_STATUS;
+		}
+
+		final AtomicBoolean canceled= new AtomicBoolean();
+		int threads= Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+		int batchSize= Math.max(1, ASTBatchParser.getMaxAtOnce() / threads);
+		List<ICompilationUnit[]> batches= new ArrayList<ICompilationUnit[]>();
+		for (int start= 0; start < units.length; start+= batchSize) {
+			List<ICompilationUnit> batch= Arrays.asList(units).subList(start, Math.min(start + batchSize, units.length));
+			batches.add(batch.toArray(new ICompilationUnit[batch.size()]));
+		}
+
+		ExecutorService executor= Executors.newFixedThreadPool(Math.min(threads, batches.size()), new ThreadFactory() {
+			private int fCount= 0;
+
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread= new Thread(runnable, "Occurrences Search #" + ++fCount); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			monitor.beginTask(fJobLabel, units.length);
+			List<Future<Object>> futures= new ArrayList<Future<Object>>(batches.size());
+			for (int i= 0; i < batches.size(); i++) {
+				final ICompilationUnit[] batch= batches.get(i);
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() {
+						searchBatch(batch, canceled);
+						return null;
+					}
+				}));
+			}
+			for (int i= 0; i < futures.size(); i++) {
+				await(futures.get(i), canceled, monitor);
+				monitor.worked(batches.get(i).length);
+			}
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
 		} finally {
-			//Don't leak AST:
-			fFinder= null;
+			canceled.set(true);
+			executor.shutdownNow();
 			monitor.done();
 		}
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Returns the compilation units whose source contains the identifier of the target. The other
+	 * compilation units are not parsed.
+	 *
+	 * @param units the compilation units
+	 * @return the compilation units that may contain occurrences
+	 */
+	private ICompilationUnit[] getCandidates(ICompilationUnit[] units) {
+		List<ICompilationUnit> candidates= new ArrayList<ICompilationUnit>(units.length);
+		for (int i= 0; i < units.length; i++) {
+			try {
+				String source= units[i].getSource();
+				if (source != null && source.indexOf(fTargetIdentifier) == -1)
+					continue;
+			} catch (JavaModelException e) {
+				// parse to find out
+			}
+			candidates.add(units[i]);
+		}
+		return candidates.toArray(new ICompilationUnit[candidates.size()]);
+	}
+
+	private void searchBatch(ICompilationUnit[] batch, final AtomicBoolean canceled) {
+		new ASTBatchParser().createASTs(batch, new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				if (canceled.get())
+					throw new OperationCanceledException();
+				SimpleName name= findTargetName(ast);
+				if (name != null) {
+					OccurrencesFinder finder= new OccurrencesFinder();
+					if (finder.initialize(ast, name) == null)
+						addMatches(ast, finder.getOccurrences());
+				}
+			}
+		}, new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return canceled.get();
+			}
+		});
+	}
+
+	private SimpleName findTargetName(CompilationUnit ast) {
+		final SimpleName[] result= new SimpleName[1];
+		ast.accept(new ASTVisitor() {
+			@Override
+			public boolean preVisit2(ASTNode node) {
+				return result[0] == null;
+			}
+
+			@Override
+			public boolean visit(SimpleName node) {
+				if (fTargetIdentifier.equals(node.getIdentifier())) {
+					IBinding binding= node.resolveBinding();
+					if (binding != null && fTargetKey.equals(OccurrencesFinder.getBindingDeclaration(binding).getKey())) {
+						result[0]= node;
+					}
+				}
+				return false;
+			}
+		});
+		return result[0];
+	}
+
+	private static void await(Future<Object> future, AtomicBoolean canceled, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				canceled.set(true);
+				throw new OperationCanceledException();
+			}
+			try {
+				future.get(CANCEL_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				return;
+			} catch (TimeoutException e) {
+				// check for cancellation
+			} catch (InterruptedException e) {
+				canceled.set(true);
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof OperationCanceledException)
+					throw (OperationCanceledException) cause;
+				// continue with the other batches
+				JavaPlugin.log(cause);
+				return;
+			}
+		}
+	}
+
 	private JavaElementLine getLineElement(CompilationUnit astRoot, OccurrenceLocation location, HashMap<Integer, JavaElementLine> lineToGroup) {
 		int lineNumber= astRoot.getLineNumber(location.getOffset());
 		if (lineNumber <= 0) {
@@ -129,9 +448,9 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 
 	public String getResultLabel(int nMatches) {
 		if (nMatches == 1) {
-			return Messages.format(fSingularLabel, new Object[] { fName, BasicElementLabels.getFileName(fElement) });
+			return Messages.format(fSingularLabel, new Object[] { fName, fScopeLabel });
 		} else {
-			return Messages.format(fPluralLabel, new Object[] { fName, new Integer(nMatches), BasicElementLabels.getFileName(fElement) });
+			return Messages.format(fPluralLabel, new Object[] { fName, new Integer(nMatches), fScopeLabel });
 		}
 	}
 
@@ -139,7 +458,7 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 	 * @see org.eclipse.search.ui.ISearchQuery#canRerun()
 	 */
 	public boolean canRerun() {
-		return false; // must release finder to not keep AST reference
+		return fCompilationUnits != null; // must release finder to not keep AST reference
 	}
 
 	/*
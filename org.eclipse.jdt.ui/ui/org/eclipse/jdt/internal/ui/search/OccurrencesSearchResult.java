@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,9 @@
 
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 
@@ -50,11 +53,20 @@ public class OccurrencesSearchResult extends AbstractTextSearchResult implements
 		Object[] elements= getElements();
 		if (elements.length == 0)
 			return NO_MATCHES;
-		//all matches from same file:
-		JavaElementLine jel= (JavaElementLine) elements[0];
-		if (file.equals(jel.getJavaElement().getResource()))
-			return collectMatches(elements);
-		return NO_MATCHES;
+		if (!fQuery.isMultiFileQuery()) {
+			//all matches from same file:
+			JavaElementLine jel= (JavaElementLine) elements[0];
+			if (file.equals(jel.getJavaElement().getResource()))
+				return collectMatches(elements);
+			return NO_MATCHES;
+		}
+		List<Object> contained= new ArrayList<Object>();
+		for (int i= 0; i < elements.length; i++) {
+			JavaElementLine jel= (JavaElementLine) elements[i];
+			if (file.equals(jel.getJavaElement().getResource()))
+				contained.add(jel);
+		}
+		return collectMatches(contained.toArray());
 	}
 
 	/*
@@ -158,14 +170,13 @@ public class OccurrencesSearchResult extends AbstractTextSearchResult implements
 	}
 
 	private Match[] collectMatches(Object[] elements) {
-		Match[] matches= new Match[getMatchCount()];
-		int writeIndex= 0;
+		List<Match> matches= new ArrayList<Match>();
 		for (int i= 0; i < elements.length; i++) {
 			Match[] perElement= getMatches(elements[i]);
 			for (int j= 0; j < perElement.length; j++) {
-				matches[writeIndex++]= perElement[j];
+				matches.add(perElement[j]);
 			}
 		}
-		return matches;
+		return matches.toArray(new Match[matches.size()]);
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdt.internal.ui.search;
 
 import org.eclipse.swt.widgets.Composite;
 
+import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.jface.commands.ActionHandler;
@@ -39,6 +40,7 @@ import org.eclipse.ui.part.IPageSite;
 
 import org.eclipse.ui.texteditor.ITextEditor;
 
+import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.NewSearchUI;
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
 import org.eclipse.search.ui.text.AbstractTextSearchViewPage;
@@ -54,6 +56,7 @@ import org.eclipse.jdt.ui.SharedASTProvider;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.actions.AbstractToggleLinkingAction;
+import org.eclipse.jdt.internal.ui.util.ExceptionHandler;
 import org.eclipse.jdt.internal.ui.viewsupport.ColoringLabelProvider;
 import org.eclipse.jdt.internal.ui.viewsupport.ISelectionListenerWithAST;
 import org.eclipse.jdt.internal.ui.viewsupport.SelectionListenerWithASTManager;
@@ -68,6 +71,7 @@ public class OccurrencesSearchResultPage extends AbstractTextSearchViewPage {
 	private boolean fLinkingEnabled;
 	private AbstractToggleLinkingAction fToggleLinkingAction;
 	private LinkWithEditorListener fLinkWithEditorListener;
+	private SearchInPackageAction fSearchInPackageAction;
 
 	private class LinkWithEditorListener implements IPartListener2, ISelectionListenerWithAST {
 
@@ -172,12 +176,52 @@ public class OccurrencesSearchResultPage extends AbstractTextSearchViewPage {
 		}
 	}
 
+	/**
+	 * Searches the occurrences of the current search in all files of the package of the searched
+	 * file.
+	 *
+	 * @since 3.9
+	 */
+	private class SearchInPackageAction extends Action {
+
+		public SearchInPackageAction() {
+			super(SearchMessages.OccurrencesSearchResultPage_searchInPackage_text);
+			setToolTipText(SearchMessages.OccurrencesSearchResultPage_searchInPackage_tooltip);
+			setEnabled(false);
+		}
+
+		public void update() {
+			AbstractTextSearchResult input= getInput();
+			if (input != null) {
+				OccurrencesSearchQuery query= (OccurrencesSearchQuery) input.getQuery();
+				setEnabled(!query.isMultiFileQuery() && query.canSearchInOtherFiles());
+			} else {
+				setEnabled(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			AbstractTextSearchResult input= getInput();
+			if (input == null)
+				return;
+			try {
+				OccurrencesSearchQuery query= ((OccurrencesSearchQuery) input.getQuery()).createPackageQuery();
+				if (query != null)
+					NewSearchUI.runQueryInBackground(query);
+			} catch (JavaModelException e) {
+				ExceptionHandler.handle(e, getSite().getShell(), SearchMessages.Search_Error_search_title, SearchMessages.Search_Error_search_message);
+			}
+		}
+	}
+
 	public OccurrencesSearchResultPage() {
 		super(AbstractTextSearchViewPage.FLAG_LAYOUT_FLAT);
 		fLinkWithEditorListener= new LinkWithEditorListener();
 		fLinkingEnabled= false;
 		fToggleLinkingAction= new ToggleLinkingAction();
 		fToggleLinkingAction.setActionDefinitionId(IWorkbenchCommandConstants.NAVIGATE_TOGGLE_LINK_WITH_EDITOR);
+		fSearchInPackageAction= new SearchInPackageAction();
 	}
 
 	@Override
@@ -208,11 +252,21 @@ public class OccurrencesSearchResultPage extends AbstractTextSearchViewPage {
 		IActionBars bars= getSite().getActionBars();
 		IMenuManager menu= bars.getMenuManager();
 		menu.add(fToggleLinkingAction);
+		menu.add(fSearchInPackageAction);
 
 		IHandlerService handlerService= (IHandlerService) getSite().getService(IHandlerService.class);
 		handlerService.activateHandler(IWorkbenchCommandConstants.NAVIGATE_TOGGLE_LINK_WITH_EDITOR, new ActionHandler(fToggleLinkingAction));
 	}
 
+	/*
+	 * @see org.eclipse.search.ui.text.AbstractTextSearchViewPage#setInput(org.eclipse.search.ui.ISearchResult, java.lang.Object)
+	 */
+	@Override
+	public void setInput(ISearchResult newSearch, Object viewState) {
+		super.setInput(newSearch, viewState);
+		fSearchInPackageAction.update();
+	}
+
 	/*
 	 * @see org.eclipse.search.ui.text.AbstractTextSearchViewPage#showMatch(org.eclipse.search.ui.text.Match, int, int)
 	 */
@@ -273,6 +327,15 @@ public class OccurrencesSearchResultPage extends AbstractTextSearchViewPage {
 			public int compare(Viewer v, Object e1, Object e2) {
 				JavaElementLine jel1= (JavaElementLine) e1;
 				JavaElementLine jel2= (JavaElementLine) e2;
+				ITypeRoot root1= jel1.getJavaElement();
+				ITypeRoot root2= jel2.getJavaElement();
+				if (!root1.equals(root2)) {
+					// matches of a search in several files
+					int result= getComparator().compare(root1.getElementName(), root2.getElementName());
+					if (result != 0)
+						return result;
+					return root1.getHandleIdentifier().compareTo(root2.getHandleIdentifier());
+				}
 				return jel1.getLine() - jel2.getLine();
 			}
 		});
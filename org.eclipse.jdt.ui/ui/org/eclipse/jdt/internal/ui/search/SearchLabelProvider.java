@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -114,7 +114,9 @@ public abstract class SearchLabelProvider extends AppearanceAwareLabelProvider {
 	protected final int getNumberOfPotentialMatches(Object element) {
 		int res= 0;
 		AbstractTextSearchResult result= fPage.getInput();
-		if (result != null) {
+		if (result instanceof JavaSearchResult) {
+			res= ((JavaSearchResult) result).getPotentialMatchCount(element);
+		} else if (result != null) {
 			Match[] matches= result.getMatches(element);
 			for (int i = 0; i < matches.length; i++) {
 				if ((matches[i]) instanceof JavaElementMatch) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -139,6 +139,9 @@ public final class SearchMessages extends NLS {
 	public static String OccurrencesFinder_occurrence_description;
 	public static String OccurrencesFinder_occurrence_write_description;
 	public static String OccurrencesSearchLabelProvider_line_number;
+	public static String OccurrencesSearchQuery_searchInFiles;
+	public static String OccurrencesSearchResultPage_searchInPackage_text;
+	public static String OccurrencesSearchResultPage_searchInPackage_tooltip;
 	public static String ExceptionOccurrencesFinder_no_exception;
 	public static String ExceptionOccurrencesFinder_searchfor;
 	public static String ExceptionOccurrencesFinder_label_singular;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -66,6 +66,7 @@ public class SearchResultUpdater implements IElementChangedListener, IQueryListe
 					IJavaElement je= (IJavaElement)elements[i];
 					if (!je.exists()) {
 						//System.out.println("removing: "+je+" in "+fResult.getUserData());
+						fResult.createStreamedMatches(je);
 						Match[] matches= fResult.getMatches(elements[i]);
 						for (int j= 0; j < matches.length; j++) {
 							fResult.removeMatch(matches[j]);
@@ -75,6 +76,7 @@ public class SearchResultUpdater implements IElementChangedListener, IQueryListe
 					IResource resource= (IResource)elements[i];
 					if (!resource.exists()) {
 						//System.out.println("removing: "+resource+" in "+fResult.getUserData());
+						fResult.createStreamedMatches(resource);
 						Match[] matches= fResult.getMatches(elements[i]);
 						for (int j= 0; j < matches.length; j++) {
 							fResult.removeMatch(matches[j]);
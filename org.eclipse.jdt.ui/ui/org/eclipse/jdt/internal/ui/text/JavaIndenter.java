@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,15 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text;
 
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IRegion;
 
 import org.eclipse.jdt.core.IJavaProject;
@@ -356,6 +361,76 @@ public final class JavaIndenter {
 		}
 	}
 
+	/**
+	 * Remembers the opening peers found by {@link JavaIndenter#skipScope(int, int)}, so that
+	 * indenting many lines below a long block or array initializer does not scan over it
+	 * again for every line.
+	 * <p>
+	 * Skipping a scope only reads the document before the closing token. Entries are
+	 * therefore still valid after a document change behind their closing token, and only
+	 * the entries at or after the changed offset are discarded. Indenting lines top-down,
+	 * as done by the indent action, keeps all entries above the current line.
+	 * </p>
+	 *
+	 * @since 3.9
+	 */
+	private final class ScopeCache implements IDocumentListener {
+
+		/** Maps the offset of a closing token to {closing token, opening offset, previous position, line}. */
+		private final SortedMap<Integer, int[]> fScopes= new TreeMap<Integer, int[]>();
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			fScopes.tailMap(new Integer(event.getOffset())).clear();
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentChanged(DocumentEvent event) {
+		}
+
+		/**
+		 * Restores the indenter state after skipping the scope closed at <code>offset</code>,
+		 * if known.
+		 *
+		 * @param offset the offset of the closing token
+		 * @param closeToken the closing token
+		 * @return <code>true</code> if the state was restored, <code>false</code> if the scope
+		 *         has to be skipped by scanning
+		 */
+		boolean restore(int offset, int closeToken) {
+			int[] scope= fScopes.get(new Integer(offset));
+			if (scope == null || scope[0] != closeToken)
+				return false;
+			fToken= closeToken == Symbols.TokenRPAREN ? Symbols.TokenLPAREN
+					: closeToken == Symbols.TokenRBRACKET ? Symbols.TokenLBRACKET
+					: closeToken == Symbols.TokenRBRACE ? Symbols.TokenLBRACE
+					: Symbols.TokenLESSTHAN;
+			fPosition= scope[1];
+			fPreviousPos= scope[2];
+			fLine= scope[3];
+			return true;
+		}
+
+		/**
+		 * Remembers the current indenter state as the result of skipping the scope closed at
+		 * <code>offset</code>.
+		 *
+		 * @param offset the offset of the closing token
+		 * @param closeToken the closing token
+		 */
+		void store(int offset, int closeToken) {
+			fScopes.put(new Integer(offset), new int[] { closeToken, fPosition, fPreviousPos, fLine });
+		}
+
+		void clear() {
+			fScopes.clear();
+		}
+	}
+
 	/** The document being scanned. */
 	private final IDocument fDocument;
 	/** The indentation accumulated by <code>findReferencePosition</code>. */
@@ -383,6 +458,11 @@ public final class JavaIndenter {
 	 * @since 3.2
 	 */
 	private final CorePrefs fPrefs;
+	/**
+	 * The cache of skipped scopes, or <code>null</code> if not installed.
+	 * @since 3.9
+	 */
+	private ScopeCache fScopeCache;
 
 	/**
 	 * Creates a new instance.
@@ -414,6 +494,35 @@ public final class JavaIndenter {
 		fPrefs= new CorePrefs(project);
 	}
 
+	/**
+	 * Starts caching the results of bracket matching across indentation computations, which
+	 * makes indenting a sequence of lines in top-down order amortized constant time per line.
+	 * The cache listens to the document and must be removed by calling
+	 * {@link #uninstallScopeCache()}.
+	 *
+	 * @since 3.9
+	 */
+	public void installScopeCache() {
+		if (fScopeCache == null) {
+			fScopeCache= new ScopeCache();
+			fDocument.addDocumentListener(fScopeCache);
+		}
+	}
+
+	/**
+	 * Stops caching the results of bracket matching.
+	 *
+	 * @see #installScopeCache()
+	 * @since 3.9
+	 */
+	public void uninstallScopeCache() {
+		if (fScopeCache != null) {
+			fDocument.removeDocumentListener(fScopeCache);
+			fScopeCache.clear();
+			fScopeCache= null;
+		}
+	}
+
 	/**
 	 * Computes the indentation at the reference point of <code>position</code>.
 	 *
@@ -1936,6 +2045,10 @@ public final class JavaIndenter {
 	 */
 	private boolean skipScope(int openToken, int closeToken) {
 
+		int start= fPosition;
+		if (fScopeCache != null && fScopeCache.restore(start, closeToken))
+			return true;
+
 		int depth= 1;
 
 		while (true) {
@@ -1945,8 +2058,11 @@ public final class JavaIndenter {
 				depth++;
 			} else if (fToken == openToken) {
 				depth--;
-				if (depth == 0)
+				if (depth == 0) {
+					if (fScopeCache != null)
+						fScopeCache.store(start, closeToken);
 					return true;
+				}
 			} else if (fToken == Symbols.TokenEOF) {
 					return false;
 			}
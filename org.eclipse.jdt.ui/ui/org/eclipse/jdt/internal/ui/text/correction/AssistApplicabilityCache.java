@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.correction;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.text.java.IInvocationContext;
+
+/**
+ * Remembers which quick assist processors are applicable at a selection range of an AST.
+ * <p>
+ * The applicability is computed by {@link JavaCorrectionProcessor#hasAssists(IInvocationContext)}
+ * for the quick assist light bulb. When quick assist is invoked on the same AST and selection,
+ * processors known to have no assists are not asked for proposals again.
+ * </p>
+ * <p>
+ * Applicability is tracked per contributed processor, not per individual assist: a processor's
+ * <code>hasAssists</code> stops at the first applicable assist, so it does not tell which of its
+ * assists apply. The answers only describe quick assist without problems at the selection, as
+ * <code>hasAssists</code> does not look at problem locations.
+ * </p>
+ * <p>
+ * Only the ranges of the most recent AST are kept. The AST is referenced weakly.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class AssistApplicabilityCache {
+
+	private static final int MAX_RANGES= 16;
+
+	private WeakReference<CompilationUnit> fASTRoot= new WeakReference<CompilationUnit>(null);
+
+	private final Map<Long, Map<ContributedProcessorDescriptor, Boolean>> fRanges= new LinkedHashMap<Long, Map<ContributedProcessorDescriptor, Boolean>>(MAX_RANGES, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Map<ContributedProcessorDescriptor, Boolean>> eldest) {
+			return size() > MAX_RANGES;
+		}
+	};
+
+	/**
+	 * Returns whether the given processor is applicable in the given context.
+	 *
+	 * @param context the invocation context
+	 * @param processor the quick assist processor
+	 * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the applicability is known,
+	 *         <code>null</code> otherwise
+	 */
+	public synchronized Boolean isApplicable(IInvocationContext context, ContributedProcessorDescriptor processor) {
+		Map<ContributedProcessorDescriptor, Boolean> processors= getProcessors(context, false);
+		if (processors == null)
+			return null;
+		return processors.get(processor);
+	}
+
+	/**
+	 * Records whether the given processor is applicable in the given context.
+	 *
+	 * @param context the invocation context
+	 * @param processor the quick assist processor
+	 * @param applicable <code>true</code> if the processor has assists in the context
+	 */
+	public synchronized void setApplicable(IInvocationContext context, ContributedProcessorDescriptor processor, boolean applicable) {
+		Map<ContributedProcessorDescriptor, Boolean> processors= getProcessors(context, true);
+		if (processors != null)
+			processors.put(processor, Boolean.valueOf(applicable));
+	}
+
+	private Map<ContributedProcessorDescriptor, Boolean> getProcessors(IInvocationContext context, boolean create) {
+		CompilationUnit astRoot= context.getASTRoot();
+		if (astRoot == null)
+			return null;
+
+		if (fASTRoot.get() != astRoot) {
+			if (!create)
+				return null;
+			fRanges.clear();
+			fASTRoot= new WeakReference<CompilationUnit>(astRoot);
+		}
+
+		Long range= new Long(((long) context.getSelectionOffset() << 32) | (context.getSelectionLength() & 0xFFFFFFFFL));
+		Map<ContributedProcessorDescriptor, Boolean> processors= fRanges.get(range);
+		if (processors == null && create) {
+			processors= new HashMap<ContributedProcessorDescriptor, Boolean>();
+			fRanges.put(range, processors);
+		}
+		return processors;
+	}
+}
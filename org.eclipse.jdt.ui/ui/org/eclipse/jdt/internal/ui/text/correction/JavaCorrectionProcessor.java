@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -72,6 +72,12 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 	private static ContributedProcessorDescriptor[] fgContributedAssistProcessors= null;
 	private static ContributedProcessorDescriptor[] fgContributedCorrectionProcessors= null;
 
+	/**
+	 * Applicability of the quick assist processors, shared by the light bulb and quick assist.
+	 * @since 3.9
+	 */
+	private static final AssistApplicabilityCache fgAssistApplicability= new AssistApplicabilityCache();
+
 	private static ContributedProcessorDescriptor[] getProcessorDescriptors(String contributionId, boolean testMarkerTypes) {
 		IConfigurationElement[] elements= Platform.getExtensionRegistry().getConfigurationElementsFor(JavaUI.ID_PLUGIN, contributionId);
 		ArrayList<ContributedProcessorDescriptor> res= new ArrayList<ContributedProcessorDescriptor>(elements.length);
@@ -151,6 +157,12 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 		SafeHasAssist collector= new SafeHasAssist(context);
 
 		for (int i= 0; i < processors.length; i++) {
+			Boolean applicable= fgAssistApplicability.isApplicable(context, processors[i]);
+			if (applicable != null) {
+				if (applicable.booleanValue())
+					return true;
+				continue;
+			}
 			collector.process(processors[i]);
 			if (collector.hasAssists()) {
 				return true;
@@ -398,6 +410,9 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 
 		@Override
 		public void safeRun(ContributedProcessorDescriptor desc) throws Exception {
+			if ((fLocations == null || fLocations.length == 0) && Boolean.FALSE.equals(fgAssistApplicability.isApplicable(fContext, desc)))
+				return; // the light bulb found no assists for this processor
+
 			IQuickAssistProcessor curr= (IQuickAssistProcessor) desc.getProcessor(fContext.getCompilationUnit(), IQuickAssistProcessor.class);
 			if (curr != null) {
 				IJavaCompletionProposal[] res= curr.getAssists(fContext, fLocations);
@@ -426,7 +441,9 @@ public class JavaCorrectionProcessor implements org.eclipse.jface.text.quickassi
 		@Override
 		public void safeRun(ContributedProcessorDescriptor desc) throws Exception {
 			IQuickAssistProcessor processor= (IQuickAssistProcessor) desc.getProcessor(fContext.getCompilationUnit(), IQuickAssistProcessor.class);
-			if (processor != null && processor.hasAssists(fContext)) {
+			boolean hasAssists= processor != null && processor.hasAssists(fContext);
+			fgAssistApplicability.setApplicable(fContext, desc, hasAssists);
+			if (hasAssists) {
 				fHasAssists= true;
 			}
 		}
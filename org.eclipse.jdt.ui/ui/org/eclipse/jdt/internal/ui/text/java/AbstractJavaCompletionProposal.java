@@ -460,6 +460,18 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalExtension1#apply(org.eclipse.jface.text.ITextViewer, char, int, int)
 	 */
 	public void apply(ITextViewer viewer, char trigger, int stateMask, int offset) {
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		if (!statistics.isEnabled()) {
+			doApply(viewer, trigger, stateMask, offset);
+			return;
+		}
+
+		long start= System.nanoTime();
+		doApply(viewer, trigger, stateMask, offset);
+		statistics.phaseFinished(ContentAssistStatistics.APPLYING, System.nanoTime() - start, 1);
+	}
+
+	private void doApply(ITextViewer viewer, char trigger, int stateMask, int offset) {
 
 		IDocument document= viewer.getDocument();
 		if (fTextViewer == null)
@@ -747,6 +759,17 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalExtension2#validate(org.eclipse.jface.text.IDocument, int, org.eclipse.jface.text.DocumentEvent)
 	 */
 	public boolean validate(IDocument document, int offset, DocumentEvent event) {
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		if (!statistics.isEnabled())
+			return doValidate(document, offset, event);
+
+		long start= System.nanoTime();
+		boolean isValid= doValidate(document, offset, event);
+		statistics.proposalFiltered(System.nanoTime() - start);
+		return isValid;
+	}
+
+	private boolean doValidate(IDocument document, int offset, DocumentEvent event) {
 
 		if (!isOffsetValid(offset))
 			return fIsValidated= false;
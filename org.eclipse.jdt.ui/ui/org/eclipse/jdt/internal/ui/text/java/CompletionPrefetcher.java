@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ITextInputListener;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.TextUtilities;
+
+import org.eclipse.ui.IEditorPart;
+
+import org.eclipse.jdt.core.CompletionContext;
+import org.eclipse.jdt.core.CompletionProposal;
+import org.eclipse.jdt.core.CompletionRequestor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.compiler.IProblem;
+
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Computes the core completion proposals in the background after a <code>'.'</code> or
+ * <code>'('</code> has been typed in Java code, for a {@link JavaCompletionProposalComputer}
+ * invoked at the same position before the document changes again.
+ * <p>
+ * Resolving the receiver of a member access dominates the time of such a completion. The prefetch
+ * is started after a short pause and canceled by any further change to the document. An invocation
+ * at the position of an unfinished prefetch starts it at once if it is still waiting, and joins it
+ * within the code assist timeout instead of computing the proposals a second time.
+ * </p>
+ * <p>
+ * The prefetched proposals are requested with the configuration that
+ * {@link JavaCompletionProposalComputer} uses, without ignoring any proposal kinds. Proposal
+ * kinds ignored by the requestor they are replayed to are skipped.
+ * </p>
+ *
+ * @see PreferenceConstants#CODEASSIST_PREFETCH
+ * @since 3.9
+ */
+public final class CompletionPrefetcher implements IDocumentListener, ITextInputListener, DisposeListener {
+
+	/**
+	 * The family of the prefetch jobs.
+	 *
+	 * @see Job#belongsTo(Object)
+	 */
+	public static final Object FAMILY= new Object();
+
+	/** The pause in milliseconds after which the prefetch is started. */
+	private static final long PREFETCH_DELAY= 50;
+
+	/** The interval in milliseconds in which a joining invocation checks its progress monitor. */
+	private static final long JOIN_INTERVAL= 50;
+
+	/** The last prefetch per document, the documents are referenced weakly. */
+	private static final Map<IDocument, Prefetch> fgPrefetches= new WeakHashMap<IDocument, Prefetch>();
+
+	/**
+	 * The computation of the core proposals at one position.
+	 */
+	private static final class Prefetch extends Job {
+
+		final ICompilationUnit fUnit;
+		final int fOffset;
+		final long fModificationStamp;
+
+		private final CountDownLatch fDone= new CountDownLatch(1);
+		/** The results, only valid once {@link #fDone} has been counted down. */
+		private CompletionContext fContext;
+		private CompletionProposal[] fProposals;
+		private IProblem fProblem;
+		private JavaModelException fException;
+		/** Tells whether code completion was canceled because it took longer than the timeout. */
+		private boolean fTimedOut;
+
+		Prefetch(ICompilationUnit unit, int offset, long modificationStamp) {
+			super(JavaTextMessages.CompletionPrefetcher_job_name);
+			fUnit= unit;
+			fOffset= offset;
+			fModificationStamp= modificationStamp;
+			setSystem(true);
+			setPriority(SHORT);
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+		 */
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == FAMILY;
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(final IProgressMonitor monitor) {
+			final long end= System.currentTimeMillis() + JavaCompletionProposalComputer.JAVA_CODE_ASSIST_TIMEOUT;
+			try {
+				final List<CompletionProposal> proposals= new ArrayList<CompletionProposal>();
+				final CompletionContext[] context= new CompletionContext[1];
+				final IProblem[] problem= new IProblem[1];
+				CompletionRequestor requestor= new CompletionRequestor() {
+					@Override
+					public void accept(CompletionProposal proposal) {
+						proposals.add(proposal);
+					}
+
+					@Override
+					public void acceptContext(CompletionContext completionContext) {
+						context[0]= completionContext;
+					}
+
+					@Override
+					public void completionFailure(IProblem completionProblem) {
+						problem[0]= completionProblem;
+					}
+				};
+				requestor.setRequireExtendedContext(true);
+				JavaCompletionProposalComputer.configureRequestor(requestor);
+
+				IProgressMonitor timeoutMonitor= new ProgressMonitorWrapper(monitor) {
+					@Override
+					public boolean isCanceled() {
+						return super.isCanceled() || end <= System.currentTimeMillis();
+					}
+				};
+				fUnit.codeComplete(fOffset, requestor, timeoutMonitor);
+
+				if (!timeoutMonitor.isCanceled() && context[0] != null) {
+					fContext= context[0];
+					fProposals= proposals.toArray(new CompletionProposal[proposals.size()]);
+					fProblem= problem[0];
+				}
+			} catch (OperationCanceledException e) {
+				// no result
+			} catch (JavaModelException e) {
+				fException= e;
+			} finally {
+				fTimedOut= fProposals == null && fException == null && !monitor.isCanceled() && end <= System.currentTimeMillis();
+				fDone.countDown();
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+
+		/**
+		 * Waits until the prefetch has finished, at most for the code assist timeout. A prefetch
+		 * that is still waiting to be started is started at once.
+		 *
+		 * @param monitor the progress monitor of the invocation, or <code>null</code>
+		 * @return <code>true</code> if the result is available, <code>false</code> if the prefetch
+		 *         has been canceled because the document changed
+		 * @throws JavaModelException if the prefetch failed
+		 * @throws OperationCanceledException if the timeout has passed or the monitor is canceled
+		 */
+		boolean awaitResult(IProgressMonitor monitor) throws JavaModelException {
+			wakeUp();
+			long end= System.currentTimeMillis() + JavaCompletionProposalComputer.JAVA_CODE_ASSIST_TIMEOUT;
+			try {
+				while (!fDone.await(JOIN_INTERVAL, TimeUnit.MILLISECONDS)) {
+					if (monitor != null && monitor.isCanceled() || end <= System.currentTimeMillis())
+						throw new OperationCanceledException();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			if (fException != null)
+				throw fException;
+			if (fTimedOut)
+				throw new OperationCanceledException();
+			return fProposals != null;
+		}
+	}
+
+	/**
+	 * Installs a prefetcher on the given viewer of a Java editor. The prefetcher is active while
+	 * {@link PreferenceConstants#CODEASSIST_PREFETCH} is enabled.
+	 *
+	 * @param viewer the viewer
+	 * @param editor the editor of the viewer
+	 */
+	public static void install(ITextViewer viewer, IEditorPart editor) {
+		CompletionPrefetcher prefetcher= new CompletionPrefetcher(editor);
+		viewer.addTextInputListener(prefetcher);
+		prefetcher.setDocument(viewer.getDocument());
+		StyledText textWidget= viewer.getTextWidget();
+		if (textWidget != null)
+			textWidget.addDisposeListener(prefetcher);
+	}
+
+	/**
+	 * Passes the prefetched core proposals for the given invocation context to the given
+	 * requestor, if the document has not changed since the prefetch was started. An unfinished
+	 * prefetch is joined within the code assist timeout, like code completion itself would take.
+	 *
+	 * @param context the invocation context
+	 * @param requestor the requestor to pass the proposals to
+	 * @param monitor the progress monitor of the invocation, or <code>null</code>
+	 * @return <code>true</code> if the proposals were passed, <code>false</code> if the requestor
+	 *         was left untouched and code completion must be run
+	 * @throws JavaModelException if the prefetched code completion failed
+	 * @throws OperationCanceledException if the prefetch did not finish within the timeout, or the
+	 *             monitor is canceled
+	 */
+	public static boolean replay(JavaContentAssistInvocationContext context, CompletionRequestor requestor, IProgressMonitor monitor) throws JavaModelException {
+		IDocument document= context.getDocument();
+		if (!(document instanceof IDocumentExtension4))
+			return false;
+
+		Prefetch prefetch;
+		synchronized (fgPrefetches) {
+			prefetch= fgPrefetches.get(document);
+		}
+		if (prefetch == null
+				|| prefetch.fOffset != context.getInvocationOffset()
+				|| prefetch.fModificationStamp != ((IDocumentExtension4) document).getModificationStamp()
+				|| !prefetch.fUnit.equals(context.getCompilationUnit())
+				|| !prefetch.awaitResult(monitor))
+			return false;
+
+		requestor.acceptContext(prefetch.fContext);
+		requestor.beginReporting();
+		CompletionProposal[] proposals= prefetch.fProposals;
+		for (int i= 0; i < proposals.length; i++) {
+			if (!requestor.isIgnored(proposals[i].getKind()))
+				requestor.accept(proposals[i]);
+		}
+		if (prefetch.fProblem != null)
+			requestor.completionFailure(prefetch.fProblem);
+		requestor.endReporting();
+		return true;
+	}
+
+	private final IEditorPart fEditor;
+	private IDocument fDocument;
+
+	private CompletionPrefetcher(IEditorPart editor) {
+		fEditor= editor;
+	}
+
+	private void setDocument(IDocument document) {
+		if (fDocument != null) {
+			fDocument.removeDocumentListener(this);
+			cancel(fDocument);
+		}
+		fDocument= document;
+		if (fDocument != null)
+			fDocument.addDocumentListener(this);
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		cancel(event.getDocument());
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public void documentChanged(DocumentEvent event) {
+		String text= event.getText();
+		if (text == null || !(text.equals(".") || text.equals("(") || text.equals("()"))) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return;
+		if (!JavaPlugin.getDefault().getPreferenceStore().getBoolean(PreferenceConstants.CODEASSIST_PREFETCH))
+			return;
+
+		IDocument document= event.getDocument();
+		if (!(document instanceof IDocumentExtension4))
+			return;
+		int offset= event.getOffset() + 1;
+		try {
+			if (!IDocument.DEFAULT_CONTENT_TYPE.equals(TextUtilities.getContentType(document, IJavaPartitions.JAVA_PARTITIONING, offset, true)))
+				return;
+		} catch (BadLocationException e) {
+			return;
+		}
+		ICompilationUnit unit= JavaUI.getWorkingCopyManager().getWorkingCopy(fEditor.getEditorInput());
+		if (unit == null)
+			return;
+
+		Prefetch prefetch= new Prefetch(unit, offset, ((IDocumentExtension4) document).getModificationStamp());
+		synchronized (fgPrefetches) {
+			fgPrefetches.put(document, prefetch);
+		}
+		prefetch.schedule(PREFETCH_DELAY);
+	}
+
+	private static void cancel(IDocument document) {
+		Prefetch prefetch;
+		synchronized (fgPrefetches) {
+			prefetch= fgPrefetches.remove(document);
+		}
+		if (prefetch != null)
+			prefetch.cancel();
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentAboutToBeChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
+	 */
+	public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+		setDocument(null);
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
+	 */
+	public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+		setDocument(newInput);
+	}
+
+	/*
+	 * @see org.eclipse.swt.events.DisposeListener#widgetDisposed(org.eclipse.swt.events.DisposeEvent)
+	 */
+	public void widgetDisposed(DisposeEvent e) {
+		setDocument(null);
+	}
+}
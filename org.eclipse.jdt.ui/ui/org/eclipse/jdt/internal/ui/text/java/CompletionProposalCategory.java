@@ -330,17 +330,49 @@ public final class CompletionProposalCategory {
 	 */
 	public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, String partition, SubProgressMonitor monitor) {
 		fLastError= null;
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		boolean measure= statistics.isEnabled();
+		long start= measure ? System.nanoTime() : 0;
+		boolean computed= false;
+
 		List<ICompletionProposal> result= new ArrayList<ICompletionProposal>();
 		List<CompletionProposalComputerDescriptor> descriptors= new ArrayList<CompletionProposalComputerDescriptor>(fRegistry.getProposalComputerDescriptors(partition));
 		for (CompletionProposalComputerDescriptor desc : descriptors) {
-			if (desc.getCategory() == this)
+			if (desc.getCategory() == this) {
 				result.addAll(desc.computeCompletionProposals(context, monitor));
+				computed= true;
+			}
 			if (fLastError == null && desc.getErrorMessage() != null)
 				fLastError= desc.getErrorMessage();
 		}
+
+		if (measure && computed)
+			statistics.categoryFinished(this, System.nanoTime() - start, result.size());
 		return result;
 	}
 
+	/**
+	 * Tells whether any computer of this category that is registered for the given partition
+	 * must be called in the UI thread. Categories without computers for the partition are
+	 * computed in the UI thread as well.
+	 *
+	 * @param partition the partition type
+	 * @return <code>true</code> if the proposals of this category must be computed in the UI
+	 *         thread, <code>false</code> if they may be computed in a background thread
+	 * @since 3.9
+	 */
+	boolean requiresUIThread(String partition) {
+		boolean hasComputers= false;
+		for (CompletionProposalComputerDescriptor desc : fRegistry.getProposalComputerDescriptors(partition)) {
+			if (desc.getCategory() == this) {
+				if (desc.requiresUIThread())
+					return true;
+				hasComputers= true;
+			}
+		}
+		return !hasComputers;
+	}
+
 	/**
 	 * Safely computes context information objects of all computers of this category through their
 	 * extension. If an extension is disabled, throws an exception or otherwise does not adhere to
@@ -0,0 +1,609 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+import org.eclipse.jdt.core.CompletionContext;
+import org.eclipse.jdt.core.CompletionProposal;
+import org.eclipse.jdt.core.CompletionRequestor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.compiler.IProblem;
+
+import org.eclipse.jdt.ui.text.java.CompletionProposalCollector;
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+
+/**
+ * Remembers the core completion proposals of the last code completion of a
+ * {@link JavaCompletionProposalComputer}.
+ * <p>
+ * While the user only extends the identifier that was completed, a new invocation at the end of
+ * that identifier can be answered from the remembered proposals: they are narrowed to the new
+ * prefix and passed to a fresh collector instead of running
+ * {@link ICompilationUnit#codeComplete(int, CompletionRequestor, org.eclipse.core.runtime.IProgressMonitor)}
+ * again. Any other change to the document invalidates the cache. Results containing proposals
+ * that cannot be narrowed by name, such as package or method declaration proposals, are not
+ * remembered. Neither are results for an empty prefix, since core does not propose all types for
+ * an empty token.
+ * </p>
+ * <p>
+ * The replayed proposals are narrowed the way core matches names, by prefix and, if enabled, by
+ * camel case. Their relevance is adjusted to the way the name matches the new prefix.
+ * </p>
+ * <p>
+ * The cache is thread-safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class CompletionResultCache implements IDocumentListener {
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/ResultCollector"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/*
+	 * The relevance that core adds for the way the name of a proposal matches the completed
+	 * token, see CompletionEngine#computeRelevanceForCaseMatching(char[], char[]).
+	 */
+	private static final int R_CASE= 10;
+	private static final int R_EXACT_NAME= 4;
+	private static final int R_CAMEL_CASE= 5;
+
+	/**
+	 * Forwards to a collector and records the context and proposals.
+	 */
+	private static final class RecordingRequestor extends CompletionRequestor {
+
+		private final CompletionRequestor fDelegate;
+		private final List<CompletionProposal> fProposals= new ArrayList<CompletionProposal>();
+		private CompletionContext fContext;
+		private boolean fFailed;
+
+		RecordingRequestor(CompletionRequestor delegate) {
+			super(true);
+			fDelegate= delegate;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#accept(org.eclipse.jdt.core.CompletionProposal)
+		 */
+		@Override
+		public void accept(CompletionProposal proposal) {
+			fProposals.add(proposal);
+			fDelegate.accept(proposal);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#acceptContext(org.eclipse.jdt.core.CompletionContext)
+		 */
+		@Override
+		public void acceptContext(CompletionContext context) {
+			fContext= context;
+			fDelegate.acceptContext(context);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#beginReporting()
+		 */
+		@Override
+		public void beginReporting() {
+			fDelegate.beginReporting();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#endReporting()
+		 */
+		@Override
+		public void endReporting() {
+			fDelegate.endReporting();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#completionFailure(org.eclipse.jdt.core.compiler.IProblem)
+		 */
+		@Override
+		public void completionFailure(IProblem problem) {
+			fFailed= true;
+			fDelegate.completionFailure(problem);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#isIgnored(int)
+		 */
+		@Override
+		public boolean isIgnored(int completionProposalKind) {
+			return fDelegate.isIgnored(completionProposalKind);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#isAllowingRequiredProposals(int, int)
+		 */
+		@Override
+		public boolean isAllowingRequiredProposals(int proposalKind, int requiredProposalKind) {
+			return fDelegate.isAllowingRequiredProposals(proposalKind, requiredProposalKind);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#getFavoriteReferences()
+		 */
+		@Override
+		public String[] getFavoriteReferences() {
+			return fDelegate.getFavoriteReferences();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionRequestor#isExtendedContextRequired()
+		 */
+		@Override
+		public boolean isExtendedContextRequired() {
+			return fDelegate.isExtendedContextRequired();
+		}
+	}
+
+	/**
+	 * The core context of a replayed completion: the context of the recorded completion, with the
+	 * token extended to the new offset.
+	 */
+	private static final class ReplayedContext extends CompletionContext {
+
+		private final CompletionContext fDelegate;
+		private final char[] fToken;
+		private final int fDelta;
+
+		ReplayedContext(CompletionContext delegate, char[] token, int delta) {
+			fDelegate= delegate;
+			fToken= token;
+			fDelta= delta;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getToken()
+		 */
+		@Override
+		public char[] getToken() {
+			return fToken;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getTokenStart()
+		 */
+		@Override
+		public int getTokenStart() {
+			return fDelegate.getTokenStart();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getTokenEnd()
+		 */
+		@Override
+		public int getTokenEnd() {
+			return fDelegate.getTokenEnd() + fDelta;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getOffset()
+		 */
+		@Override
+		public int getOffset() {
+			return fDelegate.getOffset() + fDelta;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getTokenKind()
+		 */
+		@Override
+		public int getTokenKind() {
+			return fDelegate.getTokenKind();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getTokenLocation()
+		 */
+		@Override
+		public int getTokenLocation() {
+			return fDelegate.getTokenLocation();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getExpectedTypesSignatures()
+		 */
+		@Override
+		public char[][] getExpectedTypesSignatures() {
+			return fDelegate.getExpectedTypesSignatures();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getExpectedTypesKeys()
+		 */
+		@Override
+		public char[][] getExpectedTypesKeys() {
+			return fDelegate.getExpectedTypesKeys();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#isInJavadoc()
+		 */
+		@Override
+		public boolean isInJavadoc() {
+			return fDelegate.isInJavadoc();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#isInJavadocFormalReference()
+		 */
+		@Override
+		public boolean isInJavadocFormalReference() {
+			return fDelegate.isInJavadocFormalReference();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#isInJavadocText()
+		 */
+		@Override
+		public boolean isInJavadocText() {
+			return fDelegate.isInJavadocText();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#isExtended()
+		 */
+		@Override
+		public boolean isExtended() {
+			return fDelegate.isExtended();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getEnclosingElement()
+		 */
+		@Override
+		public IJavaElement getEnclosingElement() {
+			return fDelegate.getEnclosingElement();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.CompletionContext#getVisibleElements(java.lang.String)
+		 */
+		@Override
+		public IJavaElement[] getVisibleElements(String typeSignature) {
+			return fDelegate.getVisibleElements(typeSignature);
+		}
+
+		/*
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return fDelegate.toString();
+		}
+	}
+
+	private ICompilationUnit fUnit;
+	private IDocument fDocument;
+	private Class<? extends CompletionProposalCollector> fCollectorClass;
+	/** The identifier prefix of the computation, never empty. */
+	private String fPrefix;
+	/** Tells whether core matched the prefix in camel case. */
+	private boolean fCamelCase;
+	/** The start of the completed identifier. */
+	private int fTokenStart;
+	/** The current end of the completed identifier. */
+	private int fTokenEnd;
+	/** The invocation offset of the recorded completion. */
+	private int fOffset;
+	private CompletionContext fContext;
+	private CompletionProposal[] fProposals;
+
+	private int fHits;
+	private int fMisses;
+
+	/**
+	 * Passes the remembered proposals matching the given invocation context to the given collector.
+	 * The collector receives copies of the remembered proposals whose ranges are extended to the
+	 * invocation offset, the proposals of the recorded completion are not modified.
+	 *
+	 * @param context the invocation context
+	 * @param collector the collector to fill
+	 * @return <code>true</code> if the proposals were taken from the cache, <code>false</code> if
+	 *         the collector was left untouched and code completion must be run
+	 */
+	public synchronized boolean replay(JavaContentAssistInvocationContext context, CompletionProposalCollector collector) {
+		String prefix= getReplayablePrefix(context, collector);
+		if (prefix == null) {
+			fMisses++;
+			return false;
+		}
+		fHits++;
+
+		int offset= context.getInvocationOffset();
+		char[] prefixChars= prefix.toCharArray();
+		char[] recordedPrefixChars= fPrefix.toCharArray();
+		collector.acceptContext(new ReplayedContext(fContext, prefixChars, offset - fOffset));
+		collector.beginReporting();
+		for (int i= 0; i < fProposals.length; i++) {
+			CompletionProposal proposal= fProposals[i];
+			char[] name= getName(proposal);
+			if (name != null && matches(prefixChars, name)) {
+				CompletionProposal copy= copy(proposal, offset);
+				copy.setRelevance(proposal.getRelevance() - getCaseMatchingRelevance(recordedPrefixChars, name) + getCaseMatchingRelevance(prefixChars, name));
+				collector.accept(copy);
+			}
+		}
+		collector.endReporting();
+
+		if (DEBUG)
+			System.err.println("Code Assist (cache):\thits " + fHits + ", misses " + fMisses); //$NON-NLS-1$ //$NON-NLS-2$
+		return true;
+	}
+
+	private String getReplayablePrefix(JavaContentAssistInvocationContext context, CompletionProposalCollector collector) {
+		if (fProposals == null || collector.getClass() != fCollectorClass)
+			return null;
+		if (!fUnit.equals(context.getCompilationUnit()) || fDocument != context.getDocument())
+			return null;
+
+		try {
+			String prefix= context.computeIdentifierPrefix().toString();
+			int offset= context.getInvocationOffset();
+			if (offset != fTokenEnd || offset - prefix.length() != fTokenStart || fPrefix.length() == 0 || !prefix.startsWith(fPrefix))
+				return null;
+			return prefix;
+		} catch (BadLocationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Copies the given proposal and moves the ends of its ranges from the recorded offset to the
+	 * given offset.
+	 *
+	 * @param proposal the proposal to copy
+	 * @param offset the new end of the completed identifier
+	 * @return the copy
+	 */
+	private CompletionProposal copy(CompletionProposal proposal, int offset) {
+		CompletionProposal copy= CompletionProposal.create(proposal.getKind(), proposal.getCompletionLocation());
+		copy.setCompletion(proposal.getCompletion());
+		copy.setDeclarationSignature(proposal.getDeclarationSignature());
+		copy.setDeclarationKey(proposal.getDeclarationKey());
+		copy.setSignature(proposal.getSignature());
+		copy.setKey(proposal.getKey());
+		copy.setName(proposal.getName());
+		copy.setFlags(proposal.getFlags());
+		copy.setAdditionalFlags(proposal.getAdditionalFlags());
+		copy.setRelevance(proposal.getRelevance());
+		copy.setReceiverSignature(proposal.getReceiverSignature());
+		copy.setReceiverRange(proposal.getReceiverStart(), proposal.getReceiverEnd());
+
+		int replaceEnd= proposal.getReplaceEnd();
+		copy.setReplaceRange(proposal.getReplaceStart(), replaceEnd == fOffset ? offset : replaceEnd);
+		int tokenEnd= proposal.getTokenEnd();
+		copy.setTokenRange(proposal.getTokenStart(), tokenEnd == fOffset ? offset : tokenEnd);
+
+		if (hasParameters(proposal.getKind()))
+			copy.setParameterNames(proposal.findParameterNames(null));
+
+		CompletionProposal[] required= proposal.getRequiredProposals();
+		if (required != null) {
+			CompletionProposal[] requiredCopies= new CompletionProposal[required.length];
+			for (int i= 0; i < required.length; i++) {
+				requiredCopies[i]= copy(required[i], offset);
+			}
+			copy.setRequiredProposals(requiredCopies);
+		}
+		return copy;
+	}
+
+	private static boolean hasParameters(int kind) {
+		switch (kind) {
+			case CompletionProposal.METHOD_REF:
+			case CompletionProposal.METHOD_REF_WITH_CASTED_RECEIVER:
+			case CompletionProposal.METHOD_NAME_REFERENCE:
+			case CompletionProposal.METHOD_IMPORT:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Tells whether the given proposal can be narrowed by {@link #matches(char[], char[])}
+	 * and copied by {@link #copy(CompletionProposal, int)} without losing information.
+	 *
+	 * @param proposal the proposal
+	 * @return <code>true</code> if the proposal can be replayed
+	 */
+	private static boolean isReplayable(CompletionProposal proposal) {
+		switch (proposal.getKind()) {
+			case CompletionProposal.TYPE_REF:
+			case CompletionProposal.FIELD_REF:
+			case CompletionProposal.FIELD_REF_WITH_CASTED_RECEIVER:
+			case CompletionProposal.KEYWORD:
+			case CompletionProposal.LOCAL_VARIABLE_REF:
+			case CompletionProposal.METHOD_REF:
+			case CompletionProposal.METHOD_REF_WITH_CASTED_RECEIVER:
+			case CompletionProposal.METHOD_NAME_REFERENCE:
+				// constructors cannot be copied, the flag has no setter
+				return !proposal.isConstructor();
+			default:
+				return false;
+		}
+	}
+
+	private static char[] getName(CompletionProposal proposal) {
+		if (proposal.getKind() == CompletionProposal.TYPE_REF)
+			return Signature.getSignatureSimpleName(proposal.getSignature());
+		return proposal.getName();
+	}
+
+	private boolean matches(char[] prefix, char[] name) {
+		return CharOperation.prefixEquals(prefix, name, false) || fCamelCase && CharOperation.camelCaseMatch(prefix, name);
+	}
+
+	/**
+	 * Returns the part of the relevance that core computes from the way the given name matches
+	 * the given token.
+	 *
+	 * @param token the completed token
+	 * @param name the name of a proposal
+	 * @return the relevance for the match
+	 */
+	private int getCaseMatchingRelevance(char[] token, char[] name) {
+		if (CharOperation.equals(token, name, true))
+			return R_CASE + R_EXACT_NAME;
+		if (CharOperation.equals(token, name, false))
+			return R_EXACT_NAME;
+		if (CharOperation.prefixEquals(token, name, true))
+			return R_CASE;
+		if (fCamelCase && CharOperation.camelCaseMatch(token, name))
+			return R_CAMEL_CASE;
+		return 0;
+	}
+
+	/**
+	 * Invalidates the cache and returns a requestor that records the proposals passed to the given
+	 * collector. If code completion succeeds, {@link #recorded(JavaContentAssistInvocationContext, CompletionRequestor)}
+	 * must be called with the returned requestor afterwards.
+	 *
+	 * @param collector the collector
+	 * @return the requestor to pass to code completion
+	 */
+	public synchronized CompletionRequestor record(CompletionProposalCollector collector) {
+		invalidate();
+		return new RecordingRequestor(collector);
+	}
+
+	/**
+	 * Remembers the proposals recorded by a requestor returned by {@link #record(CompletionProposalCollector)}.
+	 * The proposals are only remembered if the core completion token is the identifier prefix, the
+	 * prefix is not empty and all proposals can be replayed.
+	 *
+	 * @param context the invocation context of the recorded completion
+	 * @param requestor the requestor that recorded the completion
+	 */
+	public synchronized void recorded(JavaContentAssistInvocationContext context, CompletionRequestor requestor) {
+		RecordingRequestor recorder= (RecordingRequestor) requestor;
+		if (recorder.fFailed || recorder.fContext == null)
+			return;
+
+		for (int i= 0, size= recorder.fProposals.size(); i < size; i++) {
+			if (!isReplayable(recorder.fProposals.get(i)))
+				return;
+		}
+
+		try {
+			String prefix= context.computeIdentifierPrefix().toString();
+			if (prefix.length() == 0)
+				return; // core does not search all types for an empty token
+			int offset= context.getInvocationOffset();
+			CompletionContext coreContext= recorder.fContext;
+			char[] token= coreContext.getToken();
+			if (token == null || !prefix.equals(String.valueOf(token)) || coreContext.getTokenStart() != offset - prefix.length())
+				return;
+
+			invalidate();
+			fUnit= context.getCompilationUnit();
+			fDocument= context.getDocument();
+			fCollectorClass= ((CompletionProposalCollector) recorder.fDelegate).getClass();
+			fPrefix= prefix;
+			fCamelCase= JavaCore.ENABLED.equals(fUnit.getJavaProject().getOption(JavaCore.CODEASSIST_CAMEL_CASE_MATCH, true));
+			fTokenStart= offset - prefix.length();
+			fTokenEnd= offset;
+			fOffset= offset;
+			fContext= coreContext;
+			fProposals= recorder.fProposals.toArray(new CompletionProposal[recorder.fProposals.size()]);
+			fDocument.addDocumentListener(this);
+		} catch (BadLocationException e) {
+			// don't cache
+		}
+	}
+
+	/**
+	 * Forgets the remembered proposals.
+	 */
+	public synchronized void invalidate() {
+		if (fDocument != null)
+			fDocument.removeDocumentListener(this);
+		fUnit= null;
+		fDocument= null;
+		fCollectorClass= null;
+		fContext= null;
+		fProposals= null;
+	}
+
+	/**
+	 * Returns the number of invocations that were answered from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of invocations that could not be answered from the cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public synchronized void documentAboutToBeChanged(DocumentEvent event) {
+		int offset= event.getOffset();
+		if (offset < fTokenStart || offset + event.getLength() > fTokenEnd) {
+			invalidate();
+			return;
+		}
+		String text= event.getText();
+		int textLength= text == null ? 0 : text.length();
+		for (int i= 0; i < textLength; i++) {
+			if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+				invalidate();
+				return;
+			}
+		}
+		fTokenEnd+= textLength - event.getLength();
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public void documentChanged(DocumentEvent event) {
+	}
+
+	/**
+	 * Returns a string representation for debugging.
+	 *
+	 * @return the cache statistics
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuffer buf= new StringBuffer("CompletionResultCache: hits "); //$NON-NLS-1$
+		buf.append(fHits).append(", misses ").append(fMisses); //$NON-NLS-1$
+		if (fProposals != null)
+			buf.append(", ").append(fProposals.length).append(" proposals for '").append(fPrefix).append('\''); //$NON-NLS-1$ //$NON-NLS-2$
+		return buf.toString();
+	}
+}
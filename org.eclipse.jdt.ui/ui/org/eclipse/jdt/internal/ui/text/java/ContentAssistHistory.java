@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,18 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,12 +58,16 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Preferences;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.JavaModelException;
 
+import org.eclipse.jdt.internal.corext.util.Messages;
+
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaUIException;
 import org.eclipse.jdt.internal.ui.JavaUIStatus;
@@ -190,6 +202,112 @@ public final class ContentAssistHistory {
 		}
 	}
 
+	/**
+	 * Binary persistence implementation. Each type name is written once to a string table and
+	 * referenced by its index.
+	 *
+	 * @since 3.9
+	 */
+	private static final class BinaryReaderWriter {
+
+		private static final int MAGIC= 0x4A434148;
+		private static final int VERSION= 1;
+
+		public void store(ContentAssistHistory history, DataOutputStream out) throws IOException {
+			Map<String, Integer> indices= new HashMap<String, Integer>();
+			List<String> strings= new ArrayList<String>();
+			for (Iterator<Entry<String, MRUSet<String>>> it= history.fLHSCache.entrySet().iterator(); it.hasNext();) {
+				Entry<String, MRUSet<String>> entry= it.next();
+				intern(entry.getKey(), indices, strings);
+				for (Iterator<String> rhsIterator= entry.getValue().iterator(); rhsIterator.hasNext();)
+					intern(rhsIterator.next(), indices, strings);
+			}
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(history.fMaxLHS);
+			out.writeInt(history.fMaxRHS);
+			out.writeInt(strings.size());
+			for (Iterator<String> it= strings.iterator(); it.hasNext();)
+				out.writeUTF(it.next());
+
+			out.writeInt(history.fLHSCache.size());
+			for (Iterator<Entry<String, MRUSet<String>>> it= history.fLHSCache.entrySet().iterator(); it.hasNext();) {
+				Entry<String, MRUSet<String>> entry= it.next();
+				out.writeInt(indices.get(entry.getKey()).intValue());
+				MRUSet<String> rightHandSides= entry.getValue();
+				out.writeInt(rightHandSides.size());
+				for (Iterator<String> rhsIterator= rightHandSides.iterator(); rhsIterator.hasNext();)
+					out.writeInt(indices.get(rhsIterator.next()).intValue());
+			}
+		}
+
+		private void intern(String string, Map<String, Integer> indices, List<String> strings) {
+			if (!indices.containsKey(string)) {
+				indices.put(string, new Integer(strings.size()));
+				strings.add(string);
+			}
+		}
+
+		public ContentAssistHistory load(DataInputStream in) throws IOException {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+
+			int maxLHS= in.readInt();
+			int maxRHS= in.readInt();
+			ContentAssistHistory history= new ContentAssistHistory(maxLHS > 0 ? maxLHS : DEFAULT_TRACKED_LHS, maxRHS > 0 ? maxRHS : DEFAULT_TRACKED_RHS);
+
+			int nStrings= in.readInt();
+			if (nStrings < 0)
+				throw new IOException("Invalid string count: " + nStrings); //$NON-NLS-1$
+			String[] strings= new String[nStrings];
+			for (int i= 0; i < strings.length; i++)
+				strings[i]= in.readUTF();
+
+			int nLHS= in.readInt();
+			for (int i= 0; i < nLHS; i++) {
+				Set<String> cache= history.getCache(readString(in, strings));
+				int nRHS= in.readInt();
+				for (int j= 0; j < nRHS; j++)
+					cache.add(readString(in, strings));
+			}
+			return history;
+		}
+
+		private String readString(DataInputStream in, String[] strings) throws IOException {
+			int index= in.readInt();
+			if (index < 0 || index >= strings.length)
+				throw new IOException("Invalid string index: " + index); //$NON-NLS-1$
+			return strings[index];
+		}
+	}
+
+	/**
+	 * Saves the history to its file.
+	 *
+	 * @since 3.9
+	 */
+	private final class SaveJob extends Job {
+
+		SaveJob() {
+			super(JavaTextMessages.ContentAssistHistory_save_job);
+			setSystem(true);
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				save();
+			} catch (CoreException e) {
+				return e.getStatus();
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	/**
 	 * Most recently used variant with capped size that only counts
 	 * {@linkplain #put(Object, Object) put} as access. This is implemented by always removing an
@@ -270,15 +388,32 @@ public final class ContentAssistHistory {
 
 	/**
 	 * A ranking of the most recently selected types.
+	 * <p>
+	 * The ranks are looked up in an open addressing table of indices into the type array, keyed
+	 * by the hash codes of the type names.
+	 * </p>
 	 *
 	 * @since 3.2
 	 */
 	public static final class RHSHistory {
-		private final LinkedHashMap<String, Integer> fHistory;
+		/** The types ordered from the least to the most recently selected one. */
+		private final String[] fTypes;
+		/** The index + 1 of the type with a given hash, 0 for empty slots. */
+		private final int[] fTable;
 		private List<String> fList;
 
-		RHSHistory(LinkedHashMap<String, Integer> history) {
-			fHistory= history;
+		RHSHistory(String[] types) {
+			fTypes= types;
+			int capacity= 1;
+			while (capacity < types.length * 2)
+				capacity<<= 1;
+			fTable= new int[capacity];
+			for (int i= 0; i < types.length; i++) {
+				int slot= types[i].hashCode() & (capacity - 1);
+				while (fTable[slot] != 0)
+					slot= (slot + 1) & (capacity - 1);
+				fTable[slot]= i + 1;
+			}
 		}
 
 		/**
@@ -289,10 +424,15 @@ public final class ContentAssistHistory {
 		 * @return the rank of <code>type</code>
 		 */
 		public float getRank(String type) {
-			if (fHistory == null)
+			if (fTypes.length == 0)
 				return 0.0F;
-			Integer integer= fHistory.get(type);
-			return integer == null ? 0.0F : integer.floatValue() / fHistory.size();
+			int mask= fTable.length - 1;
+			for (int slot= type.hashCode() & mask; fTable[slot] != 0; slot= (slot + 1) & mask) {
+				int index= fTable[slot] - 1;
+				if (fTypes[index].equals(type))
+					return (float) (index + 1) / fTypes.length;
+			}
+			return 0.0F;
 		}
 
 		/**
@@ -301,7 +441,7 @@ public final class ContentAssistHistory {
 		 * @return the size of the history
 		 */
 		public int size() {
-			return fHistory == null ? 0 : fHistory.size();
+			return fTypes.length;
 		}
 
 		/**
@@ -311,16 +451,16 @@ public final class ContentAssistHistory {
 		 * @return the list of remembered types as fully qualified type names
 		 */
 		public List<String> getTypes() {
-			if (fHistory == null)
-				return Collections.emptyList();
 			if (fList == null) {
-				fList= Collections.unmodifiableList(new ArrayList<String>(fHistory.keySet()));
+				fList= Collections.unmodifiableList(Arrays.asList(fTypes));
 			}
 			return fList;
 		}
 	}
 
-	private static final RHSHistory EMPTY_HISTORY= new RHSHistory(null);
+	private static final RHSHistory EMPTY_HISTORY= new RHSHistory(new String[0]);
+	/** Delay before a changed history is saved to its file. */
+	private static final long SAVE_DELAY= 30000;
 	private static final int DEFAULT_TRACKED_LHS= 100;
 	private static final int DEFAULT_TRACKED_RHS= 10;
 
@@ -338,6 +478,11 @@ public final class ContentAssistHistory {
 	private final int fMaxLHS;
 	private final int fMaxRHS;
 
+	/** The file the history is saved to, or <code>null</code>. */
+	private File fFile;
+	private boolean fDirty;
+	private SaveJob fSaveJob;
+
 	/**
 	 * Creates a new history.
 	 *
@@ -379,9 +524,12 @@ public final class ContentAssistHistory {
 				// TODO remember for every member of the LHS hierarchy or not? Yes for now.
 				IType[] allLHSides= hierarchy.getAllSupertypes(lhs);
 				String rhsQualifiedName= rhs.getFullyQualifiedName();
-				for (int i= 0; i < allLHSides.length; i++)
-					rememberInternal(allLHSides[i], rhsQualifiedName);
-				rememberInternal(lhs, rhsQualifiedName);
+				synchronized (this) {
+					for (int i= 0; i < allLHSides.length; i++)
+						rememberInternal(allLHSides[i], rhsQualifiedName);
+					rememberInternal(lhs, rhsQualifiedName);
+					historyChanged();
+				}
 			}
 		} catch (JavaModelException x) {
 			JavaPlugin.log(x);
@@ -396,18 +544,10 @@ public final class ContentAssistHistory {
 	 *        requested, or <code>null</code>
 	 * @return the right hand side history for the given type
 	 */
-	public RHSHistory getHistory(String lhs) {
+	public synchronized RHSHistory getHistory(String lhs) {
 		MRUSet<String> rhsCache= fLHSCache.get(lhs);
-		if (rhsCache != null) {
-			int count= rhsCache.size();
-			LinkedHashMap<String, Integer> history= new LinkedHashMap<String, Integer>((int) (count / 0.75));
-			int rank= 1;
-			for (Iterator<String> it= rhsCache.iterator(); it.hasNext(); rank++) {
-				String type= it.next();
-				history.put(type, new Integer(rank));
-			}
-			return new RHSHistory(history);
-		}
+		if (rhsCache != null)
+			return new RHSHistory(rhsCache.toArray(new String[rhsCache.size()]));
 		return EMPTY_HISTORY;
 	}
 
@@ -417,7 +557,7 @@ public final class ContentAssistHistory {
 	 *
 	 * @return the set of remembered right hand sides ordered by least recent selection
 	 */
-	public Map<String, RHSHistory> getEntireHistory() {
+	public synchronized Map<String, RHSHistory> getEntireHistory() {
 		HashMap<String, RHSHistory> map= new HashMap<String, RHSHistory>((int) (fLHSCache.size() / 0.75));
 		for ( Iterator<Entry<String, MRUSet<String>>> it= fLHSCache.entrySet().iterator(); it.hasNext();) {
 			Entry<String, MRUSet<String>> entry= it.next();
@@ -455,6 +595,88 @@ public final class ContentAssistHistory {
 		return new NullProgressMonitor();
 	}
 
+	private void historyChanged() {
+		fDirty= true;
+		if (fFile != null) {
+			if (fSaveJob == null)
+				fSaveJob= new SaveJob();
+			fSaveJob.schedule(SAVE_DELAY);
+		}
+	}
+
+	/**
+	 * Sets the file this history is saved to. Once a file is set, changes to the history are
+	 * saved to it in the background after a short delay. If the file does not exist yet, the next
+	 * {@link #save()} creates it.
+	 *
+	 * @param file the file to save the history to, or <code>null</code>
+	 * @see #load(File) on how to restore a history from the file
+	 * @since 3.9
+	 */
+	public synchronized void setFile(File file) {
+		fFile= file;
+		if (file != null && !file.exists())
+			fDirty= true;
+	}
+
+	/**
+	 * Saves the history to its file if it has been changed since it was last saved. Does nothing
+	 * if no file is set.
+	 *
+	 * @throws CoreException if writing the file fails
+	 * @see #setFile(File)
+	 * @since 3.9
+	 */
+	public synchronized void save() throws CoreException {
+		if (fFile == null || !fDirty)
+			return;
+
+		File temp= new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			try {
+				new BinaryReaderWriter().store(this, out);
+			} finally {
+				out.close();
+			}
+			if (fFile.exists() && !fFile.delete() || !temp.renameTo(fFile))
+				throw new IOException(fFile.getPath());
+			fDirty= false;
+		} catch (IOException e) {
+			throw new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, Messages.format(JavaTextMessages.ContentAssistHistory_write_error, fFile.getPath()), e));
+		}
+	}
+
+	/**
+	 * Loads a history from a file written by {@link #save()}. The returned history is saved to
+	 * the same file.
+	 *
+	 * @param file the file to load the history from
+	 * @return the loaded history, or <code>null</code> if the file does not exist or has an
+	 *         unknown format
+	 * @throws CoreException if reading the file fails
+	 * @since 3.9
+	 */
+	public static ContentAssistHistory load(File file) throws CoreException {
+		if (!file.isFile())
+			return null;
+
+		ContentAssistHistory history;
+		try {
+			DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				history= new BinaryReaderWriter().load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, Messages.format(JavaTextMessages.ContentAssistHistory_read_error, file.getPath()), e));
+		}
+		if (history != null)
+			history.setFile(file);
+		return history;
+	}
+
 	/**
 	 * Stores the history as XML document into the given preferences.
 	 *
@@ -466,7 +688,9 @@ public final class ContentAssistHistory {
 	 */
 	public static void store(ContentAssistHistory history, Preferences preferences, String key) throws CoreException {
 		StringWriter writer= new StringWriter();
-		new ReaderWriter().store(history, new StreamResult(writer));
+		synchronized (history) {
+			new ReaderWriter().store(history, new StreamResult(writer));
+		}
 		preferences.setValue(key, writer.toString());
 	}
 
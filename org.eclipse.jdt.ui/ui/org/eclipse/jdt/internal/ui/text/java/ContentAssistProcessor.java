@@ -16,12 +16,28 @@ package org.eclipse.jdt.internal.ui.text.java;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
@@ -29,16 +45,20 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.Shell;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.InvalidRegistryObjectException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jface.action.LegacyActionTools;
 import org.eclipse.jface.bindings.TriggerSequence;
@@ -48,6 +68,8 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.JFaceResources;
 
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ContentAssistEvent;
 import org.eclipse.jface.text.contentassist.ContentAssistant;
@@ -175,6 +197,11 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 			for (CompletionProposalCategory cat : getCategoriesToNotify()) {
 				cat.sessionEnded();
 			}
+			ContentAssistStatistics.getDefault().sessionEnded();
+			if (fRunningComputation != null) {
+				fRunningComputation.cancel(false);
+				fRunningComputation= null;
+			}
 
 			fCategoryIteration= null;
 			fRepetition= -1;
@@ -206,8 +233,249 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		}
 	}
 
+	/**
+	 * Computation of the proposals of a category in a background thread.
+	 *
+	 * @since 3.9
+	 */
+	private static final class CategoryTask implements Callable<List<ICompletionProposal>> {
+
+		private final CompletionProposalCategory fCategory;
+		private final ContentAssistInvocationContext fContext;
+		private final String fPartition;
+		private final long fDeadline;
+		private final IProgressMonitor fMonitor= new CancelableProgressMonitor();
+		/** The error message of the category, valid once the task is done. */
+		private String fErrorMessage;
+
+		CategoryTask(CompletionProposalCategory category, ContentAssistInvocationContext context, String partition, long deadline) {
+			fCategory= category;
+			fContext= context;
+			fPartition= partition;
+			fDeadline= deadline;
+		}
+
+		/*
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		public List<ICompletionProposal> call() throws Exception {
+			// a canceled computation of an earlier invocation may still be running
+			Lock lock= getComputationLock(fCategory);
+			if (fMonitor.isCanceled() || !lock.tryLock(fDeadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS))
+				return Collections.emptyList();
+			try {
+				List<ICompletionProposal> proposals= fCategory.computeCompletionProposals(fContext, fPartition, new SubProgressMonitor(fMonitor, 1));
+				fErrorMessage= fCategory.getErrorMessage();
+				return proposals;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void cancel() {
+			fMonitor.setCanceled(true);
+		}
+	}
+
+	/**
+	 * A progress monitor that can be canceled from another thread.
+	 *
+	 * @since 3.9
+	 */
+	private static final class CancelableProgressMonitor extends NullProgressMonitor {
+
+		private volatile boolean fCanceled;
+
+		/*
+		 * @see org.eclipse.core.runtime.NullProgressMonitor#isCanceled()
+		 */
+		@Override
+		public boolean isCanceled() {
+			return fCanceled;
+		}
+
+		/*
+		 * @see org.eclipse.core.runtime.NullProgressMonitor#setCanceled(boolean)
+		 */
+		@Override
+		public void setCanceled(boolean canceled) {
+			fCanceled= canceled;
+		}
+	}
+
+	/**
+	 * The proposals of one invocation whose categories are partly computed in background threads.
+	 * Proposals are merged in the order in which their categories finish.
+	 *
+	 * @since 3.9
+	 */
+	private static final class ConcurrentComputation {
+
+		private final ExecutorCompletionService<List<ICompletionProposal>> fService= new ExecutorCompletionService<List<ICompletionProposal>>(getComputerExecutor());
+		/** The running tasks, guarded by itself. */
+		private final Map<Future<List<ICompletionProposal>>, CategoryTask> fPending= new HashMap<Future<List<ICompletionProposal>>, CategoryTask>();
+		private final List<ICompletionProposal> fProposals= new ArrayList<ICompletionProposal>();
+		private final long fDeadline;
+		private final IDocument fDocument;
+		private final long fModificationStamp;
+		private final int fOffset;
+		private boolean fNeedsSortingAfterFiltering;
+		private String fErrorMessage;
+
+		ConcurrentComputation(ContentAssistInvocationContext context, long deadline) {
+			fDeadline= deadline;
+			fDocument= context.getDocument();
+			fModificationStamp= getModificationStamp(fDocument);
+			fOffset= context.getInvocationOffset();
+		}
+
+		void submit(CompletionProposalCategory category, ContentAssistInvocationContext context, String partition) {
+			CategoryTask task= new CategoryTask(category, context, partition, fDeadline);
+			synchronized (fPending) {
+				fPending.put(fService.submit(task), task);
+			}
+		}
+
+		void add(CompletionProposalCategory category, List<ICompletionProposal> computed, String errorMessage) {
+			fProposals.addAll(computed);
+			fNeedsSortingAfterFiltering= fNeedsSortingAfterFiltering || (category.isSortingAfterFilteringNeeded() && !computed.isEmpty());
+			if (fErrorMessage == null)
+				fErrorMessage= errorMessage;
+		}
+
+		boolean hasPending() {
+			synchronized (fPending) {
+				return !fPending.isEmpty();
+			}
+		}
+
+		/**
+		 * Adds the proposals of the categories that have finished, without waiting.
+		 */
+		void collectFinished() {
+			Future<List<ICompletionProposal>> future;
+			while ((future= fService.poll()) != null)
+				addFinished(future);
+		}
+
+		/**
+		 * Waits for the categories running in background threads and adds their proposals. Returns
+		 * when all categories have finished, the deadline has passed, the monitor is canceled, or
+		 * proposals are available and the given time has passed.
+		 *
+		 * @param monitor the progress monitor
+		 * @param showTime the time in milliseconds after which available proposals are returned
+		 */
+		void collect(IProgressMonitor monitor, long showTime) {
+			while (hasPending() && !monitor.isCanceled()) {
+				long wait= (fProposals.isEmpty() ? fDeadline : Math.min(fDeadline, showTime)) - System.currentTimeMillis();
+				if (wait <= 0)
+					return;
+				try {
+					Future<List<ICompletionProposal>> future= fService.poll(wait, TimeUnit.MILLISECONDS);
+					if (future != null)
+						addFinished(future);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		private void addFinished(Future<List<ICompletionProposal>> future) {
+			CategoryTask task;
+			synchronized (fPending) {
+				task= fPending.remove(future);
+			}
+			if (task != null)
+				add(task.fCategory, getComputed(future), task.fErrorMessage);
+		}
+
+		/**
+		 * Cancels the categories that are still running through their progress monitors. Their
+		 * threads are not interrupted, since interrupting a thread that is blocked in an I/O
+		 * operation on an interruptible channel closes the channel.
+		 *
+		 * @param timeout <code>true</code> if the computation is canceled because the deadline
+		 *            passed, <code>false</code> if its proposals are no longer needed
+		 * @return <code>true</code> if categories were still running
+		 */
+		boolean cancel(boolean timeout) {
+			synchronized (fPending) {
+				if (fPending.isEmpty())
+					return false;
+				for (Iterator<Entry<Future<List<ICompletionProposal>>, CategoryTask>> iter= fPending.entrySet().iterator(); iter.hasNext();) {
+					Entry<Future<List<ICompletionProposal>>, CategoryTask> entry= iter.next();
+					entry.getValue().cancel();
+					entry.getKey().cancel(false);
+					if (DEBUG && timeout)
+						System.err.println("Code Assist (deadline exceeded):\t" + entry.getValue().fCategory.getId()); //$NON-NLS-1$
+				}
+				fPending.clear();
+			}
+			if (timeout && fErrorMessage == null)
+				fErrorMessage= JavaTextMessages.ContentAssistProcessor_computers_timeout_message;
+			return true;
+		}
+
+		/**
+		 * Tells whether the proposals of this computation apply to the given invocation.
+		 *
+		 * @param context the invocation context
+		 * @return <code>true</code> if the document has not changed and the offset is the same
+		 */
+		boolean appliesTo(ContentAssistInvocationContext context) {
+			IDocument document= context.getDocument();
+			return document == fDocument && context.getInvocationOffset() == fOffset && getModificationStamp(document) == fModificationStamp;
+		}
+
+		private static long getModificationStamp(IDocument document) {
+			if (document instanceof IDocumentExtension4)
+				return ((IDocumentExtension4) document).getModificationStamp();
+			return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		}
+	}
+
 	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/ResultCollector"));  //$NON-NLS-1$//$NON-NLS-2$
 
+	/**
+	 * The time in milliseconds that the categories computed in background threads are given to
+	 * return their proposals if concurrent computation is enabled.
+	 *
+	 * @see #PREF_CONCURRENT_COMPUTERS
+	 * @since 3.9
+	 */
+	private static final long CONCURRENT_COMPUTATION_DEADLINE= 2000;
+
+	/**
+	 * The time in milliseconds after which available proposals are shown while categories are
+	 * still computed in background threads. The list is updated when they finish.
+	 *
+	 * @since 3.9
+	 */
+	private static final long CONCURRENT_COMPUTATION_SHOW_DELAY= 100;
+
+	/**
+	 * The maximum number of background threads computing proposals.
+	 *
+	 * @since 3.9
+	 */
+	private static final int MAX_COMPUTER_THREADS= 4;
+
+	/**
+	 * The executor computing the categories that do not require the UI thread.
+	 *
+	 * @since 3.9
+	 */
+	private static ExecutorService fgComputerExecutor;
+
+	/**
+	 * The locks that keep a category from being computed by two threads at the same time.
+	 *
+	 * @since 3.9
+	 */
+	private static final Map<CompletionProposalCategory, Lock> fgComputationLocks= new WeakHashMap<CompletionProposalCategory, Lock>();
+
 	/**
 	 * Dialog settings key for the "all categories are disabled" warning dialog. See
 	 * {@link OptionalMessageDialog}.
@@ -216,6 +484,18 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 */
 	private static final String PREF_WARN_ABOUT_EMPTY_ASSIST_CATEGORY= "EmptyDefaultAssistCategory"; //$NON-NLS-1$
 
+	/**
+	 * Internal preference that controls whether completion proposal computers that do not require
+	 * the UI thread are run concurrently in background threads. There is no preference page for
+	 * it, it is off by default.
+	 * <p>
+	 * Value is of type <code>Boolean</code>.
+	 * </p>
+	 *
+	 * @since 3.9
+	 */
+	public static final String PREF_CONCURRENT_COMPUTERS= "content_assist_concurrent_computers"; //$NON-NLS-1$
+
 	private static final Comparator<CompletionProposalCategory> ORDER_COMPARATOR= new Comparator<CompletionProposalCategory>() {
 
 		public int compare(CompletionProposalCategory d1, CompletionProposalCategory d2) {
@@ -253,6 +533,29 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 */
 	private boolean fNeedsSortingAfterFiltering;
 
+	/**
+	 * The number of proposal computations, used to ignore late proposals of earlier ones.
+	 *
+	 * @since 3.9
+	 */
+	private int fInvocationCount;
+
+	/**
+	 * The computation whose categories are still running after its first proposals were shown,
+	 * or <code>null</code>.
+	 *
+	 * @since 3.9
+	 */
+	private ConcurrentComputation fRunningComputation;
+
+	/**
+	 * The completed computation whose proposals are shown by the current update of the proposal
+	 * list, or <code>null</code>.
+	 *
+	 * @since 3.9
+	 */
+	private ConcurrentComputation fCompletedComputation;
+
 
 	public ContentAssistProcessor(ContentAssistant assistant, String partition) {
 		Assert.isNotNull(partition);
@@ -278,15 +581,26 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		ContentAssistInvocationContext context= createContext(viewer, offset);
 		long setup= DEBUG ? System.currentTimeMillis() : 0;
 
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		boolean measure= statistics.isEnabled();
+		long computeStart= measure ? System.nanoTime() : 0;
+
 		monitor.subTask(JavaTextMessages.ContentAssistProcessor_collecting_proposals);
 		List<ICompletionProposal> proposals= collectProposals(viewer, offset, monitor, context);
 		long collect= DEBUG ? System.currentTimeMillis() : 0;
+		if (measure)
+			statistics.phaseFinished(ContentAssistStatistics.COMPUTING, System.nanoTime() - computeStart, proposals.size());
 
 		monitor.subTask(JavaTextMessages.ContentAssistProcessor_sorting_proposals);
-		if (fNeedsSortingAfterFiltering)
+		if (fNeedsSortingAfterFiltering) {
 			setContentAssistSorter();
-		else
+		} else {
+			long sortStart= measure ? System.nanoTime() : 0;
+			int count= proposals.size();
 			proposals= sortProposals(proposals, monitor, context);
+			if (measure)
+				statistics.phaseFinished(ContentAssistStatistics.SORTING, System.nanoTime() - sortStart, count);
+		}
 		fNumberOfComputedResults= proposals.size();
 		long filter= DEBUG ? System.currentTimeMillis() : 0;
 
@@ -321,12 +635,16 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		boolean needsSortingAfterFiltering= false;
 		List<ICompletionProposal> proposals= new ArrayList<ICompletionProposal>();
 		List<CompletionProposalCategory> providers= getCategories();
-		for (CompletionProposalCategory cat : providers) {
-			List<ICompletionProposal> computed= cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1));
-			proposals.addAll(computed);
-			needsSortingAfterFiltering= needsSortingAfterFiltering || (cat.isSortingAfterFilteringNeeded() && !computed.isEmpty());
-			if (fErrorMessage == null)
-				fErrorMessage= cat.getErrorMessage();
+		if (isComputingConcurrently()) {
+			needsSortingAfterFiltering= collectProposalsConcurrently(viewer, providers, proposals, monitor, context);
+		} else {
+			for (CompletionProposalCategory cat : providers) {
+				List<ICompletionProposal> computed= cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1));
+				proposals.addAll(computed);
+				needsSortingAfterFiltering= needsSortingAfterFiltering || (cat.isSortingAfterFilteringNeeded() && !computed.isEmpty());
+				if (fErrorMessage == null)
+					fErrorMessage= cat.getErrorMessage();
+			}
 		}
 		if (fNeedsSortingAfterFiltering && !needsSortingAfterFiltering)
 			fAssistant.setSorter(null);
@@ -334,6 +652,190 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		return proposals;
 	}
 
+	/**
+	 * Collects the proposals of the given categories, computing the categories whose computers do
+	 * not require the UI thread in background threads while the others are computed in the calling
+	 * thread. Proposals are added in the order in which their categories finish.
+	 * <p>
+	 * Once proposals are available, they are shown without waiting for the remaining background
+	 * categories, and the proposal list is updated when those finish. Categories that have not
+	 * finished when the shared deadline has passed are canceled and their proposals are dropped.
+	 * </p>
+	 *
+	 * @param viewer the text viewer
+	 * @param categories the categories to compute proposals for
+	 * @param proposals the list to add the proposals to
+	 * @param monitor the progress monitor
+	 * @param context the code assist invocation context
+	 * @return <code>true</code> if the proposals need to be sorted after filtering
+	 * @since 3.9
+	 */
+	private boolean collectProposalsConcurrently(ITextViewer viewer, List<CompletionProposalCategory> categories, List<ICompletionProposal> proposals, IProgressMonitor monitor, ContentAssistInvocationContext context) {
+		fInvocationCount++;
+		if (fRunningComputation != null) {
+			fRunningComputation.cancel(false);
+			fRunningComputation= null;
+		}
+
+		ConcurrentComputation computation= fCompletedComputation;
+		fCompletedComputation= null;
+		if (computation == null || !computation.appliesTo(context)) {
+			long start= System.currentTimeMillis();
+			computation= new ConcurrentComputation(context, start + CONCURRENT_COMPUTATION_DEADLINE);
+			List<CompletionProposalCategory> uiCategories= new ArrayList<CompletionProposalCategory>();
+			for (CompletionProposalCategory cat : categories) {
+				if (cat.requiresUIThread(fPartition))
+					uiCategories.add(cat);
+				else
+					computation.submit(cat, context, fPartition);
+			}
+
+			for (CompletionProposalCategory cat : uiCategories) {
+				computation.collectFinished();
+				List<ICompletionProposal> computed= cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1));
+				computation.add(cat, computed, cat.getErrorMessage());
+			}
+
+			computation.collect(monitor, start + CONCURRENT_COMPUTATION_SHOW_DELAY);
+			if (computation.hasPending()) {
+				if (monitor.isCanceled() || System.currentTimeMillis() >= start + CONCURRENT_COMPUTATION_DEADLINE || viewer.getTextWidget() == null)
+					computation.cancel(true);
+				else
+					completeLater(computation, viewer);
+			}
+			monitor.worked(categories.size() - uiCategories.size());
+
+			if (DEBUG)
+				System.err.println("Code Assist (shown after):\t" + (System.currentTimeMillis() - start)); //$NON-NLS-1$
+		}
+
+		proposals.addAll(computation.fProposals);
+		if (fErrorMessage == null)
+			fErrorMessage= computation.fErrorMessage;
+		return computation.fNeedsSortingAfterFiltering;
+	}
+
+	/**
+	 * Waits in a background job for the categories of the given computation that are still
+	 * running and then updates the shown proposal list in the UI thread.
+	 *
+	 * @param computation the computation whose first proposals are shown
+	 * @param viewer the text viewer
+	 * @since 3.9
+	 */
+	private void completeLater(final ConcurrentComputation computation, final ITextViewer viewer) {
+		final int invocation= fInvocationCount;
+		final int shownCount= computation.fProposals.size();
+		final Display display= viewer.getTextWidget().getDisplay();
+		fRunningComputation= computation;
+
+		Job job= new Job(JavaTextMessages.ContentAssistProcessor_computing_proposals) {
+			@Override
+			protected IStatus run(IProgressMonitor jobMonitor) {
+				computation.collect(jobMonitor, Long.MAX_VALUE);
+				if (jobMonitor.isCanceled()) {
+					computation.cancel(false);
+					return Status.CANCEL_STATUS;
+				}
+				final boolean timedOut= computation.cancel(true);
+				display.asyncExec(new Runnable() {
+					public void run() {
+						showCompletedProposals(computation, invocation, shownCount, timedOut, viewer);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Updates the shown proposal list with the proposals of the completed computation, if the
+	 * content assist session in which they were requested is still active.
+	 *
+	 * @param computation the completed computation
+	 * @param invocation the invocation count of the computation
+	 * @param shownCount the number of proposals shown before the computation completed
+	 * @param timedOut <code>true</code> if categories were canceled at the deadline
+	 * @param viewer the text viewer
+	 * @since 3.9
+	 */
+	private void showCompletedProposals(ConcurrentComputation computation, int invocation, int shownCount, boolean timedOut, ITextViewer viewer) {
+		if (fRunningComputation != computation || invocation != fInvocationCount || fRepetition == -1)
+			return; // superseded, or the proposal popup was closed
+		fRunningComputation= null;
+
+		StyledText widget= viewer.getTextWidget();
+		if (widget == null || widget.isDisposed())
+			return;
+		if (computation.fProposals.size() == shownCount && !timedOut)
+			return;
+
+		// recompute the same category page, this time using the completed computation
+		fCompletedComputation= computation;
+		if (fCategoryIteration != null)
+			fRepetition--;
+		boolean repeatedInvocationMode= fCategoryIteration != null && fCategoryIteration.size() > 1;
+		fAssistant.setRepeatedInvocationMode(true);
+		try {
+			fAssistant.showPossibleCompletions();
+		} finally {
+			fAssistant.setRepeatedInvocationMode(repeatedInvocationMode);
+			fCompletedComputation= null;
+		}
+	}
+
+	private static List<ICompletionProposal> getComputed(Future<List<ICompletionProposal>> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (CancellationException e) {
+			// deadline exceeded
+		} catch (ExecutionException e) {
+			JavaPlugin.log(e.getCause());
+		}
+		return Collections.emptyList();
+	}
+
+	private static Lock getComputationLock(CompletionProposalCategory category) {
+		synchronized (fgComputationLocks) {
+			Lock lock= fgComputationLocks.get(category);
+			if (lock == null) {
+				lock= new ReentrantLock();
+				fgComputationLocks.put(category, lock);
+			}
+			return lock;
+		}
+	}
+
+	/**
+	 * Tells whether computers that do not require the UI thread are run concurrently.
+	 *
+	 * @return <code>true</code> if concurrent computation of proposals is enabled
+	 * @since 3.9
+	 */
+	private static boolean isComputingConcurrently() {
+		return JavaPlugin.getDefault().getPreferenceStore().getBoolean(PREF_CONCURRENT_COMPUTERS);
+	}
+
+	private static synchronized ExecutorService getComputerExecutor() {
+		if (fgComputerExecutor == null) {
+			int threads= Math.max(1, Math.min(MAX_COMPUTER_THREADS, Runtime.getRuntime().availableProcessors()));
+			fgComputerExecutor= Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				private int fCount;
+
+				public synchronized Thread newThread(Runnable runnable) {
+					Thread thread= new Thread(runnable, "Java Completion Proposal Computer #" + ++fCount); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return fgComputerExecutor;
+	}
+
 	/**
 	 * Filters and sorts the proposals. The passed list may be modified
 	 * and returned, or a new list may be created and returned.
@@ -0,0 +1,437 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Latency statistics of Java content assist: the time taken by each completion proposal computer
+ * and category, and the time spent computing, sorting, filtering and applying proposals, as
+ * histograms together with the number of proposals processed.
+ * <p>
+ * Measurements are only taken while the statistics are {@linkplain #isEnabled() enabled}, that is
+ * if the <code>org.eclipse.jdt.ui/debug/ContentAssistStatistics</code> debug option is set, if the
+ * <code>org.eclipse.jdt.ui.codeAssistStatisticsFile</code> system property names the file the
+ * statistics are written to on shutdown, after {@link #setRecording(boolean)} or while listeners
+ * are registered. The statistics can be written to a file at any time using {@link #write(File)},
+ * which the <code>org.eclipse.jdt.ui.saveContentAssistStatistics</code> command offers to users.
+ * </p>
+ * <p>
+ * Filtering is the validation of the Java proposals while the user keeps typing with the proposal
+ * popup open. It is reported once per content assist session.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class ContentAssistStatistics {
+
+	/**
+	 * The phase in which all categories compute their proposals. It is measured as elapsed time,
+	 * which is less than the sum of the category times if categories are computed concurrently.
+	 */
+	public static final String COMPUTING= "computing"; //$NON-NLS-1$
+	/** The phase in which the collected proposals are sorted. */
+	public static final String SORTING= "sorting"; //$NON-NLS-1$
+	/** The phase in which the proposals are validated against the text typed by the user. */
+	public static final String FILTERING= "filtering"; //$NON-NLS-1$
+	/** The phase in which the selected proposal is applied to the document. */
+	public static final String APPLYING= "applying"; //$NON-NLS-1$
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/ContentAssistStatistics"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/** The file the statistics are written to on shutdown, or <code>null</code>. */
+	private static final String STATISTICS_FILE= System.getProperty("org.eclipse.jdt.ui.codeAssistStatisticsFile"); //$NON-NLS-1$
+
+	private static final ContentAssistStatistics fgDefault= new ContentAssistStatistics();
+
+	/**
+	 * The latencies of one measured subject.
+	 */
+	public static final class Histogram {
+
+		/** The inclusive upper bounds of the buckets in milliseconds, the last bucket is unbounded. */
+		private static final long[] BUCKET_BOUNDS= { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+		private final long[] fBuckets= new long[BUCKET_BOUNDS.length + 1];
+		private long fCount;
+		private long fTotal;
+		private long fMax;
+		private long fProposals;
+
+		void add(long duration, int proposals) {
+			long millis= duration / 1000000;
+			int bucket= 0;
+			while (bucket < BUCKET_BOUNDS.length && millis > BUCKET_BOUNDS[bucket])
+				bucket++;
+			fBuckets[bucket]++;
+			fCount++;
+			fTotal+= duration;
+			fMax= Math.max(fMax, duration);
+			fProposals+= proposals;
+		}
+
+		/**
+		 * Returns the number of measurements.
+		 *
+		 * @return the number of measurements
+		 */
+		public long getCount() {
+			return fCount;
+		}
+
+		/**
+		 * Returns the sum of the measured durations.
+		 *
+		 * @return the total time in nanoseconds
+		 */
+		public long getTotal() {
+			return fTotal;
+		}
+
+		/**
+		 * Returns the longest measured duration.
+		 *
+		 * @return the maximum time in nanoseconds
+		 */
+		public long getMax() {
+			return fMax;
+		}
+
+		/**
+		 * Returns the number of proposals processed in all measurements.
+		 *
+		 * @return the number of proposals
+		 */
+		public long getProposals() {
+			return fProposals;
+		}
+
+		/**
+		 * Returns the number of measurements per bucket. Bucket <code>i</code> counts the durations
+		 * of at most {@link #getBucketBounds()}<code>[i]</code> milliseconds that do not fall into
+		 * a previous bucket, the last bucket counts the longer durations.
+		 *
+		 * @return a copy of the bucket counts
+		 */
+		public long[] getBuckets() {
+			return fBuckets.clone();
+		}
+
+		/**
+		 * Returns the upper bounds of the buckets.
+		 *
+		 * @return a copy of the bucket bounds in milliseconds
+		 */
+		public static long[] getBucketBounds() {
+			return BUCKET_BOUNDS.clone();
+		}
+
+		Histogram copy() {
+			Histogram copy= new Histogram();
+			System.arraycopy(fBuckets, 0, copy.fBuckets, 0, fBuckets.length);
+			copy.fCount= fCount;
+			copy.fTotal= fTotal;
+			copy.fMax= fMax;
+			copy.fProposals= fProposals;
+			return copy;
+		}
+	}
+
+	/**
+	 * Returns the shared statistics.
+	 *
+	 * @return the content assist statistics
+	 */
+	public static ContentAssistStatistics getDefault() {
+		return fgDefault;
+	}
+
+	private final ListenerList fListeners= new ListenerList(ListenerList.IDENTITY);
+
+	private volatile boolean fEnabled= DEBUG || STATISTICS_FILE != null;
+
+	/** Whether recording has been requested by {@link #setRecording(boolean)}. */
+	private boolean fRecording;
+
+	/** Computer id to histogram, sorted for output. */
+	private final Map<String, Histogram> fComputers= new TreeMap<String, Histogram>();
+	/** Category id to histogram. */
+	private final Map<String, Histogram> fCategories= new TreeMap<String, Histogram>();
+	/** Phase to histogram. */
+	private final Map<String, Histogram> fPhases= new TreeMap<String, Histogram>();
+
+	/**
+	 * The filtering time of the current session. Proposals are only validated in the UI thread, but
+	 * the fields are guarded by <code>this</code> like the others.
+	 */
+	private long fFilteringTime;
+	private int fFilteredProposals;
+
+	private ContentAssistStatistics() {
+	}
+
+	/**
+	 * Tells whether measurements are taken.
+	 *
+	 * @return <code>true</code> if the statistics are enabled
+	 */
+	public boolean isEnabled() {
+		return fEnabled;
+	}
+
+	/**
+	 * Adds a listener. Measurements are taken while at least one listener is registered.
+	 *
+	 * @param listener the listener to add
+	 */
+	public synchronized void addListener(IContentAssistStatisticsListener listener) {
+		fListeners.add(listener);
+		fEnabled= true;
+	}
+
+	/**
+	 * Removes a listener.
+	 *
+	 * @param listener the listener to remove
+	 */
+	public synchronized void removeListener(IContentAssistStatisticsListener listener) {
+		fListeners.remove(listener);
+		updateEnabled();
+	}
+
+	/**
+	 * Starts or stops taking measurements independently of the debug option, the statistics file
+	 * and the listeners.
+	 *
+	 * @param recording <code>true</code> to take measurements
+	 */
+	public synchronized void setRecording(boolean recording) {
+		fRecording= recording;
+		updateEnabled();
+	}
+
+	private void updateEnabled() {
+		fEnabled= DEBUG || STATISTICS_FILE != null || fRecording || !fListeners.isEmpty();
+	}
+
+	/**
+	 * Records the time a computer took to compute its proposals.
+	 *
+	 * @param computer the computer descriptor
+	 * @param duration the time in nanoseconds
+	 * @param proposals the number of proposals
+	 */
+	void computerFinished(CompletionProposalComputerDescriptor computer, long duration, int proposals) {
+		synchronized (this) {
+			getHistogram(fComputers, computer.getId()).add(duration, proposals);
+		}
+		Object[] listeners= fListeners.getListeners();
+		for (int i= 0; i < listeners.length; i++)
+			((IContentAssistStatisticsListener) listeners[i]).computerFinished(computer.getId(), duration, proposals);
+	}
+
+	/**
+	 * Records the time the computers of a category took to compute their proposals.
+	 *
+	 * @param category the category
+	 * @param duration the time in nanoseconds
+	 * @param proposals the number of proposals
+	 */
+	void categoryFinished(CompletionProposalCategory category, long duration, int proposals) {
+		synchronized (this) {
+			getHistogram(fCategories, category.getId()).add(duration, proposals);
+		}
+		Object[] listeners= fListeners.getListeners();
+		for (int i= 0; i < listeners.length; i++)
+			((IContentAssistStatisticsListener) listeners[i]).categoryFinished(category.getId(), duration, proposals);
+	}
+
+	/**
+	 * Records the time spent in a phase.
+	 *
+	 * @param phase the phase, one of {@link #COMPUTING}, {@link #SORTING}, {@link #FILTERING} and
+	 *            {@link #APPLYING}
+	 * @param duration the time in nanoseconds
+	 * @param proposals the number of proposals
+	 */
+	void phaseFinished(String phase, long duration, int proposals) {
+		synchronized (this) {
+			getHistogram(fPhases, phase).add(duration, proposals);
+		}
+		Object[] listeners= fListeners.getListeners();
+		for (int i= 0; i < listeners.length; i++)
+			((IContentAssistStatisticsListener) listeners[i]).phaseFinished(phase, duration, proposals);
+	}
+
+	/**
+	 * Adds the time spent validating a proposal to the filtering time of the current session.
+	 *
+	 * @param duration the time in nanoseconds
+	 * @see #sessionEnded()
+	 */
+	synchronized void proposalFiltered(long duration) {
+		fFilteringTime+= duration;
+		fFilteredProposals++;
+	}
+
+	/**
+	 * Records the filtering time of the ending content assist session.
+	 */
+	void sessionEnded() {
+		long duration;
+		int proposals;
+		synchronized (this) {
+			duration= fFilteringTime;
+			proposals= fFilteredProposals;
+			fFilteringTime= 0;
+			fFilteredProposals= 0;
+		}
+		if (proposals > 0)
+			phaseFinished(FILTERING, duration, proposals);
+	}
+
+	private static Histogram getHistogram(Map<String, Histogram> histograms, String key) {
+		Histogram histogram= histograms.get(key);
+		if (histogram == null) {
+			histogram= new Histogram();
+			histograms.put(key, histogram);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Returns the histograms of the computers.
+	 *
+	 * @return a copy of the histograms by computer id
+	 */
+	public synchronized Map<String, Histogram> getComputerHistograms() {
+		return copy(fComputers);
+	}
+
+	/**
+	 * Returns the histograms of the categories.
+	 *
+	 * @return a copy of the histograms by category id
+	 */
+	public synchronized Map<String, Histogram> getCategoryHistograms() {
+		return copy(fCategories);
+	}
+
+	/**
+	 * Returns the histograms of the computing, sorting, filtering and applying phases.
+	 *
+	 * @return a copy of the histograms by phase
+	 */
+	public synchronized Map<String, Histogram> getPhaseHistograms() {
+		return copy(fPhases);
+	}
+
+	private static Map<String, Histogram> copy(Map<String, Histogram> histograms) {
+		Map<String, Histogram> copy= new TreeMap<String, Histogram>();
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet())
+			copy.put(entry.getKey(), entry.getValue().copy());
+		return copy;
+	}
+
+	/**
+	 * Discards all measurements.
+	 */
+	public synchronized void reset() {
+		fComputers.clear();
+		fCategories.clear();
+		fPhases.clear();
+		fFilteringTime= 0;
+		fFilteredProposals= 0;
+	}
+
+	/**
+	 * Writes the statistics to the given file as text.
+	 *
+	 * @param file the file to write, it is replaced if it exists
+	 * @throws IOException if writing fails
+	 */
+	public void write(File file) throws IOException {
+		Writer writer= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			write(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes the statistics as text. Each line lists the subject, the number of measurements, the
+	 * number of proposals, the total and maximum time in milliseconds and the bucket counts.
+	 *
+	 * @param writer the writer to write to, it is not closed
+	 * @throws IOException if writing fails
+	 */
+	public void write(Writer writer) throws IOException {
+		PrintWriter out= new PrintWriter(writer);
+		out.print("# subject\tcount\tproposals\ttotal ms\tmax ms"); //$NON-NLS-1$
+		for (int i= 0; i < Histogram.BUCKET_BOUNDS.length; i++)
+			out.print("\t<=" + Histogram.BUCKET_BOUNDS[i] + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		out.println("\t> " + Histogram.BUCKET_BOUNDS[Histogram.BUCKET_BOUNDS.length - 1] + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		write(out, "computer", getComputerHistograms()); //$NON-NLS-1$
+		write(out, "category", getCategoryHistograms()); //$NON-NLS-1$
+		write(out, "phase", getPhaseHistograms()); //$NON-NLS-1$
+
+		out.flush();
+		if (out.checkError())
+			throw new IOException();
+	}
+
+	private static void write(PrintWriter out, String kind, Map<String, Histogram> histograms) {
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			Histogram histogram= entry.getValue();
+			out.print(kind + ' ' + entry.getKey());
+			out.print('\t');
+			out.print(histogram.fCount);
+			out.print('\t');
+			out.print(histogram.fProposals);
+			out.print('\t');
+			out.print(histogram.fTotal / 1000000);
+			out.print('\t');
+			out.print(histogram.fMax / 1000000);
+			for (int i= 0; i < histogram.fBuckets.length; i++) {
+				out.print('\t');
+				out.print(histogram.fBuckets[i]);
+			}
+			out.println();
+		}
+	}
+
+	/**
+	 * Writes the statistics to the file named by the
+	 * <code>org.eclipse.jdt.ui.codeAssistStatisticsFile</code> system property, if set.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public void writeStatisticsFile() throws IOException {
+		if (STATISTICS_FILE != null)
+			write(new File(STATISTICS_FILE));
+	}
+}
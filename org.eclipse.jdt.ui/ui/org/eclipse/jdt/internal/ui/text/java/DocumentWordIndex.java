@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ISynchronizable;
+
+/**
+ * The words of a document, sorted and counted, for the word completions of the
+ * {@link HippieProposalComputer}.
+ * <p>
+ * The index is built on first use and then kept up to date from document events: the words of the
+ * lines touched by a change are removed before and added again after the change. Words are
+ * sequences of Java identifier parts.
+ * </p>
+ * <p>
+ * At most {@link #MAX_WORDS} distinct words of up to {@link #MAX_WORD_LENGTH} characters are
+ * kept per document. Once a document has more words, it is no longer indexed but scanned on each
+ * query, like before the index existed.
+ * </p>
+ * <p>
+ * Queries may run in a background thread. The text of the document is then read while holding
+ * the document's lock. Documents without a lock object are only read in the UI thread.
+ * </p>
+ *
+ * @since 3.9
+ */
+final class DocumentWordIndex implements IDocumentListener {
+
+	/** The maximum number of distinct words indexed per document. */
+	static final int MAX_WORDS= 20000;
+	/** Longer words are ignored. */
+	static final int MAX_WORD_LENGTH= 128;
+
+	/** The indices by document, the documents are referenced weakly. */
+	private static final Map<IDocument, DocumentWordIndex> fgIndices= new WeakHashMap<IDocument, DocumentWordIndex>();
+
+	/**
+	 * Returns the word index of the given document.
+	 *
+	 * @param document the document
+	 * @return the shared word index of the document
+	 */
+	public static DocumentWordIndex getIndex(IDocument document) {
+		synchronized (fgIndices) {
+			DocumentWordIndex index= fgIndices.get(document);
+			if (index == null) {
+				index= new DocumentWordIndex();
+				document.addDocumentListener(index);
+				fgIndices.put(document, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Word to occurrence count, or <code>null</code> if the index needs to be built or the
+	 * document has too many words.
+	 */
+	private SortedMap<String, int[]> fWords;
+	/** Tells whether the document had more than {@link #MAX_WORDS} words. */
+	private boolean fTooLarge;
+
+	private DocumentWordIndex() {
+	}
+
+	/**
+	 * Adds the words of the document that start with <code>prefix</code> and are longer than
+	 * <code>prefix</code> to <code>result</code>, in alphabetical order.
+	 *
+	 * @param document the indexed document
+	 * @param prefix the word prefix, must not be empty
+	 * @param current the word at the invocation offset, it is only added if it occurs more than
+	 *            once in the document, or <code>null</code>
+	 * @param result the collection to add the words to
+	 */
+	public void collectWords(IDocument document, String prefix, String current, Collection<String> result) {
+		boolean tooLarge;
+		synchronized (this) {
+			if (fWords != null) {
+				collectWords(fWords, prefix, current, result);
+				return;
+			}
+			tooLarge= fTooLarge;
+		}
+
+		Object lock= getLockObject(document);
+		if (lock == null && Display.getCurrent() == null)
+			return; // the document may be changed in the UI thread while it is read
+
+		String text;
+		long stamp;
+		if (lock == null) {
+			text= document.get();
+			stamp= getModificationStamp(document);
+		} else {
+			synchronized (lock) {
+				text= document.get();
+				stamp= getModificationStamp(document);
+			}
+		}
+
+		if (tooLarge) {
+			scanWords(text, prefix, current, result);
+			return;
+		}
+
+		SortedMap<String, int[]> words= new TreeMap<String, int[]>();
+		updateWords(text, words, 1);
+		collectWords(words, prefix, current, result);
+		if (words.size() > MAX_WORDS) {
+			synchronized (this) {
+				fTooLarge= true;
+			}
+		} else if (lock == null) {
+			// the document cannot have changed in the UI thread
+			install(words);
+		} else {
+			synchronized (lock) {
+				if (stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP && stamp == getModificationStamp(document))
+					install(words);
+			}
+		}
+	}
+
+	private synchronized void install(SortedMap<String, int[]> words) {
+		if (fWords == null && !fTooLarge)
+			fWords= words;
+	}
+
+	private static void collectWords(SortedMap<String, int[]> words, String prefix, String current, Collection<String> result) {
+		for (Map.Entry<String, int[]> entry : words.tailMap(prefix).entrySet()) {
+			String word= entry.getKey();
+			if (!word.startsWith(prefix))
+				break;
+			if (word.length() == prefix.length())
+				continue;
+			if (word.equals(current) && entry.getValue()[0] == 1)
+				continue;
+			result.add(word);
+		}
+	}
+
+	/**
+	 * Adds the matching words of the given text like {@link #collectWords(IDocument, String, String, Collection)}
+	 * does, without indexing all words of the text.
+	 *
+	 * @param text the text of the document
+	 * @param prefix the word prefix, must not be empty
+	 * @param current the word at the invocation offset, or <code>null</code>
+	 * @param result the collection to add the words to
+	 */
+	private static void scanWords(String text, String prefix, String current, Collection<String> result) {
+		SortedSet<String> words= new TreeSet<String>();
+		int currentCount= 0;
+		int length= text.length();
+		int i= 0;
+		while (i < length) {
+			if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+				i++;
+				continue;
+			}
+			int start= i;
+			while (i < length && Character.isJavaIdentifierPart(text.charAt(i)))
+				i++;
+			int wordLength= i - start;
+			if (wordLength > MAX_WORD_LENGTH || wordLength <= prefix.length() || !text.startsWith(prefix, start))
+				continue;
+
+			String word= text.substring(start, i);
+			if (word.equals(current))
+				currentCount++;
+			else
+				words.add(word);
+		}
+		if (currentCount > 1)
+			words.add(current);
+		result.addAll(words);
+	}
+
+	private static Object getLockObject(IDocument document) {
+		if (document instanceof ISynchronizable)
+			return ((ISynchronizable) document).getLockObject();
+		return null;
+	}
+
+	private static long getModificationStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4)
+			return ((IDocumentExtension4) document).getModificationStamp();
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public synchronized void documentAboutToBeChanged(DocumentEvent event) {
+		if (fWords == null)
+			return;
+		try {
+			updateWords(getLines(event.getDocument(), event.getOffset(), event.getLength()), fWords, -1);
+		} catch (BadLocationException e) {
+			fWords= null;
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public synchronized void documentChanged(DocumentEvent event) {
+		if (fWords == null)
+			return;
+		String text= event.getText();
+		try {
+			updateWords(getLines(event.getDocument(), event.getOffset(), text == null ? 0 : text.length()), fWords, 1);
+			if (fWords.size() > MAX_WORDS) {
+				fWords= null;
+				fTooLarge= true;
+			}
+		} catch (BadLocationException e) {
+			fWords= null;
+		}
+	}
+
+	/**
+	 * Returns the text of the complete lines covering the given range. Words never span lines,
+	 * hence the returned text starts and ends at word boundaries.
+	 *
+	 * @param document the document
+	 * @param offset the range offset
+	 * @param length the range length
+	 * @return the text of the lines
+	 * @throws BadLocationException if the range is invalid
+	 */
+	private static String getLines(IDocument document, int offset, int length) throws BadLocationException {
+		int start= document.getLineOffset(document.getLineOfOffset(offset));
+		IRegion last= document.getLineInformationOfOffset(offset + length);
+		return document.get(start, last.getOffset() + last.getLength() - start);
+	}
+
+	private static void updateWords(String text, SortedMap<String, int[]> words, int delta) {
+		int length= text.length();
+		int i= 0;
+		while (i < length) {
+			if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+				i++;
+				continue;
+			}
+			int start= i;
+			while (i < length && Character.isJavaIdentifierPart(text.charAt(i)))
+				i++;
+			if (i - start > MAX_WORD_LENGTH)
+				continue;
+
+			String word= text.substring(start, i);
+			int[] count= words.get(word);
+			if (count != null) {
+				count[0]+= delta;
+				if (count[0] <= 0)
+					words.remove(word);
+			} else if (delta > 0) {
+				// don't keep the text of the lines alive
+				words.put(new String(word), new int[] { delta });
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+import org.eclipse.jdt.internal.corext.dom.Bindings;
+import org.eclipse.jdt.internal.corext.util.LRUMap;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+
+/**
+ * Caches the parameterized expected types of code completion, resolved from their binding keys,
+ * for {@link LazyGenericTypeProposal}.
+ * <p>
+ * Resolving a binding key needs a compiler environment for the project. The cache keeps only the
+ * information the proposals need, not the bindings, per project and binding key. The entries of a
+ * project are discarded when a Java element delta reports a change in that project or in a project
+ * it requires, for example after saving a file or changing the class path.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class ExpectedTypeCache {
+
+	/**
+	 * A type argument of an expected type.
+	 */
+	static final class TypeArgument {
+		/** The type qualified name, see {@link Bindings#getTypeQualifiedName(ITypeBinding)}. */
+		final String fQualifiedName;
+		final boolean fIsWildcard;
+		final boolean fIsUpperbound;
+		/** The name of the wildcard bound or <code>null</code>. */
+		final String fBoundName;
+
+		TypeArgument(ITypeBinding binding) {
+			fQualifiedName= Bindings.getTypeQualifiedName(binding);
+			fIsWildcard= binding.isWildcardType();
+			fIsUpperbound= fIsWildcard && binding.isUpperbound();
+			ITypeBinding bound= fIsWildcard ? binding.getBound() : null;
+			fBoundName= bound == null ? null : bound.getName();
+		}
+	}
+
+	/**
+	 * A parameterized expected type.
+	 */
+	static final class ExpectedType {
+		/** The generic type, may be <code>null</code>. */
+		final IType fType;
+		final TypeArgument[] fTypeArguments;
+
+		ExpectedType(ITypeBinding binding) {
+			fType= (IType) binding.getJavaElement();
+			ITypeBinding[] arguments= binding.getTypeArguments();
+			fTypeArguments= new TypeArgument[arguments.length];
+			for (int i= 0; i < arguments.length; i++)
+				fTypeArguments[i]= new TypeArgument(arguments[i]);
+		}
+
+		private ExpectedType() {
+			fType= null;
+			fTypeArguments= new TypeArgument[0];
+		}
+	}
+
+	private static final class ProjectChangeListener implements IElementChangedListener {
+		/*
+		 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+		 */
+		public void elementChanged(ElementChangedEvent event) {
+			IJavaElementDelta[] projectDeltas= event.getDelta().getAffectedChildren();
+			synchronized (fgProjects) {
+				if (projectDeltas.length == 0) {
+					fgProjects.clear();
+					return;
+				}
+				Set<String> changed= new HashSet<String>();
+				for (int i= 0; i < projectDeltas.length; i++)
+					changed.add(projectDeltas[i].getElement().getElementName());
+				for (Iterator<IJavaProject> iter= fgProjects.keySet().iterator(); iter.hasNext();) {
+					IJavaProject project= iter.next();
+					if (changed.contains(project.getElementName()) || requiresAny(project, changed, new HashSet<String>()))
+						iter.remove();
+				}
+			}
+		}
+
+		/**
+		 * Tells whether the given project requires one of the given projects, directly or through
+		 * other projects.
+		 *
+		 * @param project the project
+		 * @param names the names of the projects to look for
+		 * @param visited the names of the projects that have already been visited
+		 * @return <code>true</code> if the project might depend on one of the given projects
+		 */
+		private static boolean requiresAny(IJavaProject project, Set<String> names, Set<String> visited) {
+			try {
+				String[] required= project.getRequiredProjectNames();
+				for (int i= 0; i < required.length; i++) {
+					if (names.contains(required[i]))
+						return true;
+					if (visited.add(required[i])) {
+						IJavaProject requiredProject= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject(required[i]));
+						if (requiredProject.exists() && requiresAny(requiredProject, names, visited))
+							return true;
+					}
+				}
+				return false;
+			} catch (JavaModelException e) {
+				// the class path cannot be read, discard the entries to be safe
+				return true;
+			}
+		}
+	}
+
+	/** Marks keys that do not resolve to a parameterized type. */
+	private static final ExpectedType NOT_PARAMETERIZED= new ExpectedType();
+
+	private static final int MAX_KEYS_PER_PROJECT= 64;
+
+	private static final Map<IJavaProject, Map<String, ExpectedType>> fgProjects= new HashMap<IJavaProject, Map<String, ExpectedType>>();
+
+	private static IElementChangedListener fgListener;
+
+	private ExpectedTypeCache() {
+	}
+
+	/**
+	 * Returns the parameterized type with the given binding key.
+	 *
+	 * @param project the project to resolve the key in
+	 * @param key the binding key of the expected type
+	 * @return the expected type, or <code>null</code> if the key does not resolve to a
+	 *         parameterized type
+	 */
+	public static ExpectedType getExpectedType(IJavaProject project, String key) {
+		synchronized (fgProjects) {
+			Map<String, ExpectedType> types= fgProjects.get(project);
+			ExpectedType type= types == null ? null : types.get(key);
+			if (type != null)
+				return type == NOT_PARAMETERIZED ? null : type;
+		}
+
+		ITypeBinding binding= resolve(project, key);
+		ExpectedType type= binding != null && binding.isParameterizedType() ? new ExpectedType(binding) : NOT_PARAMETERIZED;
+
+		synchronized (fgProjects) {
+			if (fgListener == null) {
+				fgListener= new ProjectChangeListener();
+				JavaCore.addElementChangedListener(fgListener, ElementChangedEvent.POST_CHANGE);
+			}
+			Map<String, ExpectedType> types= fgProjects.get(project);
+			if (types == null) {
+				types= new LRUMap<String, ExpectedType>(MAX_KEYS_PER_PROJECT);
+				fgProjects.put(project, types);
+			}
+			types.put(key, type);
+		}
+		return type == NOT_PARAMETERIZED ? null : type;
+	}
+
+	private static ITypeBinding resolve(IJavaProject project, String key) {
+		final ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+		parser.setProject(project);
+		parser.setResolveBindings(true);
+		parser.setStatementsRecovery(true);
+
+		final IBinding[] result= new IBinding[1];
+		ASTRequestor requestor= new ASTRequestor() {
+			@Override
+			public void acceptBinding(String bindingKey, IBinding binding) {
+				result[0]= binding;
+			}
+		};
+		parser.createASTs(new ICompilationUnit[0], new String[] { key }, requestor, null);
+
+		return result[0] instanceof ITypeBinding ? (ITypeBinding) result[0] : null;
+	}
+
+	/**
+	 * Discards all cached types and stops listening to changes. Called when the plug-in is
+	 * stopped.
+	 */
+	public static void shutdown() {
+		synchronized (fgProjects) {
+			if (fgListener != null) {
+				JavaCore.removeElementChangedListener(fgListener);
+				fgListener= null;
+			}
+			fgProjects.clear();
+		}
+	}
+}
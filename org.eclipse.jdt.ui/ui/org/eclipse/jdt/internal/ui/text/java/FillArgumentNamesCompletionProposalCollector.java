@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,6 +38,8 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 public final class FillArgumentNamesCompletionProposalCollector extends CompletionProposalCollector {
 
 	private final boolean fIsGuessArguments;
+	/** The parameter guessing scope shared by the proposals of this collector. */
+	private ParameterGuesser.Scope fGuessingScope;
 
 	public FillArgumentNamesCompletionProposalCollector(JavaContentAssistInvocationContext context) {
 		super(context.getCompilationUnit(), true);
@@ -73,12 +75,11 @@ public final class FillArgumentNamesCompletionProposalCollector extends Completi
 		if ((completion.length() == 0) || ((completion.length() == 1) && completion.charAt(0) == ')') || Signature.getParameterCount(methodProposal.getSignature()) == 0 || getContext().isInJavadoc())
 			return super.createJavaCompletionProposal(methodProposal);
 
-		LazyJavaCompletionProposal proposal= null;
-		proposal= ParameterGuessingProposal.createProposal(methodProposal, getInvocationContext(), fIsGuessArguments);
-		if (proposal == null) {
-			proposal= new FilledArgumentNamesMethodProposal(methodProposal, getInvocationContext());
-		}
-		return proposal;
+		ParameterGuessingProposal guessingProposal= ParameterGuessingProposal.createProposal(methodProposal, getInvocationContext(), fGuessingScope, fIsGuessArguments);
+		if (guessingProposal == null)
+			return new FilledArgumentNamesMethodProposal(methodProposal, getInvocationContext());
+		fGuessingScope= guessingProposal.getScope();
+		return guessingProposal;
 	}
 
 	/*
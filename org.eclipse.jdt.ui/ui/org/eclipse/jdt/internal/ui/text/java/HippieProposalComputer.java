@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,28 +10,56 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+
+import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 
-import org.eclipse.ui.texteditor.HippieProposalProcessor;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
 
 import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 
 /**
- * A computer wrapper for the hippie processor.
+ * Computes hippie word completions: the words of the current document and of the documents of
+ * all open text editors that start with the identifier prefix at the invocation offset.
+ * <p>
+ * The words are looked up in a {@link DocumentWordIndex} per document which is shared across
+ * invocations, instead of scanning all documents each time.
+ * </p>
+ * <p>
+ * The computer does not access any widgets: the open documents are looked up in the UI thread
+ * when the content assist session starts, so it can compute proposals in a background thread.
+ * </p>
  *
  * @since 3.2
  */
 public final class HippieProposalComputer implements IJavaCompletionProposalComputer {
-	/** The wrapped processor. */
-	private final HippieProposalProcessor fProcessor= new HippieProposalProcessor();
+
+	/**
+	 * The documents of the open text editors of the current session, or <code>null</code>.
+	 * @since 3.9
+	 */
+	private volatile IDocument[] fOpenDocuments;
 
 	/**
 	 * Default ctor to make it instantiatable via the extension mechanism.
@@ -43,32 +71,103 @@ public final class HippieProposalComputer implements IJavaCompletionProposalComp
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalComputer#computeCompletionProposals(org.eclipse.jface.text.contentassist.TextContentAssistInvocationContext, org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
-		return Arrays.asList(fProcessor.computeCompletionProposals(context.getViewer(), context.getInvocationOffset()));
+		IDocument document= context.getDocument();
+		if (document == null)
+			return Collections.emptyList();
+
+		int offset= context.getInvocationOffset();
+		String prefix;
+		String current;
+		try {
+			prefix= context.computeIdentifierPrefix().toString();
+			current= prefix + getIdentifierSuffix(document, offset);
+		} catch (BadLocationException e) {
+			JavaPlugin.log(e);
+			return Collections.emptyList();
+		}
+		if (prefix.length() == 0)
+			return Collections.emptyList();
+
+		Set<String> words= new LinkedHashSet<String>();
+		DocumentWordIndex.getIndex(document).collectWords(document, prefix, current, words);
+		IDocument[] documents= fOpenDocuments;
+		if (documents == null)
+			documents= getOpenDocuments();
+		for (int i= 0; i < documents.length; i++) {
+			if (documents[i] != document)
+				DocumentWordIndex.getIndex(documents[i]).collectWords(documents[i], prefix, null, words);
+		}
+
+		List<ICompletionProposal> proposals= new ArrayList<ICompletionProposal>(words.size());
+		int replacementOffset= offset - prefix.length();
+		for (String word : words)
+			proposals.add(new JavaCompletionProposal(word, replacementOffset, prefix.length(), null, word, 0));
+		return proposals;
+	}
+
+	private static String getIdentifierSuffix(IDocument document, int offset) throws BadLocationException {
+		int end= offset;
+		int length= document.getLength();
+		while (end < length && Character.isJavaIdentifierPart(document.getChar(end)))
+			end++;
+		return document.get(offset, end - offset);
+	}
+
+	/**
+	 * Returns the documents of the text editors in the active workbench page. Editors that have
+	 * not been restored yet are skipped. Returns no documents if not called in the UI thread.
+	 *
+	 * @return the documents of the open text editors
+	 */
+	private static IDocument[] getOpenDocuments() {
+		if (Display.getCurrent() == null)
+			return new IDocument[0];
+		IWorkbenchWindow window= JavaPlugin.getActiveWorkbenchWindow();
+		if (window == null)
+			return new IDocument[0];
+		IWorkbenchPage page= window.getActivePage();
+		if (page == null)
+			return new IDocument[0];
+
+		List<IDocument> documents= new ArrayList<IDocument>();
+		IEditorReference[] references= page.getEditorReferences();
+		for (int i= 0; i < references.length; i++) {
+			IEditorPart editor= references[i].getEditor(false);
+			if (editor instanceof ITextEditor) {
+				IDocumentProvider provider= ((ITextEditor) editor).getDocumentProvider();
+				IDocument document= provider == null ? null : provider.getDocument(editor.getEditorInput());
+				if (document != null)
+					documents.add(document);
+			}
+		}
+		return documents.toArray(new IDocument[documents.size()]);
 	}
 
 	/*
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalComputer#computeContextInformation(org.eclipse.jface.text.contentassist.TextContentAssistInvocationContext, org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	public List<IContextInformation> computeContextInformation(ContentAssistInvocationContext context, IProgressMonitor monitor) {
-		return Arrays.asList(fProcessor.computeContextInformation(context.getViewer(), context.getInvocationOffset()));
+		return Collections.emptyList();
 	}
 
 	/*
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalComputer#getErrorMessage()
 	 */
 	public String getErrorMessage() {
-		return fProcessor.getErrorMessage();
+		return null;
 	}
 
 	/*
 	 * @see org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer#sessionStarted()
 	 */
 	public void sessionStarted() {
+		fOpenDocuments= getOpenDocuments();
 	}
 
 	/*
 	 * @see org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer#sessionEnded()
 	 */
 	public void sessionEnded() {
+		fOpenDocuments= null;
 	}
 }
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+/**
+ * Listener that is informed about the time spent in the stages of Java content assist.
+ * <p>
+ * Listeners are added to the {@link ContentAssistStatistics}. They are called in the thread that
+ * did the measured work, which may be a background thread for computers that do not require the
+ * UI thread, and must return quickly.
+ * </p>
+ * <p>
+ * Computers and categories are identified by the ids of their
+ * <code>org.eclipse.jdt.ui.javaCompletionProposalComputer</code> extensions.
+ * </p>
+ *
+ * @see ContentAssistStatistics#addListener(IContentAssistStatisticsListener)
+ * @since 3.9
+ */
+public interface IContentAssistStatisticsListener {
+
+	/**
+	 * Called after a completion proposal computer has computed its proposals.
+	 *
+	 * @param computerId the id of the computer
+	 * @param duration the time the computer took, in nanoseconds
+	 * @param proposals the number of proposals computed
+	 */
+	void computerFinished(String computerId, long duration, int proposals);
+
+	/**
+	 * Called after all computers of a completion proposal category have computed their proposals.
+	 *
+	 * @param categoryId the id of the category
+	 * @param duration the elapsed time until all computers of the category were done, in
+	 *            nanoseconds
+	 * @param proposals the number of proposals computed
+	 */
+	void categoryFinished(String categoryId, long duration, int proposals);
+
+	/**
+	 * Called after the proposals have been computed, sorted, filtered or applied.
+	 *
+	 * @param phase one of {@link ContentAssistStatistics#COMPUTING},
+	 *            {@link ContentAssistStatistics#SORTING}, {@link ContentAssistStatistics#FILTERING}
+	 *            and {@link ContentAssistStatistics#APPLYING}
+	 * @param duration the time spent in the phase, in nanoseconds
+	 * @param proposals the number of proposals processed
+	 */
+	void phaseFinished(String phase, long duration, int proposals);
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import org.eclipse.swt.graphics.Point;
+
+import org.eclipse.jface.text.ITextViewer;
+
+import org.eclipse.ui.IEditorPart;
+
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+
+/**
+ * The invocation context of Java content assist in an editor. It remembers the selection of the
+ * viewer at the time content assist was invoked, so that computers running in background threads
+ * do not have to access the viewer's widget.
+ *
+ * @since 3.9
+ */
+final class JavaCompletionInvocationContext extends JavaContentAssistInvocationContext {
+
+	private final Point fSelectedRange;
+
+	/**
+	 * Creates a new context. Must be called in the UI thread.
+	 *
+	 * @param viewer the viewer used by the editor
+	 * @param offset the invocation offset
+	 * @param editor the editor that content assist is invoked in
+	 */
+	JavaCompletionInvocationContext(ITextViewer viewer, int offset, IEditorPart editor) {
+		super(viewer, offset, editor);
+		fSelectedRange= viewer.getSelectedRange();
+	}
+
+	/**
+	 * Returns the selected range of the viewer when content assist was invoked.
+	 *
+	 * @return the selected range
+	 * @see ITextViewer#getSelectedRange()
+	 */
+	Point getSelectedRange() {
+		return fSelectedRange;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,7 +27,6 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
-import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 
 import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
 
@@ -49,6 +48,18 @@ public class JavaCompletionProcessor extends ContentAssistProcessor {
 		fEditor= editor;
 	}
 
+	/**
+	 * Installs the background computation of Java proposals after <code>'.'</code> and
+	 * <code>'('</code> on the given viewer.
+	 *
+	 * @param viewer the viewer this processor computes proposals for
+	 * @see org.eclipse.jdt.ui.PreferenceConstants#CODEASSIST_PREFETCH
+	 * @since 3.9
+	 */
+	public void installPrefetcher(ITextViewer viewer) {
+		CompletionPrefetcher.install(viewer, fEditor);
+	}
+
 	/**
 	 * Tells this processor to restrict its proposal to those element
 	 * visible in the actual invocation context.
@@ -123,6 +134,6 @@ public class JavaCompletionProcessor extends ContentAssistProcessor {
 	 */
 	@Override
 	protected ContentAssistInvocationContext createContext(ITextViewer viewer, int offset) {
-		return new JavaContentAssistInvocationContext(viewer, offset, fEditor);
+		return new JavaCompletionInvocationContext(viewer, offset, fEditor);
 	}
 }
@@ -16,8 +16,10 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -121,15 +123,25 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 		}
 	}
 
-	private static final long JAVA_CODE_ASSIST_TIMEOUT= Long.getLong("org.eclipse.jdt.ui.codeAssistTimeout", 5000).longValue(); // ms //$NON-NLS-1$
+	static final long JAVA_CODE_ASSIST_TIMEOUT= Long.getLong("org.eclipse.jdt.ui.codeAssistTimeout", 5000).longValue(); // ms //$NON-NLS-1$
 
-	private String fErrorMessage;
+	/**
+	 * The maximum number of proposals created for one completion, <code>0</code> (the default) for
+	 * no limit. The proposal popup filters the created proposals while the user types, so proposals
+	 * dropped because of the limit are only shown after content assist is invoked again.
+	 *
+	 * @since 3.9
+	 */
+	private static final int JAVA_CODE_ASSIST_PROPOSAL_LIMIT= Integer.getInteger("org.eclipse.jdt.ui.codeAssistProposalLimit", 0).intValue(); //$NON-NLS-1$
 
-	private final IProgressMonitor fTimeoutProgressMonitor;
+	private String fErrorMessage;
 
-	public JavaCompletionProposalComputer() {
-		fTimeoutProgressMonitor= createTimeoutProgressMonitor(JAVA_CODE_ASSIST_TIMEOUT);
-	}
+	/**
+	 * The core proposals of the last completion.
+	 *
+	 * @since 3.9
+	 */
+	private final CompletionResultCache fResultCache= new CompletionResultCache();
 
 	protected int guessContextInformationPosition(ContentAssistInvocationContext context) {
 		return context.getInvocationOffset();
@@ -159,8 +171,8 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 		return contextPosition;
 	}
 
-	private List<IContextInformation> addContextInformations(JavaContentAssistInvocationContext context, int offset) {
-		List<ICompletionProposal> proposals= internalComputeCompletionProposals(offset, context);
+	private List<IContextInformation> addContextInformations(JavaContentAssistInvocationContext context, int offset, IProgressMonitor monitor) {
+		List<ICompletionProposal> proposals= internalComputeCompletionProposals(offset, context, false, monitor);
 		List<IContextInformation> result= new ArrayList<IContextInformation>(proposals.size());
 		List<IContextInformation> anonymousResult= new ArrayList<IContextInformation>(proposals.size());
 
@@ -191,7 +203,7 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 			JavaContentAssistInvocationContext javaContext= (JavaContentAssistInvocationContext) context;
 
 			int contextInformationPosition= guessContextInformationPosition(javaContext);
-			List<IContextInformation> result= addContextInformations(javaContext, contextInformationPosition);
+			List<IContextInformation> result= addContextInformations(javaContext, contextInformationPosition, monitor);
 			return result;
 		}
 		return Collections.emptyList();
@@ -203,58 +215,59 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 	public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
 		if (context instanceof JavaContentAssistInvocationContext) {
 			JavaContentAssistInvocationContext javaContext= (JavaContentAssistInvocationContext) context;
-			return internalComputeCompletionProposals(context.getInvocationOffset(), javaContext);
+			return internalComputeCompletionProposals(context.getInvocationOffset(), javaContext, true, monitor);
 		}
 		return Collections.emptyList();
 	}
 
-	private List<ICompletionProposal> internalComputeCompletionProposals(int offset, JavaContentAssistInvocationContext context) {
+	private List<ICompletionProposal> internalComputeCompletionProposals(int offset, JavaContentAssistInvocationContext context, boolean forCompletion, IProgressMonitor monitor) {
 		ICompilationUnit unit= context.getCompilationUnit();
 		if (unit == null)
 			return Collections.emptyList();
 
 		ITextViewer viewer= context.getViewer();
+		IProgressMonitor timeoutProgressMonitor= createTimeoutProgressMonitor(JAVA_CODE_ASSIST_TIMEOUT, monitor);
 
 		CompletionProposalCollector collector= createCollector(context);
 		collector.setInvocationContext(context);
+		configureRequestor(collector);
 
-		// Allow completions for unresolved types - since 3.3
-		collector.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.TYPE_REF, true);
-		collector.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.TYPE_IMPORT, true);
-		collector.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.FIELD_IMPORT, true);
-
-		collector.setAllowsRequiredProposals(CompletionProposal.METHOD_REF, CompletionProposal.TYPE_REF, true);
-		collector.setAllowsRequiredProposals(CompletionProposal.METHOD_REF, CompletionProposal.TYPE_IMPORT, true);
-		collector.setAllowsRequiredProposals(CompletionProposal.METHOD_REF, CompletionProposal.METHOD_IMPORT, true);
-
-		collector.setAllowsRequiredProposals(CompletionProposal.CONSTRUCTOR_INVOCATION, CompletionProposal.TYPE_REF, true);
-
-		collector.setAllowsRequiredProposals(CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION, CompletionProposal.TYPE_REF, true);
-		collector.setAllowsRequiredProposals(CompletionProposal.ANONYMOUS_CLASS_DECLARATION, CompletionProposal.TYPE_REF, true);
-
-		collector.setAllowsRequiredProposals(CompletionProposal.TYPE_REF, CompletionProposal.TYPE_REF, true);
-
-		// Set the favorite list to propose static members - since 3.3
-		collector.setFavoriteReferences(getFavoriteStaticMembers());
+		if (forCompletion)
+			collector.setProposalLimit(JAVA_CODE_ASSIST_PROPOSAL_LIMIT);
 
+		boolean useCache= forCompletion;
 		try {
-			Point selection= viewer.getSelectedRange();
-			if (selection.y > 0)
+			Point selection= getSelectedRange(context);
+			if (selection.y > 0) {
 				collector.setReplacementLength(selection.y);
-			unit.codeComplete(offset, collector, fTimeoutProgressMonitor);
+				useCache= false;
+			}
+			if (!useCache) {
+				unit.codeComplete(offset, collector, timeoutProgressMonitor);
+			} else if (!fResultCache.replay(context, collector)) {
+				CompletionRequestor requestor= fResultCache.record(collector);
+				boolean prefetched= CompletionPrefetcher.replay(context, requestor, monitor);
+				if (!prefetched)
+					unit.codeComplete(offset, requestor, timeoutProgressMonitor);
+				if (prefetched || !timeoutProgressMonitor.isCanceled())
+					fResultCache.recorded(context, requestor);
+			}
 		} catch (OperationCanceledException x) {
+			if (monitor != null && monitor.isCanceled())
+				return Collections.emptyList(); // the proposals are no longer needed
 			IBindingService bindingSvc= (IBindingService)PlatformUI.getWorkbench().getAdapter(IBindingService.class);
 			String keyBinding= bindingSvc.getBestActiveBindingFormattedFor(IWorkbenchCommandConstants.EDIT_CONTENT_ASSIST);
 			fErrorMessage= Messages.format(JavaTextMessages.CompletionProcessor_error_javaCompletion_took_too_long_message, keyBinding);
 		} catch (JavaModelException x) {
-			Shell shell= viewer.getTextWidget().getShell();
-			if (x.isDoesNotExist() && !unit.getJavaProject().isOnClasspath(unit))
-				MessageDialog.openInformation(shell, JavaTextMessages.CompletionProcessor_error_notOnBuildPath_title, JavaTextMessages.CompletionProcessor_error_notOnBuildPath_message);
-			else
-				ErrorDialog.openError(shell, JavaTextMessages.CompletionProcessor_error_accessing_title, JavaTextMessages.CompletionProcessor_error_accessing_message, x.getStatus());
+			showError(viewer, x, x.isDoesNotExist() && !unit.getJavaProject().isOnClasspath(unit));
 		}
 
 		ICompletionProposal[] javaProposals= collector.getJavaCompletionProposals();
+		if (collector.getDroppedProposalCount() > 0 && fErrorMessage == null) {
+			IBindingService bindingSvc= (IBindingService)PlatformUI.getWorkbench().getAdapter(IBindingService.class);
+			String keyBinding= bindingSvc.getBestActiveBindingFormattedFor(IWorkbenchCommandConstants.EDIT_CONTENT_ASSIST);
+			fErrorMessage= Messages.format(JavaTextMessages.CompletionProcessor_error_javaCompletion_truncated_message, new Object[] { new Integer(javaProposals.length), keyBinding });
+		}
 		int contextInformationOffset= guessMethodContextInformationPosition(context);
 		if (contextInformationOffset != offset) {
 			for (int i= 0; i < javaProposals.length; i++) {
@@ -275,13 +288,89 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 	}
 
 	/**
-	 * Returns a new progress monitor that get cancelled after the given timeout.
+	 * Returns the selected range of the viewer of the given context. The selection is taken from
+	 * the context if it has been recorded when content assist was invoked, so that the widget is
+	 * not accessed when proposals are computed in a background thread.
+	 *
+	 * @param context the invocation context
+	 * @return the selected range
+	 * @since 3.9
+	 */
+	private static Point getSelectedRange(JavaContentAssistInvocationContext context) {
+		if (context instanceof JavaCompletionInvocationContext)
+			return ((JavaCompletionInvocationContext) context).getSelectedRange();
+		return context.getViewer().getSelectedRange();
+	}
+
+	/**
+	 * Shows a dialog for an error that occurred while computing proposals. The dialog is opened
+	 * asynchronously if proposals are computed in a background thread.
+	 *
+	 * @param viewer the viewer
+	 * @param exception the exception
+	 * @param notOnBuildPath <code>true</code> if the compilation unit is not on the build path
+	 * @since 3.9
+	 */
+	private static void showError(ITextViewer viewer, final JavaModelException exception, final boolean notOnBuildPath) {
+		final StyledText textWidget= viewer.getTextWidget();
+		if (textWidget == null)
+			return;
+		Runnable runnable= new Runnable() {
+			public void run() {
+				if (textWidget.isDisposed())
+					return;
+				Shell shell= textWidget.getShell();
+				if (notOnBuildPath)
+					MessageDialog.openInformation(shell, JavaTextMessages.CompletionProcessor_error_notOnBuildPath_title, JavaTextMessages.CompletionProcessor_error_notOnBuildPath_message);
+				else
+					ErrorDialog.openError(shell, JavaTextMessages.CompletionProcessor_error_accessing_title, JavaTextMessages.CompletionProcessor_error_accessing_message, exception.getStatus());
+			}
+		};
+		Display display= textWidget.getDisplay();
+		if (display.getThread() == Thread.currentThread())
+			runnable.run();
+		else
+			display.asyncExec(runnable);
+	}
+
+	/**
+	 * Configures the given requestor the way Java completion does: completions for unresolved
+	 * types are allowed and the favorite static members are proposed.
+	 *
+	 * @param requestor the requestor to configure
+	 * @since 3.9
+	 */
+	static void configureRequestor(CompletionRequestor requestor) {
+		// Allow completions for unresolved types - since 3.3
+		requestor.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.TYPE_REF, true);
+		requestor.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.TYPE_IMPORT, true);
+		requestor.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.FIELD_IMPORT, true);
+
+		requestor.setAllowsRequiredProposals(CompletionProposal.METHOD_REF, CompletionProposal.TYPE_REF, true);
+		requestor.setAllowsRequiredProposals(CompletionProposal.METHOD_REF, CompletionProposal.TYPE_IMPORT, true);
+		requestor.setAllowsRequiredProposals(CompletionProposal.METHOD_REF, CompletionProposal.METHOD_IMPORT, true);
+
+		requestor.setAllowsRequiredProposals(CompletionProposal.CONSTRUCTOR_INVOCATION, CompletionProposal.TYPE_REF, true);
+
+		requestor.setAllowsRequiredProposals(CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION, CompletionProposal.TYPE_REF, true);
+		requestor.setAllowsRequiredProposals(CompletionProposal.ANONYMOUS_CLASS_DECLARATION, CompletionProposal.TYPE_REF, true);
+
+		requestor.setAllowsRequiredProposals(CompletionProposal.TYPE_REF, CompletionProposal.TYPE_REF, true);
+
+		// Set the favorite list to propose static members - since 3.3
+		requestor.setFavoriteReferences(getFavoriteStaticMembers());
+	}
+
+	/**
+	 * Returns a new progress monitor that get cancelled after the given timeout, or when the given
+	 * monitor is canceled.
 	 * 
 	 * @param timeout the timeout in ms
+	 * @param monitor the progress monitor of the computation, or <code>null</code>
 	 * @return the progress monitor
 	 * @since 3.5
 	 */
-	private IProgressMonitor createTimeoutProgressMonitor(final long timeout) {
+	private static IProgressMonitor createTimeoutProgressMonitor(final long timeout, final IProgressMonitor monitor) {
 		return new IProgressMonitor() {
 
 			private long fEndTime;
@@ -290,7 +379,7 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 				fEndTime= System.currentTimeMillis() + timeout;
 			}
 			public boolean isCanceled() {
-				return fEndTime <= System.currentTimeMillis();
+				return fEndTime <= System.currentTimeMillis() || monitor != null && monitor.isCanceled();
 			}
 			public void done() {
 			}
@@ -314,7 +403,7 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 	 * @see CompletionRequestor#setFavoriteReferences(String[])
 	 * @since 3.3
 	 */
-	private String[] getFavoriteStaticMembers() {
+	private static String[] getFavoriteStaticMembers() {
 		String serializedFavorites= PreferenceConstants.getPreferenceStore().getString(PreferenceConstants.CODEASSIST_FAVORITE_STATIC_MEMBERS);
 		if (serializedFavorites != null && serializedFavorites.length() > 0)
 			return serializedFavorites.split(";"); //$NON-NLS-1$
@@ -334,6 +423,16 @@ public class JavaCompletionProposalComputer implements IJavaCompletionProposalCo
 			return new CompletionProposalCollector(context.getCompilationUnit(), true);
 	}
 
+	/**
+	 * Returns the cache of the core proposals of the last completion.
+	 *
+	 * @return the result cache
+	 * @since 3.9
+	 */
+	public final CompletionResultCache getResultCache() {
+		return fResultCache;
+	}
+
 	/*
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalComputer#getErrorMessage()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,7 @@ final class JavaTextMessages extends NLS {
 	public static String CompletionProcessor_error_notOnBuildPath_title;
 	public static String CompletionProcessor_error_notOnBuildPath_message;
 	public static String CompletionProcessor_error_javaCompletion_took_too_long_message;
+	public static String CompletionProcessor_error_javaCompletion_truncated_message;
 	public static String CompletionProposalComputerRegistry_messageAvoidanceHint;
 	public static String CompletionProposalComputerRegistry_messageAvoidanceHintWithWarning;
 	public static String ContentAssistProcessor_all_disabled_message;
@@ -64,7 +65,15 @@ final class JavaTextMessages extends NLS {
 	public static String ContentAssistProcessor_toggle_affordance_click_gesture;
 	public static String ContentAssistProcessor_toggle_affordance_update_message;
 	public static String ContentAssistProcessor_empty_message;
+	public static String ContentAssistProcessor_computers_timeout_message;
 	public static String ContentAssistHistory_serialize_error;
 	public static String ContentAssistHistory_deserialize_error;
+	public static String ContentAssistHistory_write_error;
+	public static String ContentAssistHistory_read_error;
+	public static String ContentAssistHistory_save_job;
+	public static String CompletionPrefetcher_job_name;
 	public static String ProposalSorterHandle_blame;
+	public static String SaveContentAssistStatisticsHandler_title;
+	public static String SaveContentAssistStatisticsHandler_recording_message;
+	public static String SaveContentAssistStatisticsHandler_error_message;
 }
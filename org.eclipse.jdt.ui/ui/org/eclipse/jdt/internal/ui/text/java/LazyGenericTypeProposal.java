@@ -10,10 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
@@ -46,27 +44,22 @@ import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.texteditor.link.EditorLinkedModeUI;
 
 import org.eclipse.jdt.core.CompletionProposal;
-import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeParameter;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
-import org.eclipse.jdt.core.dom.ASTParser;
-import org.eclipse.jdt.core.dom.ASTRequestor;
-import org.eclipse.jdt.core.dom.IBinding;
-import org.eclipse.jdt.core.dom.ITypeBinding;
 
-import org.eclipse.jdt.internal.corext.dom.Bindings;
 import org.eclipse.jdt.internal.corext.template.java.SignatureUtil;
 import org.eclipse.jdt.internal.corext.util.Strings;
 
 import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
-import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 import org.eclipse.jdt.internal.ui.javaeditor.EditorHighlightingSynchronizer;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.text.java.ExpectedTypeCache.ExpectedType;
+import org.eclipse.jdt.internal.ui.text.java.ExpectedTypeCache.TypeArgument;
 
 
 /**
@@ -328,12 +321,12 @@ public class LazyGenericTypeProposal extends LazyJavaTypeCompletionProposal {
 
 			TypeArgumentProposal[] arguments= new TypeArgumentProposal[parameters.length];
 
-			ITypeBinding expectedTypeBinding= getExpectedType();
-			if (expectedTypeBinding != null && expectedTypeBinding.isParameterizedType()) {
+			ExpectedType expectedTypeInfo= getExpectedType();
+			if (expectedTypeInfo != null) {
 				// in this case, the type arguments we propose need to be compatible
 				// with the corresponding type parameters to declared type
 
-				IType expectedType= (IType) expectedTypeBinding.getJavaElement();
+				IType expectedType= expectedTypeInfo.fType;
 
 				IType[] path= computeInheritancePath(type, expectedType);
 				if (path == null)
@@ -349,12 +342,12 @@ public class LazyGenericTypeProposal extends LazyJavaTypeCompletionProposal {
 
 				// for type arguments that are mapped through to the expected type's
 				// parameters, take the arguments of the expected type
-				ITypeBinding[] typeArguments= expectedTypeBinding.getTypeArguments();
+				TypeArgument[] typeArguments= expectedTypeInfo.fTypeArguments;
 				for (int paramIdx= 0; paramIdx < parameters.length; paramIdx++) {
 					if (indices[paramIdx] != -1) {
 						// type argument is mapped through
-						ITypeBinding binding= typeArguments[indices[paramIdx]];
-						arguments[paramIdx]= computeTypeProposal(binding, parameters[paramIdx]);
+						TypeArgument argument= typeArguments[indices[paramIdx]];
+						arguments[paramIdx]= computeTypeProposal(argument, parameters[paramIdx]);
 					}
 				}
 			}
@@ -408,7 +401,7 @@ public class LazyGenericTypeProposal extends LazyJavaTypeCompletionProposal {
 	}
 
 	/**
-	 * Returns a type argument proposal for a given type binding. The proposal is:
+	 * Returns a type argument proposal for a given type argument of the expected type. The proposal is:
 	 * <ul>
 	 * <li>the simple type name for normal types or type variables (unambigous proposal)</li>
 	 * <li>for wildcard types (ambigous proposals):
@@ -420,22 +413,22 @@ public class LazyGenericTypeProposal extends LazyJavaTypeCompletionProposal {
 	 * </li>
 	 * </ul>
 	 * 
-	 * @param binding the type argument binding in the expected type
+	 * @param argument the type argument in the expected type
 	 * @param parameter the type parameter of the inserted type
-	 * @return a type argument proposal for <code>binding</code>
+	 * @return a type argument proposal for <code>argument</code>
 	 * @throws JavaModelException if this element does not exist or if an exception occurs while
 	 *             accessing its corresponding resource
 	 * @see #computeTypeProposal(ITypeParameter)
 	 */
-	private TypeArgumentProposal computeTypeProposal(ITypeBinding binding, ITypeParameter parameter) throws JavaModelException {
-		final String name= Bindings.getTypeQualifiedName(binding);
-		if (binding.isWildcardType()) {
+	private TypeArgumentProposal computeTypeProposal(TypeArgument argument, ITypeParameter parameter) throws JavaModelException {
+		final String name= argument.fQualifiedName;
+		if (argument.fIsWildcard) {
 
-			if (binding.isUpperbound()) {
+			if (argument.fIsUpperbound) {
 				// replace the wildcard ? with the type parameter name to get "E extends Bound" instead of "? extends Bound"
 				String contextName= name.replaceFirst("\\?", parameter.getElementName()); //$NON-NLS-1$
 				// upper bound - the upper bound is the bound itself
-				return new TypeArgumentProposal(binding.getBound().getName(), true, contextName);
+				return new TypeArgumentProposal(argument.fBoundName, true, contextName);
 			}
 
 			// no or upper bound - use the type parameter of the inserted type, as it may be more
@@ -603,39 +596,17 @@ public class LazyGenericTypeProposal extends LazyJavaTypeCompletionProposal {
 	}
 
 	/**
-	 * Returns the type binding of the expected type as it is contained in the
-	 * code completion context.
+	 * Returns the expected type as it is contained in the code completion context, if it is a
+	 * parameterized type.
 	 *
-	 * @return the binding of the expected type
+	 * @return the parameterized expected type or <code>null</code>
 	 */
-	private ITypeBinding getExpectedType() {
+	private ExpectedType getExpectedType() {
 		char[][] chKeys= fInvocationContext.getCoreContext().getExpectedTypesKeys();
 		if (chKeys == null || chKeys.length == 0)
 			return null;
 
-		String[] keys= new String[chKeys.length];
-		for (int i= 0; i < keys.length; i++) {
-			keys[i]= String.valueOf(chKeys[0]);
-		}
-
-		final ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
-		parser.setProject(fCompilationUnit.getJavaProject());
-		parser.setResolveBindings(true);
-		parser.setStatementsRecovery(true);
-
-		final Map<String, IBinding> bindings= new HashMap<String, IBinding>();
-		ASTRequestor requestor= new ASTRequestor() {
-			@Override
-			public void acceptBinding(String bindingKey, IBinding binding) {
-				bindings.put(bindingKey, binding);
-			}
-		};
-		parser.createASTs(new ICompilationUnit[0], keys, requestor, null);
-
-		if (bindings.size() > 0)
-			return (ITypeBinding) bindings.get(keys[0]);
-
-		return null;
+		return ExpectedTypeCache.getExpectedType(fCompilationUnit.getJavaProject(), String.valueOf(chKeys[0]));
 	}
 
 	/**
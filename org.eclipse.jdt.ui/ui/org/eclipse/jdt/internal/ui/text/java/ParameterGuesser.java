@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,9 +13,11 @@ package org.eclipse.jdt.internal.ui.text.java;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.swt.graphics.Image;
@@ -26,6 +28,7 @@ import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 
 import org.eclipse.jdt.core.BindingKey;
+import org.eclipse.jdt.core.CompletionContext;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
@@ -107,10 +110,84 @@ public class ParameterGuesser {
 		}
 	}
 
+	/**
+	 * The part of a {@link Variable} that only depends on the visible element, not on the expected
+	 * type.
+	 */
+	private final static class ElementInfo {
+		public final String qualifiedTypeName;
+		public final String name;
+		public final int variableType;
+		public final ImageDescriptor descriptor;
+
+		public ElementInfo(String qualifiedTypeName, String name, int variableType, ImageDescriptor descriptor) {
+			this.qualifiedTypeName= qualifiedTypeName;
+			this.name= name;
+			this.variableType= variableType;
+			this.descriptor= descriptor;
+		}
+	}
+
+	/**
+	 * The elements visible at a code completion location.
+	 * <p>
+	 * A scope is shared by the parameter guessers of all method proposals of one code completion
+	 * invocation. It remembers the visible elements assignable to each parameter type and the
+	 * variable information of each visible element, so that they are computed once per invocation
+	 * instead of once per proposal.
+	 * </p>
+	 *
+	 * @since 3.9
+	 */
+	public static final class Scope {
+
+		private final CompletionContext fCoreContext;
+		private final Map<String, IJavaElement[]> fAssignableElements= new HashMap<String, IJavaElement[]>();
+		private final Map<IJavaElement, ElementInfo> fElementInfos= new HashMap<IJavaElement, ElementInfo>();
+
+		/**
+		 * Creates a new scope.
+		 *
+		 * @param coreContext the extended core completion context
+		 */
+		public Scope(CompletionContext coreContext) {
+			fCoreContext= coreContext;
+		}
+
+		/**
+		 * Returns the core completion context of this scope.
+		 *
+		 * @return the core completion context
+		 */
+		public CompletionContext getCoreContext() {
+			return fCoreContext;
+		}
+
+		/**
+		 * Returns the visible elements that are assignable to the given type.
+		 *
+		 * @param typeSignature the type signature
+		 * @return the visible elements assignable to the type, see
+		 *         {@link CompletionContext#getVisibleElements(String)}
+		 */
+		public synchronized IJavaElement[] getAssignableElements(String typeSignature) {
+			IJavaElement[] elements= fAssignableElements.get(typeSignature);
+			if (elements == null) {
+				elements= fCoreContext.getVisibleElements(typeSignature);
+				fAssignableElements.put(typeSignature, elements);
+			}
+			return elements;
+		}
+	}
+
 	private static final char[] NO_TRIGGERS= new char[0];
 
+	/** Marks elements that are not suggested as variables. */
+	private static final ElementInfo NOT_SUGGESTED= new ElementInfo(null, null, -1, null);
+
 	private final Set<String> fAlreadyMatchedNames;
 	private final IJavaElement fEnclosingElement;
+	private final Map<IJavaElement, ElementInfo> fElementInfos;
 
 	/**
 	 * Creates a parameter guesser
@@ -118,8 +195,23 @@ public class ParameterGuesser {
 	 * @param enclosingElement the enclosing Java element
 	 */
 	public ParameterGuesser(IJavaElement enclosingElement) {
+		this(enclosingElement, new HashMap<IJavaElement, ElementInfo>());
+	}
+
+	/**
+	 * Creates a parameter guesser that shares the element information of the given scope.
+	 *
+	 * @param scope the scope of the code completion invocation
+	 * @since 3.9
+	 */
+	public ParameterGuesser(Scope scope) {
+		this(scope.getCoreContext().getEnclosingElement(), scope.fElementInfos);
+	}
+
+	private ParameterGuesser(IJavaElement enclosingElement, Map<IJavaElement, ElementInfo> elementInfos) {
 		fEnclosingElement= enclosingElement;
 		fAlreadyMatchedNames= new HashSet<String>();
+		fElementInfos= elementInfos;
 	}
 
 	private List<Variable> evaluateVisibleMatches(String expectedType, IJavaElement[] suggestions) throws JavaModelException {
@@ -168,6 +260,24 @@ public class ParameterGuesser {
 	}
 
 	public Variable createVariable(IJavaElement element, IType enclosingType, String expectedType, int positionScore) throws JavaModelException {
+		ElementInfo info;
+		synchronized (fElementInfos) {
+			info= fElementInfos.get(element);
+		}
+		if (info == null) {
+			info= createElementInfo(element, enclosingType);
+			synchronized (fElementInfos) {
+				fElementInfos.put(element, info);
+			}
+		}
+		if (info == NOT_SUGGESTED)
+			return null;
+
+		boolean isAutoboxMatch= isPrimitiveType(expectedType) != isPrimitiveType(info.qualifiedTypeName);
+		return new Variable(info.qualifiedTypeName, info.name, info.variableType, isAutoboxMatch, positionScore, NO_TRIGGERS, info.descriptor);
+	}
+
+	private ElementInfo createElementInfo(IJavaElement element, IType enclosingType) throws JavaModelException {
 		int variableType;
 		int elementType= element.getElementType();
 		String elementName= element.getElementName();
@@ -209,17 +319,15 @@ public class ParameterGuesser {
 					}
 					elementName= elementName + "()";  //$NON-NLS-1$
 				} else {
-					return null;
+					return NOT_SUGGESTED;
 				}
 				break;
 			}
 			default:
-				return null;
+				return NOT_SUGGESTED;
 		}
 		String type= Signature.toString(typeSignature);
-
-		boolean isAutoboxMatch= isPrimitiveType(expectedType) != isPrimitiveType(type);
-		return new Variable(type, elementName, variableType, isAutoboxMatch, positionScore, NO_TRIGGERS, getImageDescriptor(element));
+		return new ElementInfo(type, elementName, variableType, getImageDescriptor(element));
 	}
 
 	private ImageDescriptor getImageDescriptor(IJavaElement elem) {
@@ -72,9 +72,27 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 	 * @return a proposal or <code>null</code>
 	 */
 	public static ParameterGuessingProposal createProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, boolean fillBestGuess) {
+		return createProposal(proposal, context, null, fillBestGuess);
+	}
+
+	/**
+	 * Creates a {@link ParameterGuessingProposal} or <code>null</code> if the core context isn't available or extended.
+	 *
+	 * @param proposal the original completion proposal
+	 * @param context the currrent context
+	 * @param scope the scope shared by the proposals of the invocation, or <code>null</code>; it
+	 *            is only used if it belongs to the core context of <code>context</code>
+	 * @param fillBestGuess if set, the best guess will be filled in
+	 *
+	 * @return a proposal or <code>null</code>
+	 * @since 3.9
+	 */
+	public static ParameterGuessingProposal createProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, ParameterGuesser.Scope scope, boolean fillBestGuess) {
 		CompletionContext coreContext= context.getCoreContext();
  		if (coreContext != null && coreContext.isExtended()) {
-			return new ParameterGuessingProposal(proposal, context, coreContext, fillBestGuess);
+ 			if (scope == null || scope.getCoreContext() != coreContext)
+ 				scope= new ParameterGuesser.Scope(coreContext);
+			return new ParameterGuessingProposal(proposal, context, scope, fillBestGuess);
  		}
  		return null;
 	}
@@ -92,16 +110,26 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 
 	private final boolean fFillBestGuess;
 
-	private final CompletionContext fCoreContext;
+	private final ParameterGuesser.Scope fScope;
 
  	public ParameterGuessingProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, CompletionContext coreContext, boolean fillBestGuess) {
- 		super(proposal, context);
-		fCoreContext= coreContext;
-		fFillBestGuess= fillBestGuess;
+ 		this(proposal, context, new ParameterGuesser.Scope(coreContext), fillBestGuess);
  	}
 
-	private IJavaElement getEnclosingElement() {
-		return fCoreContext.getEnclosingElement();
+	private ParameterGuessingProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, ParameterGuesser.Scope scope, boolean fillBestGuess) {
+		super(proposal, context);
+		fScope= scope;
+		fFillBestGuess= fillBestGuess;
+	}
+
+	/**
+	 * Returns the parameter guessing scope of this proposal.
+	 *
+	 * @return the scope
+	 * @since 3.9
+	 */
+	ParameterGuesser.Scope getScope() {
+		return fScope;
 	}
 
 	private IJavaElement[][] getAssignableElements() {
@@ -110,7 +138,7 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 
 		IJavaElement[][] assignableElements= new IJavaElement[types.length][];
 		for (int i= 0; i < types.length; i++) {
-			assignableElements[i]= fCoreContext.getVisibleElements(new String(types[i]));
+			assignableElements[i]= fScope.getAssignableElements(new String(types[i]));
 		}
 		return assignableElements;
 	}
@@ -318,7 +346,7 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 		fChoices= new ICompletionProposal[count][];
 
 		String[] parameterTypes= getParameterTypes();
-		ParameterGuesser guesser= new ParameterGuesser(getEnclosingElement());
+		ParameterGuesser guesser= new ParameterGuesser(fScope);
 		IJavaElement[][] assignableElements= getAssignableElements();
 
 		for (int i= count - 1; i >= 0; i--) {
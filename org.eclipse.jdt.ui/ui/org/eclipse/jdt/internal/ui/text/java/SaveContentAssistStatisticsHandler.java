@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+
+import org.eclipse.jface.dialogs.MessageDialog;
+
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Saves the {@link ContentAssistStatistics} to a file chosen by the user. If no measurements are
+ * taken, recording is started instead.
+ *
+ * @since 3.9
+ */
+public final class SaveContentAssistStatisticsHandler extends AbstractHandler {
+
+	/*
+	 * @see org.eclipse.core.commands.IHandler#execute(org.eclipse.core.commands.ExecutionEvent)
+	 */
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		Shell shell= JavaPlugin.getActiveWorkbenchShell();
+		ContentAssistStatistics statistics= ContentAssistStatistics.getDefault();
+		if (!statistics.isEnabled()) {
+			statistics.setRecording(true);
+			MessageDialog.openInformation(shell, JavaTextMessages.SaveContentAssistStatisticsHandler_title, JavaTextMessages.SaveContentAssistStatisticsHandler_recording_message);
+			return null;
+		}
+
+		FileDialog dialog= new FileDialog(shell, SWT.SAVE);
+		dialog.setText(JavaTextMessages.SaveContentAssistStatisticsHandler_title);
+		dialog.setFileName("contentAssistStatistics.txt"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path= dialog.open();
+		if (path == null)
+			return null;
+
+		try {
+			statistics.write(new File(path));
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			MessageDialog.openError(shell, JavaTextMessages.SaveContentAssistStatisticsHandler_title, Messages.format(JavaTextMessages.SaveContentAssistStatisticsHandler_error_message, path));
+		}
+		return null;
+	}
+}
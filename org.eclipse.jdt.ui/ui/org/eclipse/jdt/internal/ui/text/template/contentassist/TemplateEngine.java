@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -121,7 +121,11 @@ public class TemplateEngine {
 		int end= context.getEnd();
 		IRegion region= new Region(start, end - start);
 
-		Template[] templates= JavaPlugin.getDefault().getTemplateStore().getTemplates();
+		if (selection.y != 0 && context.getKey().length() == 0)
+			context.setForceEvaluation(true);
+
+		// only the templates whose name starts with the key can be evaluated, unless evaluation is forced with an empty key
+		Template[] templates= JavaPlugin.getDefault().getTemplateIndex().getTemplates(context.getKey());
 
 		if (selection.y == 0) {
 			for (int i= 0; i != templates.length; i++) {
@@ -131,10 +135,6 @@ public class TemplateEngine {
 				}
 			}
 		} else {
-
-			if (context.getKey().length() == 0)
-				context.setForceEvaluation(true);
-
 			boolean multipleLinesSelected= areMultipleLinesSelected(viewer);
 
 			for (int i= 0; i != templates.length; i++) {
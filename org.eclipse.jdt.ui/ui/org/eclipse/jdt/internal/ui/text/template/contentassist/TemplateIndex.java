@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.template.contentassist;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+
+import org.eclipse.jface.text.templates.Template;
+import org.eclipse.jface.text.templates.persistence.TemplateStore;
+
+/**
+ * The enabled templates of a {@link TemplateStore}, sorted by their lower case names for prefix
+ * lookups.
+ * <p>
+ * The index is built on first use and discarded when the preference the template store is
+ * persisted in changes, which happens whenever templates are added, edited, removed, enabled or
+ * disabled.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class TemplateIndex implements IPropertyChangeListener {
+
+	private final TemplateStore fTemplateStore;
+	private final IPreferenceStore fPreferenceStore;
+	private final String fKey;
+
+	/** The templates sorted by lower case name, or <code>null</code> if not built. */
+	private Template[] fTemplates;
+	/** The lower case names of the templates. */
+	private String[] fNames;
+
+	/**
+	 * Creates a new index.
+	 *
+	 * @param templateStore the template store to index
+	 * @param preferenceStore the preference store the template store is persisted in
+	 * @param key the key of the template store's preference
+	 */
+	public TemplateIndex(TemplateStore templateStore, IPreferenceStore preferenceStore, String key) {
+		fTemplateStore= templateStore;
+		fPreferenceStore= preferenceStore;
+		fKey= key;
+		fPreferenceStore.addPropertyChangeListener(this);
+	}
+
+	/**
+	 * Disposes this index.
+	 */
+	public void dispose() {
+		fPreferenceStore.removePropertyChangeListener(this);
+	}
+
+	/**
+	 * Returns the templates whose names start with the given prefix, ignoring case. This is the
+	 * name test of {@link org.eclipse.jdt.internal.corext.template.java.JavaContext#canEvaluate(Template)}.
+	 *
+	 * @param prefix the name prefix, may be empty
+	 * @return the templates with a matching name, sorted by name
+	 */
+	public synchronized Template[] getTemplates(String prefix) {
+		if (fTemplates == null)
+			build();
+
+		String lowerCasePrefix= prefix.toLowerCase();
+		// first name >= prefix
+		int start= 0;
+		int high= fNames.length;
+		while (start < high) {
+			int mid= (start + high) >>> 1;
+			if (fNames[mid].compareTo(lowerCasePrefix) < 0)
+				start= mid + 1;
+			else
+				high= mid;
+		}
+		int end= start;
+		while (end < fNames.length && fNames[end].startsWith(lowerCasePrefix))
+			end++;
+
+		Template[] templates= new Template[end - start];
+		System.arraycopy(fTemplates, start, templates, 0, templates.length);
+		return templates;
+	}
+
+	private void build() {
+		Template[] templates= fTemplateStore.getTemplates();
+		final String[] names= new String[templates.length];
+		Integer[] order= new Integer[templates.length];
+		for (int i= 0; i < templates.length; i++) {
+			names[i]= templates[i].getName().toLowerCase();
+			order[i]= new Integer(i);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return names[i1.intValue()].compareTo(names[i2.intValue()]);
+			}
+		});
+
+		fTemplates= new Template[templates.length];
+		fNames= new String[templates.length];
+		for (int i= 0; i < order.length; i++) {
+			fTemplates[i]= templates[order[i].intValue()];
+			fNames[i]= names[order[i].intValue()];
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+	 */
+	public synchronized void propertyChange(PropertyChangeEvent event) {
+		if (fKey.equals(event.getProperty())) {
+			fTemplates= null;
+			fNames= null;
+		}
+	}
+}
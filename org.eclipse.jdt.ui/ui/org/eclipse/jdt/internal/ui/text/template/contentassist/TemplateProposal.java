@@ -84,6 +84,8 @@ public class TemplateProposal implements IJavaCompletionProposal, ICompletionPro
 	private final Image fImage;
 	private final IRegion fRegion;
 	private int fRelevance;
+	/** Tells whether the relevance has been computed or set, it reads the document. */
+	private boolean fRelevanceComputed;
 
 	private IRegion fSelectedRegion; // initialized by apply()
 	private StyledString fDisplayString;
@@ -108,8 +110,6 @@ public class TemplateProposal implements IJavaCompletionProposal, ICompletionPro
 		fRegion= region;
 
 		fDisplayString= null;
-
-		fRelevance= computeRelevance();
 	}
 
 	/**
@@ -488,11 +488,16 @@ public class TemplateProposal implements IJavaCompletionProposal, ICompletionPro
 	 * @see IJavaCompletionProposal#getRelevance()
 	 */
 	public int getRelevance() {
+		if (!fRelevanceComputed) {
+			fRelevance= computeRelevance();
+			fRelevanceComputed= true;
+		}
 		return fRelevance;
 	}
 
 	public void setRelevance(int relevance) {
 		fRelevance= relevance;
+		fRelevanceComputed= true;
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,15 +11,36 @@
 package org.eclipse.jdt.internal.ui.typehierarchy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 
+import org.eclipse.swt.widgets.Control;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
 
+import org.eclipse.ui.progress.DeferredTreeContentManager;
+import org.eclipse.ui.progress.IDeferredWorkbenchAdapter;
+import org.eclipse.ui.progress.IElementCollector;
+
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMember;
@@ -33,14 +54,116 @@ import org.eclipse.jdt.internal.corext.util.MethodOverrideTester;
 
 import org.eclipse.jdt.ui.IWorkingCopyProvider;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 /**
  * Base class for content providers for type hierarchy viewers.
  * Implementors must override 'getTypesInHierarchy'.
  * Java delta processing is also performed by the content provider
+ * <p>
+ * If enabled with {@link #setFetchChildrenInBackground(boolean)}, the children of types with many
+ * types in their hierarchy are computed in a background job and added to the tree in batches
+ * while the job is running. This is done only the first time the children of such a type are
+ * requested, later refreshes compute them in the UI thread so that the tree keeps its state. The
+ * expansion and selection that could not be applied while the children were pending are applied
+ * when the job has finished.
+ * </p>
  */
 public abstract class TypeHierarchyContentProvider implements ITreeContentProvider, IWorkingCopyProvider {
 	protected static final Object[] NO_ELEMENTS= new Object[0];
 
+	/**
+	 * The children of a type are computed in the background if more types than this are in its
+	 * hierarchy.
+	 *
+	 * @since 3.9
+	 */
+	private static final int BACKGROUND_CHILDREN_THRESHOLD= 200;
+
+	/**
+	 * The number of children that are added to the tree at once when computed in the background.
+	 *
+	 * @since 3.9
+	 */
+	private static final int BACKGROUND_CHILDREN_BATCH_SIZE= 200;
+
+	/**
+	 * Computes the children of a type in the background.
+	 *
+	 * @since 3.9
+	 */
+	private class DeferredTypeAdapter implements IDeferredWorkbenchAdapter {
+
+		/*
+		 * @see org.eclipse.ui.progress.IDeferredWorkbenchAdapter#fetchDeferredChildren(java.lang.Object, org.eclipse.ui.progress.IElementCollector, org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		public void fetchDeferredChildren(Object object, IElementCollector collector, IProgressMonitor monitor) {
+			IType type= (IType) object;
+			boolean isDone= false;
+			try {
+				fetchChildren(type, collector, monitor);
+				synchronized (fBackgroundTypes) {
+					fFetchedTypes.add(type);
+				}
+				isDone= true;
+				collector.done(); // the type is removed once its children have been added
+			} catch (OperationCanceledException e) {
+				// the tree is refreshed by whoever canceled the job
+			} catch (JavaModelException e) {
+				JavaPlugin.log(e);
+			} finally {
+				// a canceled job has been removed by whoever canceled it, and may have been replaced
+				if (!isDone && !monitor.isCanceled()) {
+					synchronized (fBackgroundTypes) {
+						fBackgroundTypes.remove(type);
+					}
+				}
+			}
+		}
+
+		/*
+		 * @see org.eclipse.ui.progress.IDeferredWorkbenchAdapter#isContainer()
+		 */
+		public boolean isContainer() {
+			return true;
+		}
+
+		/*
+		 * @see org.eclipse.ui.progress.IDeferredWorkbenchAdapter#getRule(java.lang.Object)
+		 */
+		public ISchedulingRule getRule(Object object) {
+			return null;
+		}
+
+		/*
+		 * @see org.eclipse.ui.model.IWorkbenchAdapter#getChildren(java.lang.Object)
+		 */
+		public Object[] getChildren(Object object) {
+			return computeChildren((IType) object);
+		}
+
+		/*
+		 * @see org.eclipse.ui.model.IWorkbenchAdapter#getImageDescriptor(java.lang.Object)
+		 */
+		public ImageDescriptor getImageDescriptor(Object object) {
+			return null;
+		}
+
+		/*
+		 * @see org.eclipse.ui.model.IWorkbenchAdapter#getLabel(java.lang.Object)
+		 */
+		public String getLabel(Object object) {
+			return ((IType) object).getElementName();
+		}
+
+		/*
+		 * @see org.eclipse.ui.model.IWorkbenchAdapter#getParent(java.lang.Object)
+		 */
+		public Object getParent(Object object) {
+			return TypeHierarchyContentProvider.this.getParent(object);
+		}
+	}
+
 	protected TypeHierarchyLifeCycle fTypeHierarchy;
 	protected IMember[] fMemberFilter;
 
@@ -50,6 +173,46 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 	private MethodOverrideTester fMethodOverrideTester;
 	private ITypeHierarchyLifeCycleListener fTypeHierarchyLifeCycleListener;
 
+	private boolean fFetchChildrenInBackground;
+	private DeferredTreeContentManager fManager;
+
+	/**
+	 * The types whose children are computed in a background job or have not been added to the
+	 * tree yet. Also guards {@link #fFetchedTypes}.
+	 */
+	private final Set<IType> fBackgroundTypes= new HashSet<IType>();
+
+	/**
+	 * The types whose children have been computed in a background job for the input elements
+	 * {@link #fFetchedInputElements}.
+	 */
+	private final Set<IType> fFetchedTypes= new HashSet<IType>();
+	private IJavaElement[] fFetchedInputElements;
+
+	/**
+	 * Whether types have more types than {@link #BACKGROUND_CHILDREN_THRESHOLD} in their
+	 * hierarchy, by type. Computed on demand and cleared when the hierarchy changes.
+	 */
+	private final Map<IType, Boolean> fManyTypeChildren= new HashMap<IType, Boolean>();
+
+	/**
+	 * The levels to which types are expanded once their pending children have been added, by type.
+	 * Only accessed in the UI thread.
+	 */
+	private final Map<IType, Integer> fPendingExpandLevels= new HashMap<IType, Integer>();
+
+	/** The element that the viewer expands and its level, see {@link #setExpandLevel(Object, int)}. */
+	private Object fExpandElement;
+	private int fExpandLevel;
+
+	/**
+	 * The selection that is set when no more children are pending, and the selection of the viewer
+	 * at the time it could not be set. Only accessed in the UI thread.
+	 */
+	private List<?> fPendingSelection;
+	private boolean fPendingSelectionReveal;
+	private ISelection fPendingSelectionBase;
+
 
 	public TypeHierarchyContentProvider(TypeHierarchyLifeCycle lifecycle) {
 		fTypeHierarchy= lifecycle;
@@ -62,6 +225,10 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 					synchronized (this) {
 						fMethodOverrideTester= null;
 					}
+					synchronized (fManyTypeChildren) {
+						fManyTypeChildren.clear();
+					}
+					cancelBackgroundJobs();
 				}
 			}
 		};
@@ -76,9 +243,22 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 	 * @param memberFilter the new member filter
 	 */
 	public final void setMemberFilter(IMember[] memberFilter) {
+		cancelBackgroundJobs();
 		fMemberFilter= memberFilter;
 	}
 
+	/**
+	 * Sets whether the children of types with many types in their hierarchy are computed in a
+	 * background job. Takes effect when the input of the viewer is set.
+	 *
+	 * @param inBackground <code>true</code> to compute the children of such types in the
+	 *            background
+	 * @since 3.9
+	 */
+	public final void setFetchChildrenInBackground(boolean inBackground) {
+		fFetchChildrenInBackground= inBackground;
+	}
+
 	private boolean initializeMethodOverrideTester(IMethod filterMethod, IType typeToFindIn) {
 		IType filterType= filterMethod.getDeclaringType();
 		ITypeHierarchy hierarchy= fTypeHierarchy.getHierarchy();
@@ -152,6 +332,7 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 	 * @param filter the filter
 	 */
 	public void setWorkingSetFilter(ViewerFilter filter) {
+		cancelBackgroundJobs();
 		fWorkingSetFilter= filter;
 	}
 
@@ -247,24 +428,245 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 	 */
 	public Object[] getChildren(Object element) {
 		if (element instanceof IType) {
-			try {
-				IType type= (IType)element;
-
-				List<IMember> children= new ArrayList<IMember>();
-				if (fMemberFilter != null) {
-					addFilteredMemberChildren(type, children);
+			IType type= (IType)element;
+			if (fManager != null && !isFetched(type) && hasManyTypeChildren(type)) {
+				boolean isPending;
+				synchronized (fBackgroundTypes) {
+					isPending= !fBackgroundTypes.add(type);
+				}
+				if (isPending) {
+					// the tree has been refreshed while the job was running
+					fManager.cancel(type);
 				}
+				Object[] children= fManager.getChildren(type);
+				if (children != null) {
+					setPendingExpandLevel(type);
+					return children;
+				}
+			}
+			return computeChildren(type);
+		}
+		return NO_ELEMENTS;
+	}
 
-				addTypeChildren(type, children);
+	/**
+	 * Returns whether the children of the given type have already been computed in the background
+	 * for the current input elements.
+	 *
+	 * @param type the type
+	 * @return <code>true</code> if the children of the type have been computed in the background
+	 * @since 3.9
+	 */
+	private boolean isFetched(IType type) {
+		IJavaElement[] inputElements= fTypeHierarchy.getInputElements();
+		synchronized (fBackgroundTypes) {
+			if (!Arrays.equals(inputElements, fFetchedInputElements)) {
+				fFetchedTypes.clear();
+				fFetchedInputElements= inputElements;
+			}
+			return fFetchedTypes.contains(type);
+		}
+	}
 
-				return children.toArray();
-			} catch (JavaModelException e) {
-				// ignore
+	private Object[] computeChildren(IType type) {
+		try {
+			List<IMember> children= new ArrayList<IMember>();
+			if (fMemberFilter != null) {
+				addFilteredMemberChildren(type, children);
 			}
+
+			addTypeChildren(type, children);
+
+			return children.toArray();
+		} catch (JavaModelException e) {
+			// ignore
 		}
 		return NO_ELEMENTS;
 	}
 
+	/**
+	 * Computes the children of the given type and adds them to the collector in batches.
+	 *
+	 * @param type the type
+	 * @param collector the collector
+	 * @param monitor the progress monitor
+	 * @throws JavaModelException if a problem occurs
+	 * @throws OperationCanceledException if the monitor is canceled
+	 * @since 3.9
+	 */
+	private void fetchChildren(IType type, IElementCollector collector, IProgressMonitor monitor) throws JavaModelException {
+		List<IMember> children= new ArrayList<IMember>();
+		if (fMemberFilter != null) {
+			addFilteredMemberChildren(type, children);
+		}
+
+		ArrayList<IType> types= new ArrayList<IType>();
+		getTypesInHierarchy(type, types);
+		monitor.beginTask("", types.size()); //$NON-NLS-1$
+		try {
+			for (int i= 0; i < types.size(); i++) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				IType curr= types.get(i);
+				if (isInTree(curr)) {
+					children.add(curr);
+				}
+				if (children.size() >= BACKGROUND_CHILDREN_BATCH_SIZE) {
+					collector.add(children.toArray(), null);
+					children.clear();
+				}
+				monitor.worked(1);
+			}
+			if (!children.isEmpty()) {
+				collector.add(children.toArray(), null);
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private boolean hasManyTypeChildren(IType type) {
+		synchronized (fManyTypeChildren) {
+			Boolean hasMany= fManyTypeChildren.get(type);
+			if (hasMany == null) {
+				ArrayList<IType> types= new ArrayList<IType>();
+				getTypesInHierarchy(type, types);
+				hasMany= Boolean.valueOf(types.size() > BACKGROUND_CHILDREN_THRESHOLD);
+				fManyTypeChildren.put(type, hasMany);
+			}
+			return hasMany.booleanValue();
+		}
+	}
+
+	/**
+	 * Tells that the viewer is about to expand the given element to the given level. Must be
+	 * called in the UI thread.
+	 *
+	 * @param element the element, or <code>null</code> when the viewer has expanded it
+	 * @param level the level, or {@link AbstractTreeViewer#ALL_LEVELS}
+	 * @see AbstractTreeViewer#expandToLevel(Object, int)
+	 * @since 3.9
+	 */
+	final void setExpandLevel(Object element, int level) {
+		fExpandElement= element;
+		fExpandLevel= level;
+	}
+
+	/*
+	 * Remembers the level to which the viewer is expanding the given type, if its children are
+	 * to be expanded as well.
+	 */
+	private void setPendingExpandLevel(IType type) {
+		if (type.equals(fExpandElement) && (fExpandLevel == AbstractTreeViewer.ALL_LEVELS || fExpandLevel > 1))
+			fPendingExpandLevels.put(type, new Integer(fExpandLevel));
+	}
+
+	/**
+	 * Tells that the viewer has set the given selection. The selection is set again when no more
+	 * children are pending, if some of its elements were not found and if the selection of the
+	 * viewer has not changed since. Must be called in the UI thread.
+	 *
+	 * @param elements the selected elements, or <code>null</code>
+	 * @param reveal whether the selection was revealed
+	 * @param isComplete whether all elements have been found in the tree
+	 * @since 3.9
+	 */
+	final void selectionSet(List<?> elements, boolean reveal, boolean isComplete) {
+		if (isComplete || !hasPendingChildren()) {
+			fPendingSelection= null;
+			fPendingSelectionBase= null;
+		} else {
+			fPendingSelection= new ArrayList<Object>(elements);
+			fPendingSelectionReveal= reveal;
+			fPendingSelectionBase= fViewer.getSelection();
+		}
+	}
+
+	/**
+	 * Returns whether the given element is shown in the tree once the pending children of one of
+	 * its ancestors have been added.
+	 *
+	 * @param element the element
+	 * @return <code>true</code> if the element is pending
+	 * @since 3.9
+	 */
+	final boolean isPendingElement(Object element) {
+		if (!(element instanceof IType))
+			return false;
+		synchronized (fBackgroundTypes) {
+			if (fBackgroundTypes.isEmpty())
+				return false;
+			Object parent= getParent(element);
+			while (parent != null && !fBackgroundTypes.contains(parent))
+				parent= getParent(parent);
+			if (parent == null)
+				return false;
+		}
+		try {
+			return isInTree((IType) element);
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	private boolean hasPendingChildren() {
+		synchronized (fBackgroundTypes) {
+			return !fBackgroundTypes.isEmpty();
+		}
+	}
+
+	/*
+	 * Applies the expansion and the selection that were pending when a job has finished adding
+	 * children. Called in the UI thread.
+	 */
+	private void restorePendingState() {
+		Control control= fViewer.getControl();
+		if (control == null || control.isDisposed())
+			return;
+		synchronized (fBackgroundTypes) {
+			fBackgroundTypes.removeAll(fFetchedTypes);
+		}
+		Map<IType, Integer> finished= new HashMap<IType, Integer>();
+		for (Iterator<Map.Entry<IType, Integer>> iter= fPendingExpandLevels.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IType, Integer> entry= iter.next();
+			synchronized (fBackgroundTypes) {
+				if (fBackgroundTypes.contains(entry.getKey()))
+					continue;
+			}
+			finished.put(entry.getKey(), entry.getValue());
+			iter.remove();
+		}
+		// expanding can defer the children of other types
+		for (Iterator<Map.Entry<IType, Integer>> iter= finished.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IType, Integer> entry= iter.next();
+			IType type= entry.getKey();
+			if (isFetched(type) && fViewer.getExpandedState(type))
+				fViewer.expandToLevel(type, entry.getValue().intValue());
+		}
+		if (fPendingSelection != null && !hasPendingChildren()) {
+			List<?> selection= fPendingSelection;
+			boolean reveal= fPendingSelectionReveal;
+			boolean isUnchanged= fViewer.getSelection().equals(fPendingSelectionBase);
+			fPendingSelection= null;
+			fPendingSelectionBase= null;
+			if (isUnchanged)
+				fViewer.setSelection(new StructuredSelection(selection), reveal);
+		}
+	}
+
+	private void cancelBackgroundJobs() {
+		if (fManager == null)
+			return;
+		IType[] types;
+		synchronized (fBackgroundTypes) {
+			types= fBackgroundTypes.toArray(new IType[fBackgroundTypes.size()]);
+			fBackgroundTypes.clear();
+		}
+		for (int i= 0; i < types.length; i++) {
+			fManager.cancel(types[i]);
+		}
+	}
+
 	/*
 	 * @see ITreeContentProvider#hasChildren
 	 */
@@ -348,7 +750,40 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 	 */
 	public void inputChanged(Viewer part, Object oldInput, Object newInput) {
 		Assert.isTrue(part instanceof TreeViewer);
+		cancelBackgroundJobs();
+		synchronized (fManyTypeChildren) {
+			fManyTypeChildren.clear();
+		}
+		fPendingExpandLevels.clear();
+		fPendingSelection= null;
+		fPendingSelectionBase= null;
 		fViewer= (TreeViewer)part;
+		if (fFetchChildrenInBackground && fManager == null) {
+			fManager= new DeferredTreeContentManager(fViewer) {
+				private final IDeferredWorkbenchAdapter fAdapter= new DeferredTypeAdapter();
+
+				@Override
+				protected IDeferredWorkbenchAdapter getAdapter(Object element) {
+					if (element instanceof IType)
+						return fAdapter;
+					return super.getAdapter(element);
+				}
+			};
+			fManager.addUpdateCompleteListener(new JobChangeAdapter() {
+				@Override
+				public void done(IJobChangeEvent event) {
+					Control control= fViewer.getControl();
+					if (control != null && !control.isDisposed()) {
+						// after the jobs that add the children
+						control.getDisplay().asyncExec(new Runnable() {
+							public void run() {
+								restorePendingState();
+							}
+						});
+					}
+				}
+			});
+		}
 	}
 
 	/*
@@ -356,7 +791,7 @@ public abstract class TypeHierarchyContentProvider implements ITreeContentProvid
 	 */
 	public void dispose() {
 		fTypeHierarchy.removeChangedListener(fTypeHierarchyLifeCycleListener);
-
+		cancelBackgroundJobs();
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,13 +13,19 @@ package org.eclipse.jdt.internal.ui.typehierarchy;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
@@ -36,10 +42,10 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IParent;
 import org.eclipse.jdt.core.IRegion;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
-import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 
@@ -50,8 +56,58 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 /**
  * Manages a type hierarchy, to keep it refreshed, and to allow it to be shared.
+ * <p>
+ * Changes to compilation units that do not change the super types of the types in the hierarchy,
+ * and do not add or remove types related to it, are only reported as changed types. Other changes
+ * require the hierarchy to be refreshed. They are reported after a short delay, so that a burst of
+ * changes causes only one refresh.
+ * </p>
  */
-public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IElementChangedListener {
+public class TypeHierarchyLifeCycle implements IElementChangedListener {
+
+	/**
+	 * The types of a hierarchy by compilation unit, and the fully qualified names of its focus type
+	 * and its subtypes.
+	 *
+	 * @since 3.9
+	 */
+	private static final class TypeIndex {
+		final ITypeHierarchy fHierarchy;
+		final Map<ICompilationUnit, List<IType>> fTypesByUnit;
+		final Set<String> fSubtypeNames;
+
+		TypeIndex(ITypeHierarchy hierarchy, Map<ICompilationUnit, List<IType>> typesByUnit, Set<String> subtypeNames) {
+			fHierarchy= hierarchy;
+			fTypesByUnit= typesByUnit;
+			fSubtypeNames= subtypeNames;
+		}
+	}
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/TypeHierarchyLifeCycle"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	private static final String DEBUG_PREFIX= "TypeHierarchyLifeCycle > "; //$NON-NLS-1$
+
+	/**
+	 * The delay in milliseconds after the last change before a change requiring a refresh is
+	 * reported.
+	 *
+	 * @since 3.9
+	 */
+	private static final long CHANGE_NOTIFICATION_DELAY= 500;
+
+	/**
+	 * The maximum delay in milliseconds before a change requiring a refresh is reported.
+	 *
+	 * @since 3.9
+	 */
+	private static final long MAX_CHANGE_NOTIFICATION_DELAY= 3000;
+
+	/**
+	 * The family of the jobs that report a change requiring a refresh.
+	 *
+	 * @since 3.9
+	 */
+	public static final Object FAMILY= new Object();
 
 	private boolean fHierarchyRefreshNeeded;
 	private ITypeHierarchy fHierarchy;
@@ -81,6 +137,35 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	private boolean fRefreshJobCanceledExplicitly= true;
 
+	/**
+	 * The job that reports a change requiring a refresh, or <code>null</code>.
+	 *
+	 * @since 3.9
+	 */
+	private Job fChangeNotificationJob;
+
+	/**
+	 * The time at which the pending change notification was first requested.
+	 *
+	 * @since 3.9
+	 */
+	private long fChangeNotificationRequestTime;
+
+	/**
+	 * The index of the types of the hierarchy, computed on demand. It is read in the thread that
+	 * reports Java element changes and discarded when the hierarchy is refreshed or freed.
+	 *
+	 * @since 3.9
+	 */
+	private TypeIndex fTypeIndex;
+
+	/**
+	 * The number of changes that required a refresh and that did not, for tracing.
+	 *
+	 * @since 3.9
+	 */
+	private int fRefreshCount, fUpdateCount;
+
 	/**
 	 * Creates the type hierarchy life cycle.
 	 *
@@ -116,16 +201,20 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 
 	public void freeHierarchy() {
 		if (fHierarchy != null) {
-			fHierarchy.removeTypeHierarchyChangedListener(this);
 			JavaCore.removeElementChangedListener(this);
 			fHierarchy= null;
 			fInputElements= null;
+			fTypeIndex= null;
 		}
 		synchronized (this) {
 			if (fRefreshHierarchyJob != null) {
 				fRefreshHierarchyJob.cancel();
 				fRefreshHierarchyJob= null;
 			}
+			if (fChangeNotificationJob != null) {
+				fChangeNotificationJob.cancel();
+				fChangeNotificationJob= null;
+			}
 		}
 	}
 
@@ -320,12 +409,18 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 
 	public void doHierarchyRefresh(IJavaElement[] elements, IProgressMonitor pm) throws JavaModelException {
 		boolean hierachyCreationNeeded= (fHierarchy == null || !Arrays.equals(elements, fInputElements));
-		// to ensure the order of the two listeners always remove / add listeners on operations
-		// on type hierarchies
+		// changes to the hierarchy are detected by this life cycle, see #elementChanged(ElementChangedEvent)
 		if (fHierarchy != null) {
-			fHierarchy.removeTypeHierarchyChangedListener(this);
 			JavaCore.removeElementChangedListener(this);
 		}
+		synchronized (this) {
+			if (fChangeNotificationJob != null) {
+				fChangeNotificationJob.cancel();
+				fChangeNotificationJob= null;
+			}
+		}
+		fTypeIndex= null;
+		long start= DEBUG ? System.currentTimeMillis() : 0;
 		if (hierachyCreationNeeded) {
 			fHierarchy= createTypeHierarchy(elements, pm);
 			if (pm != null && pm.isCanceled()) {
@@ -337,36 +432,285 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 			if (pm != null && pm.isCanceled())
 				throw new OperationCanceledException();
 		}
-		fHierarchy.addTypeHierarchyChangedListener(this);
+		if (DEBUG)
+			System.out.println(DEBUG_PREFIX + (hierachyCreationNeeded ? "created" : "refreshed") + " hierarchy in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		JavaCore.addElementChangedListener(this);
 		fHierarchyRefreshNeeded= false;
 	}
 
-	/*
-	 * @see ITypeHierarchyChangedListener#typeHierarchyChanged
-	 */
-	public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
-	 	fHierarchyRefreshNeeded= true;
- 		fireChange(null);
-	}
-
 	/*
 	 * @see IElementChangedListener#elementChanged(ElementChangedEvent)
 	 */
 	public void elementChanged(ElementChangedEvent event) {
+		if (fHierarchyRefreshNeeded) {
+			if (!fChangeListeners.isEmpty() && !isHierarchyUnchanged(event.getDelta()))
+				scheduleChangeNotification();
+			return;
+		}
+		if (!isHierarchyUnchanged(event.getDelta())) {
+			fHierarchyRefreshNeeded= true;
+			if (DEBUG)
+				System.out.println(DEBUG_PREFIX + "refresh needed, refreshes: " + ++fRefreshCount + ", updates: " + fUpdateCount); //$NON-NLS-1$ //$NON-NLS-2$
+			if (!fChangeListeners.isEmpty())
+				scheduleChangeNotification();
+			return;
+		}
 		if (fChangeListeners.isEmpty()) {
 			return;
 		}
 
-		if (fHierarchyRefreshNeeded) {
+		ArrayList<IType> changedTypes= new ArrayList<IType>();
+		processDelta(event.getDelta(), changedTypes);
+		if (changedTypes.size() > 0) {
+			if (DEBUG)
+				System.out.println(DEBUG_PREFIX + "updated " + changedTypes.size() + " types, refreshes: " + fRefreshCount + ", updates: " + ++fUpdateCount); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			fireChange(changedTypes.toArray(new IType[changedTypes.size()]));
+		}
+	}
+
+	/**
+	 * Reports a change requiring a refresh once no further such changes happened for
+	 * {@link #CHANGE_NOTIFICATION_DELAY}, but at most {@link #MAX_CHANGE_NOTIFICATION_DELAY} after
+	 * the first change.
+	 *
+	 * @since 3.9
+	 */
+	private synchronized void scheduleChangeNotification() {
+		long now= System.currentTimeMillis();
+		if (fChangeNotificationJob == null) {
+			fChangeNotificationJob= new Job(TypeHierarchyMessages.TypeHierarchyLifeCycle_notifyChange) {
+				/*
+				 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+				 */
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					synchronized (TypeHierarchyLifeCycle.this) {
+						if (fChangeNotificationJob != this)
+							return Status.CANCEL_STATUS;
+						fChangeNotificationJob= null;
+					}
+					fireChange(null);
+					return Status.OK_STATUS;
+				}
+
+				/*
+				 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+				 */
+				@Override
+				public boolean belongsTo(Object family) {
+					return family == FAMILY;
+				}
+			};
+			fChangeNotificationJob.setSystem(true);
+			fChangeNotificationRequestTime= now;
+		} else if (now - fChangeNotificationRequestTime + CHANGE_NOTIFICATION_DELAY > MAX_CHANGE_NOTIFICATION_DELAY) {
 			return;
 		} else {
-			ArrayList<IType> changedTypes= new ArrayList<IType>();
-			processDelta(event.getDelta(), changedTypes);
-			if (changedTypes.size() > 0) {
-				fireChange(changedTypes.toArray(new IType[changedTypes.size()]));
+			fChangeNotificationJob.cancel();
+		}
+		fChangeNotificationJob.schedule(CHANGE_NOTIFICATION_DELAY);
+	}
+
+	/**
+	 * Tells whether the given delta leaves the hierarchy intact. Changes to compilation units are
+	 * checked by comparing the super types of their types to the hierarchy, all other structural
+	 * changes are assumed to change the hierarchy.
+	 *
+	 * @param delta the delta
+	 * @return <code>true</code> if the hierarchy does not need to be refreshed
+	 * @since 3.9
+	 */
+	private boolean isHierarchyUnchanged(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				return areChildrenUnchanged(delta);
+			case IJavaElement.JAVA_PROJECT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+						| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0)
+					return false;
+				return areChildrenUnchanged(delta);
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+						| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_REORDER)) != 0)
+					return false;
+				return areChildrenUnchanged(delta);
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return false;
+				return areChildrenUnchanged(delta);
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit cu= (ICompilationUnit) element;
+				if (!JavaModelUtil.isPrimary(cu))
+					return true;
+				try {
+					return isUnitUnchanged(cu, delta.getKind());
+				} catch (JavaModelException e) {
+					return false;
+				}
+			case IJavaElement.CLASS_FILE:
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	private boolean areChildrenUnchanged(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!isHierarchyUnchanged(children[i]))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isUnitUnchanged(ICompilationUnit cu, int kind) throws JavaModelException {
+		ITypeHierarchy hierarchy= getHierarchy();
+		if (hierarchy == null)
+			return true;
+		TypeIndex index= getTypeIndex(hierarchy);
+		IJavaElement[] inputElements= fInputElements;
+
+		List<IType> types= new ArrayList<IType>();
+		if (kind != IJavaElementDelta.REMOVED && cu.exists())
+			collectTypes(cu, types);
+
+		List<IType> hierarchyTypes= index.fTypesByUnit.get(cu);
+		if (hierarchyTypes != null && !types.containsAll(hierarchyTypes))
+			return false; // a type of the hierarchy has been removed
+
+		boolean isRegion= inputElements == null || inputElements.length != 1 || inputElements[0].getElementType() != IJavaElement.TYPE;
+		for (int i= 0; i < types.size(); i++) {
+			IType type= types.get(i);
+			Set<String> superTypeNames= getSuperTypeNames(type);
+			if (hierarchy.contains(type)) {
+				if (!superTypeNames.equals(getSuperTypeNames(hierarchy, type)))
+					return false; // the super types have changed
+			} else if (isRegion) {
+				return false; // a type has been added to the region
+			} else if (!fIsSuperTypesOnly) {
+				// only the subtypes of the focus type are added, so the implicit java.lang.Object matters only for its own hierarchy
+				for (Iterator<String> iter= superTypeNames.iterator(); iter.hasNext();) {
+					if (index.fSubtypeNames.contains(iter.next()))
+						return false; // a type might have been added to the hierarchy
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Returns the index of the given hierarchy. The index is returned rather than read from the
+	 * field, since the hierarchy can be refreshed or freed in another thread.
+	 */
+	private TypeIndex getTypeIndex(ITypeHierarchy hierarchy) {
+		TypeIndex index= fTypeIndex;
+		if (index != null && index.fHierarchy == hierarchy)
+			return index;
+		Map<ICompilationUnit, List<IType>> typesByUnit= new HashMap<ICompilationUnit, List<IType>>();
+		Set<String> subtypeNames= new HashSet<String>();
+		IType focus= hierarchy.getType();
+		if (focus != null) {
+			subtypeNames.add(focus.getFullyQualifiedName('.'));
+			IType[] subtypes= hierarchy.getAllSubtypes(focus);
+			for (int i= 0; i < subtypes.length; i++)
+				subtypeNames.add(subtypes[i].getFullyQualifiedName('.'));
+		}
+		IType[] types= hierarchy.getAllTypes();
+		for (int i= 0; i < types.length; i++) {
+			ICompilationUnit cu= types[i].getCompilationUnit();
+			if (cu != null) {
+				List<IType> list= typesByUnit.get(cu);
+				if (list == null) {
+					list= new ArrayList<IType>(2);
+					typesByUnit.put(cu, list);
+				}
+				list.add(types[i]);
 			}
 		}
+		index= new TypeIndex(hierarchy, typesByUnit, subtypeNames);
+		fTypeIndex= index;
+		return index;
+	}
+
+	/*
+	 * Collects all types including local and anonymous types.
+	 */
+	private static void collectTypes(IParent parent, List<IType> types) throws JavaModelException {
+		IJavaElement[] children= parent.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (children[i] instanceof IType)
+				types.add((IType) children[i]);
+			if (children[i] instanceof IParent && children[i].getElementType() != IJavaElement.IMPORT_CONTAINER)
+				collectTypes((IParent) children[i], types);
+		}
+	}
+
+	/*
+	 * Returns the fully qualified names of the super types as declared in the source, including the implicit super types.
+	 */
+	private static Set<String> getSuperTypeNames(IType type) throws JavaModelException {
+		Set<String> names= new HashSet<String>();
+		String superclassName= type.getSuperclassName();
+		if (superclassName != null)
+			names.add(resolveTypeName(type, superclassName));
+		String[] superInterfaceNames= type.getSuperInterfaceNames();
+		for (int i= 0; i < superInterfaceNames.length; i++)
+			names.add(resolveTypeName(type, superInterfaceNames[i]));
+		addImplicitSuperTypeNames(type, names);
+		return names;
+	}
+
+	/*
+	 * Returns the fully qualified names of the super types recorded in the hierarchy.
+	 */
+	private static Set<String> getSuperTypeNames(ITypeHierarchy hierarchy, IType type) throws JavaModelException {
+		Set<String> names= new HashSet<String>();
+		IType superclass= hierarchy.getSuperclass(type);
+		if (superclass != null)
+			names.add(superclass.getFullyQualifiedName('.'));
+		IType[] superInterfaces= hierarchy.getSuperInterfaces(type);
+		for (int i= 0; i < superInterfaces.length; i++)
+			names.add(superInterfaces[i].getFullyQualifiedName('.'));
+		addImplicitSuperTypeNames(type, names);
+		return names;
+	}
+
+	private static void addImplicitSuperTypeNames(IType type, Set<String> names) throws JavaModelException {
+		if (type.isAnnotation())
+			names.add("java.lang.annotation.Annotation"); //$NON-NLS-1$
+		else if (type.isEnum())
+			names.add("java.lang.Enum"); //$NON-NLS-1$
+		else if (!type.isInterface())
+			names.add("java.lang.Object"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Resolves a super type name in the context of the type, so that an import change that binds it
+	 * to another type is detected. Unresolved and ambiguous names are returned without type arguments.
+	 */
+	private static String resolveTypeName(IType type, String typeName) throws JavaModelException {
+		String erasure= getErasure(typeName);
+		String[][] resolved= type.resolveType(erasure);
+		if (resolved == null || resolved.length != 1)
+			return erasure;
+		return JavaModelUtil.concatenateName(resolved[0][0], resolved[0][1]);
+	}
+
+	private static String getErasure(String typeName) {
+		StringBuffer buf= new StringBuffer(typeName.length());
+		int depth= 0;
+		for (int i= 0; i < typeName.length(); i++) {
+			char ch= typeName.charAt(i);
+			if (ch == '<')
+				depth++;
+			else if (ch == '>')
+				depth--;
+			else if (depth == 0 && !Character.isWhitespace(ch))
+				buf.append(ch);
+		}
+		return buf.toString();
 	}
 
 	/*
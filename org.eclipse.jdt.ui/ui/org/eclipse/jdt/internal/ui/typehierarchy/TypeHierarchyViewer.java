@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.typehierarchy;
 
+import java.util.List;
+
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.Widget;
 
 import org.eclipse.core.runtime.Assert;
 
@@ -49,6 +52,7 @@ public abstract class TypeHierarchyViewer extends ProblemTreeViewer {
 		setUseHashlookup(true);
 
 		setContentProvider(contentProvider);
+		getHierarchyContentProvider().setFetchChildrenInBackground(true);
 		setComparator(new HierarchyViewerSorter(lifeCycle));
 
 		JavaUIHelp.setHelp(this, IJavaHelpContextIds.TYPE_HIERARCHY_VIEW);
@@ -151,12 +155,41 @@ public abstract class TypeHierarchyViewer extends ProblemTreeViewer {
 	}
 
 	/**
-	 * Returns true if the hierarchy contains element the element.
+	 * Returns true if the hierarchy contains element the element. Elements are also shown if they
+	 * are among the children that are computed in the background.
 	 * @param element the element
 	 * @return <code>true</code> if element is shown
 	 */
 	public boolean isElementShown(Object element) {
-		return findItem(element) != null;
+		return findItem(element) != null || getHierarchyContentProvider().isPendingElement(element);
+	}
+
+	/*
+	 * @see org.eclipse.jface.viewers.AbstractTreeViewer#internalExpandToLevel(org.eclipse.swt.widgets.Widget, int)
+	 */
+	@Override
+	protected void internalExpandToLevel(Widget widget, int level) {
+		// the children are created first, so the content provider can expand pending children later
+		TypeHierarchyContentProvider contentProvider= getHierarchyContentProvider();
+		contentProvider.setExpandLevel(widget.getData(), level);
+		try {
+			super.internalExpandToLevel(widget, level);
+		} finally {
+			contentProvider.setExpandLevel(null, 0);
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.viewers.AbstractTreeViewer#setSelectionToWidget(java.util.List, boolean)
+	 */
+	@Override
+	protected void setSelectionToWidget(List l, boolean reveal) {
+		super.setSelectionToWidget(l, reveal);
+		boolean isComplete= true;
+		for (int i= 0; l != null && i < l.size() && isComplete; i++) {
+			isComplete= findItem(l.get(i)) != null;
+		}
+		getHierarchyContentProvider().selectionSet(l, reveal, isComplete);
 	}
 
 	/**
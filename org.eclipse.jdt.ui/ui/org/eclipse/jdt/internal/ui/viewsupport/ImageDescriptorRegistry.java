@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,7 +23,8 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.PlatformUI;
 
 /**
- * A registry that maps <code>ImageDescriptors</code> to <code>Image</code>.
+ * A registry that maps <code>ImageDescriptors</code> to <code>Image</code>. The registry can be
+ * accessed from any thread.
  */
 public class ImageDescriptorRegistry {
 
@@ -48,7 +49,7 @@ public class ImageDescriptorRegistry {
 	 * @return the image associated with the image descriptor or <code>null</code>
 	 *  if the image descriptor can't create the requested image.
 	 */
-	public Image get(ImageDescriptor descriptor) {
+	public synchronized Image get(ImageDescriptor descriptor) {
 		if (descriptor == null)
 			descriptor= ImageDescriptor.getMissingImageDescriptor();
 
@@ -56,7 +57,7 @@ public class ImageDescriptorRegistry {
 		if (result != null)
 			return result;
 
-		result= descriptor.createImage();
+		result= descriptor.createImage(true, fDisplay);
 		if (result != null)
 			fRegistry.put(descriptor, result);
 		return result;
@@ -65,7 +66,7 @@ public class ImageDescriptorRegistry {
 	/**
 	 * Disposes all images managed by this registry.
 	 */
-	public void dispose() {
+	public synchronized void dispose() {
 		for (Iterator<Image> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
 			Image image= iter.next();
 			image.dispose();
@@ -74,10 +75,19 @@ public class ImageDescriptorRegistry {
 	}
 
 	private void hookDisplay() {
-		fDisplay.disposeExec(new Runnable() {
+		final Runnable disposer= new Runnable() {
 			public void run() {
 				dispose();
 			}
-		});
+		};
+		if (fDisplay.getThread() == Thread.currentThread()) {
+			fDisplay.disposeExec(disposer);
+		} else {
+			fDisplay.asyncExec(new Runnable() {
+				public void run() {
+					fDisplay.disposeExec(disposer);
+				}
+			});
+		}
 	}
 }
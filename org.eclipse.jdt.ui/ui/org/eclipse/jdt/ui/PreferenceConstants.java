@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -3594,6 +3594,10 @@ public class PreferenceConstants {
 	 * <p>
 	 * Value is an XML encoded version of the history.
 	 * </p>
+	 * <p>
+	 * Since 3.9 the history is stored in a file in the plug-in state location. This preference is
+	 * only read to migrate a history stored by an earlier version, and is cleared afterwards.
+	 * </p>
 	 *
 	 * @see org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory#load(org.eclipse.core.runtime.Preferences, String)
 	 * @since 3.2
@@ -3611,6 +3615,18 @@ public class PreferenceConstants {
 	 */
 	public static final String CODEASSIST_SORTER= "content_assist_sorter"; //$NON-NLS-1$
 
+	/**
+	 * A named preference that controls whether Java proposals are computed in the background
+	 * after a <code>'.'</code> or <code>'('</code> has been typed in Java code, so that a
+	 * completion invoked shortly afterwards at the same position can use the result.
+	 * <p>
+	 * Value is of type <code>Boolean</code>.
+	 * </p>
+	 *
+	 * @since 3.9
+	 */
+	public static final String CODEASSIST_PREFETCH= "content_assist_prefetch"; //$NON-NLS-1$
+
 	/**
 	 * A named preference that holds the source hover background color.
 	 * <p>
@@ -3811,6 +3827,7 @@ public class PreferenceConstants {
 		store.setDefault(PreferenceConstants.CODEASSIST_CATEGORY_ORDER, "org.eclipse.jdt.ui.spellingProposalCategory:65545\0org.eclipse.jdt.ui.javaTypeProposalCategory:65540\0org.eclipse.jdt.ui.javaNoTypeProposalCategory:65539\0org.eclipse.jdt.ui.textProposalCategory:65541\0org.eclipse.jdt.ui.javaAllProposalCategory:65542\0org.eclipse.jdt.ui.templateProposalCategory:2\0org.eclipse.jdt.ui.swtProposalCategory:3\0"); //$NON-NLS-1$
 		store.setDefault(PreferenceConstants.CODEASSIST_LRU_HISTORY, ""); //$NON-NLS-1$
 		store.setDefault(PreferenceConstants.CODEASSIST_SORTER, "org.eclipse.jdt.ui.RelevanceSorter"); //$NON-NLS-1$
+		store.setDefault(PreferenceConstants.CODEASSIST_PREFETCH, false);
 		store.setDefault(PreferenceConstants.CODEASSIST_FAVORITE_STATIC_MEMBERS, ""); //$NON-NLS-1$
 
 		store.setDefault(PreferenceConstants.EDITOR_SUB_WORD_NAVIGATION, true);
@@ -119,6 +119,27 @@ public class CompletionProposalCollector extends CompletionRequestor {
 	private CompletionContext fContext;
 	private IProblem fLastProblem;
 
+	/**
+	 * The maximum number of non-keyword proposals to create, <code>0</code> for no limit.
+	 *
+	 * @since 3.9
+	 */
+	private int fProposalLimit;
+	/**
+	 * Min-heap by relevance of the core proposals for which no UI proposal has been created yet.
+	 *
+	 * @since 3.9
+	 */
+	private CompletionProposal[] fPending;
+	/**
+	 * The relevances of the pending proposals.
+	 *
+	 * @since 3.9
+	 */
+	private int[] fPendingRelevance;
+	private int fPendingCount;
+	private int fDroppedCount;
+
 	/* performance instrumentation */
 	private long fStartTime;
 	private long fUITime;
@@ -252,24 +273,167 @@ public class CompletionProposalCollector extends CompletionRequestor {
 
 			if (proposal.getKind() == CompletionProposal.POTENTIAL_METHOD_DECLARATION) {
 				acceptPotentialMethodDeclaration(proposal);
+			} else if (fProposalLimit > 0 && isLimited(proposal)) {
+				addPending(proposal, computeRelevance(proposal));
 			} else {
-				IJavaCompletionProposal javaProposal= createJavaCompletionProposal(proposal);
-				if (javaProposal != null) {
-					fJavaProposals.add(javaProposal);
-					if (proposal.getKind() == CompletionProposal.KEYWORD)
-						fKeywords.add(javaProposal);
-				}
+				addJavaCompletionProposal(proposal);
 			}
 		} catch (IllegalArgumentException e) {
 			// all signature processing method may throw IAEs
 			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=84657
 			// don't abort, but log and show all the valid proposals
-			JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, "Exception when processing proposal for: " + String.valueOf(proposal.getCompletion()), e)); //$NON-NLS-1$
+			logProposalException(proposal, e);
 		}
 
 		if (DEBUG) fUITime += System.currentTimeMillis() - start;
 	}
 
+	private void addJavaCompletionProposal(CompletionProposal proposal) {
+		IJavaCompletionProposal javaProposal= createJavaCompletionProposal(proposal);
+		if (javaProposal != null) {
+			fJavaProposals.add(javaProposal);
+			if (proposal.getKind() == CompletionProposal.KEYWORD)
+				fKeywords.add(javaProposal);
+		}
+	}
+
+	/**
+	 * Tells whether the given proposal is subject to the proposal limit. Method declaration
+	 * proposals are created immediately as they are needed to evaluate potential method
+	 * declarations.
+	 *
+	 * @param proposal the core proposal
+	 * @return <code>true</code> if creating the UI proposal can be deferred
+	 * @since 3.9
+	 */
+	private static boolean isLimited(CompletionProposal proposal) {
+		int kind= proposal.getKind();
+		return kind != CompletionProposal.KEYWORD && kind != CompletionProposal.METHOD_DECLARATION;
+	}
+
+	private void logProposalException(CompletionProposal proposal, IllegalArgumentException e) {
+		JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, "Exception when processing proposal for: " + String.valueOf(proposal.getCompletion()), e)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Sets the maximum number of proposals for which UI proposals are created. If more
+	 * proposals are accepted, only the ones with the highest
+	 * {@linkplain #computeRelevance(CompletionProposal) relevance} are kept. The UI proposals are
+	 * created when they are first requested, after all proposals have been accepted. Keyword
+	 * and method declaration proposals are not limited.
+	 * <p>
+	 * The limit must be set before code completion is run.
+	 * </p>
+	 *
+	 * @param limit the maximum number of proposals, or <code>0</code> for no limit (the default)
+	 * @see #getDroppedProposalCount()
+	 * @since 3.9
+	 */
+	public final void setProposalLimit(int limit) {
+		Assert.isLegal(limit >= 0);
+		fProposalLimit= limit;
+	}
+
+	/**
+	 * Returns the number of proposals that were dropped because the
+	 * {@linkplain #setProposalLimit(int) proposal limit} was exceeded.
+	 *
+	 * @return the number of dropped proposals
+	 * @since 3.9
+	 */
+	public final int getDroppedProposalCount() {
+		return fDroppedCount;
+	}
+
+	/**
+	 * Adds a proposal to the heap of pending proposals. If the heap is full, the proposal with the
+	 * lowest relevance is dropped.
+	 *
+	 * @param proposal the core proposal
+	 * @param relevance the relevance of the proposal
+	 * @since 3.9
+	 */
+	private void addPending(CompletionProposal proposal, int relevance) {
+		if (fPendingCount < fProposalLimit) {
+			if (fPending == null || fPendingCount == fPending.length) {
+				int capacity= fPending == null ? Math.min(fProposalLimit, 64) : Math.min(fProposalLimit, fPending.length * 2);
+				CompletionProposal[] pending= new CompletionProposal[capacity];
+				int[] pendingRelevance= new int[capacity];
+				if (fPending != null) {
+					System.arraycopy(fPending, 0, pending, 0, fPendingCount);
+					System.arraycopy(fPendingRelevance, 0, pendingRelevance, 0, fPendingCount);
+				}
+				fPending= pending;
+				fPendingRelevance= pendingRelevance;
+			}
+			// sift up
+			int i= fPendingCount++;
+			while (i > 0) {
+				int parent= (i - 1) >>> 1;
+				if (fPendingRelevance[parent] <= relevance)
+					break;
+				fPending[i]= fPending[parent];
+				fPendingRelevance[i]= fPendingRelevance[parent];
+				i= parent;
+			}
+			fPending[i]= proposal;
+			fPendingRelevance[i]= relevance;
+			return;
+		}
+
+		fDroppedCount++;
+		if (relevance <= fPendingRelevance[0])
+			return;
+
+		// replace the least relevant proposal and sift down
+		int i= 0;
+		while (true) {
+			int child= 2 * i + 1;
+			if (child >= fPendingCount)
+				break;
+			if (child + 1 < fPendingCount && fPendingRelevance[child + 1] < fPendingRelevance[child])
+				child++;
+			if (relevance <= fPendingRelevance[child])
+				break;
+			fPending[i]= fPending[child];
+			fPendingRelevance[i]= fPendingRelevance[child];
+			i= child;
+		}
+		fPending[i]= proposal;
+		fPendingRelevance[i]= relevance;
+	}
+
+	/**
+	 * Creates the UI proposals for the pending core proposals.
+	 *
+	 * @since 3.9
+	 */
+	private void createPendingProposals() {
+		if (fPendingCount == 0)
+			return;
+
+		long start= DEBUG ? System.currentTimeMillis() : 0;
+		for (int i= 0; i < fPendingCount; i++) {
+			CompletionProposal proposal= fPending[i];
+			try {
+				addJavaCompletionProposal(proposal);
+			} catch (IllegalArgumentException e) {
+				logProposalException(proposal, e);
+			}
+		}
+		clearPending();
+
+		if (DEBUG) {
+			System.err.println("Core Collector (create):\t" + (System.currentTimeMillis() - start) + ", dropped " + fDroppedCount); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private void clearPending() {
+		fPending= null;
+		fPendingRelevance= null;
+		fPendingCount= 0;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -299,6 +463,8 @@ public class CompletionProposalCollector extends CompletionRequestor {
 		fJavaProposals.clear();
 		fKeywords.clear();
 		fSuggestedMethodNames.clear();
+		clearPending();
+		fDroppedCount= 0;
 	}
 
 	/**
@@ -345,6 +511,7 @@ public class CompletionProposalCollector extends CompletionRequestor {
 	 * @return the unsorted list of received proposals
 	 */
 	public final IJavaCompletionProposal[] getJavaCompletionProposals() {
+		createPendingProposals();
 		return CollectionsUtil.toArray(fJavaProposals, IJavaCompletionProposal.class);
 	}
 
@@ -354,6 +521,7 @@ public class CompletionProposalCollector extends CompletionRequestor {
 	 * @return the unsorted list of received keyword proposals
 	 */
 	public final IJavaCompletionProposal[] getKeywordCompletionProposals() {
+		createPendingProposals();
 		return CollectionsUtil.toArray(fKeywords, IJavaCompletionProposal.class);
 	}
 